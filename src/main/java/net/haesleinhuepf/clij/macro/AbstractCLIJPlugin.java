@@ -12,6 +12,7 @@ import net.haesleinhuepf.clij.CLIJ;
 import net.haesleinhuepf.clij.macro.documentation.HTMLDocumentationTemplate;
 import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
 import net.haesleinhuepf.clij.utilities.CLIJUtilities;
+import net.haesleinhuepf.clij.utilities.ImgLib2Transfer;
 import net.imglib2.RandomAccessibleInterval;
 
 import javax.swing.*;
@@ -76,7 +77,9 @@ public abstract class AbstractCLIJPlugin implements PlugInFilter, CLIJMacroPlugi
         int i = 0;
         for (Object item : args) {
             if (item instanceof RandomAccessibleInterval) {
-                result[i] = clij.convert((RandomAccessibleInterval)item, ClearCLBuffer.class);
+                // ArrayImgs and PlanarImgs are copied in bulk
+                ClearCLBuffer buffer = ImgLib2Transfer.push(clij, (RandomAccessibleInterval)item);
+                result[i] = buffer != null ? buffer : clij.convert((RandomAccessibleInterval)item, ClearCLBuffer.class);
             } else if (item instanceof ImagePlus) {
                 result[i] = clij.convert((ImagePlus)item, ClearCLBuffer.class);
             } else if(item instanceof ClearCLImage) {
@@ -126,7 +129,8 @@ public abstract class AbstractCLIJPlugin implements PlugInFilter, CLIJMacroPlugi
             } else if(item instanceof ClearCLImage) {
                 result[i] = clij.convert((ClearCLImage)item, RandomAccessibleInterval.class);
             } else if(item instanceof ClearCLBuffer) {
-                result[i] = clij.convert((ClearCLBuffer)item, RandomAccessibleInterval.class);
+                RandomAccessibleInterval image = ImgLib2Transfer.pull((ClearCLBuffer)item);
+                result[i] = image != null ? image : clij.convert((ClearCLBuffer)item, RandomAccessibleInterval.class);
             } else {
                 result[i] = item;
             }
@@ -161,9 +165,14 @@ public abstract class AbstractCLIJPlugin implements PlugInFilter, CLIJMacroPlugi
 
     @Deprecated
     protected void releaseBuffers(Object[] args) {
+        String[] parameters = getParameterHelpText().split(",");
         for (int i = 0; i < args.length; i ++) {
             Object item = args[i];
             if (item instanceof ClearCLBuffer && args[i] != this.args[i]) {
+                // results are handed back to pre-allocated ArrayImgs and PlanarImgs
+                if (this.args[i] instanceof RandomAccessibleInterval && i < parameters.length && parameters[i].contains("destination")) {
+                    ImgLib2Transfer.pull((ClearCLBuffer) item, (RandomAccessibleInterval) this.args[i]);
+                }
                 ((ClearCLBuffer) item).close();
             }
         }
@@ -5,15 +5,27 @@ import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
 import net.haesleinhuepf.clij.clearcl.ClearCLImage;
 import net.haesleinhuepf.clij.clearcl.util.ElapsedTime;
 import ij.gui.GenericDialog;
+import ij.gui.Roi;
+import ij.gui.ShapeRoi;
+import ij.plugin.frame.RoiManager;
 import ij.macro.ExtensionDescriptor;
 import ij.macro.MacroExtension;
 import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.coremem.enums.NativeTypeEnum;
 import net.haesleinhuepf.clij.kernels.Kernels;
 import net.haesleinhuepf.clij.macro.modules.Clear;
-
+import net.haesleinhuepf.clij.utilities.ImgLib2Transfer;
+import net.haesleinhuepf.clij.utilities.OffsetWindow;
+import net.haesleinhuepf.clij.utilities.PixelChecksum;
+import net.haesleinhuepf.clij.utilities.RunLengthMask;
+import org.scijava.plugin.Plugin;
+
+import java.awt.Rectangle;
+import java.awt.Shape;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 
 /**
  * CLIJHandler
@@ -24,6 +36,36 @@ import java.util.HashMap;
 public class CLIJHandler implements MacroExtension {
     public static boolean automaticOutputVariableNaming = false;
 
+    // The following options are off by default. They can be switched on from Java or from macro, e.g.
+    // eval("js", "Packages.net.haesleinhuepf.clij.macro.CLIJHandler.deltaPush = true;");
+
+    /**
+     * If true, plugins implementing DeferrableOperation are not executed right away when called from macro.
+     * Their results are determined when needed. If an intermediate result is released before it was needed,
+     * the operations producing and reading it are composed, e.g. consecutive affine transforms are resampled
+     * once. This changes results at image borders.
+     */
+    public static boolean lazyEvaluation = false;
+
+    /**
+     * If true, plugins implementing IncrementalOperation or IncrementalProjection which are called again with the
+     * same arguments recompute only what changed in their source since the last call. To do so, the handler keeps
+     * the arguments of these calls and, for projections, the former content of changed slices.
+     */
+    public static boolean incrementalRecompute = false;
+
+    /**
+     * If true, pushing an image again under the same name transfers only the slices which changed since the
+     * last push, as long as the image in GPU memory was not modified in the meantime.
+     */
+    public static boolean deltaPush = false;
+
+    /**
+     * If true, pushing an image with the same content as an image which is already in GPU memory under another
+     * name makes both names refer to the same buffer. It is copied as soon as one of the names is written.
+     */
+    public static boolean deduplicatePush = false;
+
     static CLIJHandler instance = null;
     private CLIJMacroPluginService pluginService = null;
 
@@ -36,6 +78,13 @@ public class CLIJHandler implements MacroExtension {
 
     HashMap<String, ClearCLBuffer> bufferMap = new HashMap<String, ClearCLBuffer>();
 
+    // pending operations by their destination; the source of a pending operation may be pending itself
+    HashMap<ClearCLBuffer, PendingOperation> pendingOperations = new HashMap<ClearCLBuffer, PendingOperation>();
+
+    DirtyRegionTracker dirtyRegions = new DirtyRegionTracker();
+
+    PushedSliceTracker pushedSlices = new PushedSliceTracker();
+
     public void setPluginService(CLIJMacroPluginService pluginService) {
         this.pluginService = pluginService;
     }
@@ -81,7 +130,7 @@ public class CLIJHandler implements MacroExtension {
                             }
                             if (parameterType.startsWith("Image")) {
                                 String argument = byRef?handleByRefArgument(name, args[i]):(String)args[i];
-                                ClearCLBuffer bufferImage = bufferMap.get(argument);
+                                ClearCLBuffer bufferImage = getImageArgument(plugin, i, argument);
                                 if (bufferImage == null) {
                                     missingImageIndices.put(i, argument);
                                     missingImageIndicesDescriptions.put(i, pluginParameters[i]);
@@ -160,7 +209,7 @@ public class CLIJHandler implements MacroExtension {
 
 
                     if (plugin instanceof CLIJOpenCLProcessor) {
-                        ((CLIJOpenCLProcessor) plugin).executeCL();
+                        executePlugin(plugin, parsedArguments);
                     } else {
 
                         if (CLIJ.debug) {
@@ -175,6 +224,197 @@ public class CLIJHandler implements MacroExtension {
         return null;
     }
 
+    /**
+     * Executes a plugin whose arguments were set already, or defers its execution.
+     */
+    void executePlugin(CLIJMacroPlugin plugin, Object[] parsedArguments) {
+        PendingOperation operation = null;
+        if (lazyEvaluation && plugin instanceof DeferrableOperation) {
+            operation = ((DeferrableOperation) plugin).defer();
+        }
+        if (operation != null) {
+            defer(operation);
+        } else {
+            materializeArguments(plugin, parsedArguments);
+            execute(plugin, parsedArguments);
+        }
+    }
+
+    private void execute(CLIJMacroPlugin plugin, Object[] parsedArguments) {
+        CLIJ clij = CLIJ.getInstance();
+        if (incrementalRecompute && dirtyRegions.executeIncrementally(clij, plugin, parsedArguments)) {
+            return;
+        }
+
+        // only the destination args[1] may be written partially
+        int[] writtenSlices = plugin instanceof PartialWriteOperation ? ((PartialWriteOperation) plugin).getWrittenSlices() : null;
+        HashMap<ClearCLBuffer, float[]> written = new HashMap<ClearCLBuffer, float[]>();
+        for (ClearCLBuffer buffer : getWrittenBuffers(plugin, parsedArguments)) {
+            boolean partial = writtenSlices != null && buffer == parsedArguments[1];
+            written.put(buffer, partial ? dirtyRegions.snapshot(clij, buffer, writtenSlices[0], writtenSlices[1]) : null);
+        }
+
+        ((CLIJOpenCLProcessor) plugin).executeCL();
+
+        for (ClearCLBuffer buffer : written.keySet()) {
+            // images pushed under any name of this buffer have to be transferred completely next time
+            pushedSlices.forget(buffer);
+            if (writtenSlices != null && buffer == parsedArguments[1]) {
+                dirtyRegions.markDirty(buffer, writtenSlices[0], writtenSlices[1], written.get(buffer));
+            } else {
+                dirtyRegions.markDirty(buffer);
+            }
+        }
+        if (incrementalRecompute) {
+            dirtyRegions.recordExecution(plugin, parsedArguments);
+        }
+    }
+
+    /**
+     * Plugins which write their first image argument in place, although it is not named destination. Plugins of
+     * other packages can be added.
+     */
+    public static final HashSet<String> inPlaceWriters = new HashSet<String>(Arrays.asList(
+            "CLIJ_set",
+            "CLIJ2_set", "CLIJ2_setColumn", "CLIJ2_setRow", "CLIJ2_setPlane", "CLIJ2_setImageBorders",
+            "CLIJ2_setRampX", "CLIJ2_setRampY", "CLIJ2_setRampZ",
+            "CLIJ2_setWhereXequalsY", "CLIJ2_setWhereXgreaterThanY", "CLIJ2_setWhereXsmallerThanY"
+    ));
+
+    /**
+     * Returns the images the plugin writes (see writes).
+     */
+    static ArrayList<ClearCLBuffer> getWrittenBuffers(CLIJMacroPlugin plugin, Object[] parsedArguments) {
+        ArrayList<ClearCLBuffer> written = new ArrayList<ClearCLBuffer>();
+        for (int i = 0; i < parsedArguments.length; i++) {
+            if (parsedArguments[i] instanceof ClearCLBuffer && writes(plugin, i) && !written.contains(parsedArguments[i])) {
+                written.add((ClearCLBuffer) parsedArguments[i]);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Returns whether the plugin writes the argument with the given index: the arguments it declares as a
+     * WritingOperation or, if it doesn't, the parameters named destination and the first image argument of
+     * inPlaceWriters. All other image arguments are only read.
+     */
+    static boolean writes(CLIJMacroPlugin plugin, int index) {
+        if (plugin instanceof WritingOperation) {
+            for (int i : ((WritingOperation) plugin).getWrittenArguments()) {
+                if (i == index) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (index == 0 && inPlaceWriters.contains(getPluginName(plugin))) {
+            return true;
+        }
+        String[] pluginParameters = plugin.getParameterHelpText().split(",");
+        return index < pluginParameters.length && pluginParameters[index].toLowerCase().contains("destination");
+    }
+
+    // plugins which were not created by the plugin service don't know their name
+    private static String getPluginName(CLIJMacroPlugin plugin) {
+        if (plugin.getName() != null) {
+            return plugin.getName();
+        }
+        Plugin annotation = plugin.getClass().getAnnotation(Plugin.class);
+        return annotation == null ? null : annotation.name();
+    }
+
+    /**
+     * Returns the image with the given name as argument of the plugin. If the plugin writes it, the name gets its
+     * own copy first, in case other names share the image; images which are only read stay shared.
+     */
+    ClearCLBuffer getImageArgument(CLIJMacroPlugin plugin, int index, String name) {
+        if (writes(plugin, index)) {
+            return unshare(name);
+        }
+        return bufferMap.get(name);
+    }
+
+    private void defer(PendingOperation operation) {
+        ClearCLBuffer source = operation.getSource();
+        ClearCLBuffer destination = operation.getDestination();
+        dirtyRegions.markDirty(destination);
+        pushedSlices.forget(destination);
+
+        // operations reading the destination must see its content before it changes
+        materializeDependents(destination);
+
+        if (source == destination) {
+            // in-place operations are not deferred
+            materialize(destination);
+            operation.materialize(CLIJ.getInstance());
+            return;
+        }
+        // if the source is pending as well, both are composed only if the source is released before it is used
+        pendingOperations.put(destination, operation);
+    }
+
+    private void materializeArguments(CLIJMacroPlugin plugin, Object[] parsedArguments) {
+        for (Object argument : parsedArguments) {
+            if (argument instanceof ClearCLBuffer) {
+                materialize((ClearCLBuffer) argument);
+            }
+        }
+        for (ClearCLBuffer buffer : getWrittenBuffers(plugin, parsedArguments)) {
+            materializeDependents(buffer);
+        }
+    }
+
+    /**
+     * Executes the pending operation writing into the given buffer, if there is one.
+     */
+    public void materialize(ClearCLBuffer buffer) {
+        PendingOperation operation = pendingOperations.remove(buffer);
+        if (operation != null) {
+            materialize(operation.getSource());
+            if (CLIJ.debug) {
+                System.out.println("Materializing " + operation.getClass().getSimpleName());
+            }
+            operation.materialize(CLIJ.getInstance());
+        }
+    }
+
+    /**
+     * Executes all pending operations reading from the given buffer. This is necessary before the buffer is
+     * overwritten or released.
+     */
+    public void materializeDependents(ClearCLBuffer buffer) {
+        ArrayList<ClearCLBuffer> dependents = new ArrayList<ClearCLBuffer>();
+        for (PendingOperation operation : pendingOperations.values()) {
+            if (operation.getSource() == buffer) {
+                dependents.add(operation.getDestination());
+            }
+        }
+        for (ClearCLBuffer dependent : dependents) {
+            materialize(dependent);
+        }
+    }
+
+    /**
+     * Lets pending operations reading the given pending buffer read from its source instead, where the
+     * operations can be composed. This is done when the buffer is released: If B = T1(A), C = T2(B) and B is
+     * released before it was used otherwise, C is determined as C = (T1 * T2)(A) and B is never computed.
+     */
+    private void composeDependents(ClearCLBuffer buffer) {
+        PendingOperation previous = pendingOperations.get(buffer);
+        if (previous == null) {
+            return;
+        }
+        for (PendingOperation operation : new ArrayList<PendingOperation>(pendingOperations.values())) {
+            if (operation.getSource() == buffer) {
+                PendingOperation composed = operation.composeAfter(previous);
+                if (composed != null) {
+                    pendingOperations.put(operation.getDestination(), composed);
+                }
+            }
+        }
+    }
+
     private int imageCounter = 0;
     private String handleByRefArgument(String methodName, Object arg) {
         if (arg instanceof String[]) {
@@ -199,9 +439,29 @@ public class CLIJHandler implements MacroExtension {
         bufferMap.put(nameInCache, buffer);
     }
 
+    /**
+     * Returns the image with the given name from the cache. As the caller may write it, it is not shared with
+     * other names anymore, and operations reading or writing it are not skipped or updated incrementally anymore.
+     */
     @Deprecated
     public ClearCLBuffer getFromCache(String nameInCache) {
         if (bufferMap.containsKey(nameInCache)) {
+            ClearCLBuffer buffer = unshare(nameInCache);
+            materialize(buffer);
+            materializeDependents(buffer);
+            dirtyRegions.untrack(buffer);
+            pushedSlices.forget(buffer);
+            return buffer;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the image with the given name from the cache for callers which only read it.
+     */
+    public ClearCLBuffer getFromCacheForReading(String nameInCache) {
+        if (bufferMap.containsKey(nameInCache)) {
+            materialize(bufferMap.get(nameInCache));
             return bufferMap.get(nameInCache);
         }
         return null;
@@ -209,6 +469,9 @@ public class CLIJHandler implements MacroExtension {
 
     ClearCLBuffer getFromCacheOrCreateByPlugin(String nameInCache, CLIJMacroPlugin plugin, ClearCLBuffer template) {
         if (bufferMap.containsKey(nameInCache)) {
+            unshare(nameInCache);
+            materialize(bufferMap.get(nameInCache));
+            materializeDependents(bufferMap.get(nameInCache));
             return bufferMap.get(nameInCache);
         } else {
             ClearCLBuffer buffer = plugin.createOutputBufferFromSource(template);
@@ -217,11 +480,48 @@ public class CLIJHandler implements MacroExtension {
         }
     }
 
+    /**
+     * Returns the image with the given name from the cache if it has the given dimensions and type. Otherwise,
+     * a new image is created and stored under the given name. Plugins use this to deliver results under names
+     * which are not part of their parameter list.
+     */
+    public ClearCLBuffer getFromCacheOrCreate(String nameInCache, long[] dimensions, NativeTypeEnum type) {
+        if (bufferMap.containsKey(nameInCache)) {
+            ClearCLBuffer preExistingBuffer = bufferMap.get(nameInCache);
+            if (Arrays.equals(preExistingBuffer.getDimensions(), dimensions) && preExistingBuffer.getNativeType() == type) {
+                preExistingBuffer = unshare(nameInCache);
+                materialize(preExistingBuffer);
+                materializeDependents(preExistingBuffer);
+                dirtyRegions.markDirty(preExistingBuffer);
+                pushedSlices.forget(preExistingBuffer);
+                return preExistingBuffer;
+            }
+            if (CLIJ.debug) {
+                System.out.println("Dropping image in cache.");
+            }
+            releaseBufferInGPU(nameInCache);
+        }
+        ClearCLBuffer buffer = CLIJ.getInstance().createCLBuffer(dimensions, type);
+        bufferMap.put(nameInCache, buffer);
+        return buffer;
+    }
+
     public void releaseBufferInGPU(String arg) {
         if (CLIJ.debug) {
             System.out.println("Releasing " + arg);
         }
         ClearCLBuffer buffer = bufferMap.get(arg);
+        if (isShared(buffer)) {
+            // other names still refer to the buffer
+            bufferMap.remove(arg);
+            pushedSlices.forget(arg);
+            return;
+        }
+        composeDependents(buffer);
+        materializeDependents(buffer);
+        pendingOperations.remove(buffer);
+        dirtyRegions.forget(buffer);
+        pushedSlices.forget(arg);
         if (bufferAsImageMap.containsKey(buffer)) {
             System.out.println("Releasing image " + arg);
             ClearCLImage image = bufferAsImageMap.get(buffer);
@@ -238,6 +538,9 @@ public class CLIJHandler implements MacroExtension {
         if (CLIJ.debug) {
             System.out.println("Clearing ");
         }
+        pendingOperations.clear();
+        dirtyRegions.clear();
+        pushedSlices.clear();
         ArrayList<String> keysToRelease = new ArrayList<String>();
         for (String key : bufferMap.keySet()) {
             keysToRelease.add(key);
@@ -250,29 +553,230 @@ public class CLIJHandler implements MacroExtension {
 
     public void pullFromGPU(String arg) {
         ClearCLBuffer buffer = bufferMap.get(arg);
-        CLIJ.getInstance().show(buffer, arg);
+        materialize(buffer);
+        NativeTypeEnum type = buffer.getNativeType();
+        if (type != NativeTypeEnum.UnsignedByte && type != NativeTypeEnum.UnsignedShort && type != NativeTypeEnum.Float
+                || !ImgLib2Transfer.isTransferable(buffer.getDimensions(), type)) {
+            CLIJ.getInstance().show(buffer, arg);
+            return;
+        }
+        // ImageJ types: copy slice by slice in parallel into new pixel arrays
+        int depth = buffer.getDimension() > 2 ? (int) buffer.getDepth() : 1;
+        int sliceSize = (int) (buffer.getWidth() * buffer.getHeight());
+        Object[] slices = new Object[depth];
+        ImageStack stack = new ImageStack((int) buffer.getWidth(), (int) buffer.getHeight());
+        for (int z = 0; z < depth; z++) {
+            slices[z] = ImgLib2Transfer.createArray(type, sliceSize);
+            stack.addSlice("", slices[z]);
+        }
+        ImgLib2Transfer.pull(buffer, slices);
+        new ImagePlus(arg, stack).show();
+    }
+
+    /**
+     * Copies the image into the pixel arrays of the open image with the same name and refreshes its display.
+     * If there is no such image or it differs in size or type, the image is shown as new window.
+     */
+    public void pullInPlaceFromGPU(String arg) {
+        ClearCLBuffer buffer = bufferMap.get(arg);
+        materialize(buffer);
+        ImagePlus imp = WindowManager.getImage(arg);
+        if (imp == null || imp.getStack().isVirtual()
+                || !ImgLib2Transfer.isTransferable(buffer.getDimensions(), buffer.getNativeType())
+                || buffer.getNativeType() != PushedSliceTracker.getNativeType(imp)
+                || !Arrays.equals(buffer.getDimensions(), PushedSliceTracker.getDimensions(imp))) {
+            pullFromGPU(arg);
+            return;
+        }
+
+        Object[] slices = PushedSliceTracker.getSlices(imp);
+        ImgLib2Transfer.pull(buffer, slices);
+        // the pixels differ from what may have been saved; ImageJ asks before closing the image
+        imp.changes = true;
+        imp.updateAndDraw();
+
+        if (deltaPush || deduplicatePush) {
+            // pushing the image back does not need to transfer anything
+            pushedSlices.remember(arg, buffer, PixelChecksum.checksums(slices), dirtyRegions.getVersion(buffer));
+        }
     }
 
     public void pullBinaryFromGPU(String arg) {
         ClearCLBuffer buffer = bufferMap.get(arg);
+        materialize(buffer);
         ImagePlus imp = CLIJ.getInstance().pullBinary(buffer);
         imp.setTitle(arg);
         imp.show();
     }
 
+    /**
+     * Pulls a binary image as run-length encoded mask; the rows are encoded on the GPU and only the runs are
+     * transferred.
+     */
+    public RunLengthMask pullRunLengthMaskFromGPU(String arg) {
+        ClearCLBuffer buffer = bufferMap.get(arg);
+        materialize(buffer);
+        return RunLengthMask.pull(CLIJ.getInstance(), buffer);
+    }
+
+    public void pullBinaryRunLengthEncodedFromGPU(String arg) {
+        RunLengthMask mask = pullRunLengthMaskFromGPU(arg);
+        ImageStack stack = new ImageStack(mask.getWidth(), mask.getHeight());
+        for (int z = 0; z < mask.getDepth(); z++) {
+            stack.addSlice("", mask.toSlice(z));
+        }
+        new ImagePlus(arg, stack).show();
+    }
+
+    /**
+     * Adds the foreground of every slice of a binary image as ROI to the ROI Manager.
+     */
+    public void pullBinaryAsRoisFromGPU(String arg) {
+        RunLengthMask mask = pullRunLengthMaskFromGPU(arg);
+        RoiManager roiManager = RoiManager.getRoiManager();
+        for (int z = 0; z < mask.getDepth(); z++) {
+            Shape shape = mask.toShape(z);
+            if (shape == null) {
+                continue;
+            }
+            Roi roi = new ShapeRoi(shape);
+            if (mask.getDepth() > 1) {
+                roi.setPosition(z + 1);
+                roi.setName(arg + "_" + (z + 1));
+            } else {
+                roi.setName(arg);
+            }
+            roiManager.addRoi(roi);
+        }
+    }
+
     public ClearCLBuffer pushToGPU(String arg) {
-        ImagePlus imp = WindowManager.getImage(arg);
+        return pushToGPU(arg, WindowManager.getImage(arg));
+    }
+
+    ClearCLBuffer pushToGPU(String arg, ImagePlus imp) {
         imp.changes = false;
 
-        ClearCLBuffer temp = CLIJ.getInstance().push(imp);
-        return pushInternal(temp, arg);
+        NativeTypeEnum type = PushedSliceTracker.getNativeType(imp);
+        if (type == null || !ImgLib2Transfer.isTransferable(PushedSliceTracker.getDimensions(imp), type)) {
+            return pushInternal(CLIJ.getInstance().push(imp), arg);
+        }
+        Object[] slices = PushedSliceTracker.getSlices(imp);
+        long[] checksums = null;
+        if (deltaPush || deduplicatePush) {
+            checksums = PixelChecksum.checksums(slices);
+            ClearCLBuffer buffer = deltaPush ? pushChangedSlices(arg, imp, slices, checksums) : null;
+            if (buffer == null && deduplicatePush) {
+                buffer = shareIdenticalImage(arg, imp, checksums);
+            }
+            if (buffer != null) {
+                return buffer;
+            }
+        }
+
+        // ImageJ types: copy slice by slice in parallel
+        ClearCLBuffer temp = ImgLib2Transfer.push(CLIJ.getInstance(), slices, PushedSliceTracker.getDimensions(imp), type);
+        ClearCLBuffer buffer = pushInternal(temp, arg);
+        if (checksums != null) {
+            pushedSlices.remember(arg, buffer, checksums, dirtyRegions.getVersion(buffer));
+        }
+        return buffer;
+    }
+
+    /**
+     * Transfers only the slices which changed since the image was pushed under the given name. Returns null if
+     * the image has to be pushed completely.
+     */
+    private ClearCLBuffer pushChangedSlices(String arg, ImagePlus imp, Object[] slices, long[] checksums) {
+        ClearCLBuffer buffer = bufferMap.get(arg);
+        if (buffer == null || pendingOperations.containsKey(buffer)) {
+            return null;
+        }
+        int[] changedSlices = pushedSlices.getChangedSlices(arg, buffer, dirtyRegions, imp, checksums);
+        if (changedSlices == null) {
+            return null;
+        }
+        if (changedSlices.length > 0 && isShared(buffer)) {
+            return null;
+        }
+        if (changedSlices.length > 0) {
+            if (CLIJ.debug) {
+                System.out.println("Pushing " + changedSlices.length + " changed slices of " + arg);
+            }
+            CLIJ clij = CLIJ.getInstance();
+            materializeDependents(buffer);
+            ArrayList<float[]> before = new ArrayList<float[]>();
+            for (int z : changedSlices) {
+                before.add(dirtyRegions.snapshot(clij, buffer, z, z));
+            }
+            PushedSliceTracker.pushSlices(clij, slices, buffer, changedSlices);
+            for (int i = 0; i < changedSlices.length; i++) {
+                dirtyRegions.markDirty(buffer, changedSlices[i], changedSlices[i], before.get(i));
+            }
+        }
+        pushedSlices.remember(arg, buffer, checksums, dirtyRegions.getVersion(buffer));
+        return buffer;
+    }
+
+    /**
+     * Makes the given name refer to a buffer which holds the same content under another name. Returns null if
+     * there is no such buffer.
+     */
+    private ClearCLBuffer shareIdenticalImage(String arg, ImagePlus imp, long[] checksums) {
+        String identicalName = pushedSlices.findIdentical(imp, checksums, dirtyRegions);
+        if (identicalName == null || identicalName.equals(arg)) {
+            return null;
+        }
+        if (CLIJ.debug) {
+            System.out.println("Sharing image " + identicalName + " as " + arg);
+        }
+        ClearCLBuffer buffer = bufferMap.get(identicalName);
+        if (bufferMap.containsKey(arg)) {
+            releaseBufferInGPU(arg);
+        }
+        bufferMap.put(arg, buffer);
+        pushedSlices.remember(arg, buffer, checksums, dirtyRegions.getVersion(buffer));
+        return buffer;
+    }
+
+    private boolean isShared(ClearCLBuffer buffer) {
+        int count = 0;
+        for (ClearCLBuffer other : bufferMap.values()) {
+            if (other == buffer) {
+                count++;
+            }
+        }
+        return count > 1;
+    }
+
+    /**
+     * Gives the name a copy of its buffer if other names refer to the same buffer, so that it can be written
+     * without changing the others. Returns the buffer the name refers to afterwards.
+     */
+    private ClearCLBuffer unshare(String name) {
+        ClearCLBuffer buffer = bufferMap.get(name);
+        if (buffer == null || !isShared(buffer)) {
+            return buffer;
+        }
+        if (CLIJ.debug) {
+            System.out.println("Copying shared image " + name);
+        }
+        materialize(buffer);
+        ClearCLBuffer copy = CLIJ.getInstance().createCLBuffer(buffer.getDimensions(), buffer.getNativeType());
+        Kernels.copy(CLIJ.getInstance(), buffer, copy);
+        bufferMap.put(name, copy);
+        pushedSlices.forget(name);
+        return copy;
     }
 
     public ClearCLBuffer pushCurrentSliceToGPU(String arg) {
         ImagePlus imp = WindowManager.getImage(arg);
         imp.changes = false;
 
-        ClearCLBuffer temp = CLIJ.getInstance().pushCurrentSlice(imp);
+        ClearCLBuffer temp = pushWindow(imp, new int[]{imp.getCurrentSlice()}, false);
+        if (temp == null) {
+            temp = CLIJ.getInstance().pushCurrentSlice(imp);
+        }
         return pushInternal(temp, arg);
     }
 
@@ -280,7 +784,17 @@ public class CLIJHandler implements MacroExtension {
         ImagePlus imp = WindowManager.getImage(arg);
         imp.changes = false;
 
-        ClearCLBuffer temp = CLIJ.getInstance().pushCurrentSelection(imp);
+        ClearCLBuffer temp = null;
+        if (imp.getNChannels() == 1 && imp.getNFrames() == 1) {
+            int[] stackIndices = new int[imp.getStackSize()];
+            for (int z = 0; z < stackIndices.length; z++) {
+                stackIndices[z] = z + 1;
+            }
+            temp = pushWindow(imp, stackIndices, true);
+        }
+        if (temp == null) {
+            temp = CLIJ.getInstance().pushCurrentSelection(imp);
+        }
         return pushInternal(temp, arg);
     }
 
@@ -289,7 +803,10 @@ public class CLIJHandler implements MacroExtension {
         ImagePlus imp = WindowManager.getImage(arg);
         imp.changes = false;
 
-        ClearCLBuffer temp = CLIJ.getInstance().pushCurrentSliceSelection(imp);
+        ClearCLBuffer temp = pushWindow(imp, new int[]{imp.getCurrentSlice()}, true);
+        if (temp == null) {
+            temp = CLIJ.getInstance().pushCurrentSliceSelection(imp);
+        }
         return pushInternal(temp, arg);
     }
 
@@ -297,12 +814,53 @@ public class CLIJHandler implements MacroExtension {
         ImagePlus imp = WindowManager.getImage(arg);
         imp.changes = false;
 
-        ClearCLBuffer temp = CLIJ.getInstance().pushCurrentZStack(imp);
+        int[] stackIndices = new int[imp.getNSlices()];
+        for (int z = 0; z < stackIndices.length; z++) {
+            stackIndices[z] = imp.getStackIndex(imp.getC(), z + 1, imp.getT());
+        }
+        ClearCLBuffer temp = pushWindow(imp, stackIndices, false);
+        if (temp == null) {
+            temp = CLIJ.getInstance().pushCurrentZStack(imp);
+        }
         return pushInternal(temp, arg);
     }
 
+    /**
+     * Pushes the given slices of the image, cropped to the bounds of its rectangular selection if requested, as
+     * OffsetWindow: the pixels are copied straight from the slices of the image into GPU memory, without
+     * duplicating the image in host memory first. Returns null if the image is not supported, e.g. RGB images,
+     * virtual stacks and non-rectangular selections.
+     */
+    private ClearCLBuffer pushWindow(ImagePlus imp, int[] stackIndices, boolean cropToSelection) {
+        NativeTypeEnum type = PushedSliceTracker.getNativeType(imp);
+        if (type == null || imp.getStack().isVirtual()) {
+            return null;
+        }
+        Rectangle bounds = new Rectangle(0, 0, imp.getWidth(), imp.getHeight());
+        Roi roi = imp.getRoi();
+        if (cropToSelection && roi != null) {
+            if (roi.getType() != Roi.RECTANGLE) {
+                return null;
+            }
+            bounds = bounds.intersection(roi.getBounds());
+        }
+        if (bounds.isEmpty() || !ImgLib2Transfer.isTransferable(new long[]{bounds.width, bounds.height}, type)) {
+            return null;
+        }
+        Object[] slices = new Object[stackIndices.length];
+        for (int i = 0; i < slices.length; i++) {
+            slices[i] = imp.getStack().getPixels(stackIndices[i]);
+        }
+        OffsetWindow window = new OffsetWindow(slices, imp.getWidth(), imp.getHeight(), new int[]{bounds.x, bounds.y, 0}, new int[]{bounds.width, bounds.height, slices.length});
+        return window.push(CLIJ.getInstance(), type);
+    }
+
     @Deprecated
     public ClearCLBuffer pushInternal(ClearCLBuffer temp, String arg) {
+        pushedSlices.forget(arg);
+        if (bufferMap.containsKey(arg) && isShared(bufferMap.get(arg))) {
+            bufferMap.remove(arg);
+        }
         if (bufferMap.containsKey(arg)) {
             ClearCLBuffer preExistingBuffer = bufferMap.get(arg);
 
@@ -313,7 +871,10 @@ public class CLIJHandler implements MacroExtension {
                             temp.getNativeType() == preExistingBuffer.getNativeType()
             ) {
                 System.out.println("Overwriting image in cache.");
+                materializeDependents(preExistingBuffer);
+                pendingOperations.remove(preExistingBuffer);
                 Kernels.copy(CLIJ.getInstance(), temp, preExistingBuffer);
+                dirtyRegions.markDirty(preExistingBuffer);
                 temp.close();
             } else {
                 System.out.println("Dropping image in cache.");
@@ -350,8 +911,13 @@ public class CLIJHandler implements MacroExtension {
         long bytesSum = 0;
         boolean foundBufferAsImage = false;
         stringBuilder.append("GPU contains " + (bufferMap.keySet().size() + bufferAsImageMap.size() )+ " images.\n");
+        HashSet<ClearCLBuffer> reported = new HashSet<ClearCLBuffer>();
         for (String key : bufferMap.keySet()) {
             ClearCLBuffer buffer = bufferMap.get(key);
+            if (!reported.add(buffer)) {
+                stringBuilder.append("- " + key + "[" + buffer.getPeerPointer() + "] shared\n");
+                continue;
+            }
             stringBuilder.append("- " + key + "[" + buffer.getPeerPointer() + "] " + humanReadableBytes(buffer.getSizeInBytes()) + "\n");
             if (bufferAsImageMap.containsKey(buffer)) {
                 ClearCLImage image = bufferAsImageMap.get(buffer);
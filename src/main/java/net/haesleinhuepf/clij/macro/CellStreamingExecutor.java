@@ -0,0 +1,289 @@
+package net.haesleinhuepf.clij.macro;
+
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.coremem.enums.NativeTypeEnum;
+import net.haesleinhuepf.clij.utilities.ImgLib2Transfer;
+import net.imglib2.FinalInterval;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.cell.AbstractCellImg;
+import net.imglib2.util.ImgUtil;
+import net.imglib2.util.Util;
+import net.imglib2.view.Views;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CellStreamingExecutor applies a CLIJ plugin to images which do not fit in memory, e.g. lazily loaded CellImgs,
+ * block by block. By default, the blocks are the cells of the source. Every block is read together with a halo
+ * of the given size, so that neighborhood operations see the pixels around the block, and only the block itself
+ * is written to the target. At the borders of the image, the halo is cut off and the plugin deals with the border
+ * as it does for whole images.
+ * <p>
+ * Reading blocks, processing them on the GPU and writing results run in three threads, connected by queues of
+ * bounded capacity. Hence, memory consumption is determined by the block size and the queue capacity, not by the
+ * image size.
+ * <p>
+ * The plugin must read its source from args[0] and write a destination of the same size to args[1]; further
+ * parameters are handed over as given, before the destination is created.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public class CellStreamingExecutor {
+    /**
+     * How many blocks may wait between reading and processing, and between processing and writing.
+     */
+    public static int queueCapacity = 2;
+
+    static class Block {
+        final long[] min;
+        final long[] max;
+        final long[] haloMin;
+        final long[] haloMax;
+        RandomAccessibleInterval data;
+
+        Block(long[] min, long[] max, long[] haloMin, long[] haloMax) {
+            this.min = min;
+            this.max = max;
+            this.haloMin = haloMin;
+            this.haloMax = haloMax;
+        }
+    }
+
+    interface BlockReader {
+        Block read(long index);
+    }
+
+    interface BlockConsumer {
+        void accept(Block block);
+    }
+
+    private static final Block END = new Block(null, null, null, null);
+
+    /**
+     * Processes the source cell by cell.
+     */
+    public static void execute(CLIJ clij, CLIJMacroPlugin plugin, AbstractCellImg source, RandomAccessibleInterval target, int[] halo, Object... parameters) {
+        int[] blockSize = new int[source.numDimensions()];
+        source.getCellGrid().cellDimensions(blockSize);
+        execute(clij, plugin, source, target, blockSize, halo, parameters);
+    }
+
+    /**
+     * Processes the source in blocks of the given size.
+     */
+    public static void execute(CLIJ clij, CLIJMacroPlugin plugin, RandomAccessibleInterval source, RandomAccessibleInterval target, int[] blockSize, int[] halo, Object... parameters) {
+        NativeTypeEnum type = ImgLib2Transfer.toNativeType(Util.getTypeFromInterval(source));
+        if (type == null) {
+            throw new IllegalArgumentException("Pixel type not supported: " + Util.getTypeFromInterval(source).getClass().getSimpleName());
+        }
+        if (!(plugin instanceof CLIJOpenCLProcessor)) {
+            throw new IllegalArgumentException("The plugin " + plugin.getName() + " can't be executed on blocks.");
+        }
+        long[] dimensions = new long[source.numDimensions()];
+        source.dimensions(dimensions);
+        long[] targetDimensions = new long[target.numDimensions()];
+        target.dimensions(targetDimensions);
+        if (!Arrays.equals(dimensions, targetDimensions)) {
+            throw new IllegalArgumentException("Source and target must have the same size.");
+        }
+        checkBlocks(dimensions, type, blockSize, halo);
+
+        long[] gridDimensions = getGridDimensions(dimensions, blockSize);
+        long numberOfBlocks = 1;
+        for (long gridDimension : gridDimensions) {
+            numberOfBlocks *= gridDimension;
+        }
+
+        // GPU operations stay in the calling thread
+        plugin.setClij(clij);
+        run(numberOfBlocks,
+                index -> {
+                    Block block = getBlock(index, gridDimensions, dimensions, blockSize, halo);
+                    long[] haloDimensions = new long[dimensions.length];
+                    for (int d = 0; d < dimensions.length; d++) {
+                        haloDimensions[d] = block.haloMax[d] - block.haloMin[d] + 1;
+                    }
+                    block.data = ImgLib2Transfer.createArrayImg(haloDimensions, type);
+                    ImgUtil.copy(Views.zeroMin(Views.interval(source, new FinalInterval(block.haloMin, block.haloMax))), block.data);
+                    return block;
+                },
+                block -> block.data = process(clij, plugin, block.data, parameters),
+                block -> {
+                    FinalInterval interval = new FinalInterval(block.min, block.max);
+                    ImgUtil.copy(Views.interval(Views.translate(block.data, block.haloMin), interval), Views.interval(target, interval));
+                });
+    }
+
+    /**
+     * Checks up front that every block, including its halo, can be transferred to GPU memory, so that the
+     * pipeline doesn't fail after processing part of the image.
+     */
+    static void checkBlocks(long[] dimensions, NativeTypeEnum type, int[] blockSize, int[] halo) {
+        if (dimensions.length < 2 || dimensions.length > 3) {
+            throw new IllegalArgumentException("Only 2D and 3D images can be processed block by block.");
+        }
+        if (blockSize.length != dimensions.length || halo.length != dimensions.length) {
+            throw new IllegalArgumentException("Block size and halo must be given for all " + dimensions.length + " dimensions.");
+        }
+        long[] largestBlock = new long[dimensions.length];
+        long numberOfPixels = 1;
+        for (int d = 0; d < dimensions.length; d++) {
+            if (blockSize[d] < 1 || halo[d] < 0) {
+                throw new IllegalArgumentException("Block sizes must be positive and halos must not be negative.");
+            }
+            largestBlock[d] = Math.min(dimensions[d], blockSize[d] + 2L * halo[d]);
+            numberOfPixels *= largestBlock[d];
+        }
+        if (numberOfPixels > Integer.MAX_VALUE || !ImgLib2Transfer.isTransferable(largestBlock, type)) {
+            throw new IllegalArgumentException("Blocks of " + Arrays.toString(largestBlock) + " pixels including halo are too large.");
+        }
+    }
+
+    static long[] getGridDimensions(long[] dimensions, int[] blockSize) {
+        long[] gridDimensions = new long[dimensions.length];
+        for (int d = 0; d < dimensions.length; d++) {
+            gridDimensions[d] = (dimensions[d] + blockSize[d] - 1) / blockSize[d];
+        }
+        return gridDimensions;
+    }
+
+    /**
+     * Returns the block with the given index, X running fastest, with its halo cut off at the image borders.
+     */
+    static Block getBlock(long index, long[] gridDimensions, long[] dimensions, int[] blockSize, int[] halo) {
+        int numDimensions = dimensions.length;
+        long[] min = new long[numDimensions];
+        long[] max = new long[numDimensions];
+        long[] haloMin = new long[numDimensions];
+        long[] haloMax = new long[numDimensions];
+        long remainder = index;
+        for (int d = 0; d < numDimensions; d++) {
+            long gridPosition = remainder % gridDimensions[d];
+            remainder /= gridDimensions[d];
+            min[d] = gridPosition * blockSize[d];
+            max[d] = Math.min(dimensions[d], min[d] + blockSize[d]) - 1;
+            haloMin[d] = Math.max(0, min[d] - halo[d]);
+            haloMax[d] = Math.min(dimensions[d] - 1, max[d] + halo[d]);
+        }
+        return new Block(min, max, haloMin, haloMax);
+    }
+
+    /**
+     * Reads, processes and writes the blocks in three threads; processing runs in the calling thread. If a stage
+     * fails, the others are stopped and the exception is rethrown.
+     */
+    static void run(long numberOfBlocks, BlockReader reader, BlockConsumer processor, BlockConsumer writer) {
+        BlockingQueue<Block> loaded = new ArrayBlockingQueue<Block>(queueCapacity);
+        BlockingQueue<Block> processed = new ArrayBlockingQueue<Block>(queueCapacity);
+
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        Future<?> reading = threads.submit(() -> {
+            try {
+                for (long index = 0; index < numberOfBlocks; index++) {
+                    loaded.put(reader.read(index));
+                }
+            } catch (InterruptedException e) {
+                // processing stopped; nobody waits for the end anymore
+                return null;
+            } catch (RuntimeException | Error e) {
+                // also if reading failed, so that processing ends
+                loaded.put(END);
+                throw e;
+            }
+            loaded.put(END);
+            return null;
+        });
+        Future<?> writing = threads.submit(() -> {
+            while (true) {
+                Block block = processed.take();
+                if (block == END) {
+                    return null;
+                }
+                writer.accept(block);
+            }
+        });
+
+        try {
+            while (true) {
+                Block block = loaded.take();
+                if (block == END) {
+                    break;
+                }
+                processor.accept(block);
+                if (!put(processed, block, writing)) {
+                    break;
+                }
+            }
+            put(processed, END, writing);
+            writing.get();
+            reading.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    /**
+     * Hands a block over to the consumer; returns false if the consumer stopped, e.g. because writing failed.
+     */
+    private static boolean put(BlockingQueue<Block> queue, Block block, Future<?> consumer) throws InterruptedException {
+        while (!queue.offer(block, 100, TimeUnit.MILLISECONDS)) {
+            if (consumer.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static RandomAccessibleInterval process(CLIJ clij, CLIJMacroPlugin plugin, RandomAccessibleInterval data, Object[] parameters) {
+        ClearCLBuffer input = ImgLib2Transfer.push(clij, data);
+        ClearCLBuffer output = null;
+        try {
+            Object[] args = new Object[parameters.length + 2];
+            args[0] = input;
+            System.arraycopy(parameters, 0, args, 2, parameters.length);
+            output = createOutput(plugin, input, args);
+            ((CLIJOpenCLProcessor) plugin).executeCL();
+            RandomAccessibleInterval result = ImgLib2Transfer.pull(output);
+            if (result == null) {
+                throw new IllegalStateException("The result type " + output.getNativeType() + " of " + plugin.getName() + " is not supported.");
+            }
+            return result;
+        } finally {
+            input.close();
+            if (output != null) {
+                output.close();
+            }
+        }
+    }
+
+    /**
+     * Creates the destination of a block after handing the parameters over, as plugins may derive the destination
+     * size from them, and puts it to args[1]. Blocks are written back in place; hence, the destination must have
+     * the size of the block.
+     */
+    static ClearCLBuffer createOutput(CLIJMacroPlugin plugin, ClearCLBuffer input, Object[] args) {
+        plugin.setArgs(args);
+        ClearCLBuffer output = plugin.createOutputBufferFromSource(input);
+        if (!Arrays.equals(input.getDimensions(), output.getDimensions())) {
+            output.close();
+            throw new IllegalArgumentException("The plugin " + plugin.getName() + " creates a destination of " + Arrays.toString(output.getDimensions()) +
+                    " pixels for a block of " + Arrays.toString(input.getDimensions()) + " pixels. Only plugins keeping the image size can be executed block by block.");
+        }
+        args[1] = output;
+        plugin.setArgs(args);
+        return output;
+    }
+}
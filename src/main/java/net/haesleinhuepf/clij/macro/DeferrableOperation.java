@@ -0,0 +1,18 @@
+package net.haesleinhuepf.clij.macro;
+
+/**
+ * DeferrableOperation
+ * <p>
+ * Plugins implementing this interface may be executed lazily when called from macro: instead of executeCL(),
+ * the CLIJHandler calls defer() and materializes the returned operation as soon as its result is needed.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public interface DeferrableOperation {
+    /**
+     * Returns the operation with the current arguments without executing it, or null if the operation should
+     * be executed right away.
+     */
+    PendingOperation defer();
+}
@@ -0,0 +1,337 @@
+package net.haesleinhuepf.clij.macro;
+
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.kernels.Kernels;
+import net.haesleinhuepf.clij.utilities.SlabStreamer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * DirtyRegionTracker
+ * <p>
+ * Keeps track of which slices of images in GPU memory changed. Every image has a version which increases with
+ * every change; the most recent changes are logged with the range of slices they touched and, if an incremental
+ * projection depends on the image, the content of these slices before the change.
+ * <p>
+ * For every destination of an IncrementalOperation or IncrementalProjection, the arguments and the versions of
+ * source and destination are recorded. When the plugin is called again with the same arguments and the
+ * destination did not change in the meantime, only the slices affected by the logged changes of the source are
+ * recomputed.
+ * <p>
+ * Buffers handed out to Java code, e.g. via CLIJHandler.getFromCache, may be changed without the handler
+ * noticing. They are marked as untracked; operations reading or writing them are always executed completely.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+class DirtyRegionTracker {
+    /**
+     * How many changes are logged per image. If more changes happened since an operation was executed, it is
+     * executed on the whole image again.
+     */
+    static int maximumNumberOfChanges = 64;
+
+    private static class Change {
+        private final long version;
+        private final int zFrom;
+        private final int zTo;
+        private final float[] before;
+
+        Change(long version, int zFrom, int zTo, float[] before) {
+            this.version = version;
+            this.zFrom = zFrom;
+            this.zTo = zTo;
+            this.before = before;
+        }
+    }
+
+    private static class History {
+        private long version = 0;
+        private long oldestKnownVersion = 0;
+        private final ArrayList<Change> changes = new ArrayList<Change>();
+    }
+
+    private static class Recipe {
+        private final String pluginName;
+        private final Object[] arguments;
+        private final boolean projection;
+        private long sourceVersion;
+        private long destinationVersion;
+
+        Recipe(String pluginName, Object[] arguments, boolean projection) {
+            this.pluginName = pluginName;
+            this.arguments = arguments.clone();
+            this.projection = projection;
+        }
+
+        boolean matches(CLIJMacroPlugin plugin, Object[] arguments) {
+            if (!pluginName.equals(plugin.getName()) || this.arguments.length != arguments.length) {
+                return false;
+            }
+            for (int i = 0; i < arguments.length; i++) {
+                if (arguments[i] instanceof ClearCLBuffer ? this.arguments[i] != arguments[i] : !String.valueOf(this.arguments[i]).equals(String.valueOf(arguments[i]))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        ClearCLBuffer getSource() {
+            return (ClearCLBuffer) arguments[0];
+        }
+
+        boolean uses(ClearCLBuffer buffer) {
+            for (Object argument : arguments) {
+                if (argument == buffer) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private final HashMap<ClearCLBuffer, History> histories = new HashMap<ClearCLBuffer, History>();
+
+    // recipes by their destination
+    private final HashMap<ClearCLBuffer, Recipe> recipes = new HashMap<ClearCLBuffer, Recipe>();
+
+    private final HashSet<ClearCLBuffer> untracked = new HashSet<ClearCLBuffer>();
+
+    private History getHistory(ClearCLBuffer buffer) {
+        History history = histories.get(buffer);
+        if (history == null) {
+            history = new History();
+            histories.put(buffer, history);
+        }
+        return history;
+    }
+
+    private static int getDepth(ClearCLBuffer buffer) {
+        return buffer.getDimension() > 2 ? (int) buffer.getDepth() : 1;
+    }
+
+    /**
+     * Returns the content of the given slices if an incremental projection depends on the buffer, otherwise null.
+     * Must be called before the slices are overwritten.
+     */
+    float[] snapshot(CLIJ clij, ClearCLBuffer buffer, int zFrom, int zTo) {
+        for (Recipe recipe : recipes.values()) {
+            if (recipe.getSource() == buffer && recipe.projection) {
+                return SlabStreamer.readSlab(clij, buffer, zFrom, zTo - zFrom + 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a number which increases with every change of the buffer.
+     */
+    long getVersion(ClearCLBuffer buffer) {
+        return getHistory(buffer).version;
+    }
+
+    void markDirty(ClearCLBuffer buffer) {
+        markDirty(buffer, 0, getDepth(buffer) - 1, null);
+    }
+
+    /**
+     * Logs a change of the given slices; before holds their content before the change or null if unknown.
+     */
+    void markDirty(ClearCLBuffer buffer, int zFrom, int zTo, float[] before) {
+        History history = getHistory(buffer);
+        history.version++;
+        history.changes.add(new Change(history.version, zFrom, zTo, before));
+        while (history.changes.size() > maximumNumberOfChanges) {
+            history.oldestKnownVersion = history.changes.remove(0).version;
+        }
+    }
+
+    /**
+     * Marks a buffer whose changes can't be tracked anymore, because it may be written outside the handler.
+     */
+    void untrack(ClearCLBuffer buffer) {
+        untracked.add(buffer);
+        markDirty(buffer);
+    }
+
+    boolean isTracked(ClearCLBuffer buffer) {
+        return !untracked.contains(buffer);
+    }
+
+    /**
+     * Forgets everything about a released buffer, including the recipes which read or write it.
+     */
+    void forget(ClearCLBuffer buffer) {
+        histories.remove(buffer);
+        recipes.values().removeIf(recipe -> recipe.uses(buffer));
+        untracked.remove(buffer);
+    }
+
+    void clear() {
+        histories.clear();
+        recipes.clear();
+        untracked.clear();
+    }
+
+    /**
+     * Records the execution of a plugin on the whole source, so that the next call with the same arguments can
+     * be executed incrementally.
+     */
+    void recordExecution(CLIJMacroPlugin plugin, Object[] args) {
+        if (!(plugin instanceof IncrementalOperation || plugin instanceof IncrementalProjection)
+                || args.length < 2 || !(args[0] instanceof ClearCLBuffer) || !(args[1] instanceof ClearCLBuffer) || args[0] == args[1]) {
+            return;
+        }
+        Recipe recipe = new Recipe(plugin.getName(), args, plugin instanceof IncrementalProjection);
+        recipe.sourceVersion = getHistory((ClearCLBuffer) args[0]).version;
+        recipe.destinationVersion = getHistory((ClearCLBuffer) args[1]).version;
+        recipes.put((ClearCLBuffer) args[1], recipe);
+    }
+
+    /**
+     * Brings the destination of the plugin up to date by recomputing only what changed since it was executed
+     * with the same arguments. Returns false if the plugin has to be executed on the whole source.
+     */
+    boolean executeIncrementally(CLIJ clij, CLIJMacroPlugin plugin, Object[] args) {
+        if (args.length < 2 || !(args[1] instanceof ClearCLBuffer)) {
+            return false;
+        }
+        ClearCLBuffer destination = (ClearCLBuffer) args[1];
+        Recipe recipe = recipes.get(destination);
+        if (recipe == null || !recipe.matches(plugin, args) || getHistory(destination).version != recipe.destinationVersion) {
+            return false;
+        }
+        ClearCLBuffer source = recipe.getSource();
+        History history = getHistory(source);
+        if (!isTracked(source) || !isTracked(destination)
+                || history.oldestKnownVersion > recipe.sourceVersion || source.getDimension() < 3) {
+            return false;
+        }
+        ArrayList<Change> changes = new ArrayList<Change>();
+        for (Change change : history.changes) {
+            if (change.version > recipe.sourceVersion) {
+                changes.add(change);
+            }
+        }
+
+        boolean done;
+        if (changes.isEmpty()) {
+            // neither source nor destination changed since the last execution
+            done = true;
+        } else if (plugin instanceof IncrementalProjection) {
+            done = updateProjection(clij, (IncrementalProjection) plugin, source, destination, changes);
+        } else {
+            done = recomputeSlices(clij, plugin, args, source, destination, changes);
+        }
+        if (done) {
+            recipe.sourceVersion = history.version;
+            recipe.destinationVersion = getHistory(destination).version;
+        }
+        return done;
+    }
+
+    private boolean recomputeSlices(CLIJ clij, CLIJMacroPlugin plugin, Object[] args, ClearCLBuffer source, ClearCLBuffer destination, ArrayList<Change> changes) {
+        if (!Arrays.equals(source.getDimensions(), destination.getDimensions())) {
+            return false;
+        }
+        int depth = getDepth(source);
+        int radius = ((IncrementalOperation) plugin).getRadiusZ();
+        int changedFrom = depth;
+        int changedTo = -1;
+        for (Change change : changes) {
+            changedFrom = Math.min(changedFrom, change.zFrom);
+            changedTo = Math.max(changedTo, change.zTo);
+        }
+
+        int[] range = getRecomputedRange(changedFrom, changedTo, radius, depth);
+        if (range == null) {
+            return false;
+        }
+        int outputFrom = range[0];
+        int outputTo = range[1];
+        int inputFrom = range[2];
+        int inputTo = range[3];
+
+        long[] dimensions = {source.getWidth(), source.getHeight(), inputTo - inputFrom + 1};
+        ClearCLBuffer input = clij.createCLBuffer(dimensions, source.getNativeType());
+        ClearCLBuffer output = clij.createCLBuffer(dimensions, destination.getNativeType());
+        try {
+            Kernels.crop(clij, source, input, 0, 0, inputFrom);
+            Object[] slabArgs = args.clone();
+            slabArgs[0] = input;
+            slabArgs[1] = output;
+            plugin.setArgs(slabArgs);
+            ((CLIJOpenCLProcessor) plugin).executeCL();
+            plugin.setArgs(args);
+
+            int outputDepth = outputTo - outputFrom + 1;
+            float[] slab = SlabStreamer.readSlab(clij, output, outputFrom - inputFrom, outputDepth);
+            SlabStreamer.writeSlab(clij, destination, outputFrom, outputDepth, slab);
+        } finally {
+            input.close();
+            output.close();
+        }
+        markDirty(destination, outputFrom, outputTo, null);
+        return true;
+    }
+
+    /**
+     * Returns the destination slices affected by a change of the source slices changedFrom to changedTo and the
+     * source slices they depend on, as {outputFrom, outputTo, inputFrom, inputTo}. Returns null if the whole
+     * source is needed anyway.
+     */
+    static int[] getRecomputedRange(int changedFrom, int changedTo, int radius, int depth) {
+        int outputFrom = Math.max(0, changedFrom - radius);
+        int outputTo = Math.min(depth - 1, changedTo + radius);
+        int inputFrom = Math.max(0, outputFrom - radius);
+        int inputTo = Math.min(depth - 1, outputTo + radius);
+        if (inputTo - inputFrom + 1 >= depth) {
+            return null;
+        }
+        return new int[]{outputFrom, outputTo, inputFrom, inputTo};
+    }
+
+    private boolean updateProjection(CLIJ clij, IncrementalProjection projection, ClearCLBuffer source, ClearCLBuffer destination, ArrayList<Change> changes) {
+        int depth = getDepth(source);
+        int planeSize = (int) (source.getWidth() * source.getHeight());
+        if (destination.getWidth() * destination.getHeight() != planeSize || getDepth(destination) != 1) {
+            return false;
+        }
+
+        // per slice, the content before the first change since the last execution
+        HashMap<Integer, float[]> before = new HashMap<Integer, float[]>();
+        for (Change change : changes) {
+            if (change.before == null) {
+                return false;
+            }
+            for (int z = change.zFrom; z <= change.zTo; z++) {
+                if (!before.containsKey(z)) {
+                    float[] slice = new float[planeSize];
+                    System.arraycopy(change.before, (z - change.zFrom) * planeSize, slice, 0, planeSize);
+                    before.put(z, slice);
+                }
+            }
+        }
+
+        float[] result = SlabStreamer.read(destination);
+        for (Integer z : before.keySet()) {
+            float[] previous = before.get(z);
+            float[] current = SlabStreamer.readSlab(clij, source, z, 1);
+            for (int i = 0; i < planeSize; i++) {
+                if (previous[i] != current[i]) {
+                    result[i] = projection.update(result[i], previous[i], current[i], depth);
+                    if (Float.isNaN(result[i])) {
+                        return false;
+                    }
+                }
+            }
+        }
+        SlabStreamer.write(destination, result);
+        markDirty(destination);
+        return true;
+    }
+}
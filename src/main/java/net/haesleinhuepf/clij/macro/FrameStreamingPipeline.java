@@ -0,0 +1,277 @@
+package net.haesleinhuepf.clij.macro;
+
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.coremem.enums.NativeTypeEnum;
+import net.haesleinhuepf.clij.utilities.ImgLib2Transfer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * FrameStreamingPipeline processes a stream of frames of constant size, e.g. from a live acquisition, with a fixed
+ * processing step. Uploading a frame, processing it and downloading the result run in three threads, so that
+ * frame N + 1 is prepared while frame N is processed and frame N - 1 is handed over to the consumer.
+ * <p>
+ * All stages use the default command queue of the context, which executes in order. Hence, transfers don't
+ * overlap kernels on the device; what overlaps is the work on the host: copying frames into and out of the
+ * staging buffers, host-side parts of the processing step and the consumer, e.g. saving results to disk.
+ * <p>
+ * Frames travel through a ring of slots, each holding pre-allocated input and output buffers in GPU memory and
+ * direct staging buffers in host memory. If all slots are in use, submit() blocks until the oldest frame was
+ * handed over to the consumer; this slows down acquisition instead of piling up frames.
+ * <p>
+ * Frames are handed over as primitive arrays (byte[], short[], int[] or float[]) matching the input type;
+ * results are handed over the same way, matching the output type.
+ * <p>
+ * The pipeline is meant for Java code driving an acquisition; it is not available as a macro function.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public class FrameStreamingPipeline implements AutoCloseable {
+
+    public interface Step {
+        void process(CLIJ clij, ClearCLBuffer input, ClearCLBuffer output);
+    }
+
+    public interface FrameConsumer {
+        void accept(long frameIndex, Object pixels);
+    }
+
+    private class Slot {
+        private final ClearCLBuffer input;
+        private final ClearCLBuffer output;
+        private final ByteBuffer inputStaging;
+        private final ByteBuffer outputStaging;
+        private long frameIndex;
+
+        Slot() {
+            input = clij.createCLBuffer(inputDimensions, inputType);
+            output = clij.createCLBuffer(outputDimensions, outputType);
+            inputStaging = ByteBuffer.allocateDirect((int) input.getSizeInBytes()).order(ByteOrder.nativeOrder());
+            outputStaging = ByteBuffer.allocateDirect((int) output.getSizeInBytes()).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    private final CLIJ clij;
+    private final long[] inputDimensions;
+    private final NativeTypeEnum inputType;
+    private final long[] outputDimensions;
+    private final NativeTypeEnum outputType;
+    private final Step step;
+    private final FrameConsumer consumer;
+
+    private final ArrayList<Slot> slots = new ArrayList<Slot>();
+    private final BlockingQueue<Slot> free;
+    private final BlockingQueue<Object> toUpload;
+    private final BlockingQueue<Object> toProcess;
+    private final BlockingQueue<Object> toDownload;
+    private final ExecutorService threads = Executors.newFixedThreadPool(3);
+    private final ArrayList<Future<?>> stages = new ArrayList<Future<?>>();
+    private long frameCounter = 0;
+    private boolean closed = false;
+
+    interface StageListener {
+        void stageFinished(String stage, long frameIndex, long startNanos, long endNanos);
+    }
+
+    // notified after every stage and frame, for tests
+    volatile StageListener stageListener = null;
+
+    /**
+     * @param ringSize number of frames which can be in the pipeline at the same time; at least 3 are needed to
+     *                 keep all stages busy
+     */
+    public FrameStreamingPipeline(CLIJ clij, long[] inputDimensions, NativeTypeEnum inputType, long[] outputDimensions, NativeTypeEnum outputType, Step step, FrameConsumer consumer, int ringSize) {
+        this.clij = clij;
+        this.inputDimensions = inputDimensions;
+        this.inputType = inputType;
+        this.outputDimensions = outputDimensions;
+        this.outputType = outputType;
+        this.step = step;
+        this.consumer = consumer;
+        checkFrameSize(inputDimensions, inputType);
+        checkFrameSize(outputDimensions, outputType);
+
+        free = new ArrayBlockingQueue<Slot>(ringSize);
+        toUpload = new ArrayBlockingQueue<Object>(ringSize + 1);
+        toProcess = new ArrayBlockingQueue<Object>(ringSize + 1);
+        toDownload = new ArrayBlockingQueue<Object>(ringSize + 1);
+        for (int i = 0; i < ringSize; i++) {
+            Slot slot = new Slot();
+            slots.add(slot);
+            free.add(slot);
+        }
+
+        stages.add(threads.submit(() -> {
+            run("upload", toUpload, toProcess, slot -> slot.input.writeFrom(slot.inputStaging, true));
+            return null;
+        }));
+        stages.add(threads.submit(() -> {
+            run("process", toProcess, toDownload, slot -> step.process(clij, slot.input, slot.output));
+            return null;
+        }));
+        stages.add(threads.submit(() -> {
+            run("download", toDownload, null, slot -> {
+                slot.output.readTo(slot.outputStaging, true);
+                Object pixels = ImgLib2Transfer.createArray(outputType, (int) slot.output.getLength());
+                ImgLib2Transfer.copy(pixels, slot.outputStaging, 0, false);
+                consumer.accept(slot.frameIndex, pixels);
+            });
+            return null;
+        }));
+    }
+
+    // frames are staged in ByteBuffers, which can hold at most 2 GB
+    static void checkFrameSize(long[] dimensions, NativeTypeEnum type) {
+        long numberOfBytes = type.getSizeInBytes();
+        for (long dimension : dimensions) {
+            if (dimension < 1) {
+                throw new IllegalArgumentException("Frame dimensions must be positive.");
+            }
+            numberOfBytes *= dimension;
+            if (numberOfBytes > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Frames of " + Arrays.toString(dimensions) + " " + type + " pixels exceed the 2 GB which can be staged in host memory.");
+            }
+        }
+    }
+
+    /**
+     * Returns a step executing the given plugin with args[0] as source, args[1] as destination and the given
+     * further parameters.
+     */
+    public static Step of(CLIJMacroPlugin plugin, Object... parameters) {
+        return (clij, input, output) -> {
+            Object[] args = new Object[parameters.length + 2];
+            args[0] = input;
+            args[1] = output;
+            System.arraycopy(parameters, 0, args, 2, parameters.length);
+            plugin.setClij(clij);
+            plugin.setArgs(args);
+            ((CLIJOpenCLProcessor) plugin).executeCL();
+        };
+    }
+
+    private interface SlotOperation {
+        void apply(Slot slot);
+    }
+
+    // marks the end of the stream
+    private static final Object END_OF_STREAM = new Object();
+
+    private void run(String stage, BlockingQueue<Object> in, BlockingQueue<Object> out, SlotOperation operation) throws InterruptedException {
+        while (true) {
+            Object item = in.take();
+            if (item == END_OF_STREAM) {
+                if (out != null) {
+                    out.put(END_OF_STREAM);
+                }
+                return;
+            }
+            Slot slot = (Slot) item;
+            long start = System.nanoTime();
+            operation.apply(slot);
+            StageListener listener = stageListener;
+            if (listener != null) {
+                listener.stageFinished(stage, slot.frameIndex, start, System.nanoTime());
+            }
+            if (out != null) {
+                out.put(slot);
+            } else {
+                free.put(slot);
+            }
+        }
+    }
+
+    /**
+     * Hands over the next frame. Blocks while all slots are in use.
+     */
+    public void submit(Object pixels) throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("The pipeline was closed.");
+        }
+        Slot slot = null;
+        while (slot == null) {
+            checkStages();
+            slot = free.poll(100, TimeUnit.MILLISECONDS);
+        }
+        slot.frameIndex = frameCounter++;
+        ImgLib2Transfer.copy(pixels, slot.inputStaging, 0, true);
+        toUpload.put(slot);
+    }
+
+    // rethrows exceptions of the stages, e.g. if the consumer failed; before the end of the stream, no stage
+    // finishes without failure
+    private void checkStages() {
+        for (Future<?> stage : stages) {
+            if (stage.isDone()) {
+                rethrowFailure(stage);
+                throw new IllegalStateException("The pipeline stopped unexpectedly.");
+            }
+        }
+    }
+
+    private static void rethrowFailure(Future<?> stage) {
+        try {
+            stage.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Waits until all submitted frames were handed over to the consumer and releases the buffers. If a stage
+     * failed, the remaining frames are dropped and its exception is rethrown.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            // a failed stage doesn't take items anymore; the stages after it wait forever
+            while (!toUpload.offer(END_OF_STREAM, 100, TimeUnit.MILLISECONDS)) {
+                checkStages();
+            }
+            for (Future<?> stage : stages) {
+                while (!stage.isDone()) {
+                    for (Future<?> other : stages) {
+                        if (other.isDone()) {
+                            rethrowFailure(other);
+                        }
+                    }
+                    try {
+                        stage.get(100, TimeUnit.MILLISECONDS);
+                    } catch (ExecutionException e) {
+                        throw new RuntimeException(e.getCause());
+                    } catch (TimeoutException e) {
+                        // check the other stages again
+                    }
+                }
+                rethrowFailure(stage);
+            }
+        } finally {
+            threads.shutdownNow();
+            // transfers in progress can't be interrupted; they must finish before their buffers are released
+            threads.awaitTermination(10, TimeUnit.SECONDS);
+            for (Slot slot : slots) {
+                slot.input.close();
+                slot.output.close();
+            }
+        }
+    }
+}
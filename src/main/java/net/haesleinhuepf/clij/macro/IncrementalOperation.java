@@ -0,0 +1,27 @@
+package net.haesleinhuepf.clij.macro;
+
+/**
+ * IncrementalOperation
+ * <p>
+ * Plugins implementing this interface read args[0] and write args[1] of the same size, and a slice of the
+ * destination only depends on the source slices within a certain distance. When called from macro again with the
+ * same arguments after some slices of the source changed, the CLIJHandler recomputes only the affected slices.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public interface IncrementalOperation extends WritingOperation {
+    /**
+     * Returns how many slices above and below a destination slice influence it; 0 for operations working
+     * slice by slice.
+     */
+    int getRadiusZ();
+
+    /**
+     * Only the destination args[1] is written.
+     */
+    @Override
+    default int[] getWrittenArguments() {
+        return new int[]{1};
+    }
+}
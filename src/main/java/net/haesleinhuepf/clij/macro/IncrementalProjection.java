@@ -0,0 +1,27 @@
+package net.haesleinhuepf.clij.macro;
+
+/**
+ * IncrementalProjection
+ * <p>
+ * Plugins implementing this interface project args[0] along Z into args[1]. When called from macro again with the
+ * same arguments after some slices of the source changed, the CLIJHandler updates the projection from the changed
+ * slices instead of projecting the whole stack again.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public interface IncrementalProjection extends WritingOperation {
+    /**
+     * Returns the projected value of a pixel after the value of one of its slices changed from before to after,
+     * or NaN if it cannot be determined without projecting the whole column again.
+     */
+    float update(float projection, float before, float after, int depth);
+
+    /**
+     * Only the destination args[1] is written.
+     */
+    @Override
+    default int[] getWrittenArguments() {
+        return new int[]{1};
+    }
+}
@@ -0,0 +1,27 @@
+package net.haesleinhuepf.clij.macro;
+
+/**
+ * PartialWriteOperation
+ * <p>
+ * Plugins implementing this interface may overwrite only some slices of their destination. The CLIJHandler then
+ * marks only these slices as changed, so that operations depending on the destination can be updated
+ * incrementally.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public interface PartialWriteOperation extends WritingOperation {
+    /**
+     * Returns the first and last slice of the destination written with the current arguments, or null if the
+     * whole destination is written.
+     */
+    int[] getWrittenSlices();
+
+    /**
+     * Only the destination args[1] is written.
+     */
+    @Override
+    default int[] getWrittenArguments() {
+        return new int[]{1};
+    }
+}
@@ -0,0 +1,91 @@
+package net.haesleinhuepf.clij.macro;
+
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.clearcl.ClearCLImage;
+import net.haesleinhuepf.clij.kernels.Kernels;
+import net.haesleinhuepf.clij.utilities.AffineTransform;
+import net.imglib2.realtransform.AffineTransform2D;
+import net.imglib2.realtransform.AffineTransform3D;
+
+/**
+ * PendingAffineTransform
+ * <p>
+ * An affine transform which was not executed yet. If the result of an affine transform is only read by another
+ * pending affine transform and released before it is computed, the CLIJHandler composes both into one matrix,
+ * so that the source is resampled only once: If B = T1(A), C = T2(B) and B is released, C is determined as
+ * C = (T1 * T2)(A). Note that pixels which would have been clipped at the border of B are then taken from A.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public class PendingAffineTransform extends PendingOperation {
+    private final AffineTransform2D transform2D;
+    private final AffineTransform3D transform3D;
+
+    public PendingAffineTransform(ClearCLBuffer source, ClearCLBuffer destination, AffineTransform2D transform2D) {
+        super(source, destination);
+        this.transform2D = transform2D;
+        this.transform3D = null;
+    }
+
+    public PendingAffineTransform(ClearCLBuffer source, ClearCLBuffer destination, AffineTransform3D transform3D) {
+        super(source, destination);
+        this.transform2D = null;
+        this.transform3D = transform3D;
+    }
+
+    @Override
+    public boolean materialize(CLIJ clij) {
+        if (transform3D != null) {
+            return affineTransform(clij, getSource(), getDestination(), transform3D);
+        } else {
+            return affineTransform(clij, getSource(), getDestination(), transform2D);
+        }
+    }
+
+    @Override
+    public PendingOperation composeAfter(PendingOperation previous) {
+        if (!(previous instanceof PendingAffineTransform)) {
+            return null;
+        }
+        PendingAffineTransform previousTransform = (PendingAffineTransform) previous;
+        if (transform3D != null && previousTransform.transform3D != null) {
+            return new PendingAffineTransform(previous.getSource(), getDestination(), previousTransform.transform3D.copy().concatenate(transform3D));
+        }
+        if (transform2D != null && previousTransform.transform2D != null) {
+            return new PendingAffineTransform(previous.getSource(), getDestination(), previousTransform.transform2D.copy().concatenate(transform2D));
+        }
+        return null;
+    }
+
+    public static boolean affineTransform(CLIJ clij, ClearCLBuffer input, ClearCLBuffer output, AffineTransform2D at) {
+        if (!clij.hasImageSupport()) {
+            return Kernels.affineTransform2D(clij, input, output, AffineTransform.matrixToFloatArray2D(at));
+        } else {
+            ClearCLImage inputImage = CLIJHandler.getInstance().getChachedImageByBuffer(input);
+            ClearCLImage outputImage = CLIJHandler.getInstance().getChachedImageByBuffer(output);
+
+            boolean result = Kernels.affineTransform2D(clij, inputImage, outputImage, AffineTransform.matrixToFloatArray2D(at));
+
+            Kernels.copy(clij, outputImage, output);
+
+            return result;
+        }
+    }
+
+    public static boolean affineTransform(CLIJ clij, ClearCLBuffer input, ClearCLBuffer output, AffineTransform3D at) {
+        if (!clij.hasImageSupport()) {
+            return Kernels.affineTransform3D(clij, input, output, AffineTransform.matrixToFloatArray(at));
+        } else {
+            ClearCLImage inputImage = CLIJHandler.getInstance().getChachedImageByBuffer(input);
+            ClearCLImage outputImage = CLIJHandler.getInstance().getChachedImageByBuffer(output);
+
+            boolean result = Kernels.affineTransform3D(clij, inputImage, outputImage, AffineTransform.matrixToFloatArray(at));
+
+            Kernels.copy(clij, outputImage, output);
+
+            return result;
+        }
+    }
+}
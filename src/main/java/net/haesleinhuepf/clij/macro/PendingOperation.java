@@ -0,0 +1,46 @@
+package net.haesleinhuepf.clij.macro;
+
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+
+/**
+ * PendingOperation
+ * <p>
+ * An operation which was not executed yet. Its destination image in GPU memory is out of date until the operation
+ * is materialized. The CLIJHandler keeps track of pending operations and materializes them as soon as their
+ * result is needed or their source is about to change.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public abstract class PendingOperation {
+    private final ClearCLBuffer source;
+    private final ClearCLBuffer destination;
+
+    protected PendingOperation(ClearCLBuffer source, ClearCLBuffer destination) {
+        this.source = source;
+        this.destination = destination;
+    }
+
+    public ClearCLBuffer getSource() {
+        return source;
+    }
+
+    public ClearCLBuffer getDestination() {
+        return destination;
+    }
+
+    /**
+     * Executes the operation and writes its result to the destination.
+     */
+    public abstract boolean materialize(CLIJ clij);
+
+    /**
+     * Returns a single operation doing the same as this operation applied to the result of the given
+     * operation, reading from the source of the given operation. Returns null if the operations cannot be
+     * composed.
+     */
+    public PendingOperation composeAfter(PendingOperation previous) {
+        return null;
+    }
+}
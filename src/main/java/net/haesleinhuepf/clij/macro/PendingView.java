@@ -0,0 +1,86 @@
+package net.haesleinhuepf.clij.macro;
+
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.utilities.StridedView;
+
+import java.util.HashMap;
+
+/**
+ * PendingView
+ * <p>
+ * A reorientation of an image, such as a flip or a rotation by 90 degrees, which was not executed yet. As long as
+ * the view is pending, no pixels are copied, and a view which is released before it is used is never copied.
+ * OpenCL kernels in this version read contiguous buffers only, so a view is copied as soon as it is used: A single
+ * view is materialized by the kernel of the operation which created it. If an intermediate view is released before
+ * it was used, the CLIJHandler composes the views reading it into views of its source, which are materialized by
+ * a single strided copy in GPU memory (see strided_view.cl): If B = flip(A), C = rotateLeft(B) and B is released,
+ * C is copied from A directly and B is never copied.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public class PendingView extends PendingOperation {
+
+    /**
+     * Executes the operation the view was created from.
+     */
+    public interface Kernel {
+        boolean execute(CLIJ clij, ClearCLBuffer source, ClearCLBuffer destination);
+    }
+
+    private final StridedView view;
+    private final Kernel kernel;
+
+    /**
+     * @param view the index mapping from destination to source
+     * @param kernel the operation producing the destination, or null if the destination is copied from the view
+     */
+    public PendingView(ClearCLBuffer source, ClearCLBuffer destination, StridedView view, Kernel kernel) {
+        super(source, destination);
+        this.view = view;
+        this.kernel = kernel;
+    }
+
+    @Override
+    public boolean materialize(CLIJ clij) {
+        if (kernel != null) {
+            return kernel.execute(clij, getSource(), getDestination());
+        }
+        ClearCLBuffer source = getSource();
+        ClearCLBuffer destination = getDestination();
+        long[] sourceDimensions = dimensionsOf(source);
+        int[] origin = view.getOrigin();
+        int[][] matrix = view.getMatrix();
+
+        HashMap<String, Object> parameters = new HashMap<String, Object>();
+        parameters.put("src", source);
+        parameters.put("dst", destination);
+        parameters.put("source_width", (int) sourceDimensions[0]);
+        parameters.put("source_height", (int) sourceDimensions[1]);
+        parameters.put("source_depth", (int) sourceDimensions[2]);
+        parameters.put("origin_x", origin[0]);
+        parameters.put("origin_y", origin[1]);
+        parameters.put("origin_z", origin[2]);
+        for (int row = 0; row < 3; row++) {
+            for (int column = 0; column < 3; column++) {
+                parameters.put("m" + row + column, matrix[row][column]);
+            }
+        }
+
+        String kernelName = source.getDimension() > 2 ? "strided_view_3d" : "strided_view_2d";
+        return clij.execute(PendingView.class, "strided_view.cl", kernelName, parameters);
+    }
+
+    @Override
+    public PendingOperation composeAfter(PendingOperation previous) {
+        if (!(previous instanceof PendingView)) {
+            return null;
+        }
+        return new PendingView(previous.getSource(), getDestination(), view.after(((PendingView) previous).view), null);
+    }
+
+    public static long[] dimensionsOf(ClearCLBuffer buffer) {
+        return new long[]{buffer.getWidth(), buffer.getHeight(), buffer.getDimension() > 2 ? buffer.getDepth() : 1};
+    }
+}
@@ -0,0 +1,172 @@
+package net.haesleinhuepf.clij.macro;
+
+import ij.ImagePlus;
+import ij.ImageStack;
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.coremem.enums.NativeTypeEnum;
+import net.haesleinhuepf.clij.kernels.Kernels;
+import net.haesleinhuepf.clij.utilities.ImgLib2Transfer;
+import net.haesleinhuepf.clij.utilities.PixelChecksum;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * PushedSliceTracker
+ * <p>
+ * Remembers checksums of the slices which were pushed under a name, together with the version of the buffer in
+ * GPU memory after the push. When an image is pushed again under the same name and the buffer was not changed in
+ * the meantime, only slices whose checksums differ need to be transferred. If an image with the same content
+ * was pushed under another name, its buffer can be shared instead of transferring the image again.
+ * <p>
+ * Whenever a buffer is written in GPU memory, the CLIJHandler forgets what was pushed into it. Buffers handed
+ * out to Java code are not tracked anymore and always pushed completely.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+class PushedSliceTracker {
+    /**
+     * If more than this fraction of the slices changed, the whole stack is transferred at once, which is faster
+     * than copying many slices one by one.
+     */
+    static double maximumChangedFraction = 0.5;
+
+    private static class Pushed {
+        private final ClearCLBuffer buffer;
+        private final long[] checksums;
+        private final long contentHash;
+        private final long version;
+
+        Pushed(ClearCLBuffer buffer, long[] checksums, long version) {
+            this.buffer = buffer;
+            this.checksums = checksums;
+            this.contentHash = PixelChecksum.combine(checksums);
+            this.version = version;
+        }
+    }
+
+    private final HashMap<String, Pushed> pushed = new HashMap<String, Pushed>();
+
+    /**
+     * Returns the pixel arrays of all slices, as CLIJ.push transfers them.
+     */
+    static Object[] getSlices(ImagePlus imp) {
+        ImageStack stack = imp.getStack();
+        Object[] slices = new Object[stack.getSize()];
+        for (int z = 0; z < slices.length; z++) {
+            slices[z] = stack.getPixels(z + 1);
+        }
+        return slices;
+    }
+
+    /**
+     * Returns the type the image has in GPU memory after pushing or null if it is not supported, e.g. for RGB.
+     */
+    static NativeTypeEnum getNativeType(ImagePlus imp) {
+        switch (imp.getBitDepth()) {
+            case 8:
+                return NativeTypeEnum.UnsignedByte;
+            case 16:
+                return NativeTypeEnum.UnsignedShort;
+            case 32:
+                return NativeTypeEnum.Float;
+            default:
+                return null;
+        }
+    }
+
+    static long[] getDimensions(ImagePlus imp) {
+        int depth = imp.getStackSize();
+        return depth > 1 ? new long[]{imp.getWidth(), imp.getHeight(), depth} : new long[]{imp.getWidth(), imp.getHeight()};
+    }
+
+    void remember(String name, ClearCLBuffer buffer, long[] checksums, long version) {
+        pushed.put(name, new Pushed(buffer, checksums, version));
+    }
+
+    void forget(String name) {
+        pushed.remove(name);
+    }
+
+    /**
+     * Forgets what was pushed into the given buffer under any name.
+     */
+    void forget(ClearCLBuffer buffer) {
+        pushed.values().removeIf(candidate -> candidate.buffer == buffer);
+    }
+
+    void clear() {
+        pushed.clear();
+    }
+
+    /**
+     * Returns the indices of the slices which differ from what was pushed under the given name, or null if
+     * the buffer has to be pushed completely, e.g. because it changed in GPU memory or has a different size.
+     */
+    int[] getChangedSlices(String name, ClearCLBuffer buffer, DirtyRegionTracker dirtyRegions, ImagePlus imp, long[] checksums) {
+        Pushed previous = pushed.get(name);
+        if (previous == null || previous.buffer != buffer || !dirtyRegions.isTracked(buffer)
+                || previous.version != dirtyRegions.getVersion(buffer)
+                || previous.checksums.length != checksums.length
+                || buffer.getNativeType() != getNativeType(imp)
+                || !Arrays.equals(buffer.getDimensions(), getDimensions(imp))) {
+            return null;
+        }
+        ArrayList<Integer> changed = new ArrayList<Integer>();
+        for (int z = 0; z < checksums.length; z++) {
+            if (checksums[z] != previous.checksums[z]) {
+                changed.add(z);
+            }
+        }
+        if (changed.size() > 1 && changed.size() > maximumChangedFraction * checksums.length) {
+            return null;
+        }
+        int[] result = new int[changed.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = changed.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a name under which an image with the same content, size and type was pushed, if its buffer was
+     * not changed since then. Otherwise, null is returned.
+     */
+    String findIdentical(ImagePlus imp, long[] checksums, DirtyRegionTracker dirtyRegions) {
+        long contentHash = PixelChecksum.combine(checksums);
+        for (String name : pushed.keySet()) {
+            Pushed candidate = pushed.get(name);
+            if (candidate.contentHash == contentHash
+                    && Arrays.equals(candidate.checksums, checksums)
+                    && dirtyRegions.isTracked(candidate.buffer)
+                    && candidate.version == dirtyRegions.getVersion(candidate.buffer)
+                    && candidate.buffer.getNativeType() == getNativeType(imp)
+                    && Arrays.equals(candidate.buffer.getDimensions(), getDimensions(imp))) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Transfers the given slices into the buffer.
+     */
+    static void pushSlices(CLIJ clij, Object[] slices, ClearCLBuffer buffer, int[] changedSlices) {
+        if (buffer.getDimension() < 3) {
+            ImgLib2Transfer.write(clij, buffer, new Object[]{slices[0]});
+            return;
+        }
+        ClearCLBuffer plane = clij.createCLBuffer(new long[]{buffer.getWidth(), buffer.getHeight()}, buffer.getNativeType());
+        try {
+            for (int z : changedSlices) {
+                ImgLib2Transfer.write(clij, plane, new Object[]{slices[z]});
+                Kernels.copySlice(clij, plane, buffer, z);
+            }
+        } finally {
+            plane.close();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package net.haesleinhuepf.clij.macro;
+
+/**
+ * WritingOperation
+ * <p>
+ * Plugins implementing this interface declare which of their image arguments they write. The CLIJHandler marks
+ * these images as changed after the plugin was executed. For plugins which don't implement this interface, the
+ * parameters named destination are assumed to be written, and the first image argument of the plugins listed in
+ * CLIJHandler.inPlaceWriters, e.g. CLIJ_set.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public interface WritingOperation {
+    /**
+     * Returns the indices of the arguments which are written with the current arguments.
+     */
+    int[] getWrittenArguments();
+}
@@ -6,6 +6,7 @@ import net.haesleinhuepf.clij.kernels.Kernels;
 import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
 import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
 import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.IncrementalOperation;
 import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
 import org.scijava.plugin.Plugin;
 
@@ -15,7 +16,7 @@ import org.scijava.plugin.Plugin;
  */
 @Deprecated
 @Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_addImageAndScalar")
-public class AddImageAndScalar extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+public class AddImageAndScalar extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation, IncrementalOperation {
 
     @Override
     public boolean executeCL() {
@@ -29,6 +30,11 @@ public class AddImageAndScalar extends AbstractCLIJPlugin implements CLIJMacroPl
         }
     }
 
+    @Override
+    public int getRadiusZ() {
+        return 0;
+    }
+
     @Override
     public String getParameterHelpText() {
         return "Image source, Image destination, Number scalar";
@@ -0,0 +1,58 @@
+package net.haesleinhuepf.clij.macro.modules;
+
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
+import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
+import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
+import net.haesleinhuepf.clij.utilities.VectorFieldWarper;
+import org.scijava.plugin.Plugin;
+
+/**
+ * ApplyVectorFieldTiled3D
+ * <p>
+ * <p>
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+@Deprecated
+@Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_applyVectorFieldTiled3D")
+public class ApplyVectorFieldTiled3D extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+
+    @Override
+    public boolean executeCL() {
+        Object[] args = openCLBufferArgs();
+        boolean result = applyVectorFieldTiled3D(clij, (ClearCLBuffer) args[0], (ClearCLBuffer) args[1], (ClearCLBuffer) args[2], (ClearCLBuffer) args[3], (ClearCLBuffer) args[4]);
+        releaseBuffers(args);
+        return result;
+    }
+
+    /**
+     * Deforms src as CLIJ_applyVectorField3D does; the vector images may have a lower resolution than src.
+     */
+    public static boolean applyVectorFieldTiled3D(CLIJ clij, ClearCLBuffer src, ClearCLBuffer vectorX, ClearCLBuffer vectorY, ClearCLBuffer vectorZ, ClearCLBuffer dst) {
+        VectorFieldWarper.warp(clij, src, vectorX, vectorY, vectorZ, dst);
+        return true;
+    }
+
+    @Override
+    public String getParameterHelpText() {
+        return "Image source, Image vectorX, Image vectorY, Image vectorZ, Image destination";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Deforms an image stack according to distances provided in the given vector image stacks, as applyVectorField3D \n" +
+                "does. The vector image stacks may be smaller than the source, e.g. downsampled by a factor of 4; they are \n" +
+                "interpolated linearly on the fly. Distances are given in pixels of the source. The destination is \n" +
+                "determined slab by slab on all CPU cores, fetching only the part of the source each slab needs." +
+                "\n\nDEPRECATED: This method is deprecated. Use CLIJ2 instead.";
+    }
+
+    @Override
+    public String getAvailableForDimensions() {
+        return "3D";
+    }
+}
@@ -0,0 +1,79 @@
+package net.haesleinhuepf.clij.macro.modules;
+
+import ij.measure.ResultsTable;
+import ij.process.AutoThresholder;
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.kernels.Kernels;
+import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
+import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
+import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
+import net.haesleinhuepf.clij.utilities.BlockSampler;
+import net.haesleinhuepf.clij.utilities.HistogramCalculator;
+import org.scijava.plugin.Plugin;
+
+import java.util.Arrays;
+
+/**
+ * ApproximateAutomaticThreshold
+ * <p>
+ * <p>
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+@Deprecated
+@Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_approximateAutomaticThreshold")
+public class ApproximateAutomaticThreshold extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+
+    @Override
+    public boolean executeCL() {
+        ClearCLBuffer src = (ClearCLBuffer) (args[0]);
+        ClearCLBuffer dst = (ClearCLBuffer) (args[1]);
+        String method = AutomaticThresholds.parseMethods((String) args[2])[0];
+        Float sampleFraction = asFloat(args[3]);
+        Integer seed = asInteger(args[4]);
+
+        float threshold = approximateAutomaticThreshold(clij, src, method, sampleFraction, seed);
+
+        ResultsTable table = ResultsTable.getResultsTable();
+        table.incrementCounter();
+        table.addValue("Threshold", threshold);
+        table.show("Results");
+
+        return Kernels.threshold(clij, src, dst, threshold);
+    }
+
+    /**
+     * Determines a threshold using the given method on the 256-bin histogram of a stratified sample of blocks.
+     */
+    public static float approximateAutomaticThreshold(CLIJ clij, ClearCLBuffer src, String method, float sampleFraction, long seed) {
+        BlockSampler sampler = BlockSampler.of(clij, src, seed);
+        float[] sample = sampler.samplePixels(sampleFraction);
+        sampler.close();
+
+        HistogramCalculator histogram = HistogramCalculator.determine(sample, 256, 0, 0, true);
+        return histogram.getThreshold(method);
+    }
+
+    @Override
+    public String getParameterHelpText() {
+        return "Image input, Image destination, String method, Number sampleFraction, Number seed";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Thresholds an image using one of ImageJs threshold methods applied to the histogram of a stratified \n" +
+                "sample of blocks, e.g. sampleFraction = 0.05. Only the sampled blocks are read from GPU memory; \n" +
+                "minimum and maximum are taken from the sample as well. Results are deterministic for a given seed. \n" +
+                "The threshold is stored in a new row of ImageJs Results table in the column 'Threshold'. Available \n" +
+                "methods: " + Arrays.toString(AutoThresholder.getMethods()) +
+                "\n\nDEPRECATED: This method is deprecated. Use CLIJ2 instead.";
+    }
+
+    @Override
+    public String getAvailableForDimensions() {
+        return "2D, 3D";
+    }
+}
@@ -0,0 +1,73 @@
+package net.haesleinhuepf.clij.macro.modules;
+
+import ij.measure.ResultsTable;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
+import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
+import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
+import net.haesleinhuepf.clij.utilities.BlockSampler;
+import org.scijava.plugin.Plugin;
+
+/**
+ * ApproximateStatistics
+ * <p>
+ * <p>
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+@Deprecated
+@Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_approximateStatistics")
+public class ApproximateStatistics extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+
+    @Override
+    public boolean executeCL() {
+        ClearCLBuffer src = (ClearCLBuffer) (args[0]);
+        Float sampleFraction = asFloat(args[1]);
+        Float targetRelativeError = asFloat(args[2]);
+        Integer seed = asInteger(args[3]);
+
+        BlockSampler sampler = BlockSampler.of(clij, src, seed);
+        BlockSampler.Estimate estimate;
+        if (targetRelativeError > 0) {
+            estimate = sampler.estimateMeanWithRelativeError(targetRelativeError);
+        } else {
+            estimate = sampler.estimateMean(sampleFraction);
+        }
+        sampler.close();
+
+        long numberOfPixels = sampler.getNumberOfPixels();
+        ResultsTable table = ResultsTable.getResultsTable();
+        table.incrementCounter();
+        table.addValue("Mean", estimate.mean);
+        table.addValue("Mean lower bound", estimate.lowerBound);
+        table.addValue("Mean upper bound", estimate.upperBound);
+        table.addValue("Sum", estimate.mean * numberOfPixels);
+        table.addValue("Sum lower bound", estimate.lowerBound * numberOfPixels);
+        table.addValue("Sum upper bound", estimate.upperBound * numberOfPixels);
+        table.addValue("Sampled pixels", estimate.sampledPixels);
+        table.show("Results");
+        return true;
+    }
+
+    @Override
+    public String getParameterHelpText() {
+        return "Image source, Number sampleFraction, Number targetRelativeError, Number seed";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Estimates mean and sum of all pixels in a given image from a stratified sample of blocks. Only the \n" +
+                "sampled blocks are read from GPU memory. Either a fraction of blocks to sample (e.g. 0.01) is given, \n" +
+                "or a target relative error (e.g. 0.001) which is greater than zero; then blocks are sampled until \n" +
+                "the 95% confidence interval is narrow enough. Results are deterministic for a given seed.\n" +
+                "The estimates and their 95% confidence bounds are stored in a new row of ImageJs Results table." +
+                "\n\nDEPRECATED: This method is deprecated. Use CLIJ2 instead.";
+    }
+
+    @Override
+    public String getAvailableForDimensions() {
+        return "2D, 3D";
+    }
+}
@@ -0,0 +1,126 @@
+package net.haesleinhuepf.clij.macro.modules;
+
+import ij.measure.ResultsTable;
+import ij.process.AutoThresholder;
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.kernels.Kernels;
+import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
+import net.haesleinhuepf.clij.macro.CLIJHandler;
+import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
+import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
+import net.haesleinhuepf.clij.utilities.HistogramCalculator;
+import org.scijava.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * AutomaticThresholds
+ * <p>
+ * <p>
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+@Deprecated
+@Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_automaticThresholds")
+public class AutomaticThresholds extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+
+    private float[] thresholds = null;
+
+    @Override
+    public boolean executeCL() {
+        ClearCLBuffer src = (ClearCLBuffer) (args[0]);
+        String[] methods = parseMethods((String) args[1]);
+        String destinationPrefix = (String) args[2];
+        int numberOfBins = asInteger(args[3]);
+
+        thresholds = automaticThresholds(clij, src, methods, numberOfBins);
+
+        ResultsTable table = ResultsTable.getResultsTable();
+        for (int i = 0; i < methods.length; i++) {
+            table.incrementCounter();
+            table.addValue("Method", methods[i]);
+            table.addValue("Threshold", thresholds[i]);
+        }
+        table.show(table.getTitle());
+
+        if (destinationPrefix != null && destinationPrefix.length() > 0) {
+            for (int i = 0; i < methods.length; i++) {
+                ClearCLBuffer dst = CLIJHandler.getInstance().getFromCacheOrCreate(destinationPrefix + methods[i], src.getDimensions(), src.getNativeType());
+                Kernels.threshold(clij, src, dst, thresholds[i]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a list of threshold method names separated by spaces or commas. "all" or an empty string select
+     * all methods offered by ImageJ's AutoThresholder.
+     */
+    public static String[] parseMethods(String methods) {
+        String[] availableMethods = AutoThresholder.getMethods();
+        if (methods == null || methods.trim().length() == 0 || methods.trim().equalsIgnoreCase("all")) {
+            return availableMethods;
+        }
+
+        ArrayList<String> result = new ArrayList<String>();
+        for (String method : methods.trim().split("[ ,]+")) {
+            String matchingMethod = null;
+            for (String availableMethod : availableMethods) {
+                if (availableMethod.equalsIgnoreCase(method)) {
+                    matchingMethod = availableMethod;
+                }
+            }
+            if (matchingMethod == null) {
+                throw new IllegalArgumentException("Unknown threshold method " + method + ". Use one of " + Arrays.toString(availableMethods));
+            }
+            result.add(matchingMethod);
+        }
+        return result.toArray(new String[0]);
+    }
+
+    /**
+     * Returns the thresholds determined by the last execution, in the order of the given methods.
+     */
+    public float[] getThresholds() {
+        return thresholds;
+    }
+
+    /**
+     * Determines a histogram of src with the given number of bins once and evaluates every given threshold method
+     * on it. The returned thresholds are grey values in the range of src, in the order of the given methods.
+     */
+    public static float[] automaticThresholds(CLIJ clij, ClearCLBuffer src, String[] methods, int numberOfBins) {
+        HistogramCalculator histogram = HistogramCalculator.determine(clij, src, numberOfBins, 0, 0, true);
+
+        float[] thresholds = new float[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            thresholds[i] = histogram.getThreshold(methods[i]);
+        }
+        return thresholds;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Determines the histogram of an image once and evaluates several threshold methods from ImageJ on it. \n" +
+                "Methods are given separated by spaces or commas; 'all' evaluates every method. With 256 bins, the \n" +
+                "thresholds equal those of automaticThreshold. They are appended to the columns 'Method' and \n" +
+                "'Threshold' of the results table. If a destination prefix is given, a binary image named \n" +
+                "prefix + method is created for every method.\n\n" +
+                "Available methods: " + Arrays.toString(AutoThresholder.getMethods()) +
+                "\n\nDEPRECATED: This method is deprecated. Use CLIJ2 instead.";
+    }
+
+    @Override
+    public String getParameterHelpText() {
+        return "Image source, String methods, String destinationPrefix, Number numberOfBins";
+    }
+
+    @Override
+    public String getAvailableForDimensions() {
+        return "2D, 3D";
+    }
+}
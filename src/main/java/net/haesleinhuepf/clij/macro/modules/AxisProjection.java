@@ -0,0 +1,87 @@
+package net.haesleinhuepf.clij.macro.modules;
+
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.coremem.enums.NativeTypeEnum;
+import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
+import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
+import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
+import net.haesleinhuepf.clij.utilities.AxisProjector;
+import net.haesleinhuepf.clij.utilities.ProjectionAccumulator.Statistic;
+import net.haesleinhuepf.clij.utilities.SlabStreamer;
+import org.scijava.plugin.Plugin;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+
+/**
+ * AxisProjection
+ * <p>
+ * <p>
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+@Deprecated
+@Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_axisProjection")
+public class AxisProjection extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+
+    @Override
+    public boolean executeCL() {
+        ClearCLBuffer input = (ClearCLBuffer) args[0];
+        ClearCLBuffer output = (ClearCLBuffer) args[1];
+        String axes = (String) args[2];
+        Statistic statistic = Statistic.fromString((String) args[3]);
+
+        return axisProjection(clij, input, output, axes, statistic);
+    }
+
+    public static boolean axisProjection(CLIJ clij, ClearCLBuffer input, ClearCLBuffer output, String axes, Statistic statistic) {
+        long[] outputDimensions = AxisProjector.getOutputDimensions(input.getWidth(), input.getHeight(), input.getDepth(), axes);
+        if (output.getWidth() != outputDimensions[0] || output.getHeight() != outputDimensions[1]) {
+            throw new IllegalArgumentException("Projecting " + axes + " requires a destination image of size " + Arrays.toString(outputDimensions));
+        }
+
+        if (AxisProjector.isInteger32(input.getNativeType())) {
+            // float slabs can't hold 32-bit integers exactly
+            boolean[] projected = AxisProjector.parseAxes(axes);
+            if (projected[0] || projected[1]) {
+                throw new IllegalArgumentException("32-bit integer images can only be projected along Z. Convert the image to float first.");
+            }
+            return CombinedZProjection.kernelZProjection(clij, input, output, statistic);
+        }
+
+        AxisProjector projector = AxisProjector.project(clij, input, axes, EnumSet.of(statistic));
+        SlabStreamer.write(output, projector.getResult(statistic));
+        return true;
+    }
+
+    @Override
+    public String getParameterHelpText() {
+        return "Image source, Image destination, String axes, String statistic";
+    }
+
+    @Override
+    public ClearCLBuffer createOutputBufferFromSource(ClearCLBuffer input) {
+        Statistic statistic = Statistic.fromString((String) args[3]);
+        NativeTypeEnum type = (statistic == Statistic.MAX || statistic == Statistic.MIN) ? input.getNativeType() : NativeTypeEnum.Float;
+        return clij.createCLBuffer(AxisProjector.getOutputDimensions(input.getWidth(), input.getHeight(), input.getDepth(), (String) args[2]), type);
+    }
+
+    @Override
+    public String getDescription() {
+        return "Projects an image stack along one or more axes. Axes are given as X, Y, Z or combinations such as \n" +
+                "XY, XZ or YZ. The remaining axes form the resulting image in their original order. For example, \n" +
+                "projecting Y results in an X/Z image and projecting XY results in a vector with one value per slice.\n" +
+                "The stack is processed slab by slab and is not resliced in memory.\n\n" +
+                "Supported statistics: max, min, mean, sum, std. argmax and argmin are supported for single axes. \n" +
+                "32-bit integer images can only be projected along Z using max, min or mean." +
+                "\n\nDEPRECATED: This method is deprecated. Use CLIJ2 instead.";
+    }
+
+    @Override
+    public String getAvailableForDimensions() {
+        return "3D -> 2D and 3D -> 1D";
+    }
+}
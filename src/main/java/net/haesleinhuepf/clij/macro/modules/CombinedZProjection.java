@@ -0,0 +1,126 @@
+package net.haesleinhuepf.clij.macro.modules;
+
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.coremem.enums.NativeTypeEnum;
+import net.haesleinhuepf.clij.kernels.Kernels;
+import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
+import net.haesleinhuepf.clij.macro.CLIJHandler;
+import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
+import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
+import net.haesleinhuepf.clij.utilities.AxisProjector;
+import net.haesleinhuepf.clij.utilities.ProjectionAccumulator.Statistic;
+import net.haesleinhuepf.clij.utilities.SlabStreamer;
+import org.scijava.plugin.Plugin;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+
+/**
+ * CombinedZProjection
+ * <p>
+ * <p>
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+@Deprecated
+@Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_combinedZProjection")
+public class CombinedZProjection extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+
+    @Override
+    public boolean executeCL() {
+        ClearCLBuffer input = (ClearCLBuffer) args[0];
+        Map<Statistic, String> destinationNames = parseProjections((String) args[1]);
+
+        EnumMap<Statistic, ClearCLBuffer> destinations = new EnumMap<Statistic, ClearCLBuffer>(Statistic.class);
+        for (Statistic statistic : destinationNames.keySet()) {
+            NativeTypeEnum type = (statistic == Statistic.MAX || statistic == Statistic.MIN) ? input.getNativeType() : NativeTypeEnum.Float;
+            destinations.put(statistic, CLIJHandler.getInstance().getFromCacheOrCreate(destinationNames.get(statistic), new long[]{input.getWidth(), input.getHeight()}, type));
+        }
+        return combinedZProjection(clij, input, destinations);
+    }
+
+    /**
+     * Parses a projection specification such as "max=maxImage mean=meanImage" into a map of statistics and image names.
+     */
+    public static Map<Statistic, String> parseProjections(String projections) {
+        EnumMap<Statistic, String> result = new EnumMap<Statistic, String>(Statistic.class);
+        for (String projection : projections.trim().split(" ")) {
+            if (projection.length() == 0) {
+                continue;
+            }
+            String[] projectionParts = projection.split("=");
+            if (projectionParts.length != 2 || projectionParts[1].length() == 0) {
+                throw new IllegalArgumentException("Projection must be specified as statistic=imageName, e.g. max=maxImage: " + projection);
+            }
+            result.put(Statistic.fromString(projectionParts[0]), projectionParts[1]);
+        }
+        if (result.size() == 0) {
+            throw new IllegalArgumentException("No projection specified.");
+        }
+        return result;
+    }
+
+    public static boolean combinedZProjection(CLIJ clij, ClearCLBuffer input, Map<Statistic, ClearCLBuffer> destinations) {
+        if (AxisProjector.isInteger32(input.getNativeType())) {
+            // float slabs can't hold 32-bit integers exactly; project with the kernels of the single projections instead
+            for (Statistic statistic : destinations.keySet()) {
+                checkKernelProjection(statistic);
+            }
+            for (Statistic statistic : destinations.keySet()) {
+                kernelZProjection(clij, input, destinations.get(statistic), statistic);
+            }
+            return true;
+        }
+
+        AxisProjector projector = AxisProjector.project(clij, input, "Z", EnumSet.copyOf(destinations.keySet()));
+
+        for (Statistic statistic : destinations.keySet()) {
+            SlabStreamer.write(destinations.get(statistic), projector.getResult(statistic));
+        }
+        return true;
+    }
+
+    static void checkKernelProjection(Statistic statistic) {
+        if (statistic != Statistic.MAX && statistic != Statistic.MIN && statistic != Statistic.MEAN) {
+            throw new IllegalArgumentException("Only max, min and mean projections of 32-bit integer images are supported, but " + statistic.toString().toLowerCase() + " was requested. Convert the image to float first.");
+        }
+    }
+
+    static boolean kernelZProjection(CLIJ clij, ClearCLBuffer input, ClearCLBuffer output, Statistic statistic) {
+        checkKernelProjection(statistic);
+        switch (statistic) {
+            case MAX:
+                return Kernels.maximumZProjection(clij, input, output);
+            case MIN:
+                return Kernels.minimumZProjection(clij, input, output);
+            default:
+                return Kernels.meanZProjection(clij, input, output);
+        }
+    }
+
+    @Override
+    public String getParameterHelpText() {
+        return "Image source, String projections";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Determines several projections of an image along Z in one pass. Every pixel is read only once, no \n" +
+                "matter how many projections are requested. Projections are specified as statistic=image pairs \n" +
+                "separated by spaces. The resulting images are stored in GPU memory under the given names.\n\n" +
+                "Supported statistics: max, min, mean, sum, std, argmax, argmin. 32-bit integer images support \n" +
+                "max, min and mean only.\n\n" +
+                "Example projections:\n" +
+                "projections = \"max=maxProjection mean=meanProjection std=stdProjection\";" +
+                "\n\nDEPRECATED: This method is deprecated. Use CLIJ2 instead.";
+    }
+
+    @Override
+    public String getAvailableForDimensions() {
+        return "3D -> 2D";
+    }
+}
@@ -6,6 +6,7 @@ import net.haesleinhuepf.clij.kernels.Kernels;
 import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
 import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
 import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.PartialWriteOperation;
 import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
 import org.scijava.plugin.Plugin;
 
@@ -15,7 +16,7 @@ import org.scijava.plugin.Plugin;
  */
 @Deprecated
 @Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_copySlice")
-public class CopySlice extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+public class CopySlice extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation, PartialWriteOperation {
 
     @Override
     public boolean executeCL() {
@@ -29,6 +30,16 @@ public class CopySlice extends AbstractCLIJPlugin implements CLIJMacroPlugin, CL
         }
     }
 
+    @Override
+    public int[] getWrittenSlices() {
+        // copying a 2D image into a stack writes a single slice
+        if (args[0] instanceof ClearCLBuffer && args[1] instanceof ClearCLBuffer && ((ClearCLBuffer) args[0]).getDimension() == 2 && ((ClearCLBuffer) args[1]).getDimension() == 3) {
+            int sliceIndex = asInteger(args[2]);
+            return new int[]{sliceIndex, sliceIndex};
+        }
+        return null;
+    }
+
     @Override
     public String getParameterHelpText() {
         return "Image source, Image destination, Number sliceIndex";
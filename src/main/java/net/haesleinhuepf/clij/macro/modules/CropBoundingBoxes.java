@@ -0,0 +1,121 @@
+package net.haesleinhuepf.clij.macro.modules;
+
+import ij.gui.Roi;
+import ij.measure.ResultsTable;
+import ij.plugin.frame.RoiManager;
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
+import net.haesleinhuepf.clij.macro.CLIJHandler;
+import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
+import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
+import net.haesleinhuepf.clij.utilities.BoundingBoxCropper;
+import net.haesleinhuepf.clij.utilities.SlabStreamer;
+import org.scijava.plugin.Plugin;
+
+import java.awt.Rectangle;
+
+/**
+ * CropBoundingBoxes
+ * <p>
+ * <p>
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+@Deprecated
+@Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_cropBoundingBoxes")
+public class CropBoundingBoxes extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+
+    @Override
+    public boolean executeCL() {
+        ClearCLBuffer src = (ClearCLBuffer) (args[0]);
+        String destination = (String) args[1];
+        String boundingBoxes = (String) args[2];
+        boolean packed = asBoolean(args[3]);
+        boolean measure = asBoolean(args[4]);
+
+        int depth = src.getDimension() > 2 ? (int) src.getDepth() : 1;
+        int[][] boxes = boundingBoxes == null || boundingBoxes.trim().length() == 0 ? boxesFromRoiManager(depth) : BoundingBoxCropper.parseBoxes(boundingBoxes, depth);
+
+        BoundingBoxCropper cropper = cropBoundingBoxes(clij, src, boxes, packed, measure);
+
+        if (packed) {
+            ClearCLBuffer dst = CLIJHandler.getInstance().getFromCacheOrCreate(destination, cropper.getPackedDimensions(), src.getNativeType());
+            SlabStreamer.writeStack(clij, dst, cropper.getPacked());
+        } else {
+            for (int i = 0; i < boxes.length; i++) {
+                long[] dimensions = src.getDimension() == 2 ? new long[]{boxes[i][3], boxes[i][4]} : new long[]{boxes[i][3], boxes[i][4], boxes[i][5]};
+                ClearCLBuffer dst = CLIJHandler.getInstance().getFromCacheOrCreate(destination + i, dimensions, src.getNativeType());
+                SlabStreamer.write(dst, cropper.getCrop(i));
+            }
+        }
+
+        if (measure) {
+            ResultsTable table = ResultsTable.getResultsTable();
+            for (int i = 0; i < boxes.length; i++) {
+                BoundingBoxCropper.Statistics statistics = cropper.getStatistics(i);
+                table.incrementCounter();
+                table.addValue("BX", boxes[i][0]);
+                table.addValue("BY", boxes[i][1]);
+                table.addValue("BZ", boxes[i][2]);
+                table.addValue("Width", boxes[i][3]);
+                table.addValue("Height", boxes[i][4]);
+                table.addValue("Depth", boxes[i][5]);
+                table.addValue("Pixel count", statistics.getPixelCount());
+                table.addValue("Mean", statistics.getMean());
+                table.addValue("StdDev", statistics.getStandardDeviation());
+                table.addValue("Min", statistics.getMinimum());
+                table.addValue("Max", statistics.getMaximum());
+                table.addValue("Sum", statistics.getSum());
+            }
+            table.show("Results");
+        }
+        return true;
+    }
+
+    /**
+     * Crops all given boxes {x, y, z, width, height, depth} out of src, optionally into one packed stack, and
+     * optionally measures them, reading src once.
+     */
+    public static BoundingBoxCropper cropBoundingBoxes(CLIJ clij, ClearCLBuffer src, int[][] boxes, boolean packed, boolean measure) {
+        return BoundingBoxCropper.of(clij, src, boxes, packed, measure);
+    }
+
+    private static int[][] boxesFromRoiManager(int depth) {
+        RoiManager roiManager = RoiManager.getInstance();
+        if (roiManager == null || roiManager.getCount() == 0) {
+            throw new IllegalArgumentException("No bounding boxes given and the ROI Manager is empty.");
+        }
+        Roi[] rois = roiManager.getRoisAsArray();
+        int[][] boxes = new int[rois.length][];
+        for (int i = 0; i < rois.length; i++) {
+            Rectangle bounds = rois[i].getBounds();
+            boxes[i] = new int[]{bounds.x, bounds.y, 0, bounds.width, bounds.height, depth};
+        }
+        return boxes;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Crops many bounding boxes out of an image in a single pass. Boxes are given as 'x y width height' \n" +
+                "(spanning all slices) or 'x y z width height depth', separated by semicolons. If no boxes are \n" +
+                "given, the bounding rectangles of the ROIs in the ROI Manager are used.\n\n" +
+                "If packed is true, all crops are stored in one stack named destination, one block of slices per \n" +
+                "box, each as large as the largest box. Otherwise, every crop is stored as an image named \n" +
+                "destination + index. If measure is true, the pixel count, mean, standard deviation, minimum, \n" +
+                "maximum and sum of every box are appended to the results table." +
+                "\n\nDEPRECATED: This method is deprecated. Use CLIJ2 instead.";
+    }
+
+    @Override
+    public String getParameterHelpText() {
+        return "Image source, String destination, String boundingBoxes, Boolean packed, Boolean measure";
+    }
+
+    @Override
+    public String getAvailableForDimensions() {
+        return "2D, 3D";
+    }
+}
@@ -0,0 +1,69 @@
+package net.haesleinhuepf.clij.macro.modules;
+
+import ij.measure.ResultsTable;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.coremem.enums.NativeTypeEnum;
+import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
+import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
+import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
+import net.haesleinhuepf.clij.utilities.HistogramCalculator;
+import org.scijava.plugin.Plugin;
+
+/**
+ * CumulativeHistogram
+ * <p>
+ * <p>
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+@Deprecated
+@Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_cumulativeHistogram")
+public class CumulativeHistogram extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+
+    @Override
+    public boolean executeCL() {
+        Float minimumGreyValue = asFloat(args[3]);
+        Float maximumGreyValue = asFloat(args[4]);
+        Boolean determineMinMax = asBoolean(args[5]);
+
+        ClearCLBuffer src = (ClearCLBuffer)( args[0]);
+        ClearCLBuffer dst = (ClearCLBuffer)( args[1]);
+
+        HistogramCalculator histogram = HistogramCalculator.determine(clij, src, dst, minimumGreyValue, maximumGreyValue, determineMinMax);
+        histogram.writeTo(dst, true);
+
+        // send result to results table
+        ResultsTable table = ResultsTable.getResultsTable();
+        histogram.appendTo(table, true);
+        table.show(table.getTitle());
+
+        return true;
+    }
+
+    @Override
+    public String getParameterHelpText() {
+        return "Image source, Image destination, Number numberOfBins, Number minimumGreyValue, Number maximumGreyValue, Boolean determineMinAndMax";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Determines the cumulative histogram of a given image: every bin contains the number of pixels \n" +
+                "with grey values up to and including this bin. The histogram is written to the destination image \n" +
+                "and appended to the columns 'Grey value' and 'Number of pixels' of the results table." +
+                "\n\nDEPRECATED: This method is deprecated. Use CLIJ2 instead.";
+    }
+
+    @Override
+    public String getAvailableForDimensions() {
+        return "2D, 3D";
+    }
+
+    @Override
+    public ClearCLBuffer createOutputBufferFromSource(ClearCLBuffer input) {
+        Integer numberOfBins = asInteger(args[2]);
+
+        return clij.createCLBuffer(new long[]{numberOfBins,1,1},NativeTypeEnum.Float);
+    }
+}
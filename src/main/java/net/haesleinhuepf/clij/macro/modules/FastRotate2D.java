@@ -0,0 +1,72 @@
+package net.haesleinhuepf.clij.macro.modules;
+
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
+import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
+import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
+import net.haesleinhuepf.clij.utilities.ShearRotation;
+import net.haesleinhuepf.clij.utilities.SlabStreamer;
+import org.scijava.plugin.Plugin;
+
+/**
+ * FastRotate2D
+ * <p>
+ * <p>
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+@Deprecated
+@Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_fastRotate2D")
+public class FastRotate2D extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+
+    @Override
+    public boolean executeCL() {
+        Object[] args = openCLBufferArgs();
+        ClearCLBuffer input = (ClearCLBuffer) args[0];
+        ClearCLBuffer output = (ClearCLBuffer) args[1];
+        float angle = asFloat(args[2]);
+        boolean rotateAroundCenter = asBoolean(args[3]);
+
+        boolean result = fastRotate2D(clij, input, output, angle, rotateAroundCenter);
+        releaseBuffers(args);
+        return result;
+    }
+
+    /**
+     * Rotates input by the given angle in degrees, as CLIJ_rotate2D does, using shear decomposition in host
+     * memory.
+     */
+    public static boolean fastRotate2D(CLIJ clij, ClearCLBuffer input, ClearCLBuffer output, float angle, boolean rotateAroundCenter) {
+        float[] source = SlabStreamer.read(input);
+        float[] result = ShearRotation.rotate2D(source,
+                (int) input.getWidth(), (int) input.getHeight(),
+                (int) output.getWidth(), (int) output.getHeight(),
+                -angle / 180.0 * Math.PI,
+                rotateAroundCenter ? (int) (input.getWidth() / 2) : 0,
+                rotateAroundCenter ? (int) (input.getHeight() / 2) : 0);
+        SlabStreamer.write(output, result);
+        return true;
+    }
+
+    @Override
+    public String getParameterHelpText() {
+        return "Image source, Image destination, Number angle, Boolean rotateAroundCenter";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Rotates an image in plane as rotate2D does, but decomposes the rotation into three shears which are \n" +
+                "executed line by line on all CPU cores. Rotations by multiples of 90 degrees are exact. All angles \n" +
+                "are entered in degrees. If the image is not rotated around the center, it is rotated around the \n" +
+                "coordinate origin." +
+                "\n\nDEPRECATED: This method is deprecated. Use CLIJ2 instead.";
+    }
+
+    @Override
+    public String getAvailableForDimensions() {
+        return "2D";
+    }
+}
@@ -0,0 +1,77 @@
+package net.haesleinhuepf.clij.macro.modules;
+
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
+import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
+import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
+import net.haesleinhuepf.clij.utilities.ShearRotation;
+import net.haesleinhuepf.clij.utilities.SlabStreamer;
+import org.scijava.plugin.Plugin;
+
+/**
+ * FastRotate3D
+ * <p>
+ * <p>
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+@Deprecated
+@Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_fastRotate3D")
+public class FastRotate3D extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+
+    @Override
+    public boolean executeCL() {
+        Object[] args = openCLBufferArgs();
+        ClearCLBuffer input = (ClearCLBuffer) args[0];
+        ClearCLBuffer output = (ClearCLBuffer) args[1];
+        float angleX = asFloat(args[2]);
+        float angleY = asFloat(args[3]);
+        float angleZ = asFloat(args[4]);
+        boolean rotateAroundCenter = asBoolean(args[5]);
+
+        boolean result = fastRotate3D(clij, input, output, angleX, angleY, angleZ, rotateAroundCenter);
+        releaseBuffers(args);
+        return result;
+    }
+
+    /**
+     * Rotates input by the given angles in degrees, as CLIJ_rotate3D does, using shear decomposition in host
+     * memory. The stacks are transferred slab by slab. The rotation around Z is executed first, followed by the
+     * rotations around Y and X.
+     */
+    public static boolean fastRotate3D(CLIJ clij, ClearCLBuffer input, ClearCLBuffer output, float angleX, float angleY, float angleZ, boolean rotateAroundCenter) {
+        float[] source = SlabStreamer.readStack(clij, input);
+        float[] result = ShearRotation.rotate3D(source,
+                (int) input.getWidth(), (int) input.getHeight(), (int) input.getDepth(),
+                (int) output.getWidth(), (int) output.getHeight(), (int) output.getDepth(),
+                -angleX / 180.0 * Math.PI, -angleY / 180.0 * Math.PI, -angleZ / 180.0 * Math.PI,
+                rotateAroundCenter ? (int) (input.getWidth() / 2) : 0,
+                rotateAroundCenter ? (int) (input.getHeight() / 2) : 0,
+                rotateAroundCenter ? (int) (input.getDepth() / 2) : 0);
+        SlabStreamer.writeStack(clij, output, result);
+        return true;
+    }
+
+    @Override
+    public String getParameterHelpText() {
+        return "Image source, Image destination, Number angleX, Number angleY, Number angleZ, Boolean rotateAroundCenter";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Rotates an image stack in 3D as rotate3D does, but decomposes the rotation into rotations around \n" +
+                "Z, Y and X, each executed as three shears line by line on all CPU cores. Rotations by multiples \n" +
+                "of 90 degrees are exact. All angles are entered in degrees. If the image is not rotated around \n" +
+                "the center, it is rotated around the coordinate origin.\n\n" +
+                "It is recommended to apply the rotation to an isotropic image stack." +
+                "\n\nDEPRECATED: This method is deprecated. Use CLIJ2 instead.";
+    }
+
+    @Override
+    public String getAvailableForDimensions() {
+        return "3D";
+    }
+}
@@ -6,7 +6,11 @@ import net.haesleinhuepf.clij.kernels.Kernels;
 import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
 import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
 import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.DeferrableOperation;
+import net.haesleinhuepf.clij.macro.PendingOperation;
+import net.haesleinhuepf.clij.macro.PendingView;
 import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
+import net.haesleinhuepf.clij.utilities.StridedView;
 import org.scijava.plugin.Plugin;
 
 /**
@@ -15,7 +19,7 @@ import org.scijava.plugin.Plugin;
  */
 @Deprecated
 @Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_flip2D")
-public class Flip2D extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+public class Flip2D extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation, DeferrableOperation {
 
     @Override
     public boolean executeCL() {
@@ -32,6 +36,18 @@ public class Flip2D extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJO
         }
     }
 
+    @Override
+    public PendingOperation defer() {
+        if (!(args[0] instanceof ClearCLBuffer && args[1] instanceof ClearCLBuffer)) {
+            return null;
+        }
+        Boolean flipX = asBoolean(args[2]);
+        Boolean flipY = asBoolean(args[3]);
+        ClearCLBuffer input = (ClearCLBuffer) args[0];
+        return new PendingView(input, (ClearCLBuffer) args[1], StridedView.flip(PendingView.dimensionsOf(input), flipX, flipY, false),
+                (clij, source, destination) -> Kernels.flip(clij, source, destination, flipX, flipY));
+    }
+
     @Override
     public String getParameterHelpText() {
         return "Image source, Image destination, Boolean flipX, Boolean flipY";
@@ -1,14 +1,13 @@
 package net.haesleinhuepf.clij.macro.modules;
 
-import ij.ImagePlus;
 import ij.measure.ResultsTable;
 import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
 import net.haesleinhuepf.clij.coremem.enums.NativeTypeEnum;
-import net.haesleinhuepf.clij.kernels.Kernels;
 import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
 import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
 import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
 import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
+import net.haesleinhuepf.clij.utilities.HistogramCalculator;
 import org.scijava.plugin.Plugin;
 
 /**
@@ -24,52 +23,21 @@ public class Histogram extends AbstractCLIJPlugin implements CLIJMacroPlugin, CL
 
     @Override
     public boolean executeCL() {
-        Integer numberOfBins = asInteger(args[2]);
         Float minimumGreyValue = asFloat(args[3]);
         Float maximumGreyValue = asFloat(args[4]);
         Boolean determineMinMax = asBoolean(args[5]);
 
         ClearCLBuffer src = (ClearCLBuffer)( args[0]);
+        ClearCLBuffer dst = (ClearCLBuffer)( args[1]);
 
-        // determine min and max intensity if necessary
-        if (determineMinMax) {
-            minimumGreyValue = new Double(Kernels.minimumOfAllPixels(clij, src)).floatValue();
-            maximumGreyValue = new Double(Kernels.maximumOfAllPixels(clij, src)).floatValue();
-        }
-
-        // determine histogram
-        Object[] args = openCLBufferArgs();
-        boolean result = Kernels.fillHistogram(clij, src, (ClearCLBuffer)(args[1]), minimumGreyValue, maximumGreyValue);
-        releaseBuffers(args);
-
-        // the histogram is written in args[1] which is supposed to be a one-dimensional image
-        ImagePlus histogramImp = clij.convert((ClearCLBuffer)(args[1]), ImagePlus.class);
-
-        // plot without first eleement
-        //histogramImp.setRoi(new Line(1,0.5, histogramImp.getWidth(), 0.5));
-        //IJ.run(histogramImp, "Plot Profile", "");
-
-        // plot properly
-        float[] determinedHistogram = (float[])(histogramImp.getProcessor().getPixels());
-        float[] xAxis = new float[asInteger(args[2])];
-        xAxis[0] = minimumGreyValue;
-        float step = (maximumGreyValue - minimumGreyValue) / (numberOfBins - 1);
-
-        for (int i = 1 ; i < xAxis.length; i ++) {
-            xAxis[i] = xAxis[i-1] + step;
-        }
-        //new Plot("Histogram", "grey value", "log(number of pixels)", xAxis, determinedHistogram, 0).show();
+        HistogramCalculator histogram = HistogramCalculator.determine(clij, src, dst, minimumGreyValue, maximumGreyValue, determineMinMax);
 
         // send result to results table
         ResultsTable table = ResultsTable.getResultsTable();
-        for (int i = 0 ; i < xAxis.length; i ++) {
-            table.incrementCounter();
-            table.addValue("Grey value", xAxis[i]);
-            table.addValue("Number of pixels", determinedHistogram[i]);
-        }
+        histogram.appendTo(table, false);
         table.show(table.getTitle());
 
-        return result;
+        return true;
     }
 
 
@@ -80,7 +48,9 @@ public class Histogram extends AbstractCLIJPlugin implements CLIJMacroPlugin, CL
 
     @Override
     public String getDescription() {
-        return "Determines the histogram of a given image." +
+        return "Determines the histogram of a given image. The histogram is written to the destination image and \n" +
+                "appended to the columns 'Grey value' and 'Number of pixels' of the results table. \n" +
+                "The pixels are counted on the GPU; only the bins are transferred." +
                 "\n\nDEPRECATED: This method is deprecated. Use CLIJ2 instead.";
     }
 
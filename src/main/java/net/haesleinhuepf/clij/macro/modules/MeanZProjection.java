@@ -6,6 +6,7 @@ import net.haesleinhuepf.clij.kernels.Kernels;
 import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
 import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
 import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.IncrementalProjection;
 import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
 import org.scijava.plugin.Plugin;
 
@@ -15,7 +16,7 @@ import org.scijava.plugin.Plugin;
  */
 @Deprecated
 @Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_meanZProjection")
-public class MeanZProjection extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+public class MeanZProjection extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation, IncrementalProjection {
 
     @Override
     public boolean executeCL() {
@@ -29,6 +30,11 @@ public class MeanZProjection extends AbstractCLIJPlugin implements CLIJMacroPlug
         }
     }
 
+    @Override
+    public float update(float projection, float before, float after, int depth) {
+        return projection + (after - before) / depth;
+    }
+
     @Override
     public String getParameterHelpText() {
         return "Image source, Image destination";
@@ -6,6 +6,7 @@ import net.haesleinhuepf.clij.kernels.Kernels;
 import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
 import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
 import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.IncrementalProjection;
 import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
 import org.scijava.plugin.Plugin;
 
@@ -15,7 +16,7 @@ import org.scijava.plugin.Plugin;
  */
 @Deprecated
 @Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_minimumZProjection")
-public class MinimumZProjection extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+public class MinimumZProjection extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation, IncrementalProjection {
 
     @Override
     public boolean executeCL() {
@@ -29,6 +30,15 @@ public class MinimumZProjection extends AbstractCLIJPlugin implements CLIJMacroP
         }
     }
 
+    @Override
+    public float update(float projection, float before, float after, int depth) {
+        if (after <= projection) {
+            return after;
+        }
+        // the minimum is kept unless the changed pixel was the minimum
+        return before > projection ? projection : Float.NaN;
+    }
+
     @Override
     public String getParameterHelpText() {
         return "Image source, Image destination_sum";
@@ -0,0 +1,57 @@
+package net.haesleinhuepf.clij.macro.modules;
+
+import ij.measure.ResultsTable;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.kernels.Kernels;
+import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
+import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
+import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
+import org.scijava.plugin.Plugin;
+
+/**
+ * PercentileThreshold
+ * <p>
+ * <p>
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+@Deprecated
+@Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_percentileThreshold")
+public class PercentileThreshold extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+
+    @Override
+    public boolean executeCL() {
+        ClearCLBuffer src = (ClearCLBuffer) (args[0]);
+        ClearCLBuffer dst = (ClearCLBuffer) (args[1]);
+        Float percentile = asFloat(args[2]);
+
+        float threshold = Percentiles.percentiles(clij, src, new double[]{percentile})[0];
+
+        ResultsTable table = ResultsTable.getResultsTable();
+        table.incrementCounter();
+        table.addValue("Threshold", threshold);
+        table.show("Results");
+
+        return Kernels.threshold(clij, src, dst, threshold);
+    }
+
+    @Override
+    public String getParameterHelpText() {
+        return "Image source, Image destination, Number percentile";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Thresholds an image at an approximate percentile (between 0 and 100) of its pixel values. The \n" +
+                "percentile is determined in one streaming pass using a quantile sketch and is stored in a new row \n" +
+                "of ImageJs Results table in the column 'Threshold'." +
+                "\n\nDEPRECATED: This method is deprecated. Use CLIJ2 instead.";
+    }
+
+    @Override
+    public String getAvailableForDimensions() {
+        return "2D, 3D";
+    }
+}
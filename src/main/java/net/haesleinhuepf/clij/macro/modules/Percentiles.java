@@ -0,0 +1,94 @@
+package net.haesleinhuepf.clij.macro.modules;
+
+import ij.measure.ResultsTable;
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
+import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
+import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
+import net.haesleinhuepf.clij.utilities.QuantileSketch;
+import org.scijava.plugin.Plugin;
+
+/**
+ * Percentiles
+ * <p>
+ * <p>
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+@Deprecated
+@Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_percentiles")
+public class Percentiles extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+
+    @Override
+    public boolean executeCL() {
+        ClearCLBuffer src = (ClearCLBuffer) (args[0]);
+        double[] percentiles = parsePercentiles((String) args[1]);
+
+        float[] values = percentiles(clij, src, percentiles);
+
+        ResultsTable table = ResultsTable.getResultsTable();
+        table.incrementCounter();
+        for (int i = 0; i < percentiles.length; i++) {
+            table.addValue("Percentile " + format(percentiles[i]), values[i]);
+        }
+        table.show("Results");
+        return true;
+    }
+
+    /**
+     * Parses a list of percentiles between 0 and 100 separated by spaces or commas.
+     */
+    public static double[] parsePercentiles(String percentiles) {
+        String[] parts = percentiles.trim().split("[ ,]+");
+        if (parts.length == 0 || parts[0].length() == 0) {
+            throw new IllegalArgumentException("No percentile specified.");
+        }
+        double[] result = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            result[i] = Double.parseDouble(parts[i]);
+            if (result[i] < 0 || result[i] > 100) {
+                throw new IllegalArgumentException("Percentiles must be given between 0 and 100, but was " + parts[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Determines approximate percentiles (between 0 and 100) of all pixels in one streaming pass.
+     */
+    public static float[] percentiles(CLIJ clij, ClearCLBuffer src, double[] percentiles) {
+        QuantileSketch sketch = QuantileSketch.of(clij, src, QuantileSketch.DEFAULT_K);
+        double[] quantiles = new double[percentiles.length];
+        for (int i = 0; i < percentiles.length; i++) {
+            quantiles[i] = percentiles[i] / 100.0;
+        }
+        return sketch.getQuantiles(quantiles);
+    }
+
+    private static String format(double percentile) {
+        return percentile == Math.floor(percentile) ? "" + (long) percentile : "" + percentile;
+    }
+
+    @Override
+    public String getParameterHelpText() {
+        return "Image source, String percentiles";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Determines approximate percentiles of all pixels in a given image, e.g. percentiles = \"1 50 99\". \n" +
+                "The image is summarized in one streaming pass by a quantile sketch of bounded size, independent \n" +
+                "of the image size. The rank error is below about one percent; minimum (0) and maximum (100) are \n" +
+                "exact. The results are stored in a new row of ImageJs Results table in columns such as \n" +
+                "'Percentile 99'." +
+                "\n\nDEPRECATED: This method is deprecated. Use CLIJ2 instead.";
+    }
+
+    @Override
+    public String getAvailableForDimensions() {
+        return "2D, 3D";
+    }
+}
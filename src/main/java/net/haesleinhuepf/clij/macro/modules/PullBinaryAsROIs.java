@@ -0,0 +1,46 @@
+package net.haesleinhuepf.clij.macro.modules;
+
+import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
+import net.haesleinhuepf.clij.macro.CLIJHandler;
+import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
+import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
+import org.scijava.plugin.Plugin;
+
+/**
+ * PullBinaryAsROIs
+ * <p>
+ * <p>
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+
+@Deprecated
+@Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_pullBinaryAsROIs")
+public class PullBinaryAsROIs extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+
+    @Override
+    public boolean executeCL() {
+        CLIJHandler.getInstance().pullBinaryAsRoisFromGPU((String)args[0]);
+        return true;
+    }
+
+    @Override
+    public String getParameterHelpText() {
+        return "String image";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Copies a binary image specified by its name from GPU memory and adds its foreground to the ROI " +
+                "Manager, one ROI per slice. Empty slices are skipped. The rows are run-length encoded on the GPU; " +
+                "only the runs of foreground pixels are transferred." +
+                "\n\nDEPRECATED: This method is deprecated. Use CLIJ2 instead.";
+    }
+
+    @Override
+    public String getAvailableForDimensions() {
+        return "2D, 3D";
+    }
+}
@@ -0,0 +1,47 @@
+package net.haesleinhuepf.clij.macro.modules;
+
+import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
+import net.haesleinhuepf.clij.macro.CLIJHandler;
+import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
+import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
+import org.scijava.plugin.Plugin;
+
+/**
+ * PullBinaryRLE
+ * <p>
+ * <p>
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+
+@Deprecated
+@Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_pullBinaryRLE")
+public class PullBinaryRLE extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+
+    @Override
+    public boolean executeCL() {
+        CLIJHandler.getInstance().pullBinaryRunLengthEncodedFromGPU((String)args[0]);
+        return true;
+    }
+
+    @Override
+    public String getParameterHelpText() {
+        return "String image";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Copies a binary image specified by its name from GPU memory back to ImageJ and shows it. " +
+                "The rows are run-length encoded on the GPU and only the runs are transferred, which is faster than " +
+                "CLIJ_pullBinary for sparse masks. This binary image will have 0 and 255 pixel intensities as needed " +
+                "for ImageJ to interpret it as binary." +
+                "\n\nDEPRECATED: This method is deprecated. Use CLIJ2 instead.";
+    }
+
+    @Override
+    public String getAvailableForDimensions() {
+        return "2D, 3D";
+    }
+}
@@ -0,0 +1,74 @@
+package net.haesleinhuepf.clij.macro.modules;
+
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
+import net.haesleinhuepf.clij.macro.CLIJHandler;
+import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
+import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
+import net.haesleinhuepf.clij.utilities.MappedImageFile;
+import org.scijava.plugin.Plugin;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * PullFile
+ * <p>
+ * <p>
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+@Deprecated
+@Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_pullFile")
+public class PullFile extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+
+    @Override
+    public boolean executeCL() {
+        ClearCLBuffer buffer = CLIJHandler.getInstance().getFromCacheForReading((String) args[0]);
+        if (buffer == null) {
+            throw new IllegalArgumentException("The image '" + args[0] + "' doesn't exist in GPUs memory.");
+        }
+        try {
+            pullFile(clij, buffer, new File((String) args[1]));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes the buffer to a TIFF file if the file name ends with .tif or .tiff, otherwise to a raw file.
+     */
+    public static void pullFile(CLIJ clij, ClearCLBuffer buffer, File file) throws IOException {
+        String name = file.getName().toLowerCase();
+        if (name.endsWith(".tif") || name.endsWith(".tiff")) {
+            MappedImageFile.pullTiff(clij, buffer, file);
+        } else {
+            MappedImageFile.pullRaw(clij, buffer, file);
+        }
+    }
+
+    @Override
+    public String getParameterHelpText() {
+        return "String image, String path";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Writes an image from GPU memory to a file without showing it in ImageJ. If the file name ends with \n" +
+                ".tif or .tiff, an uncompressed TIFF file with one page per slice is written, otherwise a raw file \n" +
+                "without header. Pixels are written in the native byte order of the computer: slice by slice, they \n" +
+                "are read from GPU memory into a staging buffer in host memory and written to the file channel from \n" +
+                "there. The file is not memory mapped." +
+                "\n\nDEPRECATED: This method is deprecated. Use CLIJ2 instead.";
+    }
+
+    @Override
+    public String getAvailableForDimensions() {
+        return "2D, 3D";
+    }
+}
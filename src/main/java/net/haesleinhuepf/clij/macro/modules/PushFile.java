@@ -0,0 +1,69 @@
+package net.haesleinhuepf.clij.macro.modules;
+
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
+import net.haesleinhuepf.clij.macro.CLIJHandler;
+import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
+import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
+import net.haesleinhuepf.clij.utilities.MappedImageFile;
+import org.scijava.plugin.Plugin;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * PushFile
+ * <p>
+ * <p>
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+@Deprecated
+@Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_pushFile")
+public class PushFile extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+
+    @Override
+    public boolean executeCL() {
+        try {
+            pushFile(clij, new File((String) args[0]), (String) args[1]);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Copies an uncompressed TIFF file to GPU memory and stores it under the given name.
+     */
+    public static ClearCLBuffer pushFile(CLIJ clij, File file, String name) throws IOException {
+        return push(clij, MappedImageFile.openTiff(file), name);
+    }
+
+    static ClearCLBuffer push(CLIJ clij, MappedImageFile file, String name) throws IOException {
+        ClearCLBuffer buffer = CLIJHandler.getInstance().getFromCacheOrCreate(name, file.getDimensions(), file.getNativeType());
+        file.push(clij, buffer);
+        return buffer;
+    }
+
+    @Override
+    public String getParameterHelpText() {
+        return "String path, String image";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Copies an uncompressed TIFF file (8, 16 or 32 bit, single image or stack) to GPU memory under the \n" +
+                "given image name, without opening it in ImageJ. The file is memory mapped and its slices are \n" +
+                "transferred to GPU memory straight from the file, so that no copy of the image is held in Java heap." +
+                "\n\nDEPRECATED: This method is deprecated. Use CLIJ2 instead.";
+    }
+
+    @Override
+    public String getAvailableForDimensions() {
+        return "2D, 3D";
+    }
+}
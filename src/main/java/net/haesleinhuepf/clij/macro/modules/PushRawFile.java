@@ -0,0 +1,72 @@
+package net.haesleinhuepf.clij.macro.modules;
+
+import net.haesleinhuepf.clij.coremem.enums.NativeTypeEnum;
+import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
+import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
+import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
+import net.haesleinhuepf.clij.utilities.MappedImageFile;
+import org.scijava.plugin.Plugin;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * PushRawFile
+ * <p>
+ * <p>
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+@Deprecated
+@Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_pushRawFile")
+public class PushRawFile extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+
+    @Override
+    public boolean executeCL() {
+        NativeTypeEnum type;
+        switch (asInteger(args[5])) {
+            case 8:
+                type = NativeTypeEnum.UnsignedByte;
+                break;
+            case 16:
+                type = NativeTypeEnum.UnsignedShort;
+                break;
+            case 32:
+                type = NativeTypeEnum.Float;
+                break;
+            default:
+                throw new IllegalArgumentException("Bit depth must be 8, 16 or 32, but was " + args[5]);
+        }
+        MappedImageFile file = MappedImageFile.openRaw(new File((String) args[0]),
+                asInteger(args[2]), asInteger(args[3]), Math.max(1, asInteger(args[4])), type,
+                asInteger(args[6]), asBoolean(args[7]));
+        try {
+            PushFile.push(clij, file, (String) args[1]);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String getParameterHelpText() {
+        return "String path, String image, Number width, Number height, Number depth, Number bitDepth, Number headerSize, Boolean littleEndian";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Copies a raw file to GPU memory under the given image name, without opening it in ImageJ. The file \n" +
+                "holds width x height x depth pixels one after another behind a header of headerSize bytes, which \n" +
+                "is skipped. Bit depths of 8 (unsigned), 16 (unsigned) and 32 (float) are supported. The file is \n" +
+                "memory mapped and transferred to GPU memory straight from the file." +
+                "\n\nDEPRECATED: This method is deprecated. Use CLIJ2 instead.";
+    }
+
+    @Override
+    public String getAvailableForDimensions() {
+        return "2D, 3D";
+    }
+}
@@ -0,0 +1,80 @@
+package net.haesleinhuepf.clij.macro.modules;
+
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
+import net.haesleinhuepf.clij.macro.CLIJHandler;
+import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
+import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
+import net.haesleinhuepf.clij.utilities.ImagePyramid;
+import net.haesleinhuepf.clij.utilities.PyramidCache;
+import net.haesleinhuepf.clij.utilities.SlabStreamer;
+import org.scijava.plugin.Plugin;
+
+/**
+ * Pyramid
+ * <p>
+ * <p>
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+@Deprecated
+@Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_pyramid")
+public class Pyramid extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+
+    @Override
+    public boolean executeCL() {
+        ClearCLBuffer src = (ClearCLBuffer) (args[0]);
+        String destinationPrefix = (String) args[1];
+        int numberOfLevels = asInteger(args[2]);
+        boolean antiAliasing = asBoolean(args[3]);
+
+        ImagePyramid pyramid = pyramid(clij, src, numberOfLevels, antiAliasing);
+        for (int i = 0; i < pyramid.getNumberOfLevels(); i++) {
+            ImagePyramid.Level level = pyramid.getLevel(i);
+            ClearCLBuffer dst = CLIJHandler.getInstance().getFromCacheOrCreate(destinationPrefix + level.getFactor(), getDimensions(src.getDimension(), level), src.getNativeType());
+            SlabStreamer.write(dst, level.getData());
+        }
+        PyramidCache.put(destinationPrefix, pyramid, src.getNativeType(), src.getDimension());
+        return true;
+    }
+
+    /**
+     * Determines the given number of pyramid levels of src, downsampled by 2, 4, 8, ..., in a single pass over
+     * src.
+     */
+    public static ImagePyramid pyramid(CLIJ clij, ClearCLBuffer src, int numberOfLevels, boolean antiAliasing) {
+        return ImagePyramid.of(clij, src, numberOfLevels, antiAliasing);
+    }
+
+    static long[] getDimensions(int dimension, ImagePyramid.Level level) {
+        long[] dimensions = level.getDimensions();
+        if (dimension == 2) {
+            return new long[]{dimensions[0], dimensions[1]};
+        }
+        return dimensions;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Determines downsampled versions of an image by the factors 2, 4, 8, ... in a single pass. Every \n" +
+                "level is computed from the previous one; Z is downsampled as well as long as there is more than \n" +
+                "one slice. With anti-aliasing, every pixel is the mean of the 2x2(x2) pixels it covers; without, \n" +
+                "every second pixel is taken. The levels are stored as images named prefix + factor, e.g. pyr2, \n" +
+                "pyr4 and pyr8 for the prefix 'pyr'. Recently determined pyramids are also kept in memory, from \n" +
+                "which pyramidLevel serves levels by zoom." +
+                "\n\nDEPRECATED: This method is deprecated. Use CLIJ2 instead.";
+    }
+
+    @Override
+    public String getParameterHelpText() {
+        return "Image source, String destinationPrefix, Number numberOfLevels, Boolean antiAliasing";
+    }
+
+    @Override
+    public String getAvailableForDimensions() {
+        return "2D, 3D";
+    }
+}
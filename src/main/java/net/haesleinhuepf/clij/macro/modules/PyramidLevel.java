@@ -0,0 +1,82 @@
+package net.haesleinhuepf.clij.macro.modules;
+
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.kernels.Kernels;
+import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
+import net.haesleinhuepf.clij.macro.CLIJHandler;
+import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
+import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
+import net.haesleinhuepf.clij.utilities.ImagePyramid;
+import net.haesleinhuepf.clij.utilities.PyramidCache;
+import net.haesleinhuepf.clij.utilities.SlabStreamer;
+import org.scijava.plugin.Plugin;
+
+import java.util.Arrays;
+
+/**
+ * PyramidLevel
+ * <p>
+ * <p>
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+@Deprecated
+@Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_pyramidLevel")
+public class PyramidLevel extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+
+    @Override
+    public boolean executeCL() {
+        String pyramidName = (String) args[0];
+        String destination = (String) args[1];
+        double zoom = asFloat(args[2]);
+
+        PyramidCache.Entry entry = PyramidCache.get(pyramidName);
+        if (entry != null) {
+            ImagePyramid.Level level = entry.getPyramid().getLevelForZoom(zoom);
+            if (level == null) {
+                throw new IllegalArgumentException("For a zoom of " + zoom + ", the full resolution image is needed.");
+            }
+            long[] dimensions = Pyramid.getDimensions(entry.getDimension(), level);
+            ClearCLBuffer levelImage = CLIJHandler.getInstance().getFromCacheForReading(pyramidName + level.getFactor());
+            ClearCLBuffer dst = CLIJHandler.getInstance().getFromCacheOrCreate(destination, dimensions, entry.getType());
+            if (levelImage != null && Arrays.equals(levelImage.getDimensions(), dimensions)) {
+                return Kernels.copy(clij, levelImage, dst);
+            }
+            // the level image was released or overwritten
+            SlabStreamer.write(dst, level.getData());
+            return true;
+        }
+
+        // the pyramid was dropped from memory; the level images may still exist
+        ClearCLBuffer level = null;
+        for (int factor = ImagePyramid.getFactorForZoom(zoom, ImagePyramid.MAXIMUM_NUMBER_OF_LEVELS); factor > 1 && level == null; factor /= 2) {
+            level = CLIJHandler.getInstance().getFromCacheForReading(pyramidName + factor);
+        }
+        if (level == null) {
+            throw new IllegalArgumentException("No pyramid level of " + pyramidName + " found for a zoom of " + zoom + ". For zooms above 0.5, the full resolution image is needed.");
+        }
+        ClearCLBuffer dst = CLIJHandler.getInstance().getFromCacheOrCreate(destination, level.getDimensions(), level.getNativeType());
+        return Kernels.copy(clij, level, dst);
+    }
+
+    @Override
+    public String getDescription() {
+        return "Delivers the level of a pyramid determined by pyramid which suits the given zoom: the coarsest \n" +
+                "level which still offers at least the resolution needed at that zoom, e.g. the level downsampled \n" +
+                "by 4 for a zoom of 0.2. Levels of recently determined pyramids are served from memory; otherwise, \n" +
+                "the level images created by pyramid are used." +
+                "\n\nDEPRECATED: This method is deprecated. Use CLIJ2 instead.";
+    }
+
+    @Override
+    public String getParameterHelpText() {
+        return "String pyramidName, String destination, Number zoom";
+    }
+
+    @Override
+    public String getAvailableForDimensions() {
+        return "2D, 3D";
+    }
+}
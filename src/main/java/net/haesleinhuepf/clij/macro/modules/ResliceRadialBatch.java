@@ -0,0 +1,146 @@
+package net.haesleinhuepf.clij.macro.modules;
+
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.coremem.enums.NativeTypeEnum;
+import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
+import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
+import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
+import net.haesleinhuepf.clij.utilities.RadialSamplingTable;
+import net.haesleinhuepf.clij.utilities.SlabStreamer;
+import org.scijava.plugin.Plugin;
+
+/**
+ * ResliceRadialBatch
+ * <p>
+ * <p>
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+@Deprecated
+@Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_resliceRadialBatch")
+public class ResliceRadialBatch extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+
+    @Override
+    public boolean executeCL() {
+        Object[] args = openCLBufferArgs();
+        ClearCLBuffer src = (ClearCLBuffer) args[0];
+        ClearCLBuffer dst = (ClearCLBuffer) args[1];
+        int numberOfAngles = asInteger(args[2]);
+        float angleStepSize = asFloat(args[3]);
+        float[][] centers = parseCenters(src, (String) args[4], (String) args[5]);
+        int numberOfFrames = asInteger(args[6]);
+
+        boolean result = resliceRadialBatch(clij, src, dst, numberOfAngles, angleStepSize, centers[0], centers[1], numberOfFrames);
+        releaseBuffers(args);
+        return result;
+    }
+
+    /**
+     * Parses the X and Y coordinates of the centers, given as numbers separated by spaces or commas. If no
+     * center is given, the center of the image is used.
+     */
+    public static float[][] parseCenters(ClearCLBuffer src, String centersX, String centersY) {
+        String[] xParts = centersX == null ? new String[0] : centersX.trim().split("[ ,]+");
+        String[] yParts = centersY == null ? new String[0] : centersY.trim().split("[ ,]+");
+        if (xParts.length == 0 || xParts[0].length() == 0) {
+            return new float[][]{{src.getWidth() / 2}, {src.getHeight() / 2}};
+        }
+        if (xParts.length != yParts.length) {
+            throw new IllegalArgumentException("The same number of X and Y coordinates must be given, but there were " + xParts.length + " and " + yParts.length);
+        }
+        float[][] centers = new float[2][xParts.length];
+        for (int i = 0; i < xParts.length; i++) {
+            centers[0][i] = Float.parseFloat(xParts[i]);
+            centers[1][i] = Float.parseFloat(yParts[i]);
+        }
+        return centers;
+    }
+
+    /**
+     * Determines the radial reslices of all frames of src around all given centers in one pass over src. The
+     * frames are stacked along Z in src. The result of frame f and the i-th center is stored in the slices
+     * (f * c + i) * n ... (f * c + i + 1) * n - 1 of dst, where c is the number of centers and n is the effective
+     * number of angles. Samples are taken as CLIJ_resliceRadial takes them, from cached RadialSamplingTables;
+     * for one frame and the center of the X/Y-plane, the result equals the one of CLIJ_resliceRadial.
+     */
+    public static boolean resliceRadialBatch(CLIJ clij, ClearCLBuffer src, ClearCLBuffer dst, int numberOfAngles, float angleStepSize, float[] centersX, float[] centersY, int numberOfFrames) {
+        if (numberOfFrames < 1 || src.getDepth() % numberOfFrames != 0) {
+            throw new IllegalArgumentException("The number of slices (" + src.getDepth() + ") must be a multiple of the number of frames (" + numberOfFrames + ").");
+        }
+        if (src.getNativeType() == NativeTypeEnum.Int || src.getNativeType() == NativeTypeEnum.UnsignedInt) {
+            // frames are resliced from float slabs, which can't hold 32-bit integers exactly
+            throw new IllegalArgumentException("32-bit integer images can't be resliced in batches. Use resliceRadial per frame or convert the image to float first.");
+        }
+        final int depth = (int) (src.getDepth() / numberOfFrames);
+        int effectiveNumberOfAngles = RadialSamplingTable.getEffectiveNumberOfAngles(numberOfAngles, angleStepSize);
+        long numberOfSlices = (long) effectiveNumberOfAngles * centersX.length * numberOfFrames;
+        if (dst.getDepth() < numberOfSlices || dst.getHeight() != depth) {
+            throw new IllegalArgumentException("Destination must have the size radius x " + depth + " x " + numberOfSlices + " or more slices.");
+        }
+
+        final RadialSamplingTable[] tables = new RadialSamplingTable[centersX.length];
+        for (int i = 0; i < centersX.length; i++) {
+            tables[i] = RadialSamplingTable.get((int) src.getWidth(), (int) src.getHeight(), effectiveNumberOfAngles, angleStepSize, centersX[i], centersY[i], (int) dst.getWidth());
+        }
+
+        if (dst.getLength() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The destination (" + dst.getLength() + " pixels) has too many pixels to be resliced in host memory at once.");
+        }
+        final float[] result = new float[(int) dst.getLength()];
+        SlabStreamer.forEachSlab(clij, src, (slab, zFrom, slabDepth) -> {
+            // a slab may contain the end of one frame and the beginning of the next
+            int z = zFrom;
+            while (z < zFrom + slabDepth) {
+                int frame = z / depth;
+                int numberOfPlanes = Math.min(zFrom + slabDepth, (frame + 1) * depth) - z;
+                for (int i = 0; i < tables.length; i++) {
+                    tables[i].resample(slab, z - zFrom, z - frame * depth, numberOfPlanes, depth, result, (frame * tables.length + i) * effectiveNumberOfAngles);
+                }
+                z += numberOfPlanes;
+            }
+        });
+        SlabStreamer.writeStack(clij, dst, result);
+        return true;
+    }
+
+    @Override
+    public ClearCLBuffer createOutputBufferFromSource(ClearCLBuffer input) {
+        int numberOfAngles = asInteger(args[2]);
+        float angleStepSize = asFloat(args[3]);
+        float[][] centers = parseCenters(input, (String) args[4], (String) args[5]);
+        int numberOfFrames = asInteger(args[6]);
+
+        int effectiveNumberOfAngles = RadialSamplingTable.getEffectiveNumberOfAngles(numberOfAngles, angleStepSize);
+        int maximumRadius = 0;
+        for (int i = 0; i < centers[0].length; i++) {
+            maximumRadius = Math.max(maximumRadius, RadialSamplingTable.getMaximumRadius(input.getWidth(), input.getHeight(), centers[0][i], centers[1][i]));
+        }
+        return clij.createCLBuffer(new long[]{maximumRadius, input.getDepth() / numberOfFrames, (long) effectiveNumberOfAngles * centers[0].length * numberOfFrames}, input.getNativeType());
+    }
+
+    @Override
+    public String getParameterHelpText() {
+        return "Image source, Image destination, Number numberOfAngles, Number angleStepSize, String centersX, String centersY, Number numberOfFrames";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Computes radial reslices of several frames around several centers in one call. The frames are \n" +
+                "stacked along Z in the source, e.g. all time points of a kymograph. Centers are given as lists of \n" +
+                "X and Y coordinates separated by spaces or commas; if none are given, the center of the \n" +
+                "X/Y-plane is used. The reslices are stacked along Z: one block of angles per frame and center, \n" +
+                "the blocks of all centers of the first frame come first. Every block is sampled as resliceRadial \n" +
+                "samples around the center of the X/Y-plane: the pixel at (centerX + r sin(a), centerY + r cos(a)), \n" +
+                "truncated and clamped to the edge of the image. Sample positions are computed once per geometry, \n" +
+                "angle step and center and reused by subsequent calls. 32-bit integer images are not supported." +
+                "\n\nDEPRECATED: This method is deprecated. Use CLIJ2 instead.";
+    }
+
+    @Override
+    public String getAvailableForDimensions() {
+        return "3D";
+    }
+}
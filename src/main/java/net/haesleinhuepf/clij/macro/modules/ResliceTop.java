@@ -6,7 +6,11 @@ import net.haesleinhuepf.clij.kernels.Kernels;
 import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
 import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
 import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.DeferrableOperation;
+import net.haesleinhuepf.clij.macro.PendingOperation;
+import net.haesleinhuepf.clij.macro.PendingView;
 import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
+import net.haesleinhuepf.clij.utilities.StridedView;
 import org.scijava.plugin.Plugin;
 
 /**
@@ -16,7 +20,7 @@ import org.scijava.plugin.Plugin;
 
 @Deprecated
 @Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_resliceTop")
-public class ResliceTop extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+public class ResliceTop extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation, DeferrableOperation {
 
     @Override
     public boolean executeCL() {
@@ -30,6 +34,15 @@ public class ResliceTop extends AbstractCLIJPlugin implements CLIJMacroPlugin, C
         }
     }
 
+    @Override
+    public PendingOperation defer() {
+        if (!(args[0] instanceof ClearCLBuffer && args[1] instanceof ClearCLBuffer)) {
+            return null;
+        }
+        return new PendingView((ClearCLBuffer) args[0], (ClearCLBuffer) args[1], StridedView.resliceTop(),
+                (clij, source, destination) -> Kernels.resliceTop(clij, source, destination));
+    }
+
     @Override
     public String getParameterHelpText() {
         return "Image source, Image destination";
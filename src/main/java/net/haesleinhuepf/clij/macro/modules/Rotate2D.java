@@ -1,14 +1,13 @@
 package net.haesleinhuepf.clij.macro.modules;
 
 import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
-import net.haesleinhuepf.clij.clearcl.ClearCLImage;
-import net.haesleinhuepf.clij.kernels.Kernels;
 import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
-import net.haesleinhuepf.clij.macro.CLIJHandler;
 import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
 import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.DeferrableOperation;
+import net.haesleinhuepf.clij.macro.PendingAffineTransform;
+import net.haesleinhuepf.clij.macro.PendingOperation;
 import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
-import net.haesleinhuepf.clij.utilities.AffineTransform;
 import net.imglib2.realtransform.AffineTransform2D;
 import org.scijava.plugin.Plugin;
 
@@ -19,45 +18,40 @@ import org.scijava.plugin.Plugin;
 
 @Deprecated
 @Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_rotate2D")
-public class Rotate2D extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+public class Rotate2D extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation, DeferrableOperation {
 
     @Override
     public boolean executeCL() {
+        Object[] args = openCLBufferArgs();
+        ClearCLBuffer input = (ClearCLBuffer) args[0];
+        ClearCLBuffer output = (ClearCLBuffer) args[1];
+
+        return PendingAffineTransform.affineTransform(clij, input, output, getTransform(input));
+    }
+
+    @Override
+    public PendingOperation defer() {
+        if (!(args[0] instanceof ClearCLBuffer && args[1] instanceof ClearCLBuffer)) {
+            return null;
+        }
+        ClearCLBuffer input = (ClearCLBuffer) args[0];
+        return new PendingAffineTransform(input, (ClearCLBuffer) args[1], getTransform(input));
+    }
+
+    private AffineTransform2D getTransform(ClearCLBuffer input) {
         float angle = (float)(-asFloat(args[2]) / 180.0f * Math.PI);
         boolean rotateAroundCenter = asBoolean(args[3]);
 
         AffineTransform2D at = new AffineTransform2D();
-        Object[] args = openCLBufferArgs();
 
         if (rotateAroundCenter) {
-            ClearCLBuffer input = (ClearCLBuffer) args[0];
             at.translate(-input.getWidth() / 2, -input.getHeight() / 2);
         }
         at.rotate(angle);
         if (rotateAroundCenter) {
-            ClearCLBuffer input = (ClearCLBuffer) args[0];
             at.translate(input.getWidth() / 2, input.getHeight() / 2);
         }
-
-        //boolean result = Kernels.affineTransform(clij, (ClearCLBuffer)( args[0]), (ClearCLBuffer)(args[1]), AffineTransform.matrixToFloatArray(at));
-        //releaseBuffers(args);
-        if (!clij.hasImageSupport()) {
-            ClearCLBuffer input = ((ClearCLBuffer) args[0]);
-            ClearCLBuffer output = ((ClearCLBuffer) args[1]);
-
-            return Kernels.affineTransform2D(clij, input, output, AffineTransform.matrixToFloatArray2D(at));
-
-        } else {
-            ClearCLImage input = CLIJHandler.getInstance().getChachedImageByBuffer((ClearCLBuffer) args[0]);
-            ClearCLImage output = CLIJHandler.getInstance().getChachedImageByBuffer((ClearCLBuffer) args[1]);
-
-            boolean result = Kernels.affineTransform2D(clij, input, output, AffineTransform.matrixToFloatArray2D(at));
-
-            Kernels.copy(clij, output, (ClearCLBuffer) args[1]);
-            
-            
-            return result;
-        }
+        return at;
     }
 
     @Override
@@ -6,7 +6,11 @@ import net.haesleinhuepf.clij.kernels.Kernels;
 import net.haesleinhuepf.clij.macro.AbstractCLIJPlugin;
 import net.haesleinhuepf.clij.macro.CLIJMacroPlugin;
 import net.haesleinhuepf.clij.macro.CLIJOpenCLProcessor;
+import net.haesleinhuepf.clij.macro.DeferrableOperation;
+import net.haesleinhuepf.clij.macro.PendingOperation;
+import net.haesleinhuepf.clij.macro.PendingView;
 import net.haesleinhuepf.clij.macro.documentation.OffersDocumentation;
+import net.haesleinhuepf.clij.utilities.StridedView;
 import org.scijava.plugin.Plugin;
 
 /**
@@ -16,7 +20,7 @@ import org.scijava.plugin.Plugin;
 
 @Deprecated
 @Plugin(type = CLIJMacroPlugin.class, name = "CLIJ_rotateLeft")
-public class RotateLeft extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation {
+public class RotateLeft extends AbstractCLIJPlugin implements CLIJMacroPlugin, CLIJOpenCLProcessor, OffersDocumentation, DeferrableOperation {
 
     @Override
     public boolean executeCL() {
@@ -30,6 +34,16 @@ public class RotateLeft extends AbstractCLIJPlugin implements CLIJMacroPlugin, C
         }
     }
 
+    @Override
+    public PendingOperation defer() {
+        if (!(args[0] instanceof ClearCLBuffer && args[1] instanceof ClearCLBuffer)) {
+            return null;
+        }
+        ClearCLBuffer input = (ClearCLBuffer) args[0];
+        return new PendingView(input, (ClearCLBuffer) args[1], StridedView.rotateLeft(PendingView.dimensionsOf(input)),
+                (clij, source, destination) -> Kernels.rotateLeft(clij, source, destination));
+    }
+
     @Override
     public String getParameterHelpText() {
         return "Image source, Image destination";
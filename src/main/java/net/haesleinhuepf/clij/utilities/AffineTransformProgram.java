@@ -0,0 +1,174 @@
+package net.haesleinhuepf.clij.utilities;
+
+import net.imglib2.realtransform.AffineTransform2D;
+import net.imglib2.realtransform.AffineTransform3D;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * AffineTransformProgram is a transform string such as "center scale=2 rotate=45 -center" compiled into a
+ * sequence of matrices. Compiled programs are cached by their string, so that repeated calls with the same
+ * string neither parse it again nor build the constant parts of the transform again.
+ * <p>
+ * Translations, rotations and isotropic scaling are applied to the transform from the left, while
+ * scaleX/Y/Z and shearing are concatenated from the right. Hence, the resulting transform is the product of
+ * the left steps followed by the product of all right steps. Consecutive constant left steps and all right
+ * steps are multiplied once during compilation; only center and -center, which depend on the size of the
+ * source image, are resolved when the transform is requested.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public class AffineTransformProgram {
+    private static final int MAXIMUM_CACHE_SIZE = 64;
+
+    private static final Map<String, AffineTransformProgram> cache = Collections.synchronizedMap(new LinkedHashMap<String, AffineTransformProgram>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, AffineTransformProgram> eldest) {
+            return size() > MAXIMUM_CACHE_SIZE;
+        }
+    });
+
+    private static final HashSet<String> commands2D = new HashSet<String>(Arrays.asList(
+            "center", "-center", "scale", "scalex", "scaley", "rotate", "translatex", "translatey", "shearxy"));
+    private static final HashSet<String> commands3D = new HashSet<String>(Arrays.asList(
+            "center", "-center", "scale", "scalex", "scaley", "scalez", "rotate", "rotatex", "rotatey", "rotatez",
+            "translatex", "translatey", "translatez", "shearxy", "shearxz", "shearyx", "shearyz", "shearzx", "shearzy"));
+
+    /**
+     * A step applied from the left: either a constant matrix or a translation by +/- half the image size.
+     */
+    private static class Step {
+        final AffineTransform3D constant;
+        final int centerDirection;
+
+        Step(AffineTransform3D constant, int centerDirection) {
+            this.constant = constant;
+            this.centerDirection = centerDirection;
+        }
+    }
+
+    private final ArrayList<Step> leftSteps = new ArrayList<Step>();
+    private final AffineTransform3D rightProduct = new AffineTransform3D();
+
+    private AffineTransformProgram() {
+    }
+
+    /**
+     * Returns the compiled program for the given transform string, using the cache if possible.
+     *
+     * @param transform transform string as accepted by CLIJ_affineTransform2D or CLIJ_affineTransform3D
+     * @param dimension 2 or 3
+     * @throws IllegalArgumentException if the string contains unknown transforms or invalid numbers
+     */
+    public static AffineTransformProgram compile(String transform, int dimension) {
+        String key = dimension + ":" + transform;
+        AffineTransformProgram program = cache.get(key);
+        if (program == null) {
+            program = parse(transform, dimension);
+            cache.put(key, program);
+        }
+        return program;
+    }
+
+    private static AffineTransformProgram parse(String transform, int dimension) {
+        HashSet<String> availableCommands = dimension == 2 ? commands2D : commands3D;
+
+        AffineTransformProgram program = new AffineTransformProgram();
+        AffineTransform3D constant = null;
+
+        for (String transformCommand : transform.trim().toLowerCase().split(" ")) {
+            if (transformCommand.length() == 0) {
+                continue;
+            }
+            String[] commandParts = transformCommand.split("=");
+            String command = commandParts[0];
+            if (!availableCommands.contains(command)) {
+                throw new IllegalArgumentException("Unknown transform '" + command + "' in " + dimension + "D transform: " + transform);
+            }
+
+            if (command.equals("center") || command.equals("-center")) {
+                if (constant != null) {
+                    program.leftSteps.add(new Step(constant, 0));
+                    constant = null;
+                }
+                program.leftSteps.add(new Step(null, command.equals("center") ? -1 : 1));
+                continue;
+            }
+
+            if (commandParts.length != 2) {
+                throw new IllegalArgumentException("Transform '" + command + "' requires a value, e.g. " + command + "=2: " + transform);
+            }
+            double value;
+            try {
+                value = Double.parseDouble(commandParts[1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for transform '" + command + "': " + commandParts[1]);
+            }
+            float angle = (float) (-Float.parseFloat(commandParts[1]) / 180.0f * Math.PI);
+
+            if (command.startsWith("scale") && command.length() == 6) {
+                // scaleX, scaleY and scaleZ are concatenated from the right
+                AffineTransform3D scaleTransform = new AffineTransform3D();
+                int axis = command.charAt(5) - 'x';
+                scaleTransform.set(1.0 / value, axis, axis);
+                program.rightProduct.concatenate(scaleTransform);
+            } else if (command.startsWith("shear")) {
+                AffineTransform3D shearTransform = new AffineTransform3D();
+                shearTransform.set(value, command.charAt(5) - 'x', command.charAt(6) - 'x');
+                program.rightProduct.concatenate(shearTransform);
+            } else {
+                if (constant == null) {
+                    constant = new AffineTransform3D();
+                }
+                if (command.equals("scale")) {
+                    constant.scale(1.0 / value);
+                } else if (command.equals("rotatex")) {
+                    constant.rotate(0, angle);
+                } else if (command.equals("rotatey")) {
+                    constant.rotate(1, angle);
+                } else if (command.equals("rotatez") || command.equals("rotate")) {
+                    constant.rotate(2, angle);
+                } else if (command.equals("translatex")) {
+                    constant.translate(value, 0, 0);
+                } else if (command.equals("translatey")) {
+                    constant.translate(0, value, 0);
+                } else if (command.equals("translatez")) {
+                    constant.translate(0, 0, value);
+                }
+            }
+        }
+        if (constant != null) {
+            program.leftSteps.add(new Step(constant, 0));
+        }
+        return program;
+    }
+
+    public AffineTransform3D getTransform3D(long width, long height, long depth) {
+        AffineTransform3D at = new AffineTransform3D();
+        for (Step step : leftSteps) {
+            if (step.constant != null) {
+                at.preConcatenate(step.constant);
+            } else {
+                at.translate(step.centerDirection * (width / 2), step.centerDirection * (height / 2), step.centerDirection * (depth / 2));
+            }
+        }
+        at.concatenate(rightProduct);
+        return at;
+    }
+
+    public AffineTransform2D getTransform2D(long width, long height) {
+        AffineTransform3D at = getTransform3D(width, height, 0);
+        AffineTransform2D at2D = new AffineTransform2D();
+        at2D.set(
+                at.get(0, 0), at.get(0, 1), at.get(0, 3),
+                at.get(1, 0), at.get(1, 1), at.get(1, 3)
+        );
+        return at2D;
+    }
+}
@@ -0,0 +1,181 @@
+package net.haesleinhuepf.clij.utilities;
+
+import ij.ImageStack;
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.coremem.enums.NativeTypeEnum;
+import net.haesleinhuepf.clij.utilities.ProjectionAccumulator.Statistic;
+
+import java.util.EnumSet;
+import java.util.stream.IntStream;
+
+/**
+ * AxisProjector reduces an image stack along any axis or set of axes (X, Y, Z, XY, XZ, YZ, XYZ). The stack is
+ * handed over slab by slab (ranges of Z-slices), so that the memory consumption is bounded by the slab size
+ * and the size of the projection.
+ * <p>
+ * The remaining axes form the result in their original order, e.g. projecting Y results in an X/Z image and
+ * projecting XY results in a vector with one value per Z-slice. Results with less than two dimensions are
+ * padded to width x 1.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public class AxisProjector {
+    private final int width;
+    private final int height;
+    private final int depth;
+    private final boolean[] projected;
+
+    // strides of X, Y and Z in the result; projected axes have stride 0
+    private final int[] strides = new int[3];
+    private final int positionAxis;
+
+    private final ProjectionAccumulator accumulator;
+
+    public AxisProjector(int width, int height, int depth, String axes, EnumSet<Statistic> statistics) {
+        this.width = width;
+        this.height = height;
+        this.depth = depth;
+        this.projected = parseAxes(axes);
+
+        int[] dimensions = {width, height, depth};
+        int stride = 1;
+        int numberOfProjectedAxes = 0;
+        int lastProjectedAxis = -1;
+        for (int d = 0; d < 3; d++) {
+            if (projected[d]) {
+                numberOfProjectedAxes++;
+                lastProjectedAxis = d;
+            } else {
+                strides[d] = stride;
+                stride = stride * dimensions[d];
+            }
+        }
+        positionAxis = numberOfProjectedAxes == 1 ? lastProjectedAxis : -1;
+
+        if (positionAxis < 0 && (statistics.contains(Statistic.ARGMAX) || statistics.contains(Statistic.ARGMIN))) {
+            throw new IllegalArgumentException("argmax and argmin are only supported for projections along a single axis.");
+        }
+
+        accumulator = new ProjectionAccumulator(stride, statistics);
+    }
+
+    public static boolean[] parseAxes(String axes) {
+        boolean[] result = new boolean[3];
+        for (char axis : axes.toUpperCase().toCharArray()) {
+            if (axis == 'X') {
+                result[0] = true;
+            } else if (axis == 'Y') {
+                result[1] = true;
+            } else if (axis == 'Z') {
+                result[2] = true;
+            } else if (axis != ' ' && axis != ',') {
+                throw new IllegalArgumentException("Unknown axis '" + axis + "' in " + axes + ". Use X, Y, Z or combinations such as XY.");
+            }
+        }
+        if (!(result[0] || result[1] || result[2])) {
+            throw new IllegalArgumentException("No axis specified for projection.");
+        }
+        return result;
+    }
+
+    public static long[] getOutputDimensions(long width, long height, long depth, String axes) {
+        boolean[] projected = parseAxes(axes);
+        long[] dimensions = {width, height, depth};
+        long[] result = {1, 1};
+        int count = 0;
+        for (int d = 0; d < 3; d++) {
+            if (!projected[d]) {
+                result[count] = dimensions[d];
+                count++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Accumulates a slab of slices starting at zFrom. The slab is expected in X-Y-Z order.
+     */
+    public void accumulate(float[] slab, int zFrom, int slabDepth) {
+        // threads work on disjoint ranges of a remaining axis, thus they never write the same result pixel
+        final int partitionAxis = !projected[2] ? 2 : !projected[1] ? 1 : !projected[0] ? 0 : -1;
+
+        if (partitionAxis < 0) {
+            // everything is projected: threads accumulate privately and results are merged
+            ProjectionAccumulator[] partialResults = new ProjectionAccumulator[slabDepth];
+            IntStream.range(0, slabDepth).parallel().forEach(z -> {
+                partialResults[z] = new ProjectionAccumulator(1, accumulator.getStatistics());
+                int offset = z * width * height;
+                for (int i = 0; i < width * height; i++) {
+                    partialResults[z].accumulate(0, slab[offset + i], 0);
+                }
+            });
+            for (ProjectionAccumulator partialResult : partialResults) {
+                accumulator.merge(partialResult);
+            }
+            return;
+        }
+
+        final int extent = partitionAxis == 2 ? slabDepth : partitionAxis == 1 ? height : width;
+        final int numberOfChunks = Math.min(extent, Runtime.getRuntime().availableProcessors() * 4);
+        final int chunkSize = (extent + numberOfChunks - 1) / numberOfChunks;
+
+        IntStream.range(0, numberOfChunks).parallel().forEach(chunk -> {
+            int from = chunk * chunkSize;
+            int to = Math.min(extent, from + chunkSize);
+
+            int z0 = partitionAxis == 2 ? from : 0;
+            int z1 = partitionAxis == 2 ? to : slabDepth;
+            int y0 = partitionAxis == 1 ? from : 0;
+            int y1 = partitionAxis == 1 ? to : height;
+            int x0 = partitionAxis == 0 ? from : 0;
+            int x1 = partitionAxis == 0 ? to : width;
+
+            for (int z = z0; z < z1; z++) {
+                int globalZ = zFrom + z;
+                for (int y = y0; y < y1; y++) {
+                    int slabOffset = (z * height + y) * width;
+                    int resultOffset = globalZ * strides[2] + y * strides[1];
+                    int position = positionAxis == 2 ? globalZ : y;
+                    for (int x = x0; x < x1; x++) {
+                        accumulator.accumulate(resultOffset + x * strides[0], slab[slabOffset + x], positionAxis == 0 ? x : position);
+                    }
+                }
+            }
+        });
+    }
+
+    public float[] getResult(Statistic statistic) {
+        return accumulator.getResult(statistic);
+    }
+
+    /**
+     * Returns true for 32-bit integer types, whose values above 2^24 can't be represented exactly by the float
+     * slabs projections are computed from.
+     */
+    public static boolean isInteger32(NativeTypeEnum type) {
+        return type == NativeTypeEnum.Int || type == NativeTypeEnum.UnsignedInt;
+    }
+
+    public static AxisProjector project(CLIJ clij, ClearCLBuffer input, String axes, EnumSet<Statistic> statistics) {
+        if (isInteger32(input.getNativeType())) {
+            throw new IllegalArgumentException("32-bit integer images can't be projected exactly slab by slab. Convert the image to float first.");
+        }
+        AxisProjector projector = new AxisProjector((int) input.getWidth(), (int) input.getHeight(), (int) input.getDepth(), axes, statistics);
+        SlabStreamer.forEachSlab(clij, input, projector::accumulate);
+        return projector;
+    }
+
+    /**
+     * Projects an ImageJ stack slice by slice. Virtual stacks are supported; only one slice is loaded at a time.
+     */
+    public static AxisProjector project(ImageStack stack, String axes, EnumSet<Statistic> statistics) {
+        AxisProjector projector = new AxisProjector(stack.getWidth(), stack.getHeight(), stack.getSize(), axes, statistics);
+        for (int z = 0; z < stack.getSize(); z++) {
+            float[] slice = (float[]) stack.getProcessor(z + 1).convertToFloatProcessor().getPixels();
+            projector.accumulate(slice, z, 1);
+        }
+        return projector;
+    }
+}
@@ -0,0 +1,308 @@
+package net.haesleinhuepf.clij.utilities;
+
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.kernels.Kernels;
+
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * BlockSampler estimates statistics of large images from a stratified random sample of blocks. The image is
+ * tiled into a grid of cells of up to 64 x 64 x 4 pixels. Cells at the border may be smaller; they are read by
+ * shifting the block inwards, so that all blocks have the same size. The list of blocks is divided into strata
+ * of consecutive blocks and two blocks are drawn from every stratum, so that the sample is spread over the whole
+ * image.
+ * <p>
+ * Only the sampled blocks are transferred from GPU memory; every block is cropped into the same small buffer.
+ * Sampling is deterministic for a given seed. Confidence bounds are given on the 95% level.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public class BlockSampler {
+    private static final double Z_95 = 1.959964;
+
+    /**
+     * Delivers the pixels of the block with the given origin.
+     */
+    interface BlockSource {
+        float[] read(int x, int y, int z);
+    }
+
+    public static class Estimate {
+        public final double mean;
+        public final double lowerBound;
+        public final double upperBound;
+        public final long sampledPixels;
+
+        Estimate(double mean, double halfWidth, long sampledPixels) {
+            this.mean = mean;
+            this.lowerBound = mean - halfWidth;
+            this.upperBound = mean + halfWidth;
+            this.sampledPixels = sampledPixels;
+        }
+
+        public double getRelativeError() {
+            return mean == 0 ? (upperBound == lowerBound ? 0 : Double.POSITIVE_INFINITY) : (upperBound - mean) / Math.abs(mean);
+        }
+    }
+
+    private final BlockSource source;
+    private final long seed;
+    private final int blockWidth;
+    private final int blockHeight;
+    private final int blockDepth;
+    private final int[] numberOfBlocks = new int[3];
+    private final int[] dimensions;
+
+    private final HashMap<Integer, float[]> blockCache = new HashMap<Integer, float[]>();
+
+    BlockSampler(int width, int height, int depth, BlockSource source, long seed) {
+        this.source = source;
+        this.seed = seed;
+        this.dimensions = new int[]{width, height, depth};
+        blockWidth = Math.min(64, width);
+        blockHeight = Math.min(64, height);
+        blockDepth = Math.min(4, depth);
+        numberOfBlocks[0] = (width + blockWidth - 1) / blockWidth;
+        numberOfBlocks[1] = (height + blockHeight - 1) / blockHeight;
+        numberOfBlocks[2] = (depth + blockDepth - 1) / blockDepth;
+    }
+
+    public static BlockSampler of(CLIJ clij, ClearCLBuffer input, long seed) {
+        return new BlockSampler((int) input.getWidth(), (int) input.getHeight(), (int) input.getDepth(), new DeviceBlockSource(clij, input), seed);
+    }
+
+    /**
+     * Crops blocks out of an image in GPU memory. The block buffer is created on first use and reused.
+     */
+    private static class DeviceBlockSource implements BlockSource {
+        private final CLIJ clij;
+        private final ClearCLBuffer input;
+        private ClearCLBuffer block = null;
+
+        DeviceBlockSource(CLIJ clij, ClearCLBuffer input) {
+            this.clij = clij;
+            this.input = input;
+        }
+
+        @Override
+        public float[] read(int x, int y, int z) {
+            boolean is3D = input.getDimension() > 2;
+            if (block == null) {
+                long[] blockDimensions = {Math.min(64, input.getWidth()), Math.min(64, input.getHeight()), Math.min(4, input.getDepth())};
+                block = clij.createCLBuffer(is3D ? blockDimensions : new long[]{blockDimensions[0], blockDimensions[1]}, input.getNativeType());
+            }
+            if (is3D) {
+                Kernels.crop(clij, input, block, x, y, z);
+            } else {
+                Kernels.crop(clij, input, block, x, y);
+            }
+            return SlabStreamer.read(block);
+        }
+
+        void close() {
+            if (block != null) {
+                block.close();
+                block = null;
+            }
+        }
+    }
+
+    /**
+     * Releases the block buffer in GPU memory and forgets all blocks read so far.
+     */
+    public void close() {
+        if (source instanceof DeviceBlockSource) {
+            ((DeviceBlockSource) source).close();
+        }
+        blockCache.clear();
+    }
+
+    public int getNumberOfBlocks() {
+        return numberOfBlocks[0] * numberOfBlocks[1] * numberOfBlocks[2];
+    }
+
+    public int getNumberOfPixelsPerBlock() {
+        return blockWidth * blockHeight * blockDepth;
+    }
+
+    public long getNumberOfPixels() {
+        return (long) dimensions[0] * dimensions[1] * dimensions[2];
+    }
+
+    /**
+     * Returns the pixels of the grid cell with the given index. Cells at the border may be smaller than a block;
+     * their block is shifted inwards and only the part belonging to the cell is kept.
+     */
+    private float[] readBlock(int blockIndex) {
+        float[] cell = blockCache.get(blockIndex);
+        if (cell == null) {
+            int[] cellOrigin = {
+                    blockIndex % numberOfBlocks[0] * blockWidth,
+                    (blockIndex / numberOfBlocks[0]) % numberOfBlocks[1] * blockHeight,
+                    blockIndex / numberOfBlocks[0] / numberOfBlocks[1] * blockDepth
+            };
+            int[] blockSize = {blockWidth, blockHeight, blockDepth};
+            int[] blockOrigin = new int[3];
+            int[] cellSize = new int[3];
+            for (int d = 0; d < 3; d++) {
+                blockOrigin[d] = Math.min(cellOrigin[d], dimensions[d] - blockSize[d]);
+                cellSize[d] = Math.min(blockSize[d], dimensions[d] - cellOrigin[d]);
+            }
+            float[] block = source.read(blockOrigin[0], blockOrigin[1], blockOrigin[2]);
+
+            if (cellSize[0] == blockWidth && cellSize[1] == blockHeight && cellSize[2] == blockDepth) {
+                cell = block;
+            } else {
+                cell = new float[cellSize[0] * cellSize[1] * cellSize[2]];
+                int i = 0;
+                for (int z = cellOrigin[2] - blockOrigin[2]; z < blockDepth; z++) {
+                    for (int y = cellOrigin[1] - blockOrigin[1]; y < blockHeight; y++) {
+                        int offset = (z * blockHeight + y) * blockWidth + cellOrigin[0] - blockOrigin[0];
+                        System.arraycopy(block, offset, cell, i, cellSize[0]);
+                        i += cellSize[0];
+                    }
+                }
+            }
+            blockCache.put(blockIndex, cell);
+        }
+        return cell;
+    }
+
+    /**
+     * Draws the given number of blocks: the blocks are divided into strata of consecutive blocks and every
+     * stratum contributes two blocks. Returns the block indices per stratum.
+     */
+    private int[][] drawBlocks(int numberOfSamples) {
+        int total = getNumberOfBlocks();
+        numberOfSamples = Math.max(Math.min(2, total), Math.min(total, numberOfSamples));
+        int numberOfStrata = Math.max(1, numberOfSamples / 2);
+
+        Random random = new Random(seed);
+        int[][] result = new int[numberOfStrata][];
+        for (int h = 0; h < numberOfStrata; h++) {
+            int from = (int) ((long) h * total / numberOfStrata);
+            int to = (int) ((long) (h + 1) * total / numberOfStrata);
+            int samplesInStratum = numberOfSamples / numberOfStrata + (h < numberOfSamples % numberOfStrata ? 1 : 0);
+            samplesInStratum = Math.min(samplesInStratum, to - from);
+
+            // partial Fisher-Yates shuffle of the stratum
+            int[] indices = new int[to - from];
+            for (int i = 0; i < indices.length; i++) {
+                indices[i] = from + i;
+            }
+            result[h] = new int[samplesInStratum];
+            for (int i = 0; i < samplesInStratum; i++) {
+                int j = i + random.nextInt(indices.length - i);
+                int temp = indices[i];
+                indices[i] = indices[j];
+                indices[j] = temp;
+                result[h][i] = indices[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Estimates the mean pixel value from a sample of the given fraction of all blocks.
+     */
+    public Estimate estimateMean(double sampleFraction) {
+        return estimateMeanFromBlocks((int) Math.ceil(sampleFraction * getNumberOfBlocks()));
+    }
+
+    /**
+     * Samples more and more blocks until the 95% confidence interval of the mean is narrower than the given
+     * relative error or all blocks were read.
+     */
+    public Estimate estimateMeanWithRelativeError(double targetRelativeError) {
+        int numberOfSamples = Math.min(32, getNumberOfBlocks());
+        while (true) {
+            Estimate estimate = estimateMeanFromBlocks(numberOfSamples);
+            double relativeError = estimate.getRelativeError();
+            if (relativeError <= targetRelativeError || numberOfSamples >= getNumberOfBlocks()) {
+                return estimate;
+            }
+            double factor = Double.isInfinite(relativeError) ? 4 : Math.min(4, Math.pow(relativeError / targetRelativeError, 2) * 1.1);
+            numberOfSamples = (int) Math.min(getNumberOfBlocks(), Math.ceil(numberOfSamples * Math.max(1.5, factor)));
+        }
+    }
+
+    private Estimate estimateMeanFromBlocks(int numberOfSamples) {
+        int total = getNumberOfBlocks();
+        int[][] strata = drawBlocks(numberOfSamples);
+
+        // cells may differ in size; hence, the mean is estimated as ratio of estimated pixel sum and pixel count
+        double[][] cellSums = new double[strata.length][];
+        double[][] cellSizes = new double[strata.length][];
+        int[] stratumSizes = new int[strata.length];
+        double estimatedSum = 0;
+        double estimatedCount = 0;
+        long sampledPixels = 0;
+        for (int h = 0; h < strata.length; h++) {
+            stratumSizes[h] = (int) ((long) (h + 1) * total / strata.length) - (int) ((long) h * total / strata.length);
+
+            int n = strata[h].length;
+            cellSums[h] = new double[n];
+            cellSizes[h] = new double[n];
+            for (int i = 0; i < n; i++) {
+                float[] cell = readBlock(strata[h][i]);
+                for (float value : cell) {
+                    cellSums[h][i] += value;
+                }
+                cellSizes[h][i] = cell.length;
+                sampledPixels += cell.length;
+                estimatedSum += (double) stratumSizes[h] / n * cellSums[h][i];
+                estimatedCount += (double) stratumSizes[h] / n * cellSizes[h][i];
+            }
+        }
+        double mean = estimatedSum / estimatedCount;
+
+        // linearized variance of the ratio estimator
+        double variance = 0;
+        for (int h = 0; h < strata.length; h++) {
+            int n = cellSums[h].length;
+            if (n < 2) {
+                continue;
+            }
+            double[] residuals = new double[n];
+            double meanResidual = 0;
+            for (int i = 0; i < n; i++) {
+                residuals[i] = cellSums[h][i] - mean * cellSizes[h][i];
+                meanResidual += residuals[i] / n;
+            }
+            double residualVariance = 0;
+            for (double residual : residuals) {
+                residualVariance += (residual - meanResidual) * (residual - meanResidual) / (n - 1);
+            }
+            double finitePopulationCorrection = 1.0 - (double) n / stratumSizes[h];
+            variance += (double) stratumSizes[h] * stratumSizes[h] * finitePopulationCorrection * residualVariance / n;
+        }
+        return new Estimate(mean, Z_95 * Math.sqrt(variance) / getNumberOfPixels(), sampledPixels);
+    }
+
+    /**
+     * Returns the pixels of a stratified sample of the given fraction of all blocks, e.g. for determining an
+     * approximate histogram.
+     */
+    public float[] samplePixels(double sampleFraction) {
+        int[][] strata = drawBlocks((int) Math.ceil(sampleFraction * getNumberOfBlocks()));
+        int numberOfSampledPixels = 0;
+        for (int[] stratum : strata) {
+            for (int blockIndex : stratum) {
+                numberOfSampledPixels += readBlock(blockIndex).length;
+            }
+        }
+        float[] result = new float[numberOfSampledPixels];
+        int offset = 0;
+        for (int[] stratum : strata) {
+            for (int blockIndex : stratum) {
+                float[] cell = readBlock(blockIndex);
+                System.arraycopy(cell, 0, result, offset, cell.length);
+                offset += cell.length;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,257 @@
+package net.haesleinhuepf.clij.utilities;
+
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * BoundingBoxCropper crops many bounding boxes out of an image in a single pass. The image is handed over slab
+ * by slab; every box is copied either into its own array or into its own slot of a packed stack and, optionally,
+ * statistics of its pixels are determined on the fly. Boxes are processed in parallel.
+ * <p>
+ * In the packed stack, all slots have the size of the largest box; slot i occupies the Z-slices
+ * i * slotDepth ... (i + 1) * slotDepth - 1. Every box is stored at the origin of its slot; the remaining pixels
+ * are zero. Parts of boxes outside the image are zero as well and are not taken into account by the statistics.
+ * Boxes without pixels and boxes completely outside the image are rejected up front.
+ * <p>
+ * Boxes are given as {x, y, z, width, height, depth}.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public class BoundingBoxCropper {
+
+    public static class Statistics {
+        private long pixelCount = 0;
+        private double sum = 0;
+        private double sumOfSquares = 0;
+        private float minimum = Float.MAX_VALUE;
+        private float maximum = -Float.MAX_VALUE;
+
+        public long getPixelCount() {
+            return pixelCount;
+        }
+
+        public double getSum() {
+            return sum;
+        }
+
+        public double getMean() {
+            return sum / pixelCount;
+        }
+
+        public double getStandardDeviation() {
+            double mean = getMean();
+            return Math.sqrt(Math.max(0, sumOfSquares / pixelCount - mean * mean));
+        }
+
+        public float getMinimum() {
+            return minimum;
+        }
+
+        public float getMaximum() {
+            return maximum;
+        }
+    }
+
+    private final int width;
+    private final int height;
+    private final int depth;
+    private final int[][] boxes;
+    private final int[] slotDimensions = {1, 1, 1};
+    // either the packed stack or one array per box
+    private final float[] packed;
+    private final float[][] crops;
+    private final Statistics[] statistics;
+
+    public BoundingBoxCropper(int width, int height, int depth, int[][] boxes, boolean pack, boolean measure) {
+        this.width = width;
+        this.height = height;
+        this.depth = depth;
+        this.boxes = boxes;
+        checkBoxes(width, height, depth, boxes);
+        for (int[] box : boxes) {
+            for (int d = 0; d < 3; d++) {
+                slotDimensions[d] = Math.max(slotDimensions[d], box[d + 3]);
+            }
+        }
+        if (pack) {
+            packed = new float[checkLength((long) slotDimensions[0] * slotDimensions[1] * slotDimensions[2] * boxes.length)];
+            crops = null;
+        } else {
+            packed = null;
+            crops = new float[boxes.length][];
+            for (int i = 0; i < boxes.length; i++) {
+                crops[i] = new float[checkLength((long) boxes[i][3] * boxes[i][4] * boxes[i][5])];
+            }
+        }
+        if (measure) {
+            statistics = new Statistics[boxes.length];
+            for (int i = 0; i < boxes.length; i++) {
+                statistics[i] = new Statistics();
+            }
+        } else {
+            statistics = null;
+        }
+    }
+
+    /**
+     * Checks up front that every box has a positive size and overlaps the image, so that no crop is allocated
+     * with a negative size and no statistics are determined from zero pixels.
+     */
+    static void checkBoxes(int width, int height, int depth, int[][] boxes) {
+        int[] imageDimensions = {width, height, depth};
+        for (int i = 0; i < boxes.length; i++) {
+            int[] box = boxes[i];
+            if (box.length != 6) {
+                throw new IllegalArgumentException("Bounding box " + i + " must consist of 6 numbers (x, y, z, width, height, depth), but has " + box.length + ".");
+            }
+            for (int d = 0; d < 3; d++) {
+                if (box[d + 3] < 1) {
+                    throw new IllegalArgumentException("Bounding box " + i + " " + Arrays.toString(box) + " must have a positive width, height and depth.");
+                }
+                if ((long) box[d] + box[d + 3] <= 0 || box[d] >= imageDimensions[d]) {
+                    throw new IllegalArgumentException("Bounding box " + i + " " + Arrays.toString(box) + " lies completely outside the image of " + Arrays.toString(imageDimensions) + " pixels.");
+                }
+            }
+        }
+    }
+
+    // Java arrays are limited to 2^31 - 1 elements
+    private static int checkLength(long length) {
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The crops (" + length + " pixels) are too large to be kept in host memory at once.");
+        }
+        return (int) length;
+    }
+
+    /**
+     * Crops the given boxes out of an image in GPU memory, which is read slab by slab.
+     */
+    public static BoundingBoxCropper of(CLIJ clij, ClearCLBuffer input, int[][] boxes, boolean pack, boolean measure) {
+        int depth = input.getDimension() > 2 ? (int) input.getDepth() : 1;
+        BoundingBoxCropper cropper = new BoundingBoxCropper((int) input.getWidth(), (int) input.getHeight(), depth, boxes, pack, measure);
+        SlabStreamer.forEachSlab(clij, input, cropper::accept);
+        return cropper;
+    }
+
+    /**
+     * Parses boxes given as "x y width height" (spanning all slices) or "x y z width height depth", where boxes
+     * are separated by semicolons or line breaks and numbers by spaces or commas.
+     */
+    public static int[][] parseBoxes(String boxes, int depth) {
+        ArrayList<int[]> result = new ArrayList<int[]>();
+        for (String box : boxes.trim().split("[;\n]+")) {
+            if (box.trim().length() == 0) {
+                continue;
+            }
+            String[] parts = box.trim().split("[ ,\t]+");
+            int[] values = new int[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                values[i] = (int) Math.round(Double.parseDouble(parts[i]));
+            }
+            if (values.length == 4) {
+                result.add(new int[]{values[0], values[1], 0, values[2], values[3], depth});
+            } else if (values.length == 6) {
+                result.add(values);
+            } else {
+                throw new IllegalArgumentException("A bounding box consists of 4 (x, y, width, height) or 6 (x, y, z, width, height, depth) numbers, but was: " + box);
+            }
+        }
+        return result.toArray(new int[0][]);
+    }
+
+    /**
+     * Copies the parts of all boxes within the given slab of Z-slices.
+     */
+    public void accept(float[] slab, int zFrom, int slabDepth) {
+        final int slotPlaneSize = slotDimensions[0] * slotDimensions[1];
+        final int slotSize = slotPlaneSize * slotDimensions[2];
+        IntStream.range(0, boxes.length).parallel().forEach(i -> {
+            int[] box = boxes[i];
+            int xFrom = Math.max(0, box[0]);
+            int xTo = Math.min(width, box[0] + box[3]);
+            int yFrom = Math.max(0, box[1]);
+            int yTo = Math.min(height, box[1] + box[4]);
+            int zStart = Math.max(Math.max(0, box[2]), zFrom);
+            int zEnd = Math.min(Math.min(depth, box[2] + box[5]), zFrom + slabDepth);
+            if (xFrom >= xTo) {
+                return;
+            }
+            float[] target = packed != null ? packed : crops[i];
+            int rowSize = packed != null ? slotDimensions[0] : box[3];
+            int planeSize = packed != null ? slotPlaneSize : box[3] * box[4];
+            int boxOffset = packed != null ? i * slotSize : 0;
+
+            Statistics boxStatistics = statistics == null ? null : statistics[i];
+            for (int z = zStart; z < zEnd; z++) {
+                for (int y = yFrom; y < yTo; y++) {
+                    int sourceOffset = ((z - zFrom) * height + y) * width;
+                    int targetOffset = boxOffset + (z - box[2]) * planeSize + (y - box[1]) * rowSize - box[0];
+                    System.arraycopy(slab, sourceOffset + xFrom, target, targetOffset + xFrom, xTo - xFrom);
+                    if (boxStatistics != null) {
+                        for (int x = xFrom; x < xTo; x++) {
+                            float value = slab[sourceOffset + x];
+                            boxStatistics.sum += value;
+                            boxStatistics.sumOfSquares += (double) value * value;
+                            boxStatistics.minimum = Math.min(boxStatistics.minimum, value);
+                            boxStatistics.maximum = Math.max(boxStatistics.maximum, value);
+                        }
+                        boxStatistics.pixelCount += xTo - xFrom;
+                    }
+                }
+            }
+        });
+    }
+
+    public int getNumberOfBoxes() {
+        return boxes.length;
+    }
+
+    public int[] getBox(int index) {
+        return boxes[index];
+    }
+
+    /**
+     * Returns the dimensions of the packed stack: slot width x slot height x (slot depth * number of boxes).
+     */
+    public long[] getPackedDimensions() {
+        return new long[]{slotDimensions[0], slotDimensions[1], (long) slotDimensions[2] * boxes.length};
+    }
+
+    /**
+     * Returns the packed stack, or null if the boxes were not packed.
+     */
+    public float[] getPacked() {
+        return packed;
+    }
+
+    /**
+     * Returns the pixels of a single box, organized as box width x box height x box depth.
+     */
+    public float[] getCrop(int index) {
+        if (crops != null) {
+            return crops[index];
+        }
+        int[] box = boxes[index];
+        float[] crop = new float[box[3] * box[4] * box[5]];
+        int slotPlaneSize = slotDimensions[0] * slotDimensions[1];
+        int slotOffset = index * slotPlaneSize * slotDimensions[2];
+        for (int z = 0; z < box[5]; z++) {
+            for (int y = 0; y < box[4]; y++) {
+                System.arraycopy(packed, slotOffset + z * slotPlaneSize + y * slotDimensions[0], crop, (z * box[4] + y) * box[3], box[3]);
+            }
+        }
+        return crop;
+    }
+
+    /**
+     * Returns the statistics of the given box, or null if statistics were not requested.
+     */
+    public Statistics getStatistics(int index) {
+        return statistics == null ? null : statistics[index];
+    }
+}
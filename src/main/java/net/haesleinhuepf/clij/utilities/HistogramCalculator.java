@@ -0,0 +1,284 @@
+package net.haesleinhuepf.clij.utilities;
+
+import ij.measure.ResultsTable;
+import ij.process.AutoThresholder;
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.coremem.enums.NativeTypeEnum;
+import net.haesleinhuepf.clij.kernels.Kernels;
+
+import java.util.HashMap;
+import java.util.stream.IntStream;
+
+/**
+ * HistogramCalculator holds a histogram together with the grey value range it covers and hands it over to
+ * threshold methods and results tables. Histograms of images in GPU memory are determined in at most two passes
+ * on the GPU: minimum and maximum, if requested, are determined together in one pass (see min_max.cl); then the
+ * fillHistogram kernel counts into partial histograms and merges them. Only the minima and maxima of the rows and
+ * the bins are transferred to host memory. Pixel values in host memory are counted on all CPU cores, every thread into its own private
+ * histogram.
+ * <p>
+ * On the host, a pixel value v is counted in bin (int)((v - minimum) * (numberOfBins - 1) / (maximum - minimum)).
+ * Values outside the given range are not counted.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public class HistogramCalculator {
+    private final int numberOfBins;
+    private float minimum;
+    private float maximum;
+    private long[] histogram;
+
+    private HistogramCalculator(int numberOfBins, float minimum, float maximum) {
+        this.numberOfBins = numberOfBins;
+        this.minimum = minimum;
+        this.maximum = maximum;
+    }
+
+    public static HistogramCalculator determine(CLIJ clij, ClearCLBuffer input, int numberOfBins, float minimum, float maximum, boolean determineMinAndMax) {
+        ClearCLBuffer bins = clij.createCLBuffer(new long[]{numberOfBins, 1, 1}, NativeTypeEnum.Float);
+        HistogramCalculator calculator = determine(clij, input, bins, minimum, maximum, determineMinAndMax);
+        bins.close();
+        return calculator;
+    }
+
+    /**
+     * Determines the histogram of the given image on the GPU and writes it to bins, a one-dimensional image
+     * with one pixel per bin. Only the bins are transferred to host memory.
+     */
+    public static HistogramCalculator determine(CLIJ clij, ClearCLBuffer input, ClearCLBuffer bins, float minimum, float maximum, boolean determineMinAndMax) {
+        HistogramCalculator calculator = new HistogramCalculator((int) bins.getWidth(), minimum, maximum);
+        if (determineMinAndMax) {
+            float[] minMax = determineMinAndMax(clij, input);
+            calculator.minimum = minMax[0];
+            calculator.maximum = minMax[1];
+        }
+        Kernels.fillHistogram(clij, input, bins, calculator.minimum, calculator.maximum);
+
+        float[] counts = SlabStreamer.read(bins);
+        calculator.histogram = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            calculator.histogram[i] = (long) counts[i];
+        }
+        return calculator;
+    }
+
+    /**
+     * Determines minimum and maximum of the given image in a single pass on the GPU: every row is reduced by one
+     * work item and only the minima and maxima of the rows are transferred and reduced on the host.
+     */
+    public static float[] determineMinAndMax(CLIJ clij, ClearCLBuffer input) {
+        int height = (int) input.getHeight();
+        int depth = input.getDimension() > 2 ? (int) input.getDepth() : 1;
+        ClearCLBuffer rowMinima = clij.createCLBuffer(new long[]{height, depth}, NativeTypeEnum.Float);
+        ClearCLBuffer rowMaxima = clij.createCLBuffer(new long[]{height, depth}, NativeTypeEnum.Float);
+        try {
+            HashMap<String, Object> parameters = new HashMap<String, Object>();
+            parameters.put("src", input);
+            parameters.put("dst", rowMinima);
+            parameters.put("dst_max", rowMaxima);
+            parameters.put("width", (int) input.getWidth());
+            parameters.put("height", height);
+            clij.execute(HistogramCalculator.class, "min_max.cl", input.getDimension() > 2 ? "min_max_rows_3d" : "min_max_rows_2d", parameters);
+
+            float[] minMax = {Float.MAX_VALUE, -Float.MAX_VALUE};
+            for (float value : SlabStreamer.read(rowMinima)) {
+                minMax[0] = Math.min(minMax[0], value);
+            }
+            for (float value : SlabStreamer.read(rowMaxima)) {
+                minMax[1] = Math.max(minMax[1], value);
+            }
+            return minMax;
+        } finally {
+            rowMinima.close();
+            rowMaxima.close();
+        }
+    }
+
+    /**
+     * Determines the histogram of the given pixel values. Mainly intended for testing and for data which is
+     * already in host memory.
+     */
+    public static HistogramCalculator determine(float[] values, int numberOfBins, float minimum, float maximum, boolean determineMinAndMax) {
+        HistogramCalculator calculator = new HistogramCalculator(numberOfBins, minimum, maximum);
+        if (determineMinAndMax) {
+            float[] minMax = {Float.MAX_VALUE, -Float.MAX_VALUE};
+            updateMinMax(values, minMax);
+            calculator.minimum = minMax[0];
+            calculator.maximum = minMax[1];
+        }
+        PartialHistograms binnedHistogram = new PartialHistograms(numberOfBins);
+        binnedHistogram.countBinnedValues(values, calculator.minimum, calculator.maximum);
+        calculator.histogram = binnedHistogram.merge();
+        return calculator;
+    }
+
+    private static int toBin(float value, float minimum, float maximum, int numberOfBins) {
+        if (value < minimum || value > maximum) {
+            return -1;
+        }
+        if (maximum == minimum) {
+            return 0;
+        }
+        return (int) ((value - minimum) * (numberOfBins - 1) / (maximum - minimum));
+    }
+
+    private static void updateMinMax(float[] values, float[] minMax) {
+        int numberOfThreads = Runtime.getRuntime().availableProcessors();
+        float[][] partialMinMax = new float[numberOfThreads][];
+        IntStream.range(0, numberOfThreads).parallel().forEach(thread -> {
+            float min = minMax[0];
+            float max = minMax[1];
+            int chunkSize = (values.length + numberOfThreads - 1) / numberOfThreads;
+            int to = Math.min(values.length, (thread + 1) * chunkSize);
+            for (int i = thread * chunkSize; i < to; i++) {
+                float value = values[i];
+                if (value < min) {
+                    min = value;
+                }
+                if (value > max) {
+                    max = value;
+                }
+            }
+            partialMinMax[thread] = new float[]{min, max};
+        });
+        for (float[] partial : partialMinMax) {
+            minMax[0] = Math.min(minMax[0], partial[0]);
+            minMax[1] = Math.max(minMax[1], partial[1]);
+        }
+    }
+
+    /**
+     * One private histogram per thread; they are allocated once and merged after all slabs were counted.
+     */
+    private static class PartialHistograms {
+        private final int numberOfThreads = Runtime.getRuntime().availableProcessors();
+        private final long[][] histograms;
+
+        PartialHistograms(int numberOfBins) {
+            histograms = new long[numberOfThreads][numberOfBins];
+        }
+
+        void countBinnedValues(float[] values, float minimum, float maximum) {
+            IntStream.range(0, numberOfThreads).parallel().forEach(thread -> {
+                long[] histogram = histograms[thread];
+                int numberOfBins = histogram.length;
+                int chunkSize = (values.length + numberOfThreads - 1) / numberOfThreads;
+                int to = Math.min(values.length, (thread + 1) * chunkSize);
+                for (int i = thread * chunkSize; i < to; i++) {
+                    int bin = toBin(values[i], minimum, maximum, numberOfBins);
+                    if (bin >= 0) {
+                        histogram[bin]++;
+                    }
+                }
+            });
+        }
+
+        long[] merge() {
+            long[] result = new long[histograms[0].length];
+            for (long[] histogram : histograms) {
+                for (int i = 0; i < result.length; i++) {
+                    result[i] += histogram[i];
+                }
+            }
+            return result;
+        }
+    }
+
+    public float getMinimum() {
+        return minimum;
+    }
+
+    public float getMaximum() {
+        return maximum;
+    }
+
+    public int getNumberOfBins() {
+        return numberOfBins;
+    }
+
+    public long[] getHistogram() {
+        return histogram;
+    }
+
+    public long[] getCumulativeHistogram() {
+        long[] cumulative = new long[histogram.length];
+        long sum = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            sum += histogram[i];
+            cumulative[i] = sum;
+        }
+        return cumulative;
+    }
+
+    /**
+     * Applies one of ImageJ's threshold methods to the histogram and returns the grey value at the beginning of
+     * the bin after the one it selects. As in ImageJ and CLIJ_automaticThreshold, pixels in the selected bin
+     * belong to the background; thresholding with the returned value keeps the pixels in the bins above.
+     */
+    public float getThreshold(String method) {
+        int[] intHistogram = new int[histogram.length];
+        for (int i = 0; i < histogram.length; i++) {
+            intHistogram[i] = (int) Math.min(Integer.MAX_VALUE, histogram[i]);
+        }
+        int bin = new AutoThresholder().getThreshold(method, intHistogram);
+        double step = numberOfBins > 1 ? (maximum - minimum) / (numberOfBins - 1.0) : 0;
+        return (float) (minimum + (bin + 1) * step);
+    }
+
+    /**
+     * Writes the histogram or the cumulative histogram to the given image, which is supposed to be a
+     * one-dimensional image with numberOfBins pixels.
+     */
+    public void writeTo(ClearCLBuffer destination, boolean cumulative) {
+        long[] counts = cumulative ? getCumulativeHistogram() : histogram;
+        float[] values = new float[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            values[i] = counts[i];
+        }
+        SlabStreamer.write(destination, values);
+    }
+
+    /**
+     * Appends one row per bin to the given table: the grey value at the beginning of the bin in the column
+     * 'Grey value' and the histogram or the cumulative histogram in the column 'Number of pixels'. All rows are
+     * added first; then both columns are filled by column index, instead of looking them up by name per bin.
+     */
+    public void appendTo(ResultsTable table, boolean cumulative) {
+        long[] counts = cumulative ? getCumulativeHistogram() : histogram;
+        double[] numbersOfPixels = new double[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            numbersOfPixels[i] = counts[i];
+        }
+
+        int offset = table.size();
+        for (int i = 0; i < numberOfBins; i++) {
+            table.incrementCounter();
+        }
+        setColumn(table, "Grey value", offset, getBinStarts());
+        setColumn(table, "Number of pixels", offset, numbersOfPixels);
+    }
+
+    private static void setColumn(ResultsTable table, String heading, int offset, double[] values) {
+        int column = table.getColumnIndex(heading);
+        if (column == ResultsTable.COLUMN_NOT_FOUND) {
+            column = table.getFreeColumn(heading);
+        }
+        for (int i = 0; i < values.length; i++) {
+            table.setValue(column, offset + i, values[i]);
+        }
+    }
+
+    /**
+     * Returns the grey value at the beginning of every bin.
+     */
+    public double[] getBinStarts() {
+        double[] binStarts = new double[numberOfBins];
+        double step = numberOfBins > 1 ? (maximum - minimum) / (numberOfBins - 1.0) : 0;
+        for (int i = 0; i < numberOfBins; i++) {
+            binStarts[i] = minimum + i * step;
+        }
+        return binStarts;
+    }
+}
@@ -0,0 +1,256 @@
+package net.haesleinhuepf.clij.utilities;
+
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+
+import java.util.ArrayList;
+import java.util.stream.IntStream;
+
+/**
+ * ImagePyramid holds downsampled versions of an image by the factors 2, 4, 8, ... Every level is computed from
+ * the previous one. X and Y are always downsampled; Z is downsampled as long as the previous level has more than
+ * one slice. Sizes are rounded up, so that no pixel at the border is dropped.
+ * <p>
+ * With anti-aliasing, a pixel of a level is the mean of the up to 2 x 2 x 2 pixels it covers in the previous
+ * level. Without, it is the first of these pixels, as downsampling by 0.5 does.
+ * <p>
+ * All levels are determined in a single pass over the source: Z-slices are handed over one by one, and every
+ * level forwards a slice to the next level as soon as it has reduced two slices of its parent.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public class ImagePyramid {
+
+    public static class Level {
+        private final int factor;
+        private final long[] dimensions;
+        private final float[] data;
+
+        Level(int factor, long[] dimensions) {
+            this.factor = factor;
+            this.dimensions = dimensions;
+            long numberOfPixels = dimensions[0] * dimensions[1] * dimensions[2];
+            if (numberOfPixels > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("The pyramid level downsampled by " + factor + " has " + numberOfPixels + " pixels; levels with more than " + Integer.MAX_VALUE + " pixels can't be held in memory.");
+            }
+            this.data = new float[(int) numberOfPixels];
+        }
+
+        /**
+         * Returns by which factor this level is downsampled in X and Y.
+         */
+        public int getFactor() {
+            return factor;
+        }
+
+        public long[] getDimensions() {
+            return dimensions;
+        }
+
+        public float[] getData() {
+            return data;
+        }
+    }
+
+    /**
+     * Beyond this, downsampling factors don't fit in an int anymore.
+     */
+    public static final int MAXIMUM_NUMBER_OF_LEVELS = 30;
+
+    private final ArrayList<Level> levels = new ArrayList<Level>();
+    private final ArrayList<LevelBuilder> builders = new ArrayList<LevelBuilder>();
+
+    ImagePyramid(long width, long height, long depth, int numberOfLevels, boolean antiAliasing) {
+        if (width * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Pyramids can only be determined from images with at most " + Integer.MAX_VALUE + " pixels per slice.");
+        }
+        if (numberOfLevels > MAXIMUM_NUMBER_OF_LEVELS) {
+            throw new IllegalArgumentException("Pyramids can have at most " + MAXIMUM_NUMBER_OF_LEVELS + " levels.");
+        }
+        long[] parentDimensions = {width, height, depth};
+        for (int i = 0; i < numberOfLevels; i++) {
+            long[] dimensions = {
+                    (parentDimensions[0] + 1) / 2,
+                    (parentDimensions[1] + 1) / 2,
+                    parentDimensions[2] > 1 ? (parentDimensions[2] + 1) / 2 : 1
+            };
+            Level level = new Level(2 << i, dimensions);
+            levels.add(level);
+            builders.add(new LevelBuilder(level, parentDimensions, antiAliasing));
+            parentDimensions = dimensions;
+        }
+    }
+
+    /**
+     * Determines the pyramid of an image in host memory, organized as width x height x depth.
+     */
+    public static ImagePyramid of(float[] source, long width, long height, long depth, int numberOfLevels, boolean antiAliasing) {
+        ImagePyramid pyramid = new ImagePyramid(width, height, depth, numberOfLevels, antiAliasing);
+        int planeSize = (int) (width * height);
+        for (int z = 0; z < depth; z++) {
+            float[] plane = new float[planeSize];
+            System.arraycopy(source, z * planeSize, plane, 0, planeSize);
+            pyramid.acceptPlane(plane);
+        }
+        pyramid.finish();
+        return pyramid;
+    }
+
+    /**
+     * Determines the pyramid of an image in GPU memory, which is read slab by slab.
+     */
+    public static ImagePyramid of(CLIJ clij, ClearCLBuffer input, int numberOfLevels, boolean antiAliasing) {
+        ImagePyramid pyramid = new ImagePyramid(input.getWidth(), input.getHeight(), input.getDimension() > 2 ? input.getDepth() : 1, numberOfLevels, antiAliasing);
+        int planeSize = (int) (input.getWidth() * input.getHeight());
+        SlabStreamer.forEachSlab(clij, input, (slab, zFrom, slabDepth) -> {
+            for (int z = 0; z < slabDepth; z++) {
+                float[] plane = new float[planeSize];
+                System.arraycopy(slab, z * planeSize, plane, 0, planeSize);
+                pyramid.acceptPlane(plane);
+            }
+        });
+        pyramid.finish();
+        return pyramid;
+    }
+
+    void acceptPlane(float[] plane) {
+        if (!builders.isEmpty()) {
+            builders.get(0).accept(plane, 0);
+        }
+    }
+
+    void finish() {
+        if (!builders.isEmpty()) {
+            builders.get(0).finish(0);
+        }
+    }
+
+    /**
+     * Reduces pairs of Z-slices of the parent level into slices of its level.
+     */
+    private class LevelBuilder {
+        private final Level level;
+        private final long[] parentDimensions;
+        private final boolean antiAliasing;
+        private float[] pendingPlane = null;
+        private int z = 0;
+
+        LevelBuilder(Level level, long[] parentDimensions, boolean antiAliasing) {
+            this.level = level;
+            this.parentDimensions = parentDimensions;
+            this.antiAliasing = antiAliasing;
+        }
+
+        void accept(float[] plane, int index) {
+            if (level.dimensions[2] < parentDimensions[2] && pendingPlane == null) {
+                pendingPlane = plane;
+                return;
+            }
+            reduce(pendingPlane != null ? pendingPlane : plane, pendingPlane != null ? plane : null, index);
+            pendingPlane = null;
+        }
+
+        void finish(int index) {
+            if (pendingPlane != null) {
+                reduce(pendingPlane, null, index);
+                pendingPlane = null;
+            }
+            if (index + 1 < builders.size()) {
+                builders.get(index + 1).finish(index + 1);
+            }
+        }
+
+        private void reduce(float[] first, float[] second, int index) {
+            final int parentWidth = (int) parentDimensions[0];
+            final int parentHeight = (int) parentDimensions[1];
+            final int width = (int) level.dimensions[0];
+            final int height = (int) level.dimensions[1];
+            final float[] plane = new float[width * height];
+
+            IntStream.range(0, height).parallel().forEach(y -> {
+                for (int x = 0; x < width; x++) {
+                    int parentIndex = 2 * y * parentWidth + 2 * x;
+                    if (!antiAliasing) {
+                        plane[y * width + x] = first[parentIndex];
+                        continue;
+                    }
+                    boolean hasRight = 2 * x + 1 < parentWidth;
+                    boolean hasBelow = 2 * y + 1 < parentHeight;
+                    float sum = 0;
+                    int count = 0;
+                    for (float[] parent : new float[][]{first, second}) {
+                        if (parent == null) {
+                            continue;
+                        }
+                        sum += parent[parentIndex];
+                        count++;
+                        if (hasRight) {
+                            sum += parent[parentIndex + 1];
+                            count++;
+                        }
+                        if (hasBelow) {
+                            sum += parent[parentIndex + parentWidth];
+                            count++;
+                            if (hasRight) {
+                                sum += parent[parentIndex + parentWidth + 1];
+                                count++;
+                            }
+                        }
+                    }
+                    plane[y * width + x] = sum / count;
+                }
+            });
+
+            System.arraycopy(plane, 0, level.data, z * plane.length, plane.length);
+            z++;
+            if (index + 1 < builders.size()) {
+                builders.get(index + 1).accept(plane, index + 1);
+            }
+        }
+    }
+
+    public int getNumberOfLevels() {
+        return levels.size();
+    }
+
+    /**
+     * Returns the level downsampled by 2^(index + 1).
+     */
+    public Level getLevel(int index) {
+        return levels.get(index);
+    }
+
+    /**
+     * Returns the coarsest level which still has at least the resolution needed for displaying the image at the
+     * given zoom, e.g. the level downsampled by 4 for a zoom of 0.2. Returns null if the full resolution image
+     * is needed, which is the case for zooms above 0.5.
+     */
+    public Level getLevelForZoom(double zoom) {
+        int factor = getFactorForZoom(zoom, levels.size());
+        if (factor == 1) {
+            return null;
+        }
+        return levels.get(Integer.numberOfTrailingZeros(factor) - 1);
+    }
+
+    /**
+     * Returns the downsampling factor of the level getLevelForZoom selects in a pyramid with the given number of
+     * levels, or 1 if the full resolution image is needed.
+     */
+    public static int getFactorForZoom(double zoom, int numberOfLevels) {
+        int factor = 1;
+        for (int i = 0; i < Math.min(numberOfLevels, MAXIMUM_NUMBER_OF_LEVELS) && (2 << i) * zoom <= 1.0; i++) {
+            factor = 2 << i;
+        }
+        return factor;
+    }
+
+    public long getSizeInBytes() {
+        long size = 0;
+        for (Level level : levels) {
+            size += level.data.length * 4L;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,358 @@
+package net.haesleinhuepf.clij.utilities;
+
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.coremem.enums.NativeTypeEnum;
+import net.haesleinhuepf.clij.kernels.Kernels;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.type.numeric.integer.ByteType;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.type.numeric.integer.ShortType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.integer.UnsignedIntType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.numeric.real.FloatType;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * ImgLib2Transfer copies ArrayImgs and PlanarImgs of primitive types from and to GPU memory by copying their
+ * backing arrays in bulk, instead of iterating pixel by pixel with cursors. Planar images are copied plane by
+ * plane. Other images are not supported; the methods return null or false for them, so that callers can fall
+ * back to CLIJ.convert.
+ * <p>
+ * Images up to SlabStreamer.maximumSlabSizeInBytes are transferred at once. Larger stacks are transferred plane
+ * by plane through staging memory, which is reused for planes up to that size, so that host memory is not
+ * doubled and images larger than 2 GB can be transferred as long as a single plane is smaller than that.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public class ImgLib2Transfer {
+
+    /**
+     * Returns the pixel type of the image in GPU memory or null if the image is not supported.
+     */
+    public static NativeTypeEnum getNativeType(RandomAccessibleInterval image) {
+        if (image.numDimensions() < 2 || image.numDimensions() > 3) {
+            return null;
+        }
+        Object type;
+        if (image instanceof ArrayImg) {
+            type = ((ArrayImg) image).firstElement();
+        } else if (image instanceof PlanarImg) {
+            type = ((PlanarImg) image).firstElement();
+        } else {
+            return null;
+        }
+        return toNativeType(type);
+    }
+
+    /**
+     * Returns the pixel type in GPU memory corresponding to the given ImgLib2 type or null if there is none.
+     */
+    public static NativeTypeEnum toNativeType(Object type) {
+        if (type instanceof UnsignedByteType) {
+            return NativeTypeEnum.UnsignedByte;
+        } else if (type instanceof ByteType) {
+            return NativeTypeEnum.Byte;
+        } else if (type instanceof UnsignedShortType) {
+            return NativeTypeEnum.UnsignedShort;
+        } else if (type instanceof ShortType) {
+            return NativeTypeEnum.Short;
+        } else if (type instanceof UnsignedIntType) {
+            return NativeTypeEnum.UnsignedInt;
+        } else if (type instanceof IntType) {
+            return NativeTypeEnum.Int;
+        } else if (type instanceof FloatType) {
+            return NativeTypeEnum.Float;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the backing arrays of the image: a single one for ArrayImgs, one per plane for PlanarImgs.
+     */
+    private static Object[] getArrays(RandomAccessibleInterval image) {
+        if (image instanceof ArrayImg) {
+            return new Object[]{((ArrayDataAccess) ((ArrayImg) image).update(null)).getCurrentStorageArray()};
+        }
+        PlanarImg planarImg = (PlanarImg) image;
+        Object[] arrays = new Object[planarImg.numSlices()];
+        for (int i = 0; i < arrays.length; i++) {
+            arrays[i] = ((ArrayDataAccess) planarImg.getPlane(i)).getCurrentStorageArray();
+        }
+        return arrays;
+    }
+
+    private static long[] getDimensions(RandomAccessibleInterval image) {
+        long[] dimensions = new long[image.numDimensions()];
+        image.dimensions(dimensions);
+        return dimensions;
+    }
+
+    /**
+     * Returns whether an image of the given size can be transferred: a single plane must fit into a direct
+     * buffer.
+     */
+    public static boolean isTransferable(long[] dimensions, NativeTypeEnum type) {
+        return dimensions[0] * dimensions[1] * type.getSizeInBytes() <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * Copies the image to a new buffer in GPU memory, or returns null if the image is not supported.
+     */
+    public static ClearCLBuffer push(CLIJ clij, RandomAccessibleInterval image) {
+        NativeTypeEnum type = getNativeType(image);
+        if (type == null || !isTransferable(getDimensions(image), type)) {
+            return null;
+        }
+        return push(clij, getArrays(image), getDimensions(image), type);
+    }
+
+    /**
+     * Copies primitive arrays, e.g. the slices of an ImageStack, one after the other into a new buffer in GPU
+     * memory. The arrays are copied in parallel.
+     */
+    public static ClearCLBuffer push(CLIJ clij, Object[] arrays, long[] dimensions, NativeTypeEnum type) {
+        ClearCLBuffer buffer = clij.createCLBuffer(dimensions, type);
+        write(clij, buffer, arrays);
+        return buffer;
+    }
+
+    /**
+     * Copies primitive arrays, which have together as many elements as the buffer, one after the other into an
+     * existing buffer in GPU memory.
+     */
+    public static void write(CLIJ clij, ClearCLBuffer buffer, Object[] arrays) {
+        if (buffer.getSizeInBytes() <= SlabStreamer.maximumSlabSizeInBytes || buffer.getDimension() < 3) {
+            ByteBuffer bytes = SlabStreamer.staging(buffer.getSizeInBytes());
+            copyAll(arrays, bytes, true);
+            buffer.writeFrom(bytes, true);
+            return;
+        }
+        ClearCLBuffer plane = clij.createCLBuffer(new long[]{buffer.getWidth(), buffer.getHeight()}, buffer.getNativeType());
+        try {
+            long[] offsets = getOffsets(arrays);
+            int planeSize = (int) (buffer.getWidth() * buffer.getHeight());
+            ByteBuffer bytes = SlabStreamer.staging(plane.getSizeInBytes());
+            for (int z = 0; z < buffer.getDepth(); z++) {
+                copyRange(arrays, offsets, (long) z * planeSize, planeSize, bytes, true);
+                plane.writeFrom(bytes, true);
+                Kernels.copySlice(clij, plane, buffer, z);
+            }
+        } finally {
+            plane.close();
+        }
+    }
+
+    /**
+     * Copies the buffer into primitive arrays, e.g. the slices of an ImageStack, which have together as many
+     * elements as the buffer. The arrays are filled in parallel.
+     */
+    public static void pull(ClearCLBuffer buffer, Object[] arrays) {
+        if (buffer.getSizeInBytes() <= SlabStreamer.maximumSlabSizeInBytes || buffer.getDimension() < 3) {
+            ByteBuffer bytes = SlabStreamer.staging(buffer.getSizeInBytes());
+            buffer.readTo(bytes, true);
+            copyAll(arrays, bytes, false);
+            return;
+        }
+        CLIJ clij = CLIJ.getInstance();
+        ClearCLBuffer plane = clij.createCLBuffer(new long[]{buffer.getWidth(), buffer.getHeight()}, buffer.getNativeType());
+        try {
+            long[] offsets = getOffsets(arrays);
+            int planeSize = (int) (buffer.getWidth() * buffer.getHeight());
+            ByteBuffer bytes = SlabStreamer.staging(plane.getSizeInBytes());
+            for (int z = 0; z < buffer.getDepth(); z++) {
+                Kernels.copySlice(clij, buffer, plane, z);
+                plane.readTo(bytes, true);
+                copyRange(arrays, offsets, (long) z * planeSize, planeSize, bytes, false);
+            }
+        } finally {
+            plane.close();
+        }
+    }
+
+    private static long[] getOffsets(Object[] arrays) {
+        long[] offsets = new long[arrays.length];
+        for (int i = 1; i < arrays.length; i++) {
+            offsets[i] = offsets[i - 1] + Array.getLength(arrays[i - 1]);
+        }
+        return offsets;
+    }
+
+    /**
+     * Copies the elements from to from + length of the arrays, which lie one after the other starting at the
+     * given offsets, to (or from) the given bytes.
+     */
+    static void copyRange(Object[] arrays, long[] offsets, long from, int length, ByteBuffer bytes, boolean toBytes) {
+        for (int i = 0; i < arrays.length; i++) {
+            long start = Math.max(from, offsets[i]);
+            long end = Math.min(from + length, offsets[i] + Array.getLength(arrays[i]));
+            if (start < end) {
+                copy(arrays[i], (int) (start - offsets[i]), bytes, start - from, (int) (end - start), toBytes);
+            }
+        }
+    }
+
+    /**
+     * Copies the arrays one after the other to (or from) the given bytes, in parallel.
+     */
+    static void copyAll(Object[] arrays, ByteBuffer bytes, boolean toBytes) {
+        long[] offsets = getOffsets(arrays);
+        IntStream.range(0, arrays.length).parallel().forEach(i -> copy(arrays[i], bytes, offsets[i], toBytes));
+    }
+
+    /**
+     * Copies the buffer into a pre-allocated image of the same size and type. Returns false if the image is not
+     * supported or does not match the buffer.
+     */
+    public static boolean pull(ClearCLBuffer buffer, RandomAccessibleInterval target) {
+        NativeTypeEnum type = getNativeType(target);
+        if (type != buffer.getNativeType() || !Arrays.equals(getDimensions(target), buffer.getDimensions())
+                || !isTransferable(buffer.getDimensions(), type)) {
+            return false;
+        }
+        pull(buffer, getArrays(target));
+        return true;
+    }
+
+    /**
+     * Copies the buffer into a new ArrayImg, or returns null if its pixel type is not supported or it has too
+     * many pixels for an ArrayImg.
+     */
+    public static RandomAccessibleInterval pull(ClearCLBuffer buffer) {
+        RandomAccessibleInterval result = createArrayImg(buffer.getDimensions(), buffer.getNativeType());
+        if (result != null) {
+            pull(buffer, result);
+        }
+        return result;
+    }
+
+    /**
+     * Creates an ArrayImg of the given size and pixel type, or returns null if the pixel type is not supported
+     * or an ArrayImg can't hold that many pixels.
+     */
+    public static RandomAccessibleInterval createArrayImg(long[] dimensions, NativeTypeEnum type) {
+        long numberOfPixels = 1;
+        for (long dimension : dimensions) {
+            numberOfPixels *= dimension;
+        }
+        if (numberOfPixels > Integer.MAX_VALUE) {
+            return null;
+        }
+        int length = (int) numberOfPixels;
+        RandomAccessibleInterval result;
+        switch (type) {
+            case UnsignedByte:
+                result = ArrayImgs.unsignedBytes(new byte[length], dimensions);
+                break;
+            case Byte:
+                result = ArrayImgs.bytes(new byte[length], dimensions);
+                break;
+            case UnsignedShort:
+                result = ArrayImgs.unsignedShorts(new short[length], dimensions);
+                break;
+            case Short:
+                result = ArrayImgs.shorts(new short[length], dimensions);
+                break;
+            case UnsignedInt:
+                result = ArrayImgs.unsignedInts(new int[length], dimensions);
+                break;
+            case Int:
+                result = ArrayImgs.ints(new int[length], dimensions);
+                break;
+            case Float:
+                result = ArrayImgs.floats(new float[length], dimensions);
+                break;
+            default:
+                return null;
+        }
+        return result;
+    }
+
+    /**
+     * Creates a primitive array which can hold the given number of pixels of the given type, or returns null if
+     * the pixel type is not supported.
+     */
+    public static Object createArray(NativeTypeEnum type, int length) {
+        switch (type) {
+            case UnsignedByte:
+            case Byte:
+                return new byte[length];
+            case UnsignedShort:
+            case Short:
+                return new short[length];
+            case UnsignedInt:
+            case Int:
+                return new int[length];
+            case Float:
+                return new float[length];
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Copies a primitive array to (or from) the given bytes, starting at the given element offset. Returns the
+     * number of copied elements.
+     */
+    public static int copy(Object array, ByteBuffer bytes, long offset, boolean toBytes) {
+        int length = Array.getLength(array);
+        copy(array, 0, bytes, offset, length, toBytes);
+        return length;
+    }
+
+    /**
+     * Copies length elements of a primitive array, starting at arrayOffset, to (or from) the given bytes,
+     * starting at the given element offset.
+     */
+    static void copy(Object array, int arrayOffset, ByteBuffer bytes, long offset, int length, boolean toBytes) {
+        ByteBuffer view = bytes.duplicate().order(bytes.order());
+        view.clear();
+        if (array instanceof byte[]) {
+            view.position((int) offset);
+            if (toBytes) {
+                view.put((byte[]) array, arrayOffset, length);
+            } else {
+                view.get((byte[]) array, arrayOffset, length);
+            }
+        } else if (array instanceof short[]) {
+            ShortBuffer elements = view.asShortBuffer();
+            elements.position((int) offset);
+            if (toBytes) {
+                elements.put((short[]) array, arrayOffset, length);
+            } else {
+                elements.get((short[]) array, arrayOffset, length);
+            }
+        } else if (array instanceof int[]) {
+            IntBuffer elements = view.asIntBuffer();
+            elements.position((int) offset);
+            if (toBytes) {
+                elements.put((int[]) array, arrayOffset, length);
+            } else {
+                elements.get((int[]) array, arrayOffset, length);
+            }
+        } else if (array instanceof float[]) {
+            FloatBuffer elements = view.asFloatBuffer();
+            elements.position((int) offset);
+            if (toBytes) {
+                elements.put((float[]) array, arrayOffset, length);
+            } else {
+                elements.get((float[]) array, arrayOffset, length);
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported array type: " + array.getClass());
+        }
+    }
+}
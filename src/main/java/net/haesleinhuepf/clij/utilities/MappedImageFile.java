@@ -0,0 +1,327 @@
+package net.haesleinhuepf.clij.utilities;
+
+import ij.io.FileInfo;
+import ij.io.TiffDecoder;
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.coremem.enums.NativeTypeEnum;
+import net.haesleinhuepf.clij.kernels.Kernels;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * MappedImageFile gives access to the pixels of an uncompressed TIFF stack or a raw file without decoding it into
+ * an ImagePlus: the file is memory mapped and slices are handed over to GPU memory straight from the mapped pages.
+ * Only if the byte order of the file differs from the native one, a slice is swapped in a direct staging buffer.
+ * <p>
+ * Images in GPU memory are written to files slice by slice through a direct staging buffer, as raw data or as a
+ * minimal TIFF file which ImageJ can open.
+ * <p>
+ * Note that mapped file content is released only when the garbage collector frees the buffers returned by
+ * mapSlice or used by push. Until then, the file can't be overwritten or deleted on Windows.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public class MappedImageFile {
+
+    private static final int TIFF_HEADER_SIZE = 8;
+    private static final int TIFF_NUMBER_OF_TAGS = 10;
+    private static final int TIFF_IFD_SIZE = 2 + TIFF_NUMBER_OF_TAGS * 12 + 4;
+
+    private final File file;
+    private final long width;
+    private final long height;
+    private final long depth;
+    private final NativeTypeEnum type;
+    private final ByteOrder byteOrder;
+    private final long[] sliceOffsets;
+
+    MappedImageFile(File file, long width, long height, long depth, NativeTypeEnum type, ByteOrder byteOrder, long[] sliceOffsets) {
+        this.file = file;
+        this.width = width;
+        this.height = height;
+        this.depth = depth;
+        this.type = type;
+        this.byteOrder = byteOrder;
+        this.sliceOffsets = sliceOffsets;
+    }
+
+    /**
+     * Reads the layout of an uncompressed grey value TIFF file.
+     */
+    public static MappedImageFile openTiff(File file) throws IOException {
+        FileInfo[] info = new TiffDecoder(file.getParent() == null ? "" : file.getParent() + File.separator, file.getName()).getTiffInfo();
+        if (info == null || info.length == 0) {
+            throw new IOException("Not a TIFF file: " + file);
+        }
+        FileInfo first = info[0];
+        if (first.compression != FileInfo.COMPRESSION_NONE) {
+            throw new IllegalArgumentException("Only uncompressed TIFF files can be mapped, but " + file + " is compressed.");
+        }
+
+        long[] sliceOffsets;
+        if (info.length == 1) {
+            // ImageJ stacks: all slices are stored one after another
+            long sliceSize = (long) first.width * first.height * first.getBytesPerPixel();
+            sliceOffsets = new long[Math.max(1, first.nImages)];
+            for (int z = 0; z < sliceOffsets.length; z++) {
+                sliceOffsets[z] = first.getOffset() + z * (sliceSize + first.gapBetweenImages);
+            }
+        } else {
+            sliceOffsets = new long[info.length];
+            for (int z = 0; z < info.length; z++) {
+                if (info[z].width != first.width || info[z].height != first.height || info[z].fileType != first.fileType || info[z].compression != FileInfo.COMPRESSION_NONE) {
+                    throw new IllegalArgumentException("All pages of " + file + " must be uncompressed and of the same size and type.");
+                }
+                sliceOffsets[z] = info[z].getOffset();
+            }
+        }
+        return new MappedImageFile(file, first.width, first.height, sliceOffsets.length, toNativeType(first.fileType),
+                first.intelByteOrder ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN, sliceOffsets);
+    }
+
+    /**
+     * Describes a raw file holding slices one after another behind a header of the given size.
+     */
+    public static MappedImageFile openRaw(File file, long width, long height, long depth, NativeTypeEnum type, long headerSize, boolean littleEndian) {
+        long[] sliceOffsets = new long[(int) depth];
+        long sliceSize = width * height * type.getSizeInBytes();
+        for (int z = 0; z < depth; z++) {
+            sliceOffsets[z] = headerSize + z * sliceSize;
+        }
+        return new MappedImageFile(file, width, height, depth, type, littleEndian ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN, sliceOffsets);
+    }
+
+    private static NativeTypeEnum toNativeType(int fileType) {
+        switch (fileType) {
+            case FileInfo.GRAY8:
+                return NativeTypeEnum.UnsignedByte;
+            case FileInfo.GRAY16_UNSIGNED:
+                return NativeTypeEnum.UnsignedShort;
+            case FileInfo.GRAY16_SIGNED:
+                return NativeTypeEnum.Short;
+            case FileInfo.GRAY32_INT:
+                return NativeTypeEnum.Int;
+            case FileInfo.GRAY32_UNSIGNED:
+                return NativeTypeEnum.UnsignedInt;
+            case FileInfo.GRAY32_FLOAT:
+                return NativeTypeEnum.Float;
+            default:
+                throw new IllegalArgumentException("Only 8, 16 and 32 bit grey value images can be mapped.");
+        }
+    }
+
+    public long[] getDimensions() {
+        return depth > 1 ? new long[]{width, height, depth} : new long[]{width, height};
+    }
+
+    public NativeTypeEnum getNativeType() {
+        return type;
+    }
+
+    private long getSliceSizeInBytes() {
+        return width * height * type.getSizeInBytes();
+    }
+
+    private boolean isContiguous() {
+        for (int z = 1; z < depth; z++) {
+            if (sliceOffsets[z] != sliceOffsets[z - 1] + getSliceSizeInBytes()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a slice of the file in native byte order. If the byte order of the file is the native one, the
+     * returned buffer is the mapped file content; otherwise, the slice is swapped into the given direct staging
+     * buffer, which is allocated if null.
+     */
+    public ByteBuffer mapSlice(FileChannel channel, int z, ByteBuffer staging) throws IOException {
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, sliceOffsets[z], getSliceSizeInBytes());
+        return toNativeOrder(mapped, staging);
+    }
+
+    private ByteBuffer toNativeOrder(ByteBuffer mapped, ByteBuffer staging) {
+        if (byteOrder == ByteOrder.nativeOrder() || type.getSizeInBytes() == 1) {
+            return mapped.order(ByteOrder.nativeOrder());
+        }
+        if (staging == null || staging.capacity() < mapped.capacity()) {
+            staging = ByteBuffer.allocateDirect(mapped.capacity());
+        }
+        staging.clear();
+        staging.limit(mapped.capacity());
+        staging.order(ByteOrder.nativeOrder());
+        mapped.order(byteOrder);
+        if (type.getSizeInBytes() == 2) {
+            staging.asShortBuffer().put(mapped.asShortBuffer());
+        } else {
+            staging.asIntBuffer().put(mapped.asIntBuffer());
+        }
+        return staging;
+    }
+
+    /**
+     * Copies the file content into the given buffer, which must have the dimensions and type of the file.
+     */
+    public void push(CLIJ clij, ClearCLBuffer buffer) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            long totalSize = getSliceSizeInBytes() * depth;
+            if (isContiguous() && totalSize <= Integer.MAX_VALUE) {
+                // a single transfer straight from the mapped file
+                ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, sliceOffsets[0], totalSize);
+                buffer.writeFrom(toNativeOrder(mapped, null), true);
+                return;
+            }
+
+            ClearCLBuffer plane = clij.createCLBuffer(new long[]{width, height}, type);
+            try {
+                ByteBuffer staging = ByteBuffer.allocateDirect((int) getSliceSizeInBytes());
+                for (int z = 0; z < depth; z++) {
+                    plane.writeFrom(mapSlice(channel, z, staging), true);
+                    Kernels.copySlice(clij, plane, buffer, z);
+                }
+            } finally {
+                plane.close();
+            }
+        }
+    }
+
+    /**
+     * Writes the given buffer to a raw file without header, in native byte order.
+     */
+    public static void pullRaw(CLIJ clij, ClearCLBuffer buffer, File file) throws IOException {
+        write(clij, buffer, file, 0);
+    }
+
+    /**
+     * Writes the given buffer to an uncompressed TIFF file with one page per slice, in native byte order.
+     */
+    public static void pullTiff(CLIJ clij, ClearCLBuffer buffer, File file) throws IOException {
+        int depth = buffer.getDimension() > 2 ? (int) buffer.getDepth() : 1;
+        long firstIFD = getFirstIFD(buffer.getSizeInBytes());
+        if (firstIFD + (long) depth * TIFF_IFD_SIZE > 0xffffffffL) {
+            throw new IllegalArgumentException("The image is too large for a TIFF file; write it as raw file instead.");
+        }
+        write(clij, buffer, file, TIFF_HEADER_SIZE);
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            writeTiffHeader(channel, buffer.getWidth(), buffer.getHeight(), depth, buffer.getNativeType());
+        }
+    }
+
+    private static long getFirstIFD(long dataSize) {
+        // directories start at a word boundary behind the pixels
+        return TIFF_HEADER_SIZE + dataSize + (dataSize % 2);
+    }
+
+    /**
+     * Writes header and image file directories of a TIFF file whose pixels are stored behind the header, one
+     * slice after another, in native byte order.
+     */
+    static void writeTiffHeader(FileChannel channel, long width, long height, int depth, NativeTypeEnum type) throws IOException {
+        long sliceSize = width * height * type.getSizeInBytes();
+        long firstIFD = getFirstIFD(sliceSize * depth);
+
+        ByteBuffer header = ByteBuffer.allocate(TIFF_HEADER_SIZE).order(ByteOrder.nativeOrder());
+        header.put((byte) (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? 'I' : 'M'));
+        header.put((byte) (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? 'I' : 'M'));
+        header.putShort((short) 42);
+        header.putInt((int) firstIFD);
+
+        ByteBuffer directories = ByteBuffer.allocate(depth * TIFF_IFD_SIZE).order(ByteOrder.nativeOrder());
+        for (int z = 0; z < depth; z++) {
+            directories.putShort((short) TIFF_NUMBER_OF_TAGS);
+            putTag(directories, 256, 4, width);
+            putTag(directories, 257, 4, height);
+            putTag(directories, 258, 3, type.getSizeInBytes() * 8);
+            putTag(directories, 259, 3, 1);
+            putTag(directories, 262, 3, 1);
+            putTag(directories, 273, 4, TIFF_HEADER_SIZE + z * sliceSize);
+            putTag(directories, 277, 3, 1);
+            putTag(directories, 278, 4, height);
+            putTag(directories, 279, 4, sliceSize);
+            putTag(directories, 339, 3, sampleFormat(type));
+            directories.putInt(z + 1 < depth ? (int) (firstIFD + (z + 1) * TIFF_IFD_SIZE) : 0);
+        }
+        directories.flip();
+        header.flip();
+        writeFully(channel, header, 0);
+        writeFully(channel, directories, firstIFD);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer data, long position) throws IOException {
+        while (data.hasRemaining()) {
+            position += channel.write(data, position);
+        }
+    }
+
+    private static void putTag(ByteBuffer directory, int tag, int fieldType, long value) {
+        directory.putShort((short) tag);
+        directory.putShort((short) fieldType);
+        directory.putInt(1);
+        if (fieldType == 3) {
+            // short values are left-justified in the value field
+            directory.putShort((short) value);
+            directory.putShort((short) 0);
+        } else {
+            directory.putInt((int) value);
+        }
+    }
+
+    private static int sampleFormat(NativeTypeEnum type) {
+        switch (type) {
+            case Float:
+                return 3;
+            case Byte:
+            case Short:
+            case Int:
+                return 2;
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * Writes the pixels of the buffer to the file behind the given number of bytes. Slices are written through
+     * the channel from a direct staging buffer; the file is not mapped, so that it can be overwritten right away.
+     */
+    private static void write(CLIJ clij, ClearCLBuffer buffer, File file, long offset) throws IOException {
+        long sliceSize = buffer.getWidth() * buffer.getHeight() * buffer.getNativeType().getSizeInBytes();
+        if (sliceSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Slices larger than 2 GB can't be written.");
+        }
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            randomAccessFile.setLength(offset + buffer.getSizeInBytes());
+            ByteBuffer staging = ByteBuffer.allocateDirect((int) sliceSize).order(ByteOrder.nativeOrder());
+            if (buffer.getDimension() < 3) {
+                buffer.readTo(staging, true);
+                staging.rewind();
+                writeFully(channel, staging, offset);
+                return;
+            }
+
+            ClearCLBuffer plane = clij.createCLBuffer(new long[]{buffer.getWidth(), buffer.getHeight()}, buffer.getNativeType());
+            try {
+                for (int z = 0; z < buffer.getDepth(); z++) {
+                    Kernels.copySlice(clij, buffer, plane, z);
+                    staging.clear();
+                    plane.readTo(staging, true);
+                    staging.rewind();
+                    writeFully(channel, staging, offset + z * sliceSize);
+                }
+            } finally {
+                plane.close();
+            }
+        }
+    }
+}
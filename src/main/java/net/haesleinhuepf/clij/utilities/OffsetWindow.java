@@ -0,0 +1,97 @@
+package net.haesleinhuepf.clij.utilities;
+
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.coremem.enums.NativeTypeEnum;
+import net.haesleinhuepf.clij.kernels.Kernels;
+
+import java.nio.ByteBuffer;
+import java.util.stream.IntStream;
+
+/**
+ * OffsetWindow is a box within an image in host memory, which is given as one primitive array per slice, e.g. the
+ * slices of an ImageStack. It crops on the host as Crop2D and Crop3D do in GPU memory, and selecting slices
+ * replaces CopySlice: creating a window copies no pixels, it only keeps the slice arrays of its parent together
+ * with the offset and size of the box. Pushing the window copies the rows of the box straight from the slice
+ * arrays through staging memory into GPU memory, so that regions of a large stack are not duplicated in host
+ * memory before they are pushed.
+ * <p>
+ * The window reads its parent when it is pushed; the image in GPU memory does not change when the parent is
+ * modified afterwards.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public class OffsetWindow {
+    private final Object[] slices;
+    private final int parentWidth;
+    private final int[] offset;
+    private final int[] size;
+
+    /**
+     * @param slices the slices of the parent image, parentWidth x parentHeight pixels each
+     * @param offset X, Y and Z of the first pixel of the window in the parent
+     * @param size width, height and depth of the window
+     */
+    public OffsetWindow(Object[] slices, int parentWidth, int parentHeight, int[] offset, int[] size) {
+        int[] parentSize = {parentWidth, parentHeight, slices.length};
+        for (int d = 0; d < 3; d++) {
+            if (offset[d] < 0 || size[d] < 1 || offset[d] + size[d] > parentSize[d]) {
+                throw new IllegalArgumentException("The window at (" + offset[0] + ", " + offset[1] + ", " + offset[2] + ") of size " +
+                        size[0] + "x" + size[1] + "x" + size[2] + " does not fit into the image of size " +
+                        parentSize[0] + "x" + parentSize[1] + "x" + parentSize[2] + ".");
+            }
+        }
+        this.slices = slices;
+        this.parentWidth = parentWidth;
+        this.offset = offset.clone();
+        this.size = size.clone();
+    }
+
+    /**
+     * Returns the dimensions of the window; windows with a single slice are two-dimensional.
+     */
+    public long[] getDimensions() {
+        return size[2] > 1 ? new long[]{size[0], size[1], size[2]} : new long[]{size[0], size[1]};
+    }
+
+    /**
+     * Copies the window to a new buffer in GPU memory. The type must correspond to the slice arrays. Windows up
+     * to SlabStreamer.maximumSlabSizeInBytes are transferred at once, larger ones plane by plane.
+     */
+    public ClearCLBuffer push(CLIJ clij, NativeTypeEnum type) {
+        ClearCLBuffer buffer = clij.createCLBuffer(getDimensions(), type);
+        if (buffer.getSizeInBytes() <= SlabStreamer.maximumSlabSizeInBytes || size[2] == 1) {
+            ByteBuffer bytes = SlabStreamer.staging(buffer.getSizeInBytes());
+            copyRows(0, size[2], bytes);
+            buffer.writeFrom(bytes, true);
+            return buffer;
+        }
+        ClearCLBuffer plane = clij.createCLBuffer(new long[]{size[0], size[1]}, type);
+        try {
+            ByteBuffer bytes = SlabStreamer.staging(plane.getSizeInBytes());
+            for (int z = 0; z < size[2]; z++) {
+                copyRows(z, 1, bytes);
+                plane.writeFrom(bytes, true);
+                Kernels.copySlice(clij, plane, buffer, z);
+            }
+        } finally {
+            plane.close();
+        }
+        return buffer;
+    }
+
+    /**
+     * Copies the rows of the given planes of the window one after the other to the given bytes, in parallel.
+     */
+    void copyRows(int zFrom, int depth, ByteBuffer bytes) {
+        final int width = size[0];
+        final int height = size[1];
+        IntStream.range(0, depth * height).parallel().forEach(row -> {
+            int z = zFrom + row / height;
+            int y = row % height;
+            int rowStart = (offset[1] + y) * parentWidth + offset[0];
+            ImgLib2Transfer.copy(slices[offset[2] + z], rowStart, bytes, (long) row * width, width, true);
+        });
+    }
+}
@@ -0,0 +1,109 @@
+package net.haesleinhuepf.clij.utilities;
+
+import java.util.stream.IntStream;
+
+/**
+ * PixelChecksum computes 64-bit checksums of primitive pixel arrays, e.g. the slices of an ImageStack, to find out
+ * cheaply whether pixels changed. Every pixel value is mixed into the checksum with the multiply-rotate rounds
+ * known from xxHash64. The checksums are not suitable for cryptographic purposes.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public class PixelChecksum {
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    private static long round(long hash, long value) {
+        hash ^= Long.rotateLeft(value * PRIME2, 31) * PRIME1;
+        return Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+    }
+
+    private static long avalanche(long hash) {
+        hash ^= hash >>> 33;
+        hash *= PRIME2;
+        hash ^= hash >>> 29;
+        hash *= PRIME3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    /**
+     * Returns the checksum of a byte[], short[], int[] or float[] array.
+     */
+    public static long checksum(Object array) {
+        long hash;
+        if (array instanceof byte[]) {
+            byte[] data = (byte[]) array;
+            hash = PRIME5 + data.length;
+            int i = 0;
+            // eight pixels per round
+            for (; i + 8 <= data.length; i += 8) {
+                long value = 0;
+                for (int b = 0; b < 8; b++) {
+                    value |= (data[i + b] & 0xFFL) << (8 * b);
+                }
+                hash = round(hash, value);
+            }
+            for (; i < data.length; i++) {
+                hash = round(hash, data[i] & 0xFF);
+            }
+        } else if (array instanceof short[]) {
+            short[] data = (short[]) array;
+            hash = PRIME5 + data.length;
+            int i = 0;
+            for (; i + 4 <= data.length; i += 4) {
+                hash = round(hash, (data[i] & 0xFFFFL) | (data[i + 1] & 0xFFFFL) << 16 | (data[i + 2] & 0xFFFFL) << 32 | (data[i + 3] & 0xFFFFL) << 48);
+            }
+            for (; i < data.length; i++) {
+                hash = round(hash, data[i] & 0xFFFF);
+            }
+        } else if (array instanceof int[]) {
+            int[] data = (int[]) array;
+            hash = PRIME5 + data.length;
+            int i = 0;
+            for (; i + 2 <= data.length; i += 2) {
+                hash = round(hash, (data[i] & 0xFFFFFFFFL) | (long) data[i + 1] << 32);
+            }
+            for (; i < data.length; i++) {
+                hash = round(hash, data[i] & 0xFFFFFFFFL);
+            }
+        } else if (array instanceof float[]) {
+            float[] data = (float[]) array;
+            hash = PRIME5 + data.length;
+            int i = 0;
+            for (; i + 2 <= data.length; i += 2) {
+                hash = round(hash, (Float.floatToRawIntBits(data[i]) & 0xFFFFFFFFL) | (long) Float.floatToRawIntBits(data[i + 1]) << 32);
+            }
+            for (; i < data.length; i++) {
+                hash = round(hash, Float.floatToRawIntBits(data[i]) & 0xFFFFFFFFL);
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported array type: " + array.getClass());
+        }
+        return avalanche(hash);
+    }
+
+    /**
+     * Returns the checksums of the given arrays, which are computed in parallel.
+     */
+    public static long[] checksums(Object[] arrays) {
+        long[] result = new long[arrays.length];
+        IntStream.range(0, arrays.length).parallel().forEach(i -> result[i] = checksum(arrays[i]));
+        return result;
+    }
+
+    /**
+     * Combines checksums, e.g. of all slices of a stack, into one, taking their order into account.
+     */
+    public static long combine(long[] checksums) {
+        long hash = PRIME5 + checksums.length;
+        for (long checksum : checksums) {
+            hash = round(hash, checksum);
+        }
+        return avalanche(hash);
+    }
+}
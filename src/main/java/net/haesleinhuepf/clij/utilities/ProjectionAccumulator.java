@@ -0,0 +1,191 @@
+package net.haesleinhuepf.clij.utilities;
+
+import java.util.EnumSet;
+
+/**
+ * ProjectionAccumulator collects several statistics (maximum, minimum, mean, ...) per output pixel while
+ * pixel values are streamed through it. Every value is read once, no matter how many statistics are requested.
+ * <p>
+ * Accumulation of distinct output pixels is independent. Thus, threads may accumulate in parallel as long as
+ * they work on disjoint ranges of output pixels.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public class ProjectionAccumulator {
+
+    public enum Statistic {
+        MAX, MIN, MEAN, SUM, STD, ARGMAX, ARGMIN;
+
+        public static Statistic fromString(String name) {
+            String cleaned = name.trim().toLowerCase().replace("_", "").replace("imum", "");
+            switch (cleaned) {
+                case "max":
+                    return MAX;
+                case "min":
+                    return MIN;
+                case "mean":
+                case "average":
+                    return MEAN;
+                case "sum":
+                    return SUM;
+                case "std":
+                case "stddev":
+                case "standarddeviation":
+                    return STD;
+                case "argmax":
+                    return ARGMAX;
+                case "argmin":
+                    return ARGMIN;
+            }
+            throw new IllegalArgumentException("Unknown statistic: " + name + ". Supported: max, min, mean, sum, std, argmax, argmin");
+        }
+    }
+
+    private final int numberOfPixels;
+    private final EnumSet<Statistic> statistics;
+
+    private final boolean collectMax;
+    private final boolean collectMin;
+    private final boolean collectSum;
+    private final boolean collectSumOfSquares;
+
+    private float[] max;
+    private float[] min;
+    private float[] argMax;
+    private float[] argMin;
+    private double[] sum;
+    private double[] sumOfSquares;
+    private int[] count;
+
+    public ProjectionAccumulator(int numberOfPixels, EnumSet<Statistic> statistics) {
+        this.numberOfPixels = numberOfPixels;
+        this.statistics = statistics;
+
+        collectMax = statistics.contains(Statistic.MAX) || statistics.contains(Statistic.ARGMAX);
+        collectMin = statistics.contains(Statistic.MIN) || statistics.contains(Statistic.ARGMIN);
+        collectSumOfSquares = statistics.contains(Statistic.STD);
+        collectSum = collectSumOfSquares || statistics.contains(Statistic.SUM) || statistics.contains(Statistic.MEAN);
+
+        if (collectMax) {
+            max = new float[numberOfPixels];
+            argMax = new float[numberOfPixels];
+        }
+        if (collectMin) {
+            min = new float[numberOfPixels];
+            argMin = new float[numberOfPixels];
+        }
+        if (collectSum) {
+            sum = new double[numberOfPixels];
+        }
+        if (collectSumOfSquares) {
+            sumOfSquares = new double[numberOfPixels];
+        }
+        count = new int[numberOfPixels];
+    }
+
+    public int getNumberOfPixels() {
+        return numberOfPixels;
+    }
+
+    public EnumSet<Statistic> getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Adds a value to the statistics of the given output pixel. The position is the index of the value along the
+     * projected axis; it is stored as result of ARGMAX and ARGMIN.
+     */
+    public void accumulate(int index, float value, int position) {
+        if (count[index] == 0) {
+            if (collectMax) {
+                max[index] = value;
+                argMax[index] = position;
+            }
+            if (collectMin) {
+                min[index] = value;
+                argMin[index] = position;
+            }
+        } else {
+            if (collectMax && value > max[index]) {
+                max[index] = value;
+                argMax[index] = position;
+            }
+            if (collectMin && value < min[index]) {
+                min[index] = value;
+                argMin[index] = position;
+            }
+        }
+        if (collectSum) {
+            sum[index] += value;
+        }
+        if (collectSumOfSquares) {
+            sumOfSquares[index] += (double) value * value;
+        }
+        count[index]++;
+    }
+
+    /**
+     * Adds the statistics collected by another accumulator of the same size and statistics. Positions of the
+     * other accumulator are expected to be larger than the positions accumulated here.
+     */
+    public void merge(ProjectionAccumulator other) {
+        if (other.numberOfPixels != numberOfPixels || !other.statistics.equals(statistics)) {
+            throw new IllegalArgumentException("Only accumulators of the same size and statistics can be merged.");
+        }
+        for (int i = 0; i < numberOfPixels; i++) {
+            if (other.count[i] == 0) {
+                continue;
+            }
+            boolean empty = count[i] == 0;
+            if (collectMax && (empty || other.max[i] > max[i])) {
+                max[i] = other.max[i];
+                argMax[i] = other.argMax[i];
+            }
+            if (collectMin && (empty || other.min[i] < min[i])) {
+                min[i] = other.min[i];
+                argMin[i] = other.argMin[i];
+            }
+            if (collectSum) {
+                sum[i] += other.sum[i];
+            }
+            if (collectSumOfSquares) {
+                sumOfSquares[i] += other.sumOfSquares[i];
+            }
+            count[i] += other.count[i];
+        }
+    }
+
+    public float[] getResult(Statistic statistic) {
+        if (!statistics.contains(statistic)) {
+            throw new IllegalArgumentException("Statistic " + statistic + " was not accumulated.");
+        }
+        switch (statistic) {
+            case MAX:
+                return max;
+            case MIN:
+                return min;
+            case ARGMAX:
+                return argMax;
+            case ARGMIN:
+                return argMin;
+        }
+
+        float[] result = new float[numberOfPixels];
+        for (int i = 0; i < numberOfPixels; i++) {
+            int n = count[i];
+            if (statistic == Statistic.SUM) {
+                result[i] = (float) sum[i];
+            } else if (n > 0) {
+                double mean = sum[i] / n;
+                if (statistic == Statistic.MEAN) {
+                    result[i] = (float) mean;
+                } else { // STD
+                    double variance = sumOfSquares[i] / n - mean * mean;
+                    result[i] = (float) Math.sqrt(Math.max(0, variance));
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,90 @@
+package net.haesleinhuepf.clij.utilities;
+
+import net.haesleinhuepf.clij.coremem.enums.NativeTypeEnum;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * PyramidCache keeps image pyramids in host memory by name, so that requests for pyramid levels, e.g. by a
+ * viewer changing its zoom, are served without determining the pyramid again. The least recently used pyramids
+ * are dropped as soon as the cache exceeds its maximum size.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public class PyramidCache {
+    /**
+     * The maximum size of all cached pyramids. If a single pyramid exceeds it, it is not cached.
+     */
+    public static long maximumSizeInBytes = 512L * 1024 * 1024;
+
+    public static class Entry {
+        private final ImagePyramid pyramid;
+        private final NativeTypeEnum type;
+        private final int dimension;
+
+        Entry(ImagePyramid pyramid, NativeTypeEnum type, int dimension) {
+            this.pyramid = pyramid;
+            this.type = type;
+            this.dimension = dimension;
+        }
+
+        public ImagePyramid getPyramid() {
+            return pyramid;
+        }
+
+        /**
+         * Returns the pixel type of the image the pyramid was determined from.
+         */
+        public NativeTypeEnum getType() {
+            return type;
+        }
+
+        /**
+         * Returns whether the image the pyramid was determined from was 2D or 3D.
+         */
+        public int getDimension() {
+            return dimension;
+        }
+    }
+
+    private static final LinkedHashMap<String, Entry> cache = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private static long sizeInBytes = 0;
+
+    public static synchronized void put(String name, ImagePyramid pyramid, NativeTypeEnum type, int dimension) {
+        remove(name);
+        if (pyramid.getSizeInBytes() > maximumSizeInBytes) {
+            return;
+        }
+        cache.put(name, new Entry(pyramid, type, dimension));
+        sizeInBytes += pyramid.getSizeInBytes();
+
+        Iterator<Map.Entry<String, Entry>> iterator = cache.entrySet().iterator();
+        while (sizeInBytes > maximumSizeInBytes && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            sizeInBytes -= eldest.getValue().pyramid.getSizeInBytes();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Returns the pyramid with the given name or null if it is not cached (anymore).
+     */
+    public static synchronized Entry get(String name) {
+        return cache.get(name);
+    }
+
+    public static synchronized void remove(String name) {
+        Entry entry = cache.remove(name);
+        if (entry != null) {
+            sizeInBytes -= entry.pyramid.getSizeInBytes();
+        }
+    }
+
+    public static synchronized void clear() {
+        cache.clear();
+        sizeInBytes = 0;
+    }
+}
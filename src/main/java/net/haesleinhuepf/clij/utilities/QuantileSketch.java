@@ -0,0 +1,251 @@
+package net.haesleinhuepf.clij.utilities;
+
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * QuantileSketch is a mergeable KLL quantile sketch. It summarizes an arbitrary number of values in memory
+ * proportional to the parameter k; the rank error of determined quantiles is in the order of 1/k.
+ * <p>
+ * Values are collected in a hierarchy of compactors. When a compactor is full, its sorted values are halved by
+ * promoting every second value to the next level, where each value represents twice as many input values.
+ * Instead of choosing the halves randomly, every compactor alternates between odd and even values. Hence, the
+ * sketch of a given sequence of values and merges is deterministic.
+ * <p>
+ * Minimum and maximum are tracked exactly. NaN values are ignored.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public class QuantileSketch {
+    public static final int DEFAULT_K = 200;
+
+    // images are split into chunks of fixed size independent of the number of available processors, so that
+    // the result does not depend on the machine
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final int k;
+    private final ArrayList<Compactor> compactors = new ArrayList<Compactor>();
+    private long count = 0;
+    private int size = 0;
+    private int maximumSize = 0;
+    private float minimum = Float.POSITIVE_INFINITY;
+    private float maximum = Float.NEGATIVE_INFINITY;
+
+    private static class Compactor {
+        float[] values = new float[8];
+        int size = 0;
+        boolean oddOffset = false;
+
+        void add(float value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size] = value;
+            size++;
+        }
+    }
+
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    public QuantileSketch(int k) {
+        if (k < 8) {
+            throw new IllegalArgumentException("k must be at least 8, but was " + k);
+        }
+        this.k = k;
+        addLevel();
+    }
+
+    private void addLevel() {
+        compactors.add(new Compactor());
+        maximumSize = 0;
+        for (int h = 0; h < compactors.size(); h++) {
+            maximumSize += capacity(h);
+        }
+    }
+
+    private int capacity(int level) {
+        int depth = compactors.size() - level - 1;
+        return Math.max(2, (int) Math.ceil(k * Math.pow(2.0 / 3.0, depth)));
+    }
+
+    public void update(float value) {
+        if (Float.isNaN(value)) {
+            return;
+        }
+        if (value < minimum) {
+            minimum = value;
+        }
+        if (value > maximum) {
+            maximum = value;
+        }
+        compactors.get(0).add(value);
+        count++;
+        size++;
+        if (size >= maximumSize) {
+            compress();
+        }
+    }
+
+    public void update(float[] values, int from, int to) {
+        for (int i = from; i < to; i++) {
+            update(values[i]);
+        }
+    }
+
+    private void compress() {
+        for (int h = 0; h < compactors.size(); h++) {
+            Compactor compactor = compactors.get(h);
+            if (compactor.size >= capacity(h)) {
+                if (h + 1 == compactors.size()) {
+                    addLevel();
+                }
+                Compactor next = compactors.get(h + 1);
+
+                Arrays.sort(compactor.values, 0, compactor.size);
+                // an odd value remains at this level so that no weight gets lost
+                int compacted = compactor.size - compactor.size % 2;
+                for (int i = compactor.oddOffset ? 1 : 0; i < compacted; i += 2) {
+                    next.add(compactor.values[i]);
+                }
+                compactor.oddOffset = !compactor.oddOffset;
+                if (compacted < compactor.size) {
+                    compactor.values[0] = compactor.values[compactor.size - 1];
+                }
+                size -= compacted / 2;
+                compactor.size -= compacted;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Adds all values summarized by another sketch to this one.
+     */
+    public void merge(QuantileSketch other) {
+        while (compactors.size() < other.compactors.size()) {
+            addLevel();
+        }
+        for (int h = 0; h < other.compactors.size(); h++) {
+            Compactor otherCompactor = other.compactors.get(h);
+            Compactor compactor = compactors.get(h);
+            for (int i = 0; i < otherCompactor.size; i++) {
+                compactor.add(otherCompactor.values[i]);
+            }
+        }
+        size += other.size;
+        count += other.count;
+        minimum = Math.min(minimum, other.minimum);
+        maximum = Math.max(maximum, other.maximum);
+        while (size >= maximumSize) {
+            compress();
+        }
+    }
+
+    /**
+     * Returns the approximate q-quantile, q given between 0 and 1.
+     */
+    public float getQuantile(double q) {
+        return getQuantiles(new double[]{q})[0];
+    }
+
+    public float[] getQuantiles(double[] qs) {
+        if (count == 0) {
+            throw new IllegalStateException("Quantiles of an empty sketch are undefined.");
+        }
+
+        float[] values = new float[size];
+        long[] weights = new long[size];
+        int index = 0;
+        for (int h = 0; h < compactors.size(); h++) {
+            Compactor compactor = compactors.get(h);
+            for (int i = 0; i < compactor.size; i++) {
+                values[index] = compactor.values[i];
+                weights[index] = 1L << h;
+                index++;
+            }
+        }
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Float.compare(values[a], values[b]));
+
+        float[] result = new float[qs.length];
+        for (int j = 0; j < qs.length; j++) {
+            double q = qs[j];
+            if (q < 0 || q > 1) {
+                throw new IllegalArgumentException("Quantiles must be given between 0 and 1, but was " + q);
+            }
+            if (q == 0) {
+                result[j] = minimum;
+                continue;
+            }
+            if (q == 1) {
+                result[j] = maximum;
+                continue;
+            }
+            double rank = q * count;
+            long cumulativeWeight = 0;
+            result[j] = maximum;
+            for (int i = 0; i < size; i++) {
+                cumulativeWeight += weights[order[i]];
+                if (cumulativeWeight >= rank) {
+                    result[j] = values[order[i]];
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public float getMinimum() {
+        return minimum;
+    }
+
+    public float getMaximum() {
+        return maximum;
+    }
+
+    /**
+     * Returns the number of values currently stored in the sketch, which is bounded independent of getCount().
+     */
+    public int getRetainedSize() {
+        return size;
+    }
+
+    /**
+     * Summarizes the given values in parallel. Chunks of fixed size are sketched independently and merged in
+     * order.
+     */
+    public void updateParallel(float[] values) {
+        int numberOfChunks = (values.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        QuantileSketch[] partialSketches = new QuantileSketch[numberOfChunks];
+        IntStream.range(0, numberOfChunks).parallel().forEach(chunk -> {
+            partialSketches[chunk] = new QuantileSketch(k);
+            partialSketches[chunk].update(values, chunk * CHUNK_SIZE, Math.min(values.length, (chunk + 1) * CHUNK_SIZE));
+        });
+        for (QuantileSketch partialSketch : partialSketches) {
+            merge(partialSketch);
+        }
+    }
+
+    /**
+     * Sketches an image in GPU memory while streaming it slab by slab.
+     */
+    public static QuantileSketch of(CLIJ clij, ClearCLBuffer input, int k) {
+        QuantileSketch sketch = new QuantileSketch(k);
+        SlabStreamer.forEachSlab(clij, input, (slab, zFrom, slabDepth) -> sketch.updateParallel(slab));
+        return sketch;
+    }
+}
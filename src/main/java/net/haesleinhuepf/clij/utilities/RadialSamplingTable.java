@@ -0,0 +1,154 @@
+package net.haesleinhuepf.clij.utilities;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * RadialSamplingTable holds the sample positions of a radial reslice: for every angle and radius, the index of the
+ * pixel in an X/Y-plane which is sampled. Angle i is i * angleStepSize degrees. Samples are taken as the
+ * radialProjection kernel of CLIJ_resliceRadial takes them: the sample at radius r and angle a is the pixel at
+ * ((int)(centerX + r * sin(a)), (int)(centerY + r * cos(a))), computed in single precision, and positions outside
+ * the image are clamped to its edge.
+ * <p>
+ * Tables are computed once per geometry, angle step and center and cached, so that reslicing many time points
+ * with the same geometry does not evaluate any trigonometric function again.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public class RadialSamplingTable {
+    /**
+     * Least recently used tables are removed from the cache as soon as all cached tables together take more than
+     * this many bytes.
+     */
+    public static long maximumCacheSizeInBytes = 256L * 1024 * 1024;
+
+    private static final LinkedHashMap<String, RadialSamplingTable> cache = new LinkedHashMap<String, RadialSamplingTable>(16, 0.75f, true);
+    private static long cacheSizeInBytes = 0;
+
+    private final int width;
+    private final int height;
+    private final int numberOfAngles;
+    private final int numberOfRadii;
+
+    // the pixel sampled for every angle and radius
+    private final int[] indices;
+
+    private RadialSamplingTable(int width, int height, int numberOfAngles, int numberOfRadii) {
+        this.width = width;
+        this.height = height;
+        this.numberOfAngles = numberOfAngles;
+        this.numberOfRadii = numberOfRadii;
+        long length = (long) numberOfAngles * numberOfRadii;
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many samples: " + numberOfAngles + " angles x " + numberOfRadii + " radii");
+        }
+        indices = new int[(int) length];
+    }
+
+    // as the radialProjection kernel: single precision, X along the sine, Y along the cosine, truncation and
+    // clamping to the edge
+    private static RadialSamplingTable compute(int width, int height, int numberOfAngles, float angleStepSize, float centerX, float centerY, int numberOfRadii) {
+        RadialSamplingTable table = new RadialSamplingTable(width, height, numberOfAngles, numberOfRadii);
+        for (int a = 0; a < numberOfAngles; a++) {
+            float angle = (float) ((float) a * angleStepSize / 180.0 * Math.PI);
+            float sin = (float) Math.sin(angle);
+            float cos = (float) Math.cos(angle);
+            for (int r = 0; r < numberOfRadii; r++) {
+                int x = Math.max(0, Math.min(width - 1, (int) (centerX + sin * r)));
+                int y = Math.max(0, Math.min(height - 1, (int) (centerY + cos * r)));
+                table.indices[a * numberOfRadii + r] = y * width + x;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Returns the table for the given geometry, using the cache if possible.
+     */
+    public static RadialSamplingTable get(int width, int height, int numberOfAngles, float angleStepSize, float centerX, float centerY, int numberOfRadii) {
+        String key = width + " " + height + " " + numberOfAngles + " " + angleStepSize + " " + centerX + " " + centerY + " " + numberOfRadii;
+        synchronized (cache) {
+            RadialSamplingTable table = cache.get(key);
+            if (table == null) {
+                table = compute(width, height, numberOfAngles, angleStepSize, centerX, centerY, numberOfRadii);
+                remember(key, table);
+            }
+            return table;
+        }
+    }
+
+    // must be called while holding the lock of the cache
+    private static void remember(String key, RadialSamplingTable table) {
+        if (table.getSizeInBytes() > maximumCacheSizeInBytes) {
+            return;
+        }
+        cache.put(key, table);
+        cacheSizeInBytes += table.getSizeInBytes();
+        Iterator<RadialSamplingTable> leastRecentlyUsed = cache.values().iterator();
+        while (cacheSizeInBytes > maximumCacheSizeInBytes) {
+            cacheSizeInBytes -= leastRecentlyUsed.next().getSizeInBytes();
+            leastRecentlyUsed.remove();
+        }
+    }
+
+    /**
+     * Returns how much memory the table takes.
+     */
+    public long getSizeInBytes() {
+        return (long) indices.length * 4;
+    }
+
+    /**
+     * Returns the number of angles which fit into the given range of degrees, as CLIJ_resliceRadial does.
+     */
+    public static int getEffectiveNumberOfAngles(int numberOfAngles, float angleStepSize) {
+        return (int) ((float) numberOfAngles / angleStepSize);
+    }
+
+    /**
+     * Returns the number of radii sampled around the given center, as CLIJ_resliceRadial determines it for the
+     * center of the X/Y-plane: the distance to the corner beyond the farthest edges in X and Y, truncated.
+     */
+    public static int getMaximumRadius(long width, long height, float centerX, float centerY) {
+        double distanceX = Math.max(centerX, width - 1 - centerX);
+        double distanceY = Math.max(centerY, height - 1 - centerY);
+        return Math.max(1, (int) Math.sqrt(distanceX * distanceX + distanceY * distanceY));
+    }
+
+    public int getNumberOfAngles() {
+        return numberOfAngles;
+    }
+
+    public int getNumberOfRadii() {
+        return numberOfRadii;
+    }
+
+    /**
+     * Samples the given slab of Z-slices of a stack with the given depth. The target is organized as
+     * radius x Z x angle, where the angles of this table start at the given angle offset. Angles are processed
+     * in parallel.
+     */
+    public void resample(float[] slab, int zFrom, int slabDepth, int depth, float[] target, int angleOffset) {
+        resample(slab, 0, zFrom, slabDepth, depth, target, angleOffset);
+    }
+
+    /**
+     * Samples the planes firstPlane ... firstPlane + numberOfPlanes - 1 of the given slab, which are the slices
+     * zFrom ... of a stack with the given depth, e.g. of one frame out of several in the slab.
+     */
+    public void resample(float[] slab, int firstPlane, int zFrom, int numberOfPlanes, int depth, float[] target, int angleOffset) {
+        final int planeSize = width * height;
+        IntStream.range(0, numberOfAngles).parallel().forEach(a -> {
+            for (int z = 0; z < numberOfPlanes; z++) {
+                int planeOffset = (firstPlane + z) * planeSize;
+                int targetOffset = ((angleOffset + a) * depth + zFrom + z) * numberOfRadii;
+                int sample = a * numberOfRadii;
+                for (int r = 0; r < numberOfRadii; r++, sample++) {
+                    target[targetOffset + r] = slab[planeOffset + indices[sample]];
+                }
+            }
+        });
+    }
+}
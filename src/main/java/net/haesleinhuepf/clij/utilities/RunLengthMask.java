@@ -0,0 +1,231 @@
+package net.haesleinhuepf.clij.utilities;
+
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.coremem.enums.NativeTypeEnum;
+import net.haesleinhuepf.clij.kernels.Kernels;
+
+import java.awt.Shape;
+import java.awt.geom.GeneralPath;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * RunLengthMask holds a binary image as runs of foreground pixels per row, which is compact for sparse masks.
+ * <p>
+ * When pulling a mask from GPU memory, the rows are encoded on the device: a first kernel counts the runs per
+ * row, a second one writes start and end of every run into a compact buffer. Only the counts and the runs are
+ * transferred; hence, transfer time shrinks with the number of runs instead of the number of pixels.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public class RunLengthMask {
+    private static final int[] EMPTY = new int[0];
+
+    private final int width;
+    private final int height;
+    private final int depth;
+
+    // per row z * height + y, start and end (exclusive) of every run
+    private final int[][] runs;
+
+    public RunLengthMask(int width, int height, int depth) {
+        this.width = width;
+        this.height = height;
+        this.depth = depth;
+        runs = new int[height * depth][];
+        Arrays.fill(runs, EMPTY);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Encodes consecutive rows of slice z, starting at row yFrom. Pixels which are not zero are foreground.
+     */
+    public void encodeRows(float[] rows, int z, int yFrom, int numberOfRows) {
+        int[] buffer = new int[width + 1];
+        for (int r = 0; r < numberOfRows; r++) {
+            int offset = r * width;
+            int count = 0;
+            int x = 0;
+            while (x < width) {
+                while (x < width && rows[offset + x] == 0) {
+                    x++;
+                }
+                if (x == width) {
+                    break;
+                }
+                buffer[count++] = x;
+                while (x < width && rows[offset + x] != 0) {
+                    x++;
+                }
+                buffer[count++] = x;
+            }
+            runs[z * height + yFrom + r] = count == 0 ? EMPTY : Arrays.copyOf(buffer, count);
+        }
+    }
+
+    /**
+     * Returns start and end (exclusive) of the runs in the given row, one after the other.
+     */
+    public int[] getRuns(int y, int z) {
+        return runs[z * height + y];
+    }
+
+    public long countForegroundPixels() {
+        long count = 0;
+        for (int[] row : runs) {
+            for (int i = 0; i < row.length; i += 2) {
+                count += row[i + 1] - row[i];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the pixels of a slice with 255 for foreground and 0 for background, as ImageJ expects binary
+     * images.
+     */
+    public byte[] toSlice(int z) {
+        byte[] pixels = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            int[] row = getRuns(y, z);
+            for (int i = 0; i < row.length; i += 2) {
+                Arrays.fill(pixels, y * width + row[i], y * width + row[i + 1], (byte) 255);
+            }
+        }
+        return pixels;
+    }
+
+    /**
+     * Returns the outline of the foreground in slice z or null if the slice is empty. Runs continuing over
+     * several rows with the same start and end are combined into one rectangle.
+     */
+    public Shape toShape(int z) {
+        GeneralPath path = new GeneralPath(GeneralPath.WIND_NON_ZERO);
+        boolean empty = true;
+        for (int y = 0; y < height; y++) {
+            int[] row = getRuns(y, z);
+            for (int i = 0; i < row.length; i += 2) {
+                if (y > 0 && containsRun(getRuns(y - 1, z), row[i], row[i + 1])) {
+                    // already part of a rectangle started above
+                    continue;
+                }
+                int yTo = y + 1;
+                while (yTo < height && containsRun(getRuns(yTo, z), row[i], row[i + 1])) {
+                    yTo++;
+                }
+                path.moveTo(row[i], y);
+                path.lineTo(row[i + 1], y);
+                path.lineTo(row[i + 1], yTo);
+                path.lineTo(row[i], yTo);
+                path.closePath();
+                empty = false;
+            }
+        }
+        return empty ? null : path;
+    }
+
+    private static boolean containsRun(int[] row, int start, int end) {
+        for (int i = 0; i < row.length; i += 2) {
+            if (row[i] == start && row[i + 1] == end) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sets the runs of all rows at once: counts holds the number of runs of every row z * height + y, runs holds
+     * start and end of all runs, row after row.
+     */
+    void setRuns(int[] counts, int[] runs) {
+        int index = 0;
+        for (int row = 0; row < counts.length; row++) {
+            this.runs[row] = counts[row] == 0 ? EMPTY : Arrays.copyOfRange(runs, index, index + 2 * counts[row]);
+            index += 2 * counts[row];
+        }
+    }
+
+    /**
+     * Pulls a binary image from GPU memory, transferring only its runs of foreground pixels.
+     */
+    public static RunLengthMask pull(CLIJ clij, ClearCLBuffer buffer) {
+        int width = (int) buffer.getWidth();
+        int height = (int) buffer.getHeight();
+        int depth = buffer.getDimension() > 2 ? (int) buffer.getDepth() : 1;
+        RunLengthMask mask = new RunLengthMask(width, height, depth);
+
+        ClearCLBuffer stack = buffer;
+        if (buffer.getDimension() < 3) {
+            stack = clij.createCLBuffer(new long[]{width, height, 1}, buffer.getNativeType());
+            Kernels.copySlice(clij, buffer, stack, 0);
+        }
+        // per row, the number of runs and then the index of its first run
+        ClearCLBuffer offsets = clij.createCLBuffer(new long[]{height, depth}, NativeTypeEnum.Int);
+        ClearCLBuffer runs = null;
+        try {
+            HashMap<String, Object> parameters = new HashMap<String, Object>();
+            parameters.put("src", stack);
+            parameters.put("dst", offsets);
+            parameters.put("width", width);
+            parameters.put("height", height);
+            clij.execute(RunLengthMask.class, "run_length_mask.cl", "count_runs", parameters);
+            int[] counts = readInts(offsets);
+
+            long numberOfValues = 0;
+            int[] starts = new int[counts.length];
+            for (int row = 0; row < counts.length; row++) {
+                if (numberOfValues + 2L * counts[row] > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("The mask has too many runs to be encoded.");
+                }
+                starts[row] = (int) numberOfValues;
+                numberOfValues += 2L * counts[row];
+            }
+            if (numberOfValues == 0) {
+                return mask;
+            }
+            writeInts(offsets, starts);
+
+            runs = clij.createCLBuffer(new long[]{numberOfValues, 1}, NativeTypeEnum.Int);
+            parameters.put("runs", runs);
+            clij.execute(RunLengthMask.class, "run_length_mask.cl", "encode_runs", parameters);
+            mask.setRuns(counts, readInts(runs));
+        } finally {
+            offsets.close();
+            if (runs != null) {
+                runs.close();
+            }
+            if (stack != buffer) {
+                stack.close();
+            }
+        }
+        return mask;
+    }
+
+    private static int[] readInts(ClearCLBuffer buffer) {
+        ByteBuffer bytes = SlabStreamer.staging(buffer.getSizeInBytes());
+        buffer.readTo(bytes, true);
+        int[] result = new int[(int) buffer.getLength()];
+        bytes.asIntBuffer().get(result);
+        return result;
+    }
+
+    private static void writeInts(ClearCLBuffer buffer, int[] data) {
+        ByteBuffer bytes = SlabStreamer.staging(buffer.getSizeInBytes());
+        bytes.asIntBuffer().put(data);
+        buffer.writeFrom(bytes, true);
+    }
+}
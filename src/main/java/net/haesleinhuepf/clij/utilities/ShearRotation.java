@@ -0,0 +1,287 @@
+package net.haesleinhuepf.clij.utilities;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * ShearRotation rotates images in host memory by decomposing rotations into 1-D shears (Paeth / Unser).
+ * <p>
+ * A rotation in a plane by an angle phi is split into an exact rotation by a multiple of 90 degrees, which just
+ * permutes pixels, and a residual rotation by psi with |psi| &lt;= 45 degrees. The residual rotation is
+ * executed as three shears R(psi) = Sx(alpha) Sy(beta) Sx(alpha) with alpha = -tan(psi / 2) and
+ * beta = sin(psi). Every shear shifts lines of pixels and resamples them with linear interpolation; all passes
+ * traverse memory row by row and rows are processed in parallel. Rotations by multiples of 90 degrees are
+ * exact.
+ * <p>
+ * 3D rotations are composed of rotations in the X/Y plane (around Z), in the Z/X plane (around Y) and in the Y/Z
+ * plane (around X). Intermediate results are padded so that no pixel is clipped between the passes.
+ * <p>
+ * As in CLIJ's affine transforms, the rotation matrix maps destination coordinates to source coordinates:
+ * destination(p) = source(center + R (p - center)). Pixels outside the source are zero.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public class ShearRotation {
+
+    /**
+     * A block of pixels with an origin in absolute pixel coordinates. Pixels outside are zero.
+     */
+    static class Grid {
+        final int[] origin;
+        final int[] size;
+        final int[] stride;
+        final float[] data;
+
+        Grid(int[] origin, int[] size) {
+            this(origin, size, new float[size[0] * size[1] * size[2]]);
+        }
+
+        Grid(int[] origin, int[] size, float[] data) {
+            this.origin = origin.clone();
+            this.size = size.clone();
+            this.stride = new int[]{1, size[0], size[0] * size[1]};
+            this.data = data;
+        }
+    }
+
+    /**
+     * A plane of pixels in absolute coordinates a and b, stored row by row along a.
+     */
+    private static class Plane {
+        final int a0;
+        final int b0;
+        final int na;
+        final int nb;
+        final float[] data;
+
+        Plane(int a0, int aMax, int b0, int bMax) {
+            this.a0 = a0;
+            this.b0 = b0;
+            this.na = aMax - a0 + 1;
+            this.nb = bMax - b0 + 1;
+            data = new float[na * nb];
+        }
+    }
+
+    /**
+     * Rotates a 2D image.
+     *
+     * @param angle rotation angle in radians of the matrix mapping destination to source coordinates
+     */
+    public static float[] rotate2D(float[] source, int width, int height, int destinationWidth, int destinationHeight, double angle, int centerX, int centerY) {
+        Grid input = new Grid(new int[]{0, 0, 0}, new int[]{width, height, 1}, source);
+        int[] center = {centerX, centerY, 0};
+        return rotatePlane(input, new int[]{0, 0, 0}, new int[]{destinationWidth, destinationHeight, 1}, 0, 1, angle, center).data;
+    }
+
+    /**
+     * Rotates a 3D image. The resulting transform equals Rz(angleZ) * Ry(angleY) * Rx(angleX) applied around the
+     * center, as built by imglib2's AffineTransform3D.rotate in the order X, Y, Z.
+     *
+     * @param angleX rotation angle in radians around the X axis
+     * @param angleY rotation angle in radians around the Y axis
+     * @param angleZ rotation angle in radians around the Z axis
+     */
+    public static float[] rotate3D(float[] source, int width, int height, int depth, int destinationWidth, int destinationHeight, int destinationDepth, double angleX, double angleY, double angleZ, int centerX, int centerY, int centerZ) {
+        int[] center = {centerX, centerY, centerZ};
+        Grid input = new Grid(new int[]{0, 0, 0}, new int[]{width, height, depth}, source);
+
+        // destination(p) = L(c + Rx (p - c)), L(q) = K(c + Ry (q - c)), K(r) = source(c + Rz (r - c))
+        int[] destinationOrigin = {0, 0, 0};
+        int[] destinationSize = {destinationWidth, destinationHeight, destinationDepth};
+        int[][] lDomain = rotatedDomain(destinationOrigin, destinationSize, 1, 2, angleX, center);
+        int[][] kDomain = rotatedDomain(lDomain[0], lDomain[1], 2, 0, angleY, center);
+
+        Grid k = rotatePlane(input, kDomain[0], kDomain[1], 0, 1, angleZ, center);
+        Grid l = rotatePlane(k, lDomain[0], lDomain[1], 2, 0, angleY, center);
+        return rotatePlane(l, destinationOrigin, destinationSize, 1, 2, angleX, center).data;
+    }
+
+    /**
+     * Determines the bounding box of the positions c + R (p - c) for all p in the given box, with one pixel of
+     * margin for interpolation. Returns origin and size.
+     */
+    static int[][] rotatedDomain(int[] origin, int[] size, int axisA, int axisB, double angle, int[] center) {
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        double minA = Double.MAX_VALUE;
+        double maxA = -Double.MAX_VALUE;
+        double minB = Double.MAX_VALUE;
+        double maxB = -Double.MAX_VALUE;
+        for (int a : new int[]{origin[axisA], origin[axisA] + size[axisA] - 1}) {
+            for (int b : new int[]{origin[axisB], origin[axisB] + size[axisB] - 1}) {
+                double u = a - center[axisA];
+                double v = b - center[axisB];
+                double rotatedA = center[axisA] + cos * u - sin * v;
+                double rotatedB = center[axisB] + sin * u + cos * v;
+                minA = Math.min(minA, rotatedA);
+                maxA = Math.max(maxA, rotatedA);
+                minB = Math.min(minB, rotatedB);
+                maxB = Math.max(maxB, rotatedB);
+            }
+        }
+        int[] resultOrigin = origin.clone();
+        int[] resultSize = size.clone();
+        resultOrigin[axisA] = (int) Math.floor(minA);
+        resultSize[axisA] = (int) Math.floor(maxA) + 2 - resultOrigin[axisA];
+        resultOrigin[axisB] = (int) Math.floor(minB);
+        resultSize[axisB] = (int) Math.floor(maxB) + 2 - resultOrigin[axisB];
+        return new int[][]{resultOrigin, resultSize};
+    }
+
+    /**
+     * Rotates every plane spanned by axisA and axisB: output(p) = input(c + R(angle) (p - c)) for all p in the
+     * given output box. R rotates from axisA towards axisB.
+     */
+    static Grid rotatePlane(Grid input, int[] outputOrigin, int[] outputSize, int axisA, int axisB, double angle, int[] center) {
+        final int axisS = 3 - axisA - axisB;
+        final int ca = center[axisA];
+        final int cb = center[axisB];
+
+        int quarterTurns = (int) Math.round(angle / (Math.PI / 2));
+        double residualAngle = angle - quarterTurns * Math.PI / 2;
+        if (Math.abs(residualAngle) < 1e-6) {
+            residualAngle = 0;
+        }
+        final int k = ((quarterTurns % 4) + 4) % 4;
+        final double alpha = -Math.tan(residualAngle / 2);
+        final double beta = Math.sin(residualAngle);
+
+        final Grid output = new Grid(outputOrigin, outputSize);
+        final int a0 = outputOrigin[axisA];
+        final int aMax = a0 + outputSize[axisA] - 1;
+        final int b0 = outputOrigin[axisB];
+        final int bMax = b0 + outputSize[axisB] - 1;
+        final int outputStrideA = output.stride[axisA];
+        final int outputStrideB = output.stride[axisB];
+
+        for (int s = outputOrigin[axisS]; s < outputOrigin[axisS] + outputSize[axisS]; s++) {
+            final int slice = s;
+            final int outputSliceOffset = (slice - outputOrigin[axisS]) * output.stride[axisS];
+
+            if (residualAngle == 0) {
+                IntStream.rangeClosed(b0, bMax).parallel().forEach(b -> {
+                    float[] line = new float[aMax - a0 + 1];
+                    quarterTurnRow(input, line, a0, b, slice, k, axisA, axisB, axisS, ca, cb);
+                    int index = outputSliceOffset + (b - b0) * outputStrideB;
+                    for (int i = 0; i < line.length; i++, index += outputStrideA) {
+                        output.data[index] = line[i];
+                    }
+                });
+                continue;
+            }
+
+            // domains of the intermediate results: output(a, b) = I2(a + alpha (b - cb), b)
+            int a2Min = a0 + (int) Math.floor(Math.min(alpha * (b0 - cb), alpha * (bMax - cb)));
+            int a2Max = aMax + (int) Math.floor(Math.max(alpha * (b0 - cb), alpha * (bMax - cb))) + 1;
+            // I2(a, b) = I1(a, b + beta (a - ca))
+            int b1Min = (int) Math.floor(Math.min(b0 + beta * (a2Min - ca), b0 + beta * (a2Max - ca)));
+            int b1Max = (int) Math.floor(Math.max(bMax + beta * (a2Min - ca), bMax + beta * (a2Max - ca))) + 1;
+            // the shifts are linear in a and b; their extremes lie at the corners, hence all interpolated
+            // positions below lie within these domains and the passes index the planes without bounds checks
+
+            final Plane i1 = new Plane(a2Min, a2Max, b1Min, b1Max);
+            final Plane i2 = new Plane(a2Min, a2Max, b0, bMax);
+
+            // I1(a, b) = J(a + alpha (b - cb), b), where J is the input rotated by k * 90 degrees
+            IntStream.rangeClosed(b1Min, b1Max).parallel().forEach(b -> {
+                // a row is shifted as a whole; the interpolation weight is the same for all its pixels
+                double shift = alpha * (b - cb);
+                int floorShift = (int) Math.floor(shift);
+                float weight = (float) (shift - floorShift);
+                float[] line = new float[i1.na + 1];
+                quarterTurnRow(input, line, i1.a0 + floorShift, b, slice, k, axisA, axisB, axisS, ca, cb);
+                int offset = (b - i1.b0) * i1.na;
+                if (weight == 0) {
+                    System.arraycopy(line, 0, i1.data, offset, i1.na);
+                    return;
+                }
+                for (int i = 0; i < i1.na; i++) {
+                    i1.data[offset + i] = line[i] * (1 - weight) + line[i + 1] * weight;
+                }
+            });
+
+            IntStream.rangeClosed(b0, bMax).parallel().forEach(b -> {
+                int offset = (b - i2.b0) * i2.na;
+                for (int i = 0; i < i2.na; i++) {
+                    double position = b + beta * (i2.a0 + i - ca);
+                    int floor = (int) Math.floor(position);
+                    float weight = (float) (position - floor);
+                    int index = (floor - i1.b0) * i1.na + i;
+                    i2.data[offset + i] = i1.data[index] * (1 - weight) + i1.data[index + i1.na] * weight;
+                }
+            });
+
+            IntStream.rangeClosed(b0, bMax).parallel().forEach(b -> {
+                double shift = alpha * (b - cb);
+                int floorShift = (int) Math.floor(shift);
+                float weight = (float) (shift - floorShift);
+                int source = (b - i2.b0) * i2.na + a0 + floorShift - i2.a0;
+                int index = outputSliceOffset + (b - b0) * outputStrideB;
+                for (int a = a0; a <= aMax; a++, source++, index += outputStrideA) {
+                    output.data[index] = i2.data[source] * (1 - weight) + i2.data[source + 1] * weight;
+                }
+            });
+        }
+        return output;
+    }
+
+    /**
+     * Fills line[i] = J(aFrom + i, b) in the given slice, where J(a, b) = input(c + R(k * 90 degrees) ((a, b) - c)).
+     * A row of J runs along one axis of the input; pixels outside the input are zero.
+     */
+    private static void quarterTurnRow(Grid input, float[] line, int aFrom, int b, int slice, int k, int axisA, int axisB, int axisS, int ca, int cb) {
+        int u = aFrom - ca;
+        int v = b - cb;
+        // input position of J(aFrom, b) and its change per step along the row
+        int positionA;
+        int positionB;
+        int stepA = 0;
+        int stepB = 0;
+        switch (k) {
+            case 1:
+                positionA = ca - v;
+                positionB = cb + u;
+                stepB = 1;
+                break;
+            case 2:
+                positionA = ca - u;
+                positionB = cb - v;
+                stepA = -1;
+                break;
+            case 3:
+                positionA = ca + v;
+                positionB = cb - u;
+                stepB = -1;
+                break;
+            default:
+                positionA = ca + u;
+                positionB = cb + v;
+                stepA = 1;
+        }
+        int localA = positionA - input.origin[axisA];
+        int localB = positionB - input.origin[axisB];
+        int localS = slice - input.origin[axisS];
+
+        boolean alongA = stepA != 0;
+        int moving = alongA ? localA : localB;
+        int movingSize = input.size[alongA ? axisA : axisB];
+        int step = alongA ? stepA : stepB;
+        int fixed = alongA ? localB : localA;
+        int fixedSize = input.size[alongA ? axisB : axisA];
+
+        Arrays.fill(line, 0);
+        if (localS < 0 || localS >= input.size[axisS] || fixed < 0 || fixed >= fixedSize) {
+            return;
+        }
+        // range of i with 0 <= moving + step * i < movingSize
+        int from = Math.max(0, step > 0 ? -moving : moving - movingSize + 1);
+        int to = Math.min(line.length, step > 0 ? movingSize - moving : moving + 1);
+        int inputStep = step * input.stride[alongA ? axisA : axisB];
+        int index = localA * input.stride[axisA] + localB * input.stride[axisB] + localS * input.stride[axisS] + from * inputStep;
+        for (int i = from; i < to; i++, index += inputStep) {
+            line[i] = input.data[index];
+        }
+    }
+}
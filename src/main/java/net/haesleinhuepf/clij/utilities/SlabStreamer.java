@@ -0,0 +1,323 @@
+package net.haesleinhuepf.clij.utilities;
+
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.coremem.enums.NativeTypeEnum;
+import net.haesleinhuepf.clij.kernels.Kernels;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+/**
+ * SlabStreamer reads and writes image stacks in GPU memory slab by slab (a slab is a range of
+ * consecutive Z-slices). Host memory consumption is bounded by the slab size and not by the stack size.
+ * Pixels are handed over as float arrays in X-Y-Z order, independent of the pixel type in GPU memory.
+ * <p>
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public class SlabStreamer {
+
+    /**
+     * Maximum size of a slab in bytes (in GPU memory) when slabs are read using forEachSlab.
+     */
+    public static long maximumSlabSizeInBytes = 64 * 1024 * 1024;
+
+    /**
+     * Pixel conversions between float arrays and GPU memory layout are split into chunks of this many pixels,
+     * which are converted in parallel.
+     */
+    public static int conversionChunkSize = 1 << 16;
+
+    // staging memory for transfers, kept per thread to avoid allocating direct memory for every slab
+    private static final ThreadLocal<ByteBuffer> staging = new ThreadLocal<ByteBuffer>();
+
+    public interface SlabConsumer {
+        void accept(float[] slab, int zFrom, int slabDepth);
+    }
+
+    public static int getSlabDepth(ClearCLBuffer buffer) {
+        long bytesPerSlice = buffer.getWidth() * buffer.getHeight() * buffer.getNativeType().getSizeInBytes();
+        return (int) Math.max(1, Math.min(buffer.getDepth(), maximumSlabSizeInBytes / bytesPerSlice));
+    }
+
+    /**
+     * Reads the given buffer slab by slab and hands the slabs over to the consumer. While the consumer
+     * processes a slab (in a background thread), the next slab is read from GPU memory.
+     */
+    public static void forEachSlab(CLIJ clij, ClearCLBuffer buffer, SlabConsumer consumer) {
+        int depth = (int) buffer.getDepth();
+        int slabDepth = getSlabDepth(buffer);
+
+        CompletableFuture<Void> running = null;
+        for (int z = 0; z < depth; z += slabDepth) {
+            final int zFrom = z;
+            final int currentSlabDepth = Math.min(slabDepth, depth - z);
+            final float[] slab = readSlab(clij, buffer, zFrom, currentSlabDepth);
+            if (running != null) {
+                running.join();
+            }
+            running = CompletableFuture.runAsync(() -> consumer.accept(slab, zFrom, currentSlabDepth));
+        }
+        if (running != null) {
+            running.join();
+        }
+    }
+
+    /**
+     * Reads the whole buffer. Buffers larger than 2 GB can't be read at once; use forEachSlab or readSlab.
+     */
+    public static float[] read(ClearCLBuffer buffer) {
+        checkSize(buffer);
+        ByteBuffer bytes = staging(buffer.getSizeInBytes());
+        buffer.readTo(bytes, true);
+        float[] result = new float[(int) buffer.getLength()];
+        toFloat(bytes, buffer.getNativeType(), result);
+        return result;
+    }
+
+    /**
+     * Writes the whole buffer. Buffers larger than 2 GB can't be written at once; use writeSlab.
+     */
+    public static void write(ClearCLBuffer buffer, float[] data) {
+        checkSize(buffer);
+        ByteBuffer bytes = staging(buffer.getSizeInBytes());
+        fromFloat(data, buffer.getNativeType(), bytes);
+        buffer.writeFrom(bytes, true);
+    }
+
+    public static float[] readSlab(CLIJ clij, ClearCLBuffer buffer, int zFrom, int slabDepth) {
+        if (zFrom == 0 && slabDepth == buffer.getDepth()) {
+            return read(buffer);
+        }
+        ClearCLBuffer slab = clij.createCLBuffer(new long[]{buffer.getWidth(), buffer.getHeight(), slabDepth}, buffer.getNativeType());
+        Kernels.crop(clij, buffer, slab, 0, 0, zFrom);
+        float[] result = read(slab);
+        slab.close();
+        return result;
+    }
+
+    public static void writeSlab(CLIJ clij, ClearCLBuffer buffer, int zFrom, int slabDepth, float[] data) {
+        if (zFrom == 0 && slabDepth == buffer.getDepth()) {
+            write(buffer, data);
+            return;
+        }
+        int sliceSize = (int) (buffer.getWidth() * buffer.getHeight());
+        ClearCLBuffer plane = clij.createCLBuffer(new long[]{buffer.getWidth(), buffer.getHeight()}, buffer.getNativeType());
+        float[] slice = new float[sliceSize];
+        for (int z = 0; z < slabDepth; z++) {
+            System.arraycopy(data, z * sliceSize, slice, 0, sliceSize);
+            write(plane, slice);
+            Kernels.copySlice(clij, plane, buffer, zFrom + z);
+        }
+        plane.close();
+    }
+
+    /**
+     * Reads a whole stack slab by slab into one array; in contrast to read, the staging memory is bounded by the
+     * slab size. The stack must have less than 2^31 pixels.
+     */
+    public static float[] readStack(CLIJ clij, ClearCLBuffer buffer) {
+        float[] result = new float[checkLength(buffer)];
+        int sliceSize = (int) (buffer.getWidth() * buffer.getHeight());
+        int depth = (int) buffer.getDepth();
+        int slabDepth = getSlabDepth(buffer);
+        for (int z = 0; z < depth; z += slabDepth) {
+            float[] slab = readSlab(clij, buffer, z, Math.min(slabDepth, depth - z));
+            System.arraycopy(slab, 0, result, z * sliceSize, slab.length);
+        }
+        return result;
+    }
+
+    /**
+     * Writes a whole stack slab by slab from one array; in contrast to write, the staging memory is bounded by
+     * the slab size.
+     */
+    public static void writeStack(CLIJ clij, ClearCLBuffer buffer, float[] data) {
+        checkLength(buffer);
+        int sliceSize = (int) (buffer.getWidth() * buffer.getHeight());
+        int depth = (int) buffer.getDepth();
+        int slabDepth = getSlabDepth(buffer);
+        for (int z = 0; z < depth; z += slabDepth) {
+            int currentSlabDepth = Math.min(slabDepth, depth - z);
+            writeSlab(clij, buffer, z, currentSlabDepth, Arrays.copyOfRange(data, z * sliceSize, (z + currentSlabDepth) * sliceSize));
+        }
+    }
+
+    private static int checkLength(ClearCLBuffer buffer) {
+        if (buffer.getLength() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The image (" + buffer.getLength() + " pixels) has too many pixels to be processed in host memory at once.");
+        }
+        return (int) buffer.getLength();
+    }
+
+    // Java arrays and direct buffers are limited to 2^31 - 1 elements
+    private static void checkSize(ClearCLBuffer buffer) {
+        if (buffer.getSizeInBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The image (" + buffer.getSizeInBytes() + " bytes) is too large to be transferred at once. Transfer it slab by slab instead.");
+        }
+    }
+
+    static ByteBuffer allocate(long numberOfBytes) {
+        if (numberOfBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Cannot allocate " + numberOfBytes + " bytes of staging memory at once.");
+        }
+        return ByteBuffer.allocateDirect((int) numberOfBytes).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Returns direct memory of the given size for a blocking transfer. Up to maximumSlabSizeInBytes, the memory
+     * is reused by subsequent calls from the same thread; hence, it must not be kept after the transfer.
+     */
+    static ByteBuffer staging(long numberOfBytes) {
+        if (numberOfBytes > maximumSlabSizeInBytes) {
+            return allocate(numberOfBytes);
+        }
+        ByteBuffer bytes = staging.get();
+        if (bytes == null || bytes.capacity() < numberOfBytes) {
+            bytes = allocate(numberOfBytes);
+            staging.set(bytes);
+        }
+        bytes.clear();
+        bytes.limit((int) numberOfBytes);
+        return bytes;
+    }
+
+    private interface Chunk {
+        void convert(int from, int to);
+    }
+
+    // converts chunks of pixels in parallel, unless there is only one
+    private static void forEachChunk(int length, Chunk chunk) {
+        int numberOfChunks = (length + conversionChunkSize - 1) / conversionChunkSize;
+        if (numberOfChunks <= 1) {
+            chunk.convert(0, length);
+            return;
+        }
+        IntStream.range(0, numberOfChunks).parallel().forEach(c -> chunk.convert(c * conversionChunkSize, Math.min(length, (c + 1) * conversionChunkSize)));
+    }
+
+    public static void toFloat(ByteBuffer bytes, NativeTypeEnum type, float[] target) {
+        bytes.rewind();
+        switch (type) {
+            case UnsignedByte:
+                forEachChunk(target.length, (from, to) -> {
+                    for (int i = from; i < to; i++) {
+                        target[i] = bytes.get(i) & 0xff;
+                    }
+                });
+                break;
+            case Byte:
+                forEachChunk(target.length, (from, to) -> {
+                    for (int i = from; i < to; i++) {
+                        target[i] = bytes.get(i);
+                    }
+                });
+                break;
+            case UnsignedShort:
+                forEachChunk(target.length, (from, to) -> {
+                    for (int i = from; i < to; i++) {
+                        target[i] = bytes.getShort(i * 2) & 0xffff;
+                    }
+                });
+                break;
+            case Short:
+                forEachChunk(target.length, (from, to) -> {
+                    for (int i = from; i < to; i++) {
+                        target[i] = bytes.getShort(i * 2);
+                    }
+                });
+                break;
+            case UnsignedInt:
+                forEachChunk(target.length, (from, to) -> {
+                    for (int i = from; i < to; i++) {
+                        target[i] = bytes.getInt(i * 4) & 0xffffffffL;
+                    }
+                });
+                break;
+            case Int:
+                forEachChunk(target.length, (from, to) -> {
+                    for (int i = from; i < to; i++) {
+                        target[i] = bytes.getInt(i * 4);
+                    }
+                });
+                break;
+            case Float:
+                forEachChunk(target.length, (from, to) -> {
+                    FloatBuffer view = bytes.asFloatBuffer();
+                    view.position(from);
+                    view.get(target, from, to - from);
+                });
+                break;
+            default:
+                throw new IllegalArgumentException("Pixel type not supported: " + type);
+        }
+    }
+
+    public static void fromFloat(float[] source, NativeTypeEnum type, ByteBuffer bytes) {
+        bytes.rewind();
+        switch (type) {
+            case UnsignedByte:
+                forEachChunk(source.length, (from, to) -> {
+                    for (int i = from; i < to; i++) {
+                        bytes.put(i, (byte) clamp(source[i], 0, 255));
+                    }
+                });
+                break;
+            case Byte:
+                forEachChunk(source.length, (from, to) -> {
+                    for (int i = from; i < to; i++) {
+                        bytes.put(i, (byte) clamp(source[i], Byte.MIN_VALUE, Byte.MAX_VALUE));
+                    }
+                });
+                break;
+            case UnsignedShort:
+                forEachChunk(source.length, (from, to) -> {
+                    for (int i = from; i < to; i++) {
+                        bytes.putShort(i * 2, (short) clamp(source[i], 0, 65535));
+                    }
+                });
+                break;
+            case Short:
+                forEachChunk(source.length, (from, to) -> {
+                    for (int i = from; i < to; i++) {
+                        bytes.putShort(i * 2, (short) clamp(source[i], Short.MIN_VALUE, Short.MAX_VALUE));
+                    }
+                });
+                break;
+            case UnsignedInt:
+                forEachChunk(source.length, (from, to) -> {
+                    for (int i = from; i < to; i++) {
+                        bytes.putInt(i * 4, (int) (long) clamp(source[i], 0, 4294967295.0));
+                    }
+                });
+                break;
+            case Int:
+                forEachChunk(source.length, (from, to) -> {
+                    for (int i = from; i < to; i++) {
+                        bytes.putInt(i * 4, (int) clamp(source[i], Integer.MIN_VALUE, Integer.MAX_VALUE));
+                    }
+                });
+                break;
+            case Float:
+                forEachChunk(source.length, (from, to) -> {
+                    FloatBuffer view = bytes.asFloatBuffer();
+                    view.position(from);
+                    view.put(source, from, to - from);
+                });
+                break;
+            default:
+                throw new IllegalArgumentException("Pixel type not supported: " + type);
+        }
+    }
+
+    // saturate like convert_<type>_sat() does on the GPU
+    private static double clamp(float value, double minimum, double maximum) {
+        return Math.max(minimum, Math.min(maximum, value));
+    }
+}
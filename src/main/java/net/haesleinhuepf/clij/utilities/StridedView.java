@@ -0,0 +1,140 @@
+package net.haesleinhuepf.clij.utilities;
+
+/**
+ * StridedView describes an image which consists of the pixels of another image in a different order, e.g.
+ * flipped, rotated by 90 degrees or resliced. A pixel at position p in the view is found at position
+ * origin + matrix * p in the source, where the matrix contains only 0, 1 and -1. In the linear storage of the
+ * source, this corresponds to an offset plus a signed stride per axis.
+ * <p>
+ * Views of views are composed into a single view of the original source, so that chains of reorientation
+ * steps need a single copy at most. The copy is done by the strided_view kernels next to PendingView. Positions outside the source read zero. As with composed affine transforms,
+ * pixels which would have been clipped at the border of an intermediate image are taken from the source.
+ * <p>
+ * All images are treated as 3D; 2D images have depth 1.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public class StridedView {
+    private final int[] origin;
+    private final int[][] matrix;
+
+    StridedView(int[] origin, int[][] matrix) {
+        this.origin = origin;
+        this.matrix = matrix;
+    }
+
+    private static int[][] permutation(int sourceAxisOfX, int sourceAxisOfY, int sourceAxisOfZ) {
+        int[][] matrix = new int[3][3];
+        matrix[sourceAxisOfX][0] = 1;
+        matrix[sourceAxisOfY][1] = 1;
+        matrix[sourceAxisOfZ][2] = 1;
+        return matrix;
+    }
+
+    public static StridedView flip(long[] sourceDimensions, boolean flipX, boolean flipY, boolean flipZ) {
+        int[][] matrix = permutation(0, 1, 2);
+        int[] origin = new int[3];
+        boolean[] flip = {flipX, flipY, flipZ};
+        for (int d = 0; d < 3; d++) {
+            if (flip[d]) {
+                matrix[d][d] = -1;
+                origin[d] = (int) sourceDimensions[d] - 1;
+            }
+        }
+        return new StridedView(origin, matrix);
+    }
+
+    /**
+     * Rotation by 90 degrees counter-clockwise: view(x, y, z) = source(width - 1 - y, x, z)
+     */
+    public static StridedView rotateLeft(long[] sourceDimensions) {
+        int[][] matrix = new int[3][3];
+        matrix[0][1] = -1;
+        matrix[1][0] = 1;
+        matrix[2][2] = 1;
+        return new StridedView(new int[]{(int) sourceDimensions[0] - 1, 0, 0}, matrix);
+    }
+
+    /**
+     * Rotation by 90 degrees clockwise: view(x, y, z) = source(y, height - 1 - x, z)
+     */
+    public static StridedView rotateRight(long[] sourceDimensions) {
+        int[][] matrix = new int[3][3];
+        matrix[0][1] = 1;
+        matrix[1][0] = -1;
+        matrix[2][2] = 1;
+        return new StridedView(new int[]{0, (int) sourceDimensions[1] - 1, 0}, matrix);
+    }
+
+    /**
+     * view(x, y, z) = source(x, z, y)
+     */
+    public static StridedView resliceTop() {
+        return new StridedView(new int[3], permutation(0, 2, 1));
+    }
+
+    /**
+     * view(x, y, z) = source(z, x, y)
+     */
+    public static StridedView resliceLeft() {
+        return new StridedView(new int[3], permutation(1, 2, 0));
+    }
+
+    /**
+     * Returns the view doing the same as this view applied to the given view.
+     */
+    public StridedView after(StridedView previous) {
+        int[] composedOrigin = previous.origin.clone();
+        int[][] composedMatrix = new int[3][3];
+        for (int d = 0; d < 3; d++) {
+            for (int k = 0; k < 3; k++) {
+                composedOrigin[d] += previous.matrix[d][k] * origin[k];
+                for (int i = 0; i < 3; i++) {
+                    composedMatrix[d][i] += previous.matrix[d][k] * matrix[k][i];
+                }
+            }
+        }
+        return new StridedView(composedOrigin, composedMatrix);
+    }
+
+    /**
+     * Returns the position in the source of the pixel at position (0, 0, 0) of the view.
+     */
+    public int[] getOrigin() {
+        return origin.clone();
+    }
+
+    /**
+     * Returns the matrix mapping positions in the view to offsets from the origin in the source, row by row.
+     */
+    public int[][] getMatrix() {
+        int[][] result = new int[3][];
+        for (int d = 0; d < 3; d++) {
+            result[d] = matrix[d].clone();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the index of the pixel at position (0, 0, 0) of the view in the linear storage of the source.
+     */
+    public long getOffset(long[] sourceDimensions) {
+        return origin[0] + origin[1] * sourceDimensions[0] + origin[2] * sourceDimensions[0] * sourceDimensions[1];
+    }
+
+    /**
+     * Returns by how many pixels the index in the linear storage of the source changes per step along X, Y and
+     * Z of the view. Negative strides correspond to flipped axes.
+     */
+    public long[] getStrides(long[] sourceDimensions) {
+        long[] sourceStrides = {1, sourceDimensions[0], sourceDimensions[0] * sourceDimensions[1]};
+        long[] strides = new long[3];
+        for (int i = 0; i < 3; i++) {
+            for (int d = 0; d < 3; d++) {
+                strides[i] += matrix[d][i] * sourceStrides[d];
+            }
+        }
+        return strides;
+    }
+}
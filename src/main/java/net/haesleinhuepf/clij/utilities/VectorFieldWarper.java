@@ -0,0 +1,204 @@
+package net.haesleinhuepf.clij.utilities;
+
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+
+import java.util.stream.IntStream;
+
+/**
+ * VectorFieldWarper deforms an image according to a displacement field: destination(p) = source(p + v(p)), with
+ * linear interpolation and zero outside the source. Displacements are given in pixels of the destination.
+ * <p>
+ * The displacement field may have a lower resolution than the image. It is kept in host memory and interpolated
+ * linearly on the fly; pixel centers of field and image are aligned and the field is continued constantly at its
+ * borders. Hence, a field downsampled by a factor of 4 in every dimension needs 1/64 of the memory of a full
+ * resolution field.
+ * <p>
+ * The destination is determined slab by slab (ranges of Z-slices). For every slab, only the range of source
+ * slices it can reach is fetched; the range is bounded by the Z-displacements of the field samples covering the
+ * slab. Rows of a slab are processed in parallel.
+ * <p>
+ * Author: @haesleinhuepf
+ * 10 2026
+ */
+public class VectorFieldWarper {
+
+    public interface SlabSource {
+        float[] read(int zFrom, int slabDepth);
+    }
+
+    public interface SlabSink {
+        void write(float[] slab, int zFrom, int slabDepth);
+    }
+
+    private final int width;
+    private final int height;
+    private final int depth;
+    private final float[][] field;
+    private final int[] fieldDimensions;
+
+    /**
+     * @param vectorZ Z-displacements or null for 2D images
+     */
+    public VectorFieldWarper(int width, int height, int depth, float[] vectorX, float[] vectorY, float[] vectorZ, int fieldWidth, int fieldHeight, int fieldDepth) {
+        this.width = width;
+        this.height = height;
+        this.depth = depth;
+        this.field = new float[][]{vectorX, vectorY, vectorZ};
+        this.fieldDimensions = new int[]{fieldWidth, fieldHeight, fieldDepth};
+    }
+
+    /**
+     * Warps src into dst. The vector images may be smaller than src; vectorZ is ignored for 2D images.
+     */
+    public static void warp(CLIJ clij, ClearCLBuffer src, ClearCLBuffer vectorX, ClearCLBuffer vectorY, ClearCLBuffer vectorZ, ClearCLBuffer dst) {
+        boolean is3D = src.getDimension() > 2;
+        VectorFieldWarper warper = new VectorFieldWarper(
+                (int) src.getWidth(), (int) src.getHeight(), is3D ? (int) src.getDepth() : 1,
+                SlabStreamer.read(vectorX), SlabStreamer.read(vectorY), is3D ? SlabStreamer.read(vectorZ) : null,
+                (int) vectorX.getWidth(), (int) vectorX.getHeight(), is3D ? (int) vectorX.getDepth() : 1);
+        warper.warp(
+                (zFrom, slabDepth) -> SlabStreamer.readSlab(clij, src, zFrom, slabDepth),
+                (slab, zFrom, slabDepth) -> SlabStreamer.writeSlab(clij, dst, zFrom, slabDepth, slab),
+                SlabStreamer.getSlabDepth(dst));
+    }
+
+    /**
+     * Maps a destination coordinate to the field: the lower field sample index and the weight of the upper one.
+     */
+    private void toField(int dimension, int coordinate, int[] index, float[] weight, int i) {
+        int n = fieldDimensions[dimension];
+        int size = dimension == 0 ? width : dimension == 1 ? height : depth;
+        double position = (coordinate + 0.5) * n / size - 0.5;
+        if (position <= 0) {
+            index[i] = 0;
+            weight[i] = 0;
+        } else if (position >= n - 1) {
+            index[i] = n - 1;
+            weight[i] = 0;
+        } else {
+            index[i] = (int) position;
+            weight[i] = (float) (position - index[i]);
+        }
+    }
+
+    public void warp(SlabSource source, SlabSink destination, int slabDepth) {
+        final int[] fieldX = new int[width];
+        final float[] weightX = new float[width];
+        for (int x = 0; x < width; x++) {
+            toField(0, x, fieldX, weightX, x);
+        }
+
+        for (int zFrom = 0; zFrom < depth; zFrom += slabDepth) {
+            final int currentSlabDepth = Math.min(slabDepth, depth - zFrom);
+            final int slabStart = zFrom;
+
+            // source slices reachable from this slab
+            int sourceFrom = zFrom;
+            int sourceTo = zFrom + currentSlabDepth - 1;
+            if (field[2] != null) {
+                float[] range = zDisplacementRange(zFrom, zFrom + currentSlabDepth - 1);
+                sourceFrom = Math.max(0, (int) Math.floor(zFrom + range[0]));
+                sourceTo = Math.min(depth - 1, (int) Math.floor(zFrom + currentSlabDepth - 1 + range[1]) + 1);
+            }
+            final int fetchedFrom = sourceFrom;
+            final int fetchedDepth = Math.max(0, sourceTo - sourceFrom + 1);
+            final float[] fetched = fetchedDepth > 0 ? source.read(fetchedFrom, fetchedDepth) : new float[0];
+
+            final float[] result = new float[width * height * currentSlabDepth];
+            IntStream.range(0, height * currentSlabDepth).parallel().forEach(row -> {
+                int y = row % height;
+                int z = slabStart + row / height;
+                int[] fieldYZ = new int[2];
+                float[] weightYZ = new float[2];
+                toField(1, y, fieldYZ, weightYZ, 0);
+                toField(2, z, fieldYZ, weightYZ, 1);
+                float[] displacement = new float[3];
+
+                for (int x = 0; x < width; x++) {
+                    interpolateField(fieldX[x], weightX[x], fieldYZ[0], weightYZ[0], fieldYZ[1], weightYZ[1], displacement);
+                    result[row * width + x] = sample(fetched, fetchedFrom, fetchedDepth, x + displacement[0], y + displacement[1], z + displacement[2]);
+                }
+            });
+            destination.write(result, zFrom, currentSlabDepth);
+        }
+    }
+
+    /**
+     * Returns the minimum and maximum Z-displacement of the field samples which influence the given slices.
+     */
+    private float[] zDisplacementRange(int zFrom, int zTo) {
+        int[] index = new int[2];
+        float[] weight = new float[2];
+        toField(2, zFrom, index, weight, 0);
+        toField(2, zTo, index, weight, 1);
+        int fieldFrom = index[0];
+        int fieldTo = Math.min(fieldDimensions[2] - 1, index[1] + 1);
+
+        int planeSize = fieldDimensions[0] * fieldDimensions[1];
+        float[] range = {Float.MAX_VALUE, -Float.MAX_VALUE};
+        for (int i = fieldFrom * planeSize; i < (fieldTo + 1) * planeSize; i++) {
+            range[0] = Math.min(range[0], field[2][i]);
+            range[1] = Math.max(range[1], field[2][i]);
+        }
+        return range;
+    }
+
+    private void interpolateField(int x0, float wx, int y0, float wy, int z0, float wz, float[] displacement) {
+        int fieldWidth = fieldDimensions[0];
+        int planeSize = fieldWidth * fieldDimensions[1];
+        int x1 = wx > 0 ? x0 + 1 : x0;
+        int y1 = wy > 0 ? y0 + 1 : y0;
+        int z1 = wz > 0 ? z0 + 1 : z0;
+        for (int d = 0; d < 3; d++) {
+            float[] component = field[d];
+            if (component == null) {
+                displacement[d] = 0;
+                continue;
+            }
+            float v00 = component[z0 * planeSize + y0 * fieldWidth + x0] * (1 - wx) + component[z0 * planeSize + y0 * fieldWidth + x1] * wx;
+            float v01 = component[z0 * planeSize + y1 * fieldWidth + x0] * (1 - wx) + component[z0 * planeSize + y1 * fieldWidth + x1] * wx;
+            float v10 = component[z1 * planeSize + y0 * fieldWidth + x0] * (1 - wx) + component[z1 * planeSize + y0 * fieldWidth + x1] * wx;
+            float v11 = component[z1 * planeSize + y1 * fieldWidth + x0] * (1 - wx) + component[z1 * planeSize + y1 * fieldWidth + x1] * wx;
+            displacement[d] = (v00 * (1 - wy) + v01 * wy) * (1 - wz) + (v10 * (1 - wy) + v11 * wy) * wz;
+        }
+    }
+
+    /**
+     * Interpolates the fetched source slices linearly at the given position; positions outside read zero.
+     */
+    private float sample(float[] fetched, int fetchedFrom, int fetchedDepth, float x, float y, float z) {
+        int x0 = (int) Math.floor(x);
+        int y0 = (int) Math.floor(y);
+        int z0 = (int) Math.floor(z);
+        float wx = x - x0;
+        float wy = y - y0;
+        float wz = z - z0;
+
+        float result = 0;
+        for (int dz = 0; dz < 2; dz++) {
+            int sz = z0 + dz - fetchedFrom;
+            float weightZ = dz == 0 ? 1 - wz : wz;
+            if (sz < 0 || sz >= fetchedDepth || weightZ == 0) {
+                continue;
+            }
+            for (int dy = 0; dy < 2; dy++) {
+                int sy = y0 + dy;
+                float weightYZ = weightZ * (dy == 0 ? 1 - wy : wy);
+                if (sy < 0 || sy >= height || weightYZ == 0) {
+                    continue;
+                }
+                int offset = (sz * height + sy) * width;
+                for (int dx = 0; dx < 2; dx++) {
+                    int sx = x0 + dx;
+                    float weight = weightYZ * (dx == 0 ? 1 - wx : wx);
+                    if (sx < 0 || sx >= width || weight == 0) {
+                        continue;
+                    }
+                    result += fetched[offset + sx] * weight;
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,58 @@
+// Copies a strided view of src into dst: dst(p) = src(origin + matrix * p), positions outside src read zero.
+// The matrix contains only 0, 1 and -1; it is passed row by row as m<row><column>.
+
+__constant sampler_t sampler = CLK_NORMALIZED_COORDS_FALSE | CLK_ADDRESS_CLAMP_TO_EDGE | CLK_FILTER_NEAREST;
+
+inline int4 strided_view_position(const int x, const int y, const int z,
+                                  const int origin_x, const int origin_y, const int origin_z,
+                                  const int m00, const int m01, const int m02,
+                                  const int m10, const int m11, const int m12,
+                                  const int m20, const int m21, const int m22)
+{
+  return (int4)(origin_x + m00 * x + m01 * y + m02 * z,
+                origin_y + m10 * x + m11 * y + m12 * z,
+                origin_z + m20 * x + m21 * y + m22 * z, 0);
+}
+
+inline bool strided_view_inside(const int4 position, const int source_width, const int source_height, const int source_depth)
+{
+  return position.x >= 0 && position.y >= 0 && position.z >= 0 &&
+         position.x < source_width && position.y < source_height && position.z < source_depth;
+}
+
+__kernel void strided_view_3d(DTYPE_IMAGE_IN_3D src, DTYPE_IMAGE_OUT_3D dst,
+                              const int source_width, const int source_height, const int source_depth,
+                              const int origin_x, const int origin_y, const int origin_z,
+                              const int m00, const int m01, const int m02,
+                              const int m10, const int m11, const int m12,
+                              const int m20, const int m21, const int m22)
+{
+  const int x = get_global_id(0);
+  const int y = get_global_id(1);
+  const int z = get_global_id(2);
+
+  const int4 position = strided_view_position(x, y, z, origin_x, origin_y, origin_z, m00, m01, m02, m10, m11, m12, m20, m21, m22);
+  DTYPE_OUT value = 0;
+  if (strided_view_inside(position, source_width, source_height, source_depth)) {
+    value = CONVERT_DTYPE_OUT(READ_IMAGE_3D(src, sampler, position).x);
+  }
+  WRITE_IMAGE_3D(dst, (int4)(x, y, z, 0), value);
+}
+
+__kernel void strided_view_2d(DTYPE_IMAGE_IN_2D src, DTYPE_IMAGE_OUT_2D dst,
+                              const int source_width, const int source_height, const int source_depth,
+                              const int origin_x, const int origin_y, const int origin_z,
+                              const int m00, const int m01, const int m02,
+                              const int m10, const int m11, const int m12,
+                              const int m20, const int m21, const int m22)
+{
+  const int x = get_global_id(0);
+  const int y = get_global_id(1);
+
+  const int4 position = strided_view_position(x, y, 0, origin_x, origin_y, origin_z, m00, m01, m02, m10, m11, m12, m20, m21, m22);
+  DTYPE_OUT value = 0;
+  if (strided_view_inside(position, source_width, source_height, source_depth)) {
+    value = CONVERT_DTYPE_OUT(READ_IMAGE_2D(src, sampler, (int2)(position.x, position.y)).x);
+  }
+  WRITE_IMAGE_2D(dst, (int2)(x, y), value);
+}
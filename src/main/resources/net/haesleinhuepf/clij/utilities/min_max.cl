@@ -0,0 +1,36 @@
+// Determines minimum and maximum of every row of an image in a single pass. One work item handles one row
+// (y, z) and writes its minimum to dst[z * height + y] and its maximum to dst_max[z * height + y]; the host
+// reduces the rows afterwards.
+
+__constant sampler_t sampler = CLK_NORMALIZED_COORDS_FALSE | CLK_ADDRESS_CLAMP_TO_EDGE | CLK_FILTER_NEAREST;
+
+__kernel void min_max_rows_2d(DTYPE_IMAGE_IN_2D src, __global float* dst, __global float* dst_max, const int width, const int height)
+{
+  const int y = get_global_id(0);
+
+  float minimum = (float) READ_IMAGE_2D(src, sampler, (int2)(0, y)).x;
+  float maximum = minimum;
+  for (int x = 1; x < width; x++) {
+    const float value = (float) READ_IMAGE_2D(src, sampler, (int2)(x, y)).x;
+    minimum = min(minimum, value);
+    maximum = max(maximum, value);
+  }
+  dst[y] = minimum;
+  dst_max[y] = maximum;
+}
+
+__kernel void min_max_rows_3d(DTYPE_IMAGE_IN_3D src, __global float* dst, __global float* dst_max, const int width, const int height)
+{
+  const int y = get_global_id(0);
+  const int z = get_global_id(1);
+
+  float minimum = (float) READ_IMAGE_3D(src, sampler, (int4)(0, y, z, 0)).x;
+  float maximum = minimum;
+  for (int x = 1; x < width; x++) {
+    const float value = (float) READ_IMAGE_3D(src, sampler, (int4)(x, y, z, 0)).x;
+    minimum = min(minimum, value);
+    maximum = max(maximum, value);
+  }
+  dst[z * height + y] = minimum;
+  dst_max[z * height + y] = maximum;
+}
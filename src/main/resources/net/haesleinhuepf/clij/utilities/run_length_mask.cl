@@ -0,0 +1,43 @@
+// Run-length encodes the rows of a binary image: every pixel which is not zero is foreground. One work item
+// handles one row (y, z). count_runs writes the number of runs per row to dst[z * height + y]; after the host
+// turned these counts into offsets, encode_runs writes start and end (exclusive) of every run to runs, starting
+// at dst[z * height + y].
+
+__constant sampler_t sampler = CLK_NORMALIZED_COORDS_FALSE | CLK_ADDRESS_CLAMP_TO_EDGE | CLK_FILTER_NEAREST;
+
+__kernel void count_runs(DTYPE_IMAGE_IN_3D src, __global int* dst, const int width, const int height)
+{
+  const int y = get_global_id(0);
+  const int z = get_global_id(1);
+
+  int count = 0;
+  bool inside = false;
+  for (int x = 0; x < width; x++) {
+    const bool foreground = READ_IMAGE_3D(src, sampler, (int4)(x, y, z, 0)).x != 0;
+    if (foreground && !inside) {
+      count++;
+    }
+    inside = foreground;
+  }
+  dst[z * height + y] = count;
+}
+
+__kernel void encode_runs(DTYPE_IMAGE_IN_3D src, __global int* dst, __global int* runs, const int width, const int height)
+{
+  const int y = get_global_id(0);
+  const int z = get_global_id(1);
+
+  int index = dst[z * height + y];
+  bool inside = false;
+  for (int x = 0; x < width; x++) {
+    const bool foreground = READ_IMAGE_3D(src, sampler, (int4)(x, y, z, 0)).x != 0;
+    if (foreground != inside) {
+      runs[index] = x;
+      index++;
+    }
+    inside = foreground;
+  }
+  if (inside) {
+    runs[index] = width;
+  }
+}
@@ -0,0 +1,167 @@
+package net.haesleinhuepf.clij.macro;
+
+import ij.ImagePlus;
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.kernels.Kernels;
+import net.haesleinhuepf.clij.macro.modules.Copy;
+import net.haesleinhuepf.clij.macro.modules.Set;
+import net.haesleinhuepf.clij.macro.modules.Translate2D;
+import net.haesleinhuepf.clij.test.TestUtilities;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CLIJHandlerTest {
+
+    private static void set(CLIJ clij, CLIJHandler handler, ClearCLBuffer buffer, double value) {
+        Set set = new Set();
+        set.setClij(clij);
+        Object[] args = {buffer, value};
+        set.setArgs(args);
+        handler.executePlugin(set, args);
+    }
+
+    private static void translate(CLIJ clij, CLIJHandler handler, ClearCLBuffer source, ClearCLBuffer destination, double translateX) {
+        Translate2D translate = new Translate2D();
+        translate.setClij(clij);
+        Object[] args = {source, destination, translateX, 0.0};
+        translate.setArgs(args);
+        handler.executePlugin(translate, args);
+    }
+
+    @Test
+    public void transformsAreComposedOnlyWhenTheIntermediateIsReleased() {
+        CLIJ clij = CLIJ.getInstance();
+        CLIJHandler handler = new CLIJHandler();
+        boolean lazyEvaluation = CLIJHandler.lazyEvaluation;
+        CLIJHandler.lazyEvaluation = true;
+        try {
+            ImagePlus imp = TestUtilities.getRandomImage(100, 100, 1, 32, 1, 100);
+            ClearCLBuffer a = handler.pushToGPU("a", imp);
+            ClearCLBuffer b = handler.getFromCacheOrCreate("b", a.getDimensions(), a.getNativeType());
+            ClearCLBuffer c = handler.getFromCacheOrCreate("c", a.getDimensions(), a.getNativeType());
+
+            translate(clij, handler, a, b, 10);
+            translate(clij, handler, b, c, -10);
+            assertSame(b, handler.pendingOperations.get(c).getSource());
+
+            // b is released before it was used: c is resampled from a once
+            handler.releaseBufferInGPU("b");
+            assertSame(a, handler.pendingOperations.get(c).getSource());
+            handler.materialize(c);
+            assertEquals(Kernels.sumPixels(clij, a), Kernels.sumPixels(clij, c), 1);
+
+            // an intermediate result which is used is computed as without lazy evaluation
+            b = handler.getFromCacheOrCreate("b", a.getDimensions(), a.getNativeType());
+            translate(clij, handler, a, b, 10);
+            translate(clij, handler, b, c, -10);
+            double sumOfB = Kernels.sumPixels(clij, handler.getFromCacheForReading("b"));
+            assertTrue(sumOfB < Kernels.sumPixels(clij, a));
+            assertEquals(sumOfB, Kernels.sumPixels(clij, handler.getFromCacheForReading("c")), 1);
+        } finally {
+            CLIJHandler.lazyEvaluation = lazyEvaluation;
+            handler.clearGPU();
+            clij.close();
+        }
+    }
+
+    @Test
+    public void imagesWrittenOnTheGPUArePushedCompletelyAgain() {
+        CLIJ clij = CLIJ.getInstance();
+        CLIJHandler handler = new CLIJHandler();
+        boolean deltaPush = CLIJHandler.deltaPush;
+        CLIJHandler.deltaPush = true;
+        try {
+            ImagePlus imp = TestUtilities.getRandomImage(100, 100, 5, 32, 1, 100);
+            double sum = Kernels.sumPixels(clij, handler.pushToGPU("image", imp));
+
+            // CLIJ_set writes its source, which is not named destination
+            set(clij, handler, handler.getFromCacheForReading("image"), 0);
+            assertEquals(0, Kernels.sumPixels(clij, handler.getFromCacheForReading("image")), 0);
+
+            ClearCLBuffer pushed = handler.pushToGPU("image", imp);
+            assertEquals(sum, Kernels.sumPixels(clij, pushed), sum * 1e-6);
+
+            // images handed out to Java code may be written without the handler noticing
+            Kernels.set(clij, handler.getFromCache("image"), 0f);
+            pushed = handler.pushToGPU("image", imp);
+            assertEquals(sum, Kernels.sumPixels(clij, pushed), sum * 1e-6);
+        } finally {
+            CLIJHandler.deltaPush = deltaPush;
+            handler.clearGPU();
+            clij.close();
+        }
+    }
+
+    @Test
+    public void sharedImagesAreCopiedBeforeWriting() {
+        CLIJ clij = CLIJ.getInstance();
+        CLIJHandler handler = new CLIJHandler();
+        boolean deduplicatePush = CLIJHandler.deduplicatePush;
+        CLIJHandler.deduplicatePush = true;
+        try {
+            ImagePlus imp = TestUtilities.getRandomImage(100, 100, 5, 32, 1, 100);
+            ClearCLBuffer a = handler.pushToGPU("a", imp);
+            double sum = Kernels.sumPixels(clij, a);
+
+            // identical images share one buffer
+            assertSame(a, handler.pushToGPU("b", imp.duplicate()));
+            assertSame(a, handler.pushToGPU("c", imp.duplicate()));
+            assertSame(a, handler.pushToGPU("d", imp.duplicate()));
+
+            // CLIJ_set writes its source, which is not named destination
+            ClearCLBuffer b = handler.getImageArgument(new Set(), 0, "b");
+            assertNotSame(a, b);
+            set(clij, handler, b, 0);
+            assertEquals(0, Kernels.sumPixels(clij, handler.getFromCacheForReading("b")), 0);
+            assertEquals(sum, Kernels.sumPixels(clij, handler.getFromCacheForReading("a")), sum * 1e-6);
+
+            // images handed out to Java code may be written
+            Kernels.set(clij, handler.getFromCache("c"), 0f);
+            assertEquals(sum, Kernels.sumPixels(clij, handler.getFromCacheForReading("a")), sum * 1e-6);
+
+            // releasing one name keeps the buffer for the other names
+            handler.releaseBufferInGPU("a");
+            assertSame(a, handler.getFromCacheForReading("d"));
+            assertEquals(sum, Kernels.sumPixels(clij, a), sum * 1e-6);
+            handler.releaseBufferInGPU("d");
+            assertNull(handler.getFromCacheForReading("d"));
+        } finally {
+            CLIJHandler.deduplicatePush = deduplicatePush;
+            handler.clearGPU();
+            clij.close();
+        }
+    }
+
+    @Test
+    public void readingSharedImagesCopiesNothing() {
+        CLIJ clij = CLIJ.getInstance();
+        CLIJHandler handler = new CLIJHandler();
+        boolean deduplicatePush = CLIJHandler.deduplicatePush;
+        CLIJHandler.deduplicatePush = true;
+        try {
+            ImagePlus imp = TestUtilities.getRandomImage(100, 100, 5, 32, 1, 100);
+            ClearCLBuffer a = handler.pushToGPU("a", imp);
+            assertSame(a, handler.pushToGPU("b", imp.duplicate()));
+
+            // CLIJ_copy reads its source and writes its destination
+            Copy copy = new Copy();
+            ClearCLBuffer source = handler.getImageArgument(copy, 0, "b");
+            assertSame(a, source);
+            ClearCLBuffer destination = handler.getFromCacheOrCreate("c", a.getDimensions(), a.getNativeType());
+            copy.setClij(clij);
+            Object[] args = {source, destination};
+            copy.setArgs(args);
+            handler.executePlugin(copy, args);
+
+            assertSame(a, handler.getFromCacheForReading("a"));
+            assertSame(a, handler.getFromCacheForReading("b"));
+            assertEquals(Kernels.sumPixels(clij, a), Kernels.sumPixels(clij, destination), 1);
+        } finally {
+            CLIJHandler.deduplicatePush = deduplicatePush;
+            handler.clearGPU();
+            clij.close();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package net.haesleinhuepf.clij.macro;
+
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.coremem.enums.NativeTypeEnum;
+import net.haesleinhuepf.clij.macro.modules.Downsample2D;
+import net.imglib2.Cursor;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.numeric.real.FloatType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CellStreamingExecutorTest {
+
+    @Test
+    public void blocksCoverTheImageWithHalosCutAtTheBorders() {
+        long[] dimensions = {10, 7};
+        int[] blockSize = {4, 4};
+        int[] halo = {1, 2};
+        long[] gridDimensions = CellStreamingExecutor.getGridDimensions(dimensions, blockSize);
+        assertArrayEquals(new long[]{3, 2}, gridDimensions);
+
+        CellStreamingExecutor.Block first = CellStreamingExecutor.getBlock(0, gridDimensions, dimensions, blockSize, halo);
+        assertArrayEquals(new long[]{0, 0}, first.min);
+        assertArrayEquals(new long[]{3, 3}, first.max);
+        assertArrayEquals(new long[]{0, 0}, first.haloMin);
+        assertArrayEquals(new long[]{4, 5}, first.haloMax);
+
+        // X runs fastest; the last block is smaller than the others
+        CellStreamingExecutor.Block last = CellStreamingExecutor.getBlock(5, gridDimensions, dimensions, blockSize, halo);
+        assertArrayEquals(new long[]{8, 4}, last.min);
+        assertArrayEquals(new long[]{9, 6}, last.max);
+        assertArrayEquals(new long[]{7, 2}, last.haloMin);
+        assertArrayEquals(new long[]{9, 6}, last.haloMax);
+    }
+
+    @Test
+    public void unsuitableBlocksAreRejectedUpFront() {
+        CellStreamingExecutor.checkBlocks(new long[]{100, 100, 100}, NativeTypeEnum.Float, new int[]{32, 32, 32}, new int[]{2, 2, 2});
+
+        long[][] dimensions = {{100}, {100, 100, 100, 100}, {100, 100}, {100, 100}, {100000, 100000}};
+        int[][] blockSizes = {{10}, {10, 10, 10, 10}, {10, 0}, {10, 10}, {100000, 100000}};
+        int[][] halos = {{0}, {0, 0, 0, 0}, {0, 0}, {0, -1}, {0, 0}};
+        for (int i = 0; i < dimensions.length; i++) {
+            try {
+                CellStreamingExecutor.checkBlocks(dimensions[i], NativeTypeEnum.Float, blockSizes[i], halos[i]);
+                fail("Blocks " + i + " should be rejected.");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void allBlocksPassAllStages() {
+        List<Long> processed = Collections.synchronizedList(new ArrayList<Long>());
+        List<Long> written = Collections.synchronizedList(new ArrayList<Long>());
+        CellStreamingExecutor.run(20,
+                index -> new CellStreamingExecutor.Block(new long[]{index}, null, null, null),
+                block -> processed.add(block.min[0]),
+                block -> written.add(block.min[0]));
+
+        assertEquals(20, written.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, (long) processed.get(i));
+            assertEquals(i, (long) written.get(i));
+        }
+    }
+
+    @Test
+    public void failuresStopThePipeline() {
+        String[] failingStages = {"reader", "processor", "writer"};
+        for (String failingStage : failingStages) {
+            List<Long> written = Collections.synchronizedList(new ArrayList<Long>());
+            try {
+                CellStreamingExecutor.run(1000,
+                        index -> {
+                            if (failingStage.equals("reader") && index == 3) {
+                                throw new IllegalStateException(failingStage);
+                            }
+                            return new CellStreamingExecutor.Block(new long[]{index}, null, null, null);
+                        },
+                        block -> {
+                            if (failingStage.equals("processor") && block.min[0] == 3) {
+                                throw new IllegalStateException(failingStage);
+                            }
+                        },
+                        block -> {
+                            if (failingStage.equals("writer") && block.min[0] == 3) {
+                                throw new IllegalStateException(failingStage);
+                            }
+                            written.add(block.min[0]);
+                        });
+                fail("The failure of the " + failingStage + " should be reported.");
+            } catch (RuntimeException e) {
+                Throwable cause = e instanceof IllegalStateException ? e : e.getCause();
+                assertEquals(failingStage, cause.getMessage());
+            }
+            assertTrue(written.size() <= 3);
+        }
+    }
+
+    @Test
+    public void parametersAreHandedOverBeforeTheDestinationIsCreated() {
+        CLIJ clij = CLIJ.getInstance();
+        ArrayImg<FloatType, ?> source = ArrayImgs.floats(20, 15);
+        float value = 0;
+        for (FloatType pixel : source) {
+            pixel.set(value++);
+        }
+        ArrayImg<FloatType, ?> target = ArrayImgs.floats(20, 15);
+
+        // Downsample2D reads the scaling factors when creating its destination
+        CellStreamingExecutor.execute(clij, new Downsample2D(), source, target, new int[]{8, 8}, new int[]{0, 0}, 1.0, 1.0);
+
+        Cursor<FloatType> sourceCursor = source.cursor();
+        Cursor<FloatType> targetCursor = target.cursor();
+        while (sourceCursor.hasNext()) {
+            assertEquals(sourceCursor.next().get(), targetCursor.next().get(), 0);
+        }
+        clij.close();
+    }
+
+    @Test
+    public void destinationsOfAnotherSizeAreRejected() {
+        CLIJ clij = CLIJ.getInstance();
+        ArrayImg<FloatType, ?> source = ArrayImgs.floats(20, 15);
+        ArrayImg<FloatType, ?> target = ArrayImgs.floats(20, 15);
+        try {
+            CellStreamingExecutor.execute(clij, new Downsample2D(), source, target, new int[]{8, 8}, new int[]{0, 0}, 0.5, 0.5);
+            fail("Destinations smaller than the block should be rejected.");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("[4, 4]"));
+            assertTrue(e.getMessage().contains("[8, 8]"));
+        }
+        clij.close();
+    }
+}
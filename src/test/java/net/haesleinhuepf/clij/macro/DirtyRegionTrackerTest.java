@@ -0,0 +1,58 @@
+package net.haesleinhuepf.clij.macro;
+
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.coremem.enums.NativeTypeEnum;
+import net.haesleinhuepf.clij.macro.modules.MaximumZProjection;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DirtyRegionTrackerTest {
+
+    @Test
+    public void recomputedRangeIncludesTheRadiusTwice() {
+        // slices 10 to 12 changed; output 8 to 14 depends on input 6 to 16
+        assertArrayEquals(new int[]{8, 14, 6, 16}, DirtyRegionTracker.getRecomputedRange(10, 12, 2, 100));
+
+        // without radius only the changed slices are recomputed
+        assertArrayEquals(new int[]{5, 5, 5, 5}, DirtyRegionTracker.getRecomputedRange(5, 5, 0, 100));
+    }
+
+    @Test
+    public void recomputedRangeIsClippedAtTheBorders() {
+        assertArrayEquals(new int[]{0, 3, 0, 5}, DirtyRegionTracker.getRecomputedRange(1, 1, 2, 100));
+        assertArrayEquals(new int[]{96, 99, 94, 99}, DirtyRegionTracker.getRecomputedRange(98, 98, 2, 100));
+    }
+
+    @Test
+    public void wholeStacksAreNotRecomputedIncrementally() {
+        assertNull(DirtyRegionTracker.getRecomputedRange(0, 9, 0, 10));
+        assertNull(DirtyRegionTracker.getRecomputedRange(4, 5, 2, 10));
+        assertNotNull(DirtyRegionTracker.getRecomputedRange(4, 5, 1, 10));
+    }
+
+    @Test
+    public void recipesAreDroppedWhenTheirImagesAreReleased() {
+        CLIJ clij = CLIJ.getInstance();
+        ClearCLBuffer source = clij.createCLBuffer(new long[]{10, 10, 5}, NativeTypeEnum.Float);
+        ClearCLBuffer destination = clij.createCLBuffer(new long[]{10, 10}, NativeTypeEnum.Float);
+        DirtyRegionTracker tracker = new DirtyRegionTracker();
+        Object[] args = {source, destination};
+
+        // the former content of changed slices is kept as long as a projection depends on the source
+        tracker.recordExecution(new MaximumZProjection(), args);
+        assertNotNull(tracker.snapshot(clij, source, 0, 0));
+        tracker.forget(destination);
+        assertNull(tracker.snapshot(clij, source, 0, 0));
+
+        tracker.recordExecution(new MaximumZProjection(), args);
+        tracker.forget(source);
+        assertNull(tracker.snapshot(clij, source, 0, 0));
+        assertFalse(tracker.executeIncrementally(clij, new MaximumZProjection(), args));
+
+        source.close();
+        destination.close();
+        clij.close();
+    }
+}
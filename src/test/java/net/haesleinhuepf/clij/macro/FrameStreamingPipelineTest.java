@@ -0,0 +1,188 @@
+package net.haesleinhuepf.clij.macro;
+
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.coremem.enums.NativeTypeEnum;
+import net.haesleinhuepf.clij.kernels.Kernels;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class FrameStreamingPipelineTest {
+
+    private static final long[] dimensions = {10, 10};
+
+    private static float[] frame(int value) {
+        float[] pixels = new float[100];
+        Arrays.fill(pixels, value);
+        return pixels;
+    }
+
+    @Test
+    public void framesAbove2GBAreRejectedUpFront() {
+        FrameStreamingPipeline.checkFrameSize(new long[]{1024, 1024, 100}, NativeTypeEnum.Float);
+
+        long[][] frameDimensions = {{1024, 1024, 512}, {100000, 100000}, {0, 10}};
+        for (long[] frameDimension : frameDimensions) {
+            try {
+                FrameStreamingPipeline.checkFrameSize(frameDimension, NativeTypeEnum.Float);
+                fail("Frames of " + Arrays.toString(frameDimension) + " should be rejected.");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void framesArriveInOrder() throws Exception {
+        CLIJ clij = CLIJ.getInstance();
+        List<Long> indices = Collections.synchronizedList(new ArrayList<Long>());
+        List<Float> values = Collections.synchronizedList(new ArrayList<Float>());
+        FrameStreamingPipeline pipeline = new FrameStreamingPipeline(clij, dimensions, NativeTypeEnum.Float, dimensions, NativeTypeEnum.Float,
+                (c, input, output) -> Kernels.copy(c, input, output),
+                (frameIndex, pixels) -> {
+                    indices.add(frameIndex);
+                    values.add(((float[]) pixels)[99]);
+                }, 3);
+        for (int i = 0; i < 20; i++) {
+            pipeline.submit(frame(i));
+        }
+        pipeline.close();
+
+        assertEquals(20, indices.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, (long) indices.get(i));
+            assertEquals(i, values.get(i), 0);
+        }
+        clij.close();
+    }
+
+    @Test(timeout = 20000)
+    public void stagesOverlap() throws Exception {
+        CLIJ clij = CLIJ.getInstance();
+        List<long[]> processing = Collections.synchronizedList(new ArrayList<long[]>());
+        List<long[]> downloads = Collections.synchronizedList(new ArrayList<long[]>());
+        FrameStreamingPipeline pipeline = new FrameStreamingPipeline(clij, dimensions, NativeTypeEnum.Float, dimensions, NativeTypeEnum.Float,
+                (c, input, output) -> {
+                    Kernels.copy(c, input, output);
+                    sleep(100);
+                },
+                // a slow consumer, e.g. saving frames to disk
+                (frameIndex, pixels) -> sleep(100), 3);
+        pipeline.stageListener = (stage, frameIndex, startNanos, endNanos) -> {
+            long[] interval = {frameIndex, startNanos, endNanos};
+            if (stage.equals("process")) {
+                processing.add(interval);
+            } else if (stage.equals("download")) {
+                downloads.add(interval);
+            }
+        };
+        int numberOfFrames = 10;
+        for (int i = 0; i < numberOfFrames; i++) {
+            pipeline.submit(frame(i));
+        }
+        pipeline.close();
+
+        // frame N is handed over to the consumer while frame N + 1 is processed
+        int overlapping = 0;
+        for (long[] download : downloads) {
+            for (long[] process : processing) {
+                if (process[0] == download[0] + 1 && process[1] < download[2] && download[1] < process[2]) {
+                    overlapping++;
+                }
+            }
+        }
+        assertEquals(numberOfFrames, processing.size());
+        assertTrue("Consuming frames should overlap processing, but only " + overlapping + " did.", overlapping >= numberOfFrames / 2);
+        clij.close();
+    }
+
+    private static void sleep(long milliseconds) {
+        try {
+            Thread.sleep(milliseconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void submitBlocksWhileAllSlotsAreInUse() throws Exception {
+        CLIJ clij = CLIJ.getInstance();
+        CountDownLatch consumerReleased = new CountDownLatch(1);
+        AtomicInteger submitted = new AtomicInteger();
+        FrameStreamingPipeline pipeline = new FrameStreamingPipeline(clij, dimensions, NativeTypeEnum.Float, dimensions, NativeTypeEnum.Float,
+                (c, input, output) -> Kernels.copy(c, input, output),
+                (frameIndex, pixels) -> {
+                    try {
+                        consumerReleased.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, 3);
+
+        Thread acquisition = new Thread(() -> {
+            try {
+                for (int i = 0; i < 5; i++) {
+                    pipeline.submit(frame(i));
+                    submitted.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        acquisition.start();
+
+        // the consumer holds the first frame, the others fill the remaining slots
+        Thread.sleep(1000);
+        assertEquals(3, submitted.get());
+
+        consumerReleased.countDown();
+        acquisition.join();
+        assertEquals(5, submitted.get());
+        pipeline.close();
+        clij.close();
+    }
+
+    @Test(timeout = 10000)
+    public void failuresAreReportedAndClosingDoesNotHang() throws Exception {
+        CLIJ clij = CLIJ.getInstance();
+        String[] failingStages = {"step", "consumer"};
+        for (String failingStage : failingStages) {
+            AtomicInteger processed = new AtomicInteger();
+            FrameStreamingPipeline pipeline = new FrameStreamingPipeline(clij, dimensions, NativeTypeEnum.Float, dimensions, NativeTypeEnum.Float,
+                    (c, input, output) -> {
+                        if (failingStage.equals("step") && processed.incrementAndGet() == 3) {
+                            throw new IllegalStateException(failingStage);
+                        }
+                        Kernels.copy(c, input, output);
+                    },
+                    (frameIndex, pixels) -> {
+                        if (failingStage.equals("consumer") && frameIndex == 2) {
+                            throw new IllegalStateException(failingStage);
+                        }
+                    }, 3);
+
+            // depending on timing, the failure is reported by submit or by close
+            try {
+                for (int i = 0; i < 20; i++) {
+                    pipeline.submit(frame(i));
+                }
+            } catch (RuntimeException e) {
+                assertEquals(failingStage, e.getCause().getMessage());
+            }
+            try {
+                pipeline.close();
+                fail("The failure of the " + failingStage + " should be reported.");
+            } catch (RuntimeException e) {
+                assertEquals(failingStage, e.getCause().getMessage());
+            }
+        }
+        clij.close();
+    }
+}
@@ -0,0 +1,60 @@
+package net.haesleinhuepf.clij.macro.modules;
+
+import ij.IJ;
+import ij.ImagePlus;
+import ij.process.AutoThresholder;
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.kernels.Kernels;
+import net.haesleinhuepf.clij.test.TestUtilities;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AutomaticThresholdsTest {
+
+    @Test
+    public void thresholdsEqualAutomaticThreshold() {
+        CLIJ clij = CLIJ.getInstance();
+        ClearCLBuffer src = clij.convert(IJ.openImage("src/test/resources/blobs.tif"), ClearCLBuffer.class);
+        ClearCLBuffer expected = clij.createCLBuffer(src);
+        ClearCLBuffer actual = clij.createCLBuffer(src);
+
+        String[] methods = AutomaticThresholds.parseMethods("all");
+        float[] thresholds = AutomaticThresholds.automaticThresholds(clij, src, methods, 256);
+        assertEquals(AutoThresholder.getMethods().length, thresholds.length);
+
+        for (int i = 0; i < methods.length; i++) {
+            Kernels.automaticThreshold(clij, src, expected, methods[i]);
+            Kernels.threshold(clij, src, actual, thresholds[i]);
+
+            assertTrue("Method " + methods[i] + " differs from automaticThreshold.", TestUtilities.compareImages(
+                    clij.convert(expected, ImagePlus.class),
+                    clij.convert(actual, ImagePlus.class)));
+        }
+
+        src.close();
+        expected.close();
+        actual.close();
+        IJ.exit();
+        clij.close();
+    }
+
+    @Test
+    public void thresholdsAreOfferedToJavaCallers() {
+        CLIJ clij = CLIJ.getInstance();
+        ClearCLBuffer src = clij.convert(IJ.openImage("src/test/resources/blobs.tif"), ClearCLBuffer.class);
+
+        AutomaticThresholds automaticThresholds = new AutomaticThresholds();
+        automaticThresholds.setClij(clij);
+        automaticThresholds.setArgs(new Object[]{src, "Otsu Default", "", 256.0});
+        automaticThresholds.executeCL();
+
+        float[] thresholds = automaticThresholds.getThresholds();
+        assertArrayEquals(AutomaticThresholds.automaticThresholds(clij, src, new String[]{"Otsu", "Default"}, 256), thresholds, 0);
+
+        src.close();
+        IJ.exit();
+        clij.close();
+    }
+}
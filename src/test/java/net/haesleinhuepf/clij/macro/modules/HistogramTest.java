@@ -0,0 +1,47 @@
+package net.haesleinhuepf.clij.macro.modules;
+
+import ij.IJ;
+import ij.ImagePlus;
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.coremem.enums.NativeTypeEnum;
+import net.haesleinhuepf.clij.kernels.Kernels;
+import net.haesleinhuepf.clij.utilities.HistogramCalculator;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HistogramTest {
+
+    @Test
+    public void histogramEqualsSeparateMinMaxAndFillHistogram() {
+        CLIJ clij = CLIJ.getInstance();
+        ClearCLBuffer src = clij.convert(IJ.openImage("src/test/resources/motion_correction_Drosophila_DSmanila1.tif"), ClearCLBuffer.class);
+        ClearCLBuffer slice = clij.convert(IJ.openImage("src/test/resources/blobs.tif"), ClearCLBuffer.class);
+
+        for (ClearCLBuffer image : new ClearCLBuffer[]{src, slice}) {
+            // the way CLIJ_histogram determined histograms before
+            float minimum = (float) Kernels.minimumOfAllPixels(clij, image);
+            float maximum = (float) Kernels.maximumOfAllPixels(clij, image);
+            ClearCLBuffer expectedBins = clij.createCLBuffer(new long[]{256, 1, 1}, NativeTypeEnum.Float);
+            Kernels.fillHistogram(clij, image, expectedBins, minimum, maximum);
+            float[] expected = (float[]) clij.convert(expectedBins, ImagePlus.class).getProcessor().getPixels();
+
+            ClearCLBuffer bins = clij.createCLBuffer(new long[]{256, 1, 1}, NativeTypeEnum.Float);
+            HistogramCalculator histogram = HistogramCalculator.determine(clij, image, bins, 0, 0, true);
+
+            assertEquals(minimum, histogram.getMinimum(), 0);
+            assertEquals(maximum, histogram.getMaximum(), 0);
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i], histogram.getHistogram()[i], 0);
+            }
+            expectedBins.close();
+            bins.close();
+        }
+
+        src.close();
+        slice.close();
+        IJ.exit();
+        clij.close();
+    }
+}
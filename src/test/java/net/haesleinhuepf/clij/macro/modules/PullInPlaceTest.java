@@ -0,0 +1,125 @@
+package net.haesleinhuepf.clij.macro.modules;
+
+import ij.ImagePlus;
+import ij.WindowManager;
+import ij.macro.Interpreter;
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.coremem.enums.NativeTypeEnum;
+import net.haesleinhuepf.clij.kernels.Kernels;
+import net.haesleinhuepf.clij.macro.CLIJHandler;
+import net.haesleinhuepf.clij.test.TestUtilities;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+public class PullInPlaceTest {
+
+    private static void pullInPlace(CLIJ clij, String name) {
+        PullInPlace pullInPlace = new PullInPlace();
+        pullInPlace.setClij(clij);
+        pullInPlace.setArgs(new Object[]{name});
+        pullInPlace.executeCL();
+    }
+
+    private static ArrayList<ImagePlus> getImages(String title) {
+        ArrayList<ImagePlus> images = new ArrayList<ImagePlus>();
+        int[] ids = WindowManager.getIDList();
+        if (ids != null) {
+            for (int id : ids) {
+                ImagePlus imp = WindowManager.getImage(id);
+                if (imp != null && imp.getTitle().equals(title)) {
+                    images.add(imp);
+                }
+            }
+        }
+        return images;
+    }
+
+    @Test
+    public void pixelsArePulledIntoTheOpenImage() {
+        CLIJ clij = CLIJ.getInstance();
+        CLIJHandler handler = CLIJHandler.getInstance();
+        boolean batchMode = Interpreter.batchMode;
+        Interpreter.batchMode = true;
+        try {
+            ImagePlus imp = TestUtilities.getRandomImage(100, 100, 3, 32, 1, 100);
+            imp.setTitle("inPlace");
+            imp.show();
+            Object[] slices = {imp.getStack().getPixels(1), imp.getStack().getPixels(2), imp.getStack().getPixels(3)};
+
+            ClearCLBuffer buffer = handler.pushToGPU("inPlace");
+            ClearCLBuffer result = clij.createCLBuffer(buffer);
+            Kernels.addImageAndScalar(clij, buffer, result, 5f);
+            Kernels.copy(clij, result, buffer);
+            float[] expected = (float[]) clij.convert(result, ImagePlus.class).getStack().getPixels(2);
+            result.close();
+
+            pullInPlace(clij, "inPlace");
+
+            assertEquals(1, getImages("inPlace").size());
+            for (int z = 0; z < slices.length; z++) {
+                assertSame(slices[z], imp.getStack().getPixels(z + 1));
+            }
+            assertArrayEquals(expected, (float[]) imp.getStack().getPixels(2), 0);
+            assertTrue(imp.changes);
+        } finally {
+            for (ImagePlus imp : getImages("inPlace")) {
+                imp.changes = false;
+                imp.close();
+            }
+            Interpreter.batchMode = batchMode;
+            handler.clearGPU();
+            clij.close();
+        }
+    }
+
+    @Test
+    public void imagesOfAnotherTypeOrSizeArePulledIntoANewWindow() {
+        CLIJ clij = CLIJ.getInstance();
+        CLIJHandler handler = CLIJHandler.getInstance();
+        boolean batchMode = Interpreter.batchMode;
+        Interpreter.batchMode = true;
+        String[] titles = {"otherType", "otherSize"};
+        try {
+            for (String title : titles) {
+                // an 8-bit image of 100 x 100 x 3 pixels is open
+                ImagePlus imp = TestUtilities.getRandomImage(100, 100, 3, 8, 1, 100);
+                imp.setTitle(title);
+                imp.show();
+                Object pixels = imp.getStack().getPixels(2);
+                byte[] original = ((byte[]) pixels).clone();
+
+                long[] dimensions = title.equals("otherType") ? new long[]{100, 100, 3} : new long[]{50, 100, 3};
+                NativeTypeEnum type = title.equals("otherType") ? NativeTypeEnum.Float : NativeTypeEnum.UnsignedByte;
+                ClearCLBuffer buffer = handler.getFromCacheOrCreate(title, dimensions, type);
+                Kernels.set(clij, buffer, 7f);
+
+                pullInPlace(clij, title);
+
+                // the open image is left untouched
+                assertSame(pixels, imp.getStack().getPixels(2));
+                assertArrayEquals(original, (byte[]) pixels);
+
+                ArrayList<ImagePlus> images = getImages(title);
+                assertEquals(2, images.size());
+                ImagePlus pulled = images.get(0) == imp ? images.get(1) : images.get(0);
+                assertEquals(dimensions[0], pulled.getWidth());
+                assertEquals(type == NativeTypeEnum.Float ? 32 : 8, pulled.getBitDepth());
+                assertEquals(7f, pulled.getStack().getProcessor(2).getf(0), 0);
+            }
+        } finally {
+            for (String title : titles) {
+                for (ImagePlus imp : getImages(title)) {
+                    imp.changes = false;
+                    imp.close();
+                }
+            }
+            Interpreter.batchMode = batchMode;
+            handler.clearGPU();
+            clij.close();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package net.haesleinhuepf.clij.macro.modules;
+
+import ij.IJ;
+import ij.ImagePlus;
+import net.haesleinhuepf.clij.CLIJ;
+import net.haesleinhuepf.clij.clearcl.ClearCLBuffer;
+import net.haesleinhuepf.clij.kernels.Kernels;
+import net.haesleinhuepf.clij.test.TestUtilities;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ResliceRadialBatchTest {
+
+    @Test
+    public void oneFrameAroundTheCenterEqualsResliceRadial() {
+        CLIJ clij = CLIJ.getInstance();
+        ImagePlus testImp = IJ.openImage("src/test/resources/motion_correction_Drosophila_DSmanila1.tif");
+        ClearCLBuffer src = clij.convert(testImp, ClearCLBuffer.class);
+
+        int numberOfAngles = 360;
+        float angleStepSize = 2;
+        int effectiveNumberOfAngles = (int) (numberOfAngles / angleStepSize);
+        // as ResliceRadial.createOutputBufferFromSource
+        int maximumRadius = (int) Math.sqrt(Math.pow(src.getWidth() / 2, 2) + Math.pow(src.getHeight() / 2, 2));
+        ClearCLBuffer reference = clij.createCLBuffer(new long[]{maximumRadius, src.getDepth(), effectiveNumberOfAngles}, src.getNativeType());
+        Kernels.radialProjection(clij, src, reference, angleStepSize);
+
+        float[][] centers = ResliceRadialBatch.parseCenters(src, "", "");
+        ClearCLBuffer result = clij.createCLBuffer(reference.getDimensions(), src.getNativeType());
+        ResliceRadialBatch.resliceRadialBatch(clij, src, result, numberOfAngles, angleStepSize, centers[0], centers[1], 1);
+
+        assertTrue(TestUtilities.compareImages(clij.convert(reference, ImagePlus.class), clij.convert(result, ImagePlus.class)));
+
+        src.close();
+        reference.close();
+        result.close();
+        IJ.exit();
+        clij.close();
+    }
+}
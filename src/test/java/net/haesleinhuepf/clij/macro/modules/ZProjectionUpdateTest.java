@@ -0,0 +1,42 @@
+package net.haesleinhuepf.clij.macro.modules;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ZProjectionUpdateTest {
+
+    @Test
+    public void maximumZProjection() {
+        MaximumZProjection projection = new MaximumZProjection();
+        assertEquals(7, projection.update(5, 1, 7, 10), 0);
+        assertEquals(5, projection.update(5, 1, 3, 10), 0);
+        // the former maximum decreased; the projection has to be recomputed
+        assertTrue(Float.isNaN(projection.update(5, 5, 3, 10)));
+        assertEquals(5, projection.update(5, 5, 5, 10), 0);
+    }
+
+    @Test
+    public void minimumZProjection() {
+        MinimumZProjection projection = new MinimumZProjection();
+        assertEquals(1, projection.update(3, 7, 1, 10), 0);
+        assertEquals(3, projection.update(3, 7, 5, 10), 0);
+        // the former minimum increased; the projection has to be recomputed
+        assertTrue(Float.isNaN(projection.update(3, 3, 5, 10)));
+    }
+
+    @Test
+    public void sumZProjection() {
+        SumZProjection projection = new SumZProjection();
+        assertEquals(12, projection.update(10, 3, 5, 4), 0);
+        assertEquals(7, projection.update(10, 3, 0, 4), 0);
+    }
+
+    @Test
+    public void meanZProjection() {
+        MeanZProjection projection = new MeanZProjection();
+        // slices 2, 4, 6, 8; the 4 becomes 8
+        assertEquals(6, projection.update(5, 4, 8, 4), 0.0001);
+        assertEquals(4, projection.update(5, 8, 4, 4), 0.0001);
+    }
+}
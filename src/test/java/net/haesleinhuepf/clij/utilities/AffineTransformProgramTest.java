@@ -0,0 +1,67 @@
+package net.haesleinhuepf.clij.utilities;
+
+import net.imglib2.realtransform.AffineTransform2D;
+import net.imglib2.realtransform.AffineTransform3D;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AffineTransformProgramTest {
+
+    @Test
+    public void compiledProgramEqualsSequentialTransform() {
+        AffineTransform3D expected = new AffineTransform3D();
+        expected.translate(-(101 / 2), -(50 / 2), -(21 / 2));
+        expected.scale(1.0 / 2);
+        AffineTransform3D shear = new AffineTransform3D();
+        shear.set(0.5, 0, 2);
+        expected.concatenate(shear);
+        expected.rotate(2, (float) (-45f / 180.0f * Math.PI));
+        expected.translate(101 / 2, 50 / 2, 21 / 2);
+        expected.translate(3, 0, 0);
+
+        AffineTransform3D actual = AffineTransformProgram.compile("center scale=2 shearXZ=0.5 rotate=45 -center translateX=3", 3).getTransform3D(101, 50, 21);
+
+        for (int row = 0; row < 3; row++) {
+            for (int column = 0; column < 4; column++) {
+                assertEquals(expected.get(row, column), actual.get(row, column), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void twoDimensionalProgram() {
+        AffineTransform2D expected = new AffineTransform2D();
+        expected.translate(-(64 / 2), -(32 / 2));
+        expected.rotate((float) (-30f / 180.0f * Math.PI));
+        expected.translate(64 / 2, 32 / 2);
+
+        AffineTransform2D actual = AffineTransformProgram.compile("center rotate=30 -center", 2).getTransform2D(64, 32);
+
+        for (int row = 0; row < 2; row++) {
+            for (int column = 0; column < 3; column++) {
+                assertEquals(expected.get(row, column), actual.get(row, column), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void programsAreCached() {
+        assertSame(AffineTransformProgram.compile("scale=2", 3), AffineTransformProgram.compile("scale=2", 3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownTransform() {
+        AffineTransformProgram.compile("center rotat=45 -center", 3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void threeDimensionalTransformIn2D() {
+        AffineTransformProgram.compile("rotateX=45", 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingValue() {
+        AffineTransformProgram.compile("scale", 3);
+    }
+}
@@ -0,0 +1,107 @@
+package net.haesleinhuepf.clij.utilities;
+
+import net.haesleinhuepf.clij.utilities.ProjectionAccumulator.Statistic;
+import org.junit.Test;
+
+import java.util.EnumSet;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AxisProjectorTest {
+    private static final int width = 7;
+    private static final int height = 5;
+    private static final int depth = 4;
+
+    private float[] createStack() {
+        Random random = new Random(42);
+        float[] stack = new float[width * height * depth];
+        for (int i = 0; i < stack.length; i++) {
+            stack[i] = random.nextInt(100);
+        }
+        return stack;
+    }
+
+    @Test
+    public void projectEveryAxisCombination() {
+        float[] stack = createStack();
+        for (String axes : new String[]{"X", "Y", "Z", "XY", "XZ", "YZ", "XYZ"}) {
+            for (int slabDepth : new int[]{1, 3, depth}) {
+                AxisProjector projector = new AxisProjector(width, height, depth, axes, EnumSet.of(Statistic.MAX, Statistic.SUM));
+                for (int z = 0; z < depth; z += slabDepth) {
+                    int currentSlabDepth = Math.min(slabDepth, depth - z);
+                    float[] slab = new float[width * height * currentSlabDepth];
+                    System.arraycopy(stack, z * width * height, slab, 0, slab.length);
+                    projector.accumulate(slab, z, currentSlabDepth);
+                }
+
+                assertArrayEquals(bruteForce(stack, axes, false), projector.getResult(Statistic.MAX), 0);
+                assertArrayEquals(bruteForce(stack, axes, true), projector.getResult(Statistic.SUM), 0);
+            }
+        }
+    }
+
+    @Test
+    public void argMaximumAlongY() {
+        float[] stack = new float[width * height * depth];
+        // in every column, the maximum is located at y = x % height
+        for (int z = 0; z < depth; z++) {
+            for (int x = 0; x < width; x++) {
+                stack[(z * height + x % height) * width + x] = 1;
+            }
+        }
+        AxisProjector projector = new AxisProjector(width, height, depth, "Y", EnumSet.of(Statistic.ARGMAX));
+        projector.accumulate(stack, 0, depth);
+
+        float[] argMax = projector.getResult(Statistic.ARGMAX);
+        for (int z = 0; z < depth; z++) {
+            for (int x = 0; x < width; x++) {
+                assertEquals(x % height, argMax[z * width + x], 0);
+            }
+        }
+    }
+
+    @Test
+    public void outputDimensions() {
+        assertArrayEquals(new long[]{7, 4}, AxisProjector.getOutputDimensions(7, 5, 4, "Y"));
+        assertArrayEquals(new long[]{5, 4}, AxisProjector.getOutputDimensions(7, 5, 4, "x"));
+        assertArrayEquals(new long[]{4, 1}, AxisProjector.getOutputDimensions(7, 5, 4, "XY"));
+        assertArrayEquals(new long[]{1, 1}, AxisProjector.getOutputDimensions(7, 5, 4, "XYZ"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void argMaximumAlongSeveralAxes() {
+        new AxisProjector(width, height, depth, "XY", EnumSet.of(Statistic.ARGMAX));
+    }
+
+    private float[] bruteForce(float[] stack, String axes, boolean sum) {
+        boolean[] projected = AxisProjector.parseAxes(axes);
+        long[] dimensions = AxisProjector.getOutputDimensions(width, height, depth, axes);
+        float[] result = new float[(int) (dimensions[0] * dimensions[1])];
+        boolean[] initialized = new boolean[result.length];
+        for (int z = 0; z < depth; z++) {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int[] position = {x, y, z};
+                    int[] size = {width, height, depth};
+                    int index = 0;
+                    int stride = 1;
+                    for (int d = 0; d < 3; d++) {
+                        if (!projected[d]) {
+                            index += position[d] * stride;
+                            stride *= size[d];
+                        }
+                    }
+                    float value = stack[(z * height + y) * width + x];
+                    if (sum) {
+                        result[index] += value;
+                    } else if (!initialized[index] || value > result[index]) {
+                        result[index] = value;
+                    }
+                    initialized[index] = true;
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,85 @@
+package net.haesleinhuepf.clij.utilities;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BlockSamplerTest {
+    private static final int width = 300;
+    private static final int height = 200;
+    private static final int depth = 40;
+
+    private final float[] volume = createVolume();
+    private int readBlocks = 0;
+
+    private float[] createVolume() {
+        Random random = new Random(1);
+        float[] volume = new float[width * height * depth];
+        for (int i = 0; i < volume.length; i++) {
+            // a gradient plus noise
+            volume[i] = (i % width) * 0.1f + random.nextFloat() * 10;
+        }
+        return volume;
+    }
+
+    private BlockSampler createSampler(long seed) {
+        return new BlockSampler(width, height, depth, (x, y, z) -> {
+            readBlocks++;
+            float[] block = new float[64 * 64 * 4];
+            int i = 0;
+            for (int dz = 0; dz < 4; dz++) {
+                for (int dy = 0; dy < 64; dy++) {
+                    for (int dx = 0; dx < 64; dx++) {
+                        block[i++] = volume[((z + dz) * height + y + dy) * width + x + dx];
+                    }
+                }
+            }
+            return block;
+        }, seed);
+    }
+
+    private double exactMean() {
+        double sum = 0;
+        for (float value : volume) {
+            sum += value;
+        }
+        return sum / volume.length;
+    }
+
+    @Test
+    public void estimateWithinConfidenceBounds() {
+        double exactMean = exactMean();
+        int covered = 0;
+        for (long seed = 0; seed < 20; seed++) {
+            BlockSampler.Estimate estimate = createSampler(seed).estimateMean(0.1);
+            if (estimate.lowerBound <= exactMean && exactMean <= estimate.upperBound) {
+                covered++;
+            }
+        }
+        // 95% confidence intervals should contain the exact mean in most cases
+        assertTrue(covered >= 17);
+        assertTrue(readBlocks < 20 * 0.15 * 5 * 4 * 10);
+    }
+
+    @Test
+    public void deterministicForSeed() {
+        assertEquals(createSampler(7).estimateMean(0.05).mean, createSampler(7).estimateMean(0.05).mean, 0);
+    }
+
+    @Test
+    public void targetRelativeError() {
+        BlockSampler.Estimate estimate = createSampler(3).estimateMeanWithRelativeError(0.005);
+
+        assertTrue(estimate.getRelativeError() <= 0.005);
+        assertEquals(exactMean(), estimate.mean, exactMean() * 0.01);
+    }
+
+    @Test
+    public void allBlocksCoverTheImage() {
+        BlockSampler sampler = createSampler(0);
+        assertEquals(5 * 4 * 10, sampler.getNumberOfBlocks());
+        assertEquals(width * height * depth, sampler.samplePixels(1.0).length);
+    }
+}
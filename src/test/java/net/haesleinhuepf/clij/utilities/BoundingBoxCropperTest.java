@@ -0,0 +1,136 @@
+package net.haesleinhuepf.clij.utilities;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class BoundingBoxCropperTest {
+    private static final int width = 10;
+    private static final int height = 8;
+    private static final int depth = 4;
+
+    private float[] createStack() {
+        float[] stack = new float[width * height * depth];
+        for (int i = 0; i < stack.length; i++) {
+            stack[i] = i;
+        }
+        return stack;
+    }
+
+    private static float get(float[] stack, int x, int y, int z) {
+        return stack[(z * height + y) * width + x];
+    }
+
+    @Test
+    public void cropsAndMeasuresInSlabs() {
+        int[][] boxes = BoundingBoxCropper.parseBoxes("1 2 3 2; 4,0,1,5,3,2\n8 6 4 4", depth);
+        assertArrayEquals(new int[]{1, 2, 0, 3, 2, depth}, boxes[0]);
+        assertArrayEquals(new int[]{4, 0, 1, 5, 3, 2}, boxes[1]);
+
+        BoundingBoxCropper cropper = cropInSlabs(boxes, true);
+        assertArrayEquals(new long[]{5, 4, 3 * depth}, cropper.getPackedDimensions());
+        assertEquals(5 * 4 * 3 * depth, cropper.getPacked().length);
+        checkCrops(boxes, cropper);
+    }
+
+    @Test
+    public void cropsWithoutPacking() {
+        int[][] boxes = BoundingBoxCropper.parseBoxes("1 2 3 2; 4,0,1,5,3,2\n8 6 4 4", depth);
+        BoundingBoxCropper cropper = cropInSlabs(boxes, false);
+        assertNull(cropper.getPacked());
+        assertEquals(3 * 2 * depth, cropper.getCrop(0).length);
+        checkCrops(boxes, cropper);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void packedStacksLargerThanAnArrayAreRejected() {
+        int[][] boxes = new int[3000][];
+        for (int i = 0; i < boxes.length; i++) {
+            boxes[i] = new int[]{0, 0, 0, 100, 100, 100};
+        }
+        new BoundingBoxCropper(width, height, depth, boxes, true, false);
+    }
+
+    private BoundingBoxCropper cropInSlabs(int[][] boxes, boolean pack) {
+        float[] stack = createStack();
+        BoundingBoxCropper cropper = new BoundingBoxCropper(width, height, depth, boxes, pack, true);
+        int planeSize = width * height;
+        for (int z = 0; z < depth; z += 3) {
+            int slabDepth = Math.min(3, depth - z);
+            float[] slab = new float[slabDepth * planeSize];
+            System.arraycopy(stack, z * planeSize, slab, 0, slab.length);
+            cropper.accept(slab, z, slabDepth);
+        }
+        return cropper;
+    }
+
+    private void checkCrops(int[][] boxes, BoundingBoxCropper cropper) {
+        float[] stack = createStack();
+        for (int i = 0; i < boxes.length; i++) {
+            int[] box = boxes[i];
+            float[] crop = cropper.getCrop(i);
+            double sum = 0;
+            long count = 0;
+            float max = -Float.MAX_VALUE;
+            for (int z = 0; z < box[5]; z++) {
+                for (int y = 0; y < box[4]; y++) {
+                    for (int x = 0; x < box[3]; x++) {
+                        int sx = box[0] + x;
+                        int sy = box[1] + y;
+                        int sz = box[2] + z;
+                        boolean inside = sx < width && sy < height && sz < depth;
+                        float expected = inside ? get(stack, sx, sy, sz) : 0;
+                        assertEquals(expected, crop[(z * box[4] + y) * box[3] + x], 0);
+                        if (inside) {
+                            sum += expected;
+                            count++;
+                            max = Math.max(max, expected);
+                        }
+                    }
+                }
+            }
+            BoundingBoxCropper.Statistics statistics = cropper.getStatistics(i);
+            assertEquals(count, statistics.getPixelCount());
+            assertEquals(sum, statistics.getSum(), 1e-6);
+            assertEquals(sum / count, statistics.getMean(), 1e-6);
+            assertEquals(max, statistics.getMaximum(), 0);
+        }
+        // the third box leaves the image; its out-of-image part is zero
+        assertEquals(2 * 2 * depth, cropper.getStatistics(2).getPixelCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidBoxes() {
+        BoundingBoxCropper.parseBoxes("1 2 3", depth);
+    }
+
+    @Test
+    public void boxesOutsideTheImageOrWithoutPixelsAreRejectedUpFront() {
+        int[][][] invalidBoxes = {
+                {{width, 0, 0, 2, 2, 1}},
+                {{-3, 0, 0, 3, 2, 1}},
+                {{0, 0, depth, 2, 2, 1}},
+                {{1, 1, 0, -2, 2, 1}},
+                {{1, 1, 0, 2, 0, 1}},
+                {{1, 1, 0, 2, 2, 1}, {1, 1, 0, 2, -1, 1}}
+        };
+        for (int[][] boxes : invalidBoxes) {
+            for (boolean pack : new boolean[]{true, false}) {
+                try {
+                    new BoundingBoxCropper(width, height, depth, boxes, pack, true);
+                    fail("Box " + Arrays.toString(boxes[boxes.length - 1]) + " should be rejected.");
+                } catch (IllegalArgumentException e) {
+                    assertTrue(e.getMessage().startsWith("Bounding box " + (boxes.length - 1)));
+                }
+            }
+        }
+
+        // boxes partly outside the image are cropped
+        BoundingBoxCropper cropper = new BoundingBoxCropper(width, height, depth, new int[][]{{-1, -1, 0, 2, 2, 1}}, false, true);
+        cropper.accept(createStack(), 0, depth);
+        assertEquals(1, cropper.getStatistics(0).getPixelCount());
+        assertEquals(0, cropper.getStatistics(0).getMean(), 0);
+    }
+}
@@ -0,0 +1,47 @@
+package net.haesleinhuepf.clij.utilities;
+
+import ij.measure.ResultsTable;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HistogramCalculatorTest {
+
+    @Test
+    public void binsAndMinMax() {
+        float[] values = {0, 1, 2, 3, 4, 4, 8};
+        HistogramCalculator histogram = HistogramCalculator.determine(values, 5, 0, 0, true);
+
+        assertEquals(0, histogram.getMinimum(), 0);
+        assertEquals(8, histogram.getMaximum(), 0);
+        assertArrayEquals(new long[]{2, 2, 2, 0, 1}, histogram.getHistogram());
+        assertArrayEquals(new long[]{2, 4, 6, 6, 7}, histogram.getCumulativeHistogram());
+        assertArrayEquals(new double[]{0, 2, 4, 6, 8}, histogram.getBinStarts(), 0);
+    }
+
+    @Test
+    public void valuesOutsideRangeAreNotCounted() {
+        float[] values = {-1, 0, 5, 10, 11};
+        HistogramCalculator histogram = HistogramCalculator.determine(values, 2, 0, 10, false);
+
+        assertArrayEquals(new long[]{2, 1}, histogram.getHistogram());
+    }
+
+    @Test
+    public void rowsAreAppendedToTheResultsTable() {
+        ResultsTable table = new ResultsTable();
+        table.incrementCounter();
+        table.addValue("Mean", 5);
+
+        float[] values = {0, 1, 2, 3, 4, 4, 8};
+        HistogramCalculator histogram = HistogramCalculator.determine(values, 5, 0, 0, true);
+        histogram.appendTo(table, true);
+
+        assertEquals(6, table.size());
+        assertEquals(5, table.getValue("Mean", 0), 0);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(histogram.getBinStarts()[i], table.getValue("Grey value", i + 1), 0);
+            assertEquals(histogram.getCumulativeHistogram()[i], table.getValue("Number of pixels", i + 1), 0);
+        }
+    }
+}
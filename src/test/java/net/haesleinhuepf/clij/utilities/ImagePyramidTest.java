@@ -0,0 +1,133 @@
+package net.haesleinhuepf.clij.utilities;
+
+import net.haesleinhuepf.clij.coremem.enums.NativeTypeEnum;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ImagePyramidTest {
+
+    private static float[] createStack(int numberOfPixels) {
+        Random random = new Random(7);
+        float[] stack = new float[numberOfPixels];
+        for (int i = 0; i < stack.length; i++) {
+            stack[i] = random.nextInt(100);
+        }
+        return stack;
+    }
+
+    // reference: mean over the covered pixels of the parent, computed directly
+    private static float[] reduce(float[] parent, long[] parentDimensions, long[] dimensions, boolean antiAliasing) {
+        float[] result = new float[(int) (dimensions[0] * dimensions[1] * dimensions[2])];
+        int zFactor = dimensions[2] < parentDimensions[2] ? 2 : 1;
+        for (int z = 0; z < dimensions[2]; z++) {
+            for (int y = 0; y < dimensions[1]; y++) {
+                for (int x = 0; x < dimensions[0]; x++) {
+                    float sum = 0;
+                    int count = 0;
+                    for (int dz = 0; dz < (antiAliasing ? zFactor : 1); dz++) {
+                        for (int dy = 0; dy < (antiAliasing ? 2 : 1); dy++) {
+                            for (int dx = 0; dx < (antiAliasing ? 2 : 1); dx++) {
+                                long px = 2 * x + dx;
+                                long py = 2 * y + dy;
+                                long pz = zFactor * z + dz;
+                                if (px < parentDimensions[0] && py < parentDimensions[1] && pz < parentDimensions[2]) {
+                                    sum += parent[(int) ((pz * parentDimensions[1] + py) * parentDimensions[0] + px)];
+                                    count++;
+                                }
+                            }
+                        }
+                    }
+                    result[(int) ((z * dimensions[1] + y) * dimensions[0] + x)] = sum / count;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void levelsEqualRepeatedDownsampling() {
+        long[] dimensions = {11, 6, 5};
+        float[] stack = createStack(11 * 6 * 5);
+
+        for (boolean antiAliasing : new boolean[]{true, false}) {
+            ImagePyramid pyramid = ImagePyramid.of(stack, dimensions[0], dimensions[1], dimensions[2], 4, antiAliasing);
+            assertEquals(4, pyramid.getNumberOfLevels());
+
+            float[] parent = stack;
+            long[] parentDimensions = dimensions;
+            long[][] expectedDimensions = {{6, 3, 3}, {3, 2, 2}, {2, 1, 1}, {1, 1, 1}};
+            for (int i = 0; i < 4; i++) {
+                ImagePyramid.Level level = pyramid.getLevel(i);
+                assertEquals(2 << i, level.getFactor());
+                assertArrayEquals(expectedDimensions[i], level.getDimensions());
+
+                float[] expected = reduce(parent, parentDimensions, level.getDimensions(), antiAliasing);
+                assertArrayEquals(expected, level.getData(), 1e-4f);
+                parent = expected;
+                parentDimensions = level.getDimensions();
+            }
+        }
+    }
+
+    @Test
+    public void twoDimensionalImagesKeepDepthOne() {
+        float[] image = createStack(8 * 8);
+        ImagePyramid pyramid = ImagePyramid.of(image, 8, 8, 1, 2, true);
+        assertArrayEquals(new long[]{4, 4, 1}, pyramid.getLevel(0).getDimensions());
+        assertArrayEquals(new long[]{2, 2, 1}, pyramid.getLevel(1).getDimensions());
+        assertEquals((image[0] + image[1] + image[8] + image[9]) / 4, pyramid.getLevel(0).getData()[0], 1e-4);
+    }
+
+    @Test
+    public void levelForZoom() {
+        ImagePyramid pyramid = ImagePyramid.of(createStack(64 * 64), 64, 64, 1, 3, true);
+        assertNull(pyramid.getLevelForZoom(1.0));
+        assertEquals(2, pyramid.getLevelForZoom(0.5).getFactor());
+        assertEquals(4, pyramid.getLevelForZoom(0.2).getFactor());
+        assertEquals(2, pyramid.getLevelForZoom(0.3).getFactor());
+        assertEquals(8, pyramid.getLevelForZoom(0.01).getFactor());
+    }
+
+    @Test
+    public void factorForZoomIsTheFactorOfTheLevelForZoom() {
+        assertEquals(1, ImagePyramid.getFactorForZoom(0.6, 3));
+        assertEquals(4, ImagePyramid.getFactorForZoom(0.2, 3));
+        assertEquals(8, ImagePyramid.getFactorForZoom(0.01, 3));
+        assertEquals(1 << 30, ImagePyramid.getFactorForZoom(1e-12, ImagePyramid.MAXIMUM_NUMBER_OF_LEVELS));
+    }
+
+    @Test
+    public void levelsTooLargeForMemoryAreRejected() {
+        try {
+            new ImagePyramid.Level(2, new long[]{100000, 100000, 1});
+            fail("Levels with more than 2^31 pixels should be rejected.");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void cacheDropsLeastRecentlyUsedPyramids() {
+        long previousMaximum = PyramidCache.maximumSizeInBytes;
+        try {
+            PyramidCache.clear();
+            ImagePyramid pyramid = ImagePyramid.of(createStack(16 * 16), 16, 16, 1, 1, true);
+            PyramidCache.maximumSizeInBytes = pyramid.getSizeInBytes() * 2;
+
+            PyramidCache.put("a", pyramid, NativeTypeEnum.Float, 2);
+            PyramidCache.put("b", pyramid, NativeTypeEnum.Float, 2);
+            assertNotNull(PyramidCache.get("a"));
+            PyramidCache.put("c", pyramid, NativeTypeEnum.Float, 2);
+
+            assertNotNull(PyramidCache.get("a"));
+            assertNull(PyramidCache.get("b"));
+            assertNotNull(PyramidCache.get("c"));
+        } finally {
+            PyramidCache.maximumSizeInBytes = previousMaximum;
+            PyramidCache.clear();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package net.haesleinhuepf.clij.utilities;
+
+import net.haesleinhuepf.clij.coremem.enums.NativeTypeEnum;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class ImgLib2TransferTest {
+
+    @Test
+    public void planesAreCopiedBehindEachOther() {
+        short[][] planes = {{1, 2, 3}, {-4, 5, 6}, {7, 8, -9}};
+        ByteBuffer bytes = SlabStreamer.allocate(9 * 2);
+
+        long offset = 0;
+        for (short[] plane : planes) {
+            offset += ImgLib2Transfer.copy(plane, bytes, offset, true);
+        }
+        assertEquals(9, offset);
+        for (int i = 0; i < 9; i++) {
+            assertEquals(planes[i / 3][i % 3], bytes.getShort(i * 2));
+        }
+
+        short[][] copies = new short[3][3];
+        offset = 0;
+        for (short[] copy : copies) {
+            offset += ImgLib2Transfer.copy(copy, bytes, offset, false);
+        }
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(planes[i], copies[i]);
+        }
+    }
+
+    @Test
+    public void allPrimitiveArraysAreSupported() {
+        ByteBuffer bytes = SlabStreamer.allocate(4 * 4);
+
+        ImgLib2Transfer.copy(new byte[]{1, 2, 3, 4}, bytes, 0, true);
+        assertEquals(3, bytes.get(2));
+
+        ImgLib2Transfer.copy(new int[]{10, 20}, bytes, 2, true);
+        assertEquals(20, bytes.getInt(12));
+
+        float[] floats = new float[4];
+        ImgLib2Transfer.copy(new float[]{0.5f, 1.5f, 2.5f, 3.5f}, bytes, 0, true);
+        ImgLib2Transfer.copy(floats, bytes, 0, false);
+        assertArrayEquals(new float[]{0.5f, 1.5f, 2.5f, 3.5f}, floats, 0);
+    }
+
+    @Test
+    public void slicesAreCopiedInParallel() {
+        float[][] slices = new float[16][5];
+        for (int z = 0; z < slices.length; z++) {
+            for (int i = 0; i < 5; i++) {
+                slices[z][i] = z * 5 + i;
+            }
+        }
+        ByteBuffer bytes = SlabStreamer.allocate(16 * 5 * 4);
+        ImgLib2Transfer.copyAll(slices, bytes, true);
+        for (int i = 0; i < 16 * 5; i++) {
+            assertEquals(i, bytes.getFloat(i * 4), 0);
+        }
+
+        float[][] copies = new float[16][5];
+        ImgLib2Transfer.copyAll(copies, bytes, false);
+        for (int z = 0; z < slices.length; z++) {
+            assertArrayEquals(slices[z], copies[z], 0);
+        }
+    }
+
+    @Test
+    public void rangesAreCopiedAcrossArrays() {
+        // two arrays of 3 and 5 elements; planes of 2 elements cross the border between them
+        int[][] arrays = {{0, 1, 2}, {3, 4, 5, 6, 7}};
+        long[] offsets = {0, 3};
+        ByteBuffer bytes = SlabStreamer.allocate(2 * 4);
+        for (int plane = 0; plane < 4; plane++) {
+            ImgLib2Transfer.copyRange(arrays, offsets, plane * 2, 2, bytes, true);
+            assertEquals(plane * 2, bytes.getInt(0));
+            assertEquals(plane * 2 + 1, bytes.getInt(4));
+        }
+
+        int[][] copies = {new int[3], new int[5]};
+        for (int plane = 0; plane < 4; plane++) {
+            bytes.putInt(0, -plane * 2);
+            bytes.putInt(4, -plane * 2 - 1);
+            ImgLib2Transfer.copyRange(copies, offsets, plane * 2, 2, bytes, false);
+        }
+        assertArrayEquals(new int[]{0, -1, -2}, copies[0]);
+        assertArrayEquals(new int[]{-3, -4, -5, -6, -7}, copies[1]);
+    }
+
+    @Test
+    public void onlyPlanesLargerThanTwoGigabytesAreNotTransferable() {
+        assertTrue(ImgLib2Transfer.isTransferable(new long[]{20000, 20000, 100}, NativeTypeEnum.Float));
+        assertFalse(ImgLib2Transfer.isTransferable(new long[]{30000, 30000}, NativeTypeEnum.Float));
+        assertNull(ImgLib2Transfer.createArrayImg(new long[]{50000, 50000}, NativeTypeEnum.UnsignedByte));
+    }
+}
@@ -0,0 +1,80 @@
+package net.haesleinhuepf.clij.utilities;
+
+import net.haesleinhuepf.clij.coremem.enums.NativeTypeEnum;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+import static org.junit.Assert.*;
+
+public class MappedImageFileTest {
+
+    private static File createFile(ByteBuffer content) throws IOException {
+        File file = File.createTempFile("mapped", ".tif");
+        file.deleteOnExit();
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            content.rewind();
+            channel.write(content, 0);
+        }
+        return file;
+    }
+
+    @Test
+    public void tiffFilesCanBeReadBack() throws IOException {
+        // 3 x 2 pixels, 2 slices, as pullTiff writes them behind the header
+        ByteBuffer pixels = ByteBuffer.allocate(8 + 24).order(ByteOrder.nativeOrder());
+        pixels.position(8);
+        for (int i = 0; i < 12; i++) {
+            pixels.putShort((short) (i * 1000));
+        }
+        File file = createFile(pixels);
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            MappedImageFile.writeTiffHeader(channel, 3, 2, 2, NativeTypeEnum.UnsignedShort);
+        }
+
+        MappedImageFile image = MappedImageFile.openTiff(file);
+        assertArrayEquals(new long[]{3, 2, 2}, image.getDimensions());
+        assertEquals(NativeTypeEnum.UnsignedShort, image.getNativeType());
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            ByteBuffer slice = image.mapSlice(channel, 1, null);
+            for (int i = 0; i < 6; i++) {
+                assertEquals((short) ((i + 6) * 1000), slice.getShort(i * 2));
+            }
+        }
+    }
+
+    @Test
+    public void rawFilesAreSwappedToNativeOrder() throws IOException {
+        for (ByteOrder byteOrder : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            // a header of 4 bytes and 2 slices of 2 x 2 floats
+            ByteBuffer content = ByteBuffer.allocate(4 + 32).order(byteOrder);
+            content.putInt(-1);
+            for (int i = 0; i < 8; i++) {
+                content.putFloat(i + 0.5f);
+            }
+            File file = createFile(content);
+
+            MappedImageFile image = MappedImageFile.openRaw(file, 2, 2, 2, NativeTypeEnum.Float, 4, byteOrder == ByteOrder.LITTLE_ENDIAN);
+            assertArrayEquals(new long[]{2, 2, 2}, image.getDimensions());
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+                 FileChannel channel = randomAccessFile.getChannel()) {
+                ByteBuffer staging = ByteBuffer.allocateDirect(16);
+                for (int z = 0; z < 2; z++) {
+                    ByteBuffer slice = image.mapSlice(channel, z, staging);
+                    assertEquals(ByteOrder.nativeOrder(), slice.order());
+                    for (int i = 0; i < 4; i++) {
+                        assertEquals(z * 4 + i + 0.5f, slice.getFloat(i * 4), 0);
+                    }
+                }
+            }
+        }
+    }
+}
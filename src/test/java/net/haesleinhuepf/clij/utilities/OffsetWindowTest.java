@@ -0,0 +1,61 @@
+package net.haesleinhuepf.clij.utilities;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.*;
+
+public class OffsetWindowTest {
+
+    private static Object[] createSlices(int width, int height, int depth) {
+        Object[] slices = new Object[depth];
+        for (int z = 0; z < depth; z++) {
+            float[] slice = new float[width * height];
+            for (int i = 0; i < slice.length; i++) {
+                slice[i] = z * 1000 + i;
+            }
+            slices[z] = slice;
+        }
+        return slices;
+    }
+
+    @Test
+    public void rowsOfTheWindowAreCopiedFromTheParent() {
+        Object[] slices = createSlices(5, 4, 3);
+        OffsetWindow window = new OffsetWindow(slices, 5, 4, new int[]{1, 2, 1}, new int[]{3, 2, 2});
+        assertArrayEquals(new long[]{3, 2, 2}, window.getDimensions());
+
+        ByteBuffer bytes = ByteBuffer.allocateDirect(3 * 2 * 2 * 4).order(ByteOrder.nativeOrder());
+        window.copyRows(0, 2, bytes);
+        FloatBuffer pixels = bytes.asFloatBuffer();
+        for (int z = 0; z < 2; z++) {
+            for (int y = 0; y < 2; y++) {
+                for (int x = 0; x < 3; x++) {
+                    float expected = ((float[]) slices[z + 1])[(y + 2) * 5 + x + 1];
+                    assertEquals(expected, pixels.get((z * 2 + y) * 3 + x), 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void singleSlicesAreTwoDimensional() {
+        Object[] slices = createSlices(5, 4, 3);
+        OffsetWindow window = new OffsetWindow(slices, 5, 4, new int[]{0, 0, 2}, new int[]{5, 4, 1});
+        assertArrayEquals(new long[]{5, 4}, window.getDimensions());
+
+        ByteBuffer bytes = ByteBuffer.allocateDirect(5 * 4 * 4).order(ByteOrder.nativeOrder());
+        window.copyRows(0, 1, bytes);
+        float[] pixels = new float[5 * 4];
+        bytes.asFloatBuffer().get(pixels);
+        assertArrayEquals((float[]) slices[2], pixels, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void windowsExceedingTheImageAreRejected() {
+        new OffsetWindow(createSlices(5, 4, 3), 5, 4, new int[]{3, 0, 0}, new int[]{3, 4, 1});
+    }
+}
@@ -0,0 +1,50 @@
+package net.haesleinhuepf.clij.utilities;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PixelChecksumTest {
+
+    @Test
+    public void changedPixelsChangeTheChecksum() {
+        short[] pixels = new short[1001];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = (short) (i * 7);
+        }
+        long checksum = PixelChecksum.checksum(pixels);
+        assertEquals(checksum, PixelChecksum.checksum(pixels.clone()));
+
+        // every position, including the remainder after the last full round
+        for (int i : new int[]{0, 3, 500, 1000}) {
+            short[] changed = pixels.clone();
+            changed[i]++;
+            assertTrue(checksum != PixelChecksum.checksum(changed));
+        }
+        assertTrue(checksum != PixelChecksum.checksum(new short[1002]));
+    }
+
+    @Test
+    public void allPrimitiveArraysAreSupported() {
+        assertTrue(PixelChecksum.checksum(new byte[]{1, 2, 3}) != PixelChecksum.checksum(new byte[]{1, 2, 4}));
+        assertTrue(PixelChecksum.checksum(new int[]{1, 2, 3}) != PixelChecksum.checksum(new int[]{1, 2, 4}));
+        assertTrue(PixelChecksum.checksum(new float[]{0.0f}) != PixelChecksum.checksum(new float[]{-0.0f}));
+    }
+
+    @Test
+    public void slicesAreComparedIndividually() {
+        float[][] slices = new float[5][64];
+        for (int z = 0; z < slices.length; z++) {
+            slices[z][z] = z + 1;
+        }
+        long[] before = PixelChecksum.checksums(slices);
+        slices[3][10] = 42;
+        long[] after = PixelChecksum.checksums(slices);
+
+        for (int z = 0; z < slices.length; z++) {
+            assertEquals(z != 3, before[z] == after[z]);
+        }
+        assertTrue(PixelChecksum.combine(before) != PixelChecksum.combine(after));
+        assertTrue(PixelChecksum.combine(new long[]{before[0], before[1]}) != PixelChecksum.combine(new long[]{before[1], before[0]}));
+    }
+}
@@ -0,0 +1,57 @@
+package net.haesleinhuepf.clij.utilities;
+
+import net.haesleinhuepf.clij.utilities.ProjectionAccumulator.Statistic;
+import org.junit.Test;
+
+import java.util.EnumSet;
+
+import static org.junit.Assert.*;
+
+public class ProjectionAccumulatorTest {
+
+    @Test
+    public void allStatisticsInOnePass() {
+        float[][] values = {
+                {1, 5, 3},
+                {4, 2, 2},
+                {0, 7, 2}
+        };
+
+        ProjectionAccumulator accumulator = new ProjectionAccumulator(3, EnumSet.allOf(Statistic.class));
+        for (int z = 0; z < values.length; z++) {
+            for (int i = 0; i < 3; i++) {
+                accumulator.accumulate(i, values[z][i], z);
+            }
+        }
+
+        assertArrayEquals(new float[]{4, 7, 3}, accumulator.getResult(Statistic.MAX), 0);
+        assertArrayEquals(new float[]{0, 2, 2}, accumulator.getResult(Statistic.MIN), 0);
+        assertArrayEquals(new float[]{5, 14, 7}, accumulator.getResult(Statistic.SUM), 0);
+        assertArrayEquals(new float[]{5f / 3, 14f / 3, 7f / 3}, accumulator.getResult(Statistic.MEAN), 0.0001f);
+        assertArrayEquals(new float[]{1, 2, 0}, accumulator.getResult(Statistic.ARGMAX), 0);
+        // the first occurrence of the minimum is reported
+        assertArrayEquals(new float[]{2, 1, 1}, accumulator.getResult(Statistic.ARGMIN), 0);
+
+        float[] std = accumulator.getResult(Statistic.STD);
+        assertEquals(Math.sqrt((1 + 4 + 0) / 3.0 - Math.pow(5.0 / 3, 2)), std[0], 0.0001);
+        assertEquals(Math.sqrt((4 + 1 + 1) / 3.0 - Math.pow(4.0 / 3, 2)), std[2], 0.0001);
+    }
+
+    @Test
+    public void parseStatisticNames() {
+        assertEquals(Statistic.MAX, Statistic.fromString("maximum"));
+        assertEquals(Statistic.ARGMIN, Statistic.fromString("arg_min"));
+        assertEquals(Statistic.STD, Statistic.fromString("StdDev"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownStatistic() {
+        Statistic.fromString("median");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void resultNotAccumulated() {
+        ProjectionAccumulator accumulator = new ProjectionAccumulator(1, EnumSet.of(Statistic.MAX));
+        accumulator.getResult(Statistic.SUM);
+    }
+}
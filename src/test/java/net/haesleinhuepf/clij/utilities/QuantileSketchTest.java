@@ -0,0 +1,72 @@
+package net.haesleinhuepf.clij.utilities;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class QuantileSketchTest {
+
+    private float[] createValues(int count) {
+        Random random = new Random(42);
+        float[] values = new float[count];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (float) (random.nextGaussian() * 10);
+        }
+        // outliers must not disturb the other quantiles
+        values[0] = 1e30f;
+        values[1] = -1e30f;
+        return values;
+    }
+
+    @Test
+    public void quantilesWithinRankError() {
+        float[] values = createValues(300000);
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.updateParallel(values);
+
+        float[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        assertEquals(values.length, sketch.getCount());
+        assertEquals(-1e30f, sketch.getQuantile(0), 0);
+        assertEquals(1e30f, sketch.getQuantile(1), 0);
+        for (double q : new double[]{0.01, 0.1, 0.5, 0.9, 0.99}) {
+            float quantile = sketch.getQuantile(q);
+            int rank = Arrays.binarySearch(sorted, quantile);
+            assertEquals("quantile " + q, q, (double) rank / values.length, 0.02);
+        }
+        assertTrue(sketch.getRetainedSize() < 1000);
+    }
+
+    @Test
+    public void mergedSketchEqualsSketchOfAllValues() {
+        float[] values = createValues(200000);
+        QuantileSketch first = new QuantileSketch();
+        first.updateParallel(values);
+        QuantileSketch second = new QuantileSketch();
+        second.updateParallel(values);
+
+        // deterministic: identical input leads to identical results
+        assertEquals(first.getQuantile(0.3), second.getQuantile(0.3), 0);
+
+        first.merge(second);
+        assertEquals(2L * values.length, first.getCount());
+        assertEquals(second.getQuantile(0.5), first.getQuantile(0.5), 0.5);
+    }
+
+    @Test
+    public void nanIsIgnored() {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.update(new float[]{Float.NaN, 1, 2, 3}, 0, 4);
+        assertEquals(3, sketch.getCount());
+        assertEquals(2, sketch.getQuantile(0.5), 0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void emptySketch() {
+        new QuantileSketch().getQuantile(0.5);
+    }
+}
@@ -0,0 +1,137 @@
+package net.haesleinhuepf.clij.utilities;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RadialSamplingTableTest {
+    private static final int width = 9;
+    private static final int height = 7;
+    private static final int depth = 3;
+
+    // every pixel has a different value
+    private float[] createRamp() {
+        float[] stack = new float[width * height * depth];
+        for (int z = 0; z < depth; z++) {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    stack[(z * height + y) * width + x] = x + 2 * y + 100 * z;
+                }
+            }
+        }
+        return stack;
+    }
+
+    @Test
+    public void tablesAreCached() {
+        RadialSamplingTable table = RadialSamplingTable.get(width, height, 8, 45, 4, 3, 3);
+        assertSame(table, RadialSamplingTable.get(width, height, 8, 45, 4, 3, 3));
+        assertNotSame(table, RadialSamplingTable.get(width, height, 8, 45, 3, 3, 3));
+    }
+
+    @Test
+    public void samplesAlongRaysLikeTheKernel() {
+        int numberOfRadii = 7;
+        int numberOfAngles = 12;
+        float angleStepSize = 30;
+        float[] stack = createRamp();
+        RadialSamplingTable table = RadialSamplingTable.get(width, height, numberOfAngles, angleStepSize, 4, 3, numberOfRadii);
+        float[] result = new float[numberOfRadii * depth * numberOfAngles];
+        table.resample(stack, 0, depth, depth, result, 0);
+
+        for (int a = 0; a < numberOfAngles; a++) {
+            float angle = (float) ((float) a * angleStepSize / 180.0 * Math.PI);
+            for (int z = 0; z < depth; z++) {
+                for (int r = 0; r < numberOfRadii; r++) {
+                    // X along the sine, Y along the cosine, clamped to the edge as the kernel reads
+                    int x = Math.max(0, Math.min(width - 1, (int) (4 + (float) Math.sin(angle) * r)));
+                    int y = Math.max(0, Math.min(height - 1, (int) (3 + (float) Math.cos(angle) * r)));
+                    assertEquals(stack[(z * height + y) * width + x], result[(a * depth + z) * numberOfRadii + r], 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void maximumRadiusEqualsResliceRadialForTheCenter() {
+        for (int w = 1; w < 12; w++) {
+            for (int h = 1; h < 12; h++) {
+                int expected = (int) Math.sqrt(Math.pow(w / 2, 2) + Math.pow(h / 2, 2));
+                assertEquals(Math.max(1, expected), RadialSamplingTable.getMaximumRadius(w, h, w / 2, h / 2));
+            }
+        }
+    }
+
+    @Test
+    public void slabsAndAngleOffsets() {
+        int numberOfRadii = 4;
+        float[] stack = createRamp();
+        RadialSamplingTable table = RadialSamplingTable.get(width, height, 4, 90, 2, 2, numberOfRadii);
+
+        float[] whole = new float[numberOfRadii * depth * 8];
+        table.resample(stack, 0, depth, depth, whole, 4);
+
+        float[] slabwise = new float[whole.length];
+        int planeSize = width * height;
+        for (int z = 0; z < depth; z++) {
+            float[] slab = new float[planeSize];
+            System.arraycopy(stack, z * planeSize, slab, 0, planeSize);
+            table.resample(slab, z, 1, depth, slabwise, 4);
+        }
+        assertArrayEquals(whole, slabwise, 0);
+
+        // the ray at 180 degrees runs up from (2, 2); the sine isn't exactly zero in single precision, hence X is
+        // truncated to 1, and Y is clamped to the edge after two pixels
+        int angle180 = 4 + 2;
+        assertEquals(stack[1], whole[(angle180 * depth) * numberOfRadii + 2], 0);
+        assertEquals(stack[1], whole[(angle180 * depth) * numberOfRadii + 3], 0);
+        // angles before the offset are untouched
+        assertEquals(0, whole[0], 0);
+    }
+
+    @Test
+    public void cacheIsBoundedByMemory() {
+        long maximum = RadialSamplingTable.maximumCacheSizeInBytes;
+        try {
+            RadialSamplingTable first = RadialSamplingTable.get(width, height, 4, 90, 1, 1, 5);
+            // room for two tables of this size
+            RadialSamplingTable.maximumCacheSizeInBytes = 2 * first.getSizeInBytes();
+            RadialSamplingTable second = RadialSamplingTable.get(width, height, 4, 90, 2, 1, 5);
+            assertSame(first, RadialSamplingTable.get(width, height, 4, 90, 1, 1, 5));
+            RadialSamplingTable.get(width, height, 4, 90, 3, 1, 5);
+            // the second table was used least recently
+            assertSame(first, RadialSamplingTable.get(width, height, 4, 90, 1, 1, 5));
+            assertNotSame(second, RadialSamplingTable.get(width, height, 4, 90, 2, 1, 5));
+
+            // tables larger than the cache are not kept
+            RadialSamplingTable large = RadialSamplingTable.get(width, height, 40, 9, 1, 1, 5);
+            assertNotSame(large, RadialSamplingTable.get(width, height, 40, 9, 1, 1, 5));
+        } finally {
+            RadialSamplingTable.maximumCacheSizeInBytes = maximum;
+        }
+    }
+
+    @Test
+    public void framesInOneSlab() {
+        int numberOfRadii = 3;
+        float[] frames = createRamp();
+        RadialSamplingTable table = RadialSamplingTable.get(width, height, 4, 90, 4, 3, numberOfRadii);
+
+        // the slab holds slices 1 and 2; slice 2 is the first slice of the second frame of depth 2
+        int planeSize = width * height;
+        float[] slab = new float[2 * planeSize];
+        System.arraycopy(frames, planeSize, slab, 0, slab.length);
+        float[] result = new float[numberOfRadii * 2 * 8];
+        table.resample(slab, 0, 1, 1, 2, result, 0);
+        table.resample(slab, 1, 0, 1, 2, result, 4);
+
+        float[] expected = new float[numberOfRadii * depth * 4];
+        table.resample(frames, 0, depth, depth, expected, 0);
+        for (int a = 0; a < 4; a++) {
+            for (int r = 0; r < numberOfRadii; r++) {
+                assertEquals(expected[(a * depth + 1) * numberOfRadii + r], result[(a * 2 + 1) * numberOfRadii + r], 0);
+                assertEquals(expected[(a * depth + 2) * numberOfRadii + r], result[((4 + a) * 2) * numberOfRadii + r], 0);
+            }
+        }
+    }
+}
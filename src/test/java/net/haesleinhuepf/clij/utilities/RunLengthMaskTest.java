@@ -0,0 +1,66 @@
+package net.haesleinhuepf.clij.utilities;
+
+import org.junit.Test;
+
+import java.awt.Rectangle;
+
+import static org.junit.Assert.*;
+
+public class RunLengthMaskTest {
+
+    @Test
+    public void rowsAreEncodedAsRuns() {
+        RunLengthMask mask = new RunLengthMask(6, 4, 2);
+        float[] rows = {
+                0, 1, 1, 0, 0, 1,
+                0, 0, 0, 0, 0, 0,
+                2, 2, 2, 2, 2, 2
+        };
+        mask.encodeRows(rows, 1, 1, 3);
+
+        assertArrayEquals(new int[]{1, 3, 5, 6}, mask.getRuns(1, 1));
+        assertEquals(0, mask.getRuns(2, 1).length);
+        assertArrayEquals(new int[]{0, 6}, mask.getRuns(3, 1));
+        assertEquals(0, mask.getRuns(1, 0).length);
+        assertEquals(9, mask.countForegroundPixels());
+
+        byte[] slice = mask.toSlice(1);
+        assertEquals(0, slice[6]);
+        assertEquals((byte) 255, slice[7]);
+        assertEquals((byte) 255, slice[11]);
+        assertEquals((byte) 255, slice[18]);
+        assertEquals(0, slice[12]);
+        for (byte pixel : mask.toSlice(0)) {
+            assertEquals(0, pixel);
+        }
+    }
+
+    @Test
+    public void runsOfAllRowsAreSetAtOnce() {
+        // as the kernels deliver them: runs per row z * height + y and all runs row after row
+        RunLengthMask mask = new RunLengthMask(6, 2, 2);
+        mask.setRuns(new int[]{1, 0, 0, 2}, new int[]{0, 6, 1, 2, 4, 5});
+
+        assertArrayEquals(new int[]{0, 6}, mask.getRuns(0, 0));
+        assertEquals(0, mask.getRuns(1, 0).length);
+        assertEquals(0, mask.getRuns(0, 1).length);
+        assertArrayEquals(new int[]{1, 2, 4, 5}, mask.getRuns(1, 1));
+        assertEquals(8, mask.countForegroundPixels());
+    }
+
+    @Test
+    public void shapesCoverTheForeground() {
+        RunLengthMask mask = new RunLengthMask(5, 3, 1);
+        mask.encodeRows(new float[]{
+                0, 1, 1, 0, 0,
+                0, 1, 1, 0, 0,
+                0, 0, 0, 0, 1
+        }, 0, 0, 3);
+
+        Rectangle bounds = mask.toShape(0).getBounds();
+        assertEquals(new Rectangle(1, 0, 4, 3), bounds);
+        assertTrue(mask.toShape(0).contains(1.5, 1.5));
+        assertFalse(mask.toShape(0).contains(3.5, 0.5));
+        assertNull(new RunLengthMask(5, 3, 1).toShape(0));
+    }
+}
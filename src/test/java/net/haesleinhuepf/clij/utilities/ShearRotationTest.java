@@ -0,0 +1,149 @@
+package net.haesleinhuepf.clij.utilities;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ShearRotationTest {
+
+    @Test
+    public void quarterTurnsAreExact() {
+        int width = 7;
+        int height = 5;
+        float[] source = randomImage(width * height, 1);
+
+        for (int k = -2; k <= 3; k++) {
+            double angle = k * Math.PI / 2;
+            float[] result = ShearRotation.rotate2D(source, width, height, width, height, angle, 3, 2);
+
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int sourceX = (int) Math.round(3 + Math.cos(angle) * (x - 3) - Math.sin(angle) * (y - 2));
+                    int sourceY = (int) Math.round(2 + Math.sin(angle) * (x - 3) + Math.cos(angle) * (y - 2));
+                    float expected = sourceX < 0 || sourceY < 0 || sourceX >= width || sourceY >= height ? 0 : source[sourceY * width + sourceX];
+                    assertEquals(expected, result[y * width + x], 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void rotationMatchesSmoothFunction2D() {
+        int width = 80;
+        int height = 60;
+        float[] source = new float[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                source[y * width + x] = smooth(x, y, 0);
+            }
+        }
+
+        double angle = 2.1;
+        float[] result = ShearRotation.rotate2D(source, width, height, width, height, angle, 40, 30);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                double sourceX = 40 + Math.cos(angle) * (x - 40) - Math.sin(angle) * (y - 30);
+                double sourceY = 30 + Math.sin(angle) * (x - 40) + Math.cos(angle) * (y - 30);
+                if (sourceX > 3 && sourceY > 3 && sourceX < width - 4 && sourceY < height - 4) {
+                    assertEquals(smooth(sourceX, sourceY, 0), result[y * width + x], 0.02);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void quarterTurns3DAreComposedAroundZThenYThenX() {
+        int width = 5;
+        int height = 6;
+        int depth = 7;
+        float[] source = randomImage(width * height * depth, 2);
+        int[] center = {2, 3, 3};
+        double[] angles = {Math.PI / 2, -Math.PI / 2, Math.PI};
+
+        float[] result = ShearRotation.rotate3D(source, width, height, depth, width, height, depth, angles[0], angles[1], angles[2], center[0], center[1], center[2]);
+
+        double[][] matrix = rotationMatrix(angles[0], angles[1], angles[2]);
+        for (int z = 0; z < depth; z++) {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int[] sourcePosition = new int[3];
+                    for (int d = 0; d < 3; d++) {
+                        sourcePosition[d] = (int) Math.round(center[d] + matrix[d][0] * (x - center[0]) + matrix[d][1] * (y - center[1]) + matrix[d][2] * (z - center[2]));
+                    }
+                    boolean inside = sourcePosition[0] >= 0 && sourcePosition[1] >= 0 && sourcePosition[2] >= 0 &&
+                            sourcePosition[0] < width && sourcePosition[1] < height && sourcePosition[2] < depth;
+                    float expected = inside ? source[(sourcePosition[2] * height + sourcePosition[1]) * width + sourcePosition[0]] : 0;
+                    assertEquals(expected, result[(z * height + y) * width + x], 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void rotationMatchesSmoothFunction3D() {
+        int size = 40;
+        float[] source = new float[size * size * size];
+        for (int z = 0; z < size; z++) {
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    source[(z * size + y) * size + x] = smooth(x, y, z);
+                }
+            }
+        }
+        double[] angles = {0.3, -0.5, 0.7};
+        float[] result = ShearRotation.rotate3D(source, size, size, size, size, size, size, angles[0], angles[1], angles[2], 20, 20, 20);
+
+        double[][] matrix = rotationMatrix(angles[0], angles[1], angles[2]);
+        for (int z = 0; z < size; z++) {
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    double[] position = new double[3];
+                    boolean inside = true;
+                    for (int d = 0; d < 3; d++) {
+                        position[d] = 20 + matrix[d][0] * (x - 20) + matrix[d][1] * (y - 20) + matrix[d][2] * (z - 20);
+                        inside = inside && position[d] > 3 && position[d] < size - 4;
+                    }
+                    if (inside) {
+                        assertEquals(smooth(position[0], position[1], position[2]), result[(z * size + y) * size + x], 0.03);
+                    }
+                }
+            }
+        }
+    }
+
+    private static float smooth(double x, double y, double z) {
+        return (float) (Math.sin(x / 6.0) + Math.cos(y / 8.0) + Math.sin(z / 7.0 + 1));
+    }
+
+    private static float[] randomImage(int numberOfPixels, long seed) {
+        Random random = new Random(seed);
+        float[] image = new float[numberOfPixels];
+        for (int i = 0; i < image.length; i++) {
+            image[i] = random.nextFloat();
+        }
+        return image;
+    }
+
+    // Rz * Ry * Rx as built by imglib2's AffineTransform3D.rotate(0, x), rotate(1, y), rotate(2, z)
+    private static double[][] rotationMatrix(double angleX, double angleY, double angleZ) {
+        double[][] rx = {{1, 0, 0}, {0, Math.cos(angleX), -Math.sin(angleX)}, {0, Math.sin(angleX), Math.cos(angleX)}};
+        double[][] ry = {{Math.cos(angleY), 0, Math.sin(angleY)}, {0, 1, 0}, {-Math.sin(angleY), 0, Math.cos(angleY)}};
+        double[][] rz = {{Math.cos(angleZ), -Math.sin(angleZ), 0}, {Math.sin(angleZ), Math.cos(angleZ), 0}, {0, 0, 1}};
+        return multiply(rz, multiply(ry, rx));
+    }
+
+    private static double[][] multiply(double[][] a, double[][] b) {
+        double[][] result = new double[3][3];
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                for (int k = 0; k < 3; k++) {
+                    result[i][j] += a[i][k] * b[k][j];
+                }
+            }
+        }
+        return result;
+    }
+}
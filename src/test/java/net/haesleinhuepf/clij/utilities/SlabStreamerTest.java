@@ -0,0 +1,65 @@
+package net.haesleinhuepf.clij.utilities;
+
+import net.haesleinhuepf.clij.coremem.enums.NativeTypeEnum;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class SlabStreamerTest {
+
+    @Test
+    public void conversionInParallelChunksMatchesPixelByPixel() {
+        int chunkSize = SlabStreamer.conversionChunkSize;
+        SlabStreamer.conversionChunkSize = 1000;
+        try {
+            float[] source = new float[10007];
+            for (int i = 0; i < source.length; i++) {
+                source[i] = i * 10 - 5000;
+            }
+            for (NativeTypeEnum type : new NativeTypeEnum[]{NativeTypeEnum.UnsignedByte, NativeTypeEnum.Short, NativeTypeEnum.UnsignedInt, NativeTypeEnum.Float}) {
+                ByteBuffer bytes = SlabStreamer.allocate(source.length * type.getSizeInBytes());
+                SlabStreamer.fromFloat(source, type, bytes);
+                float[] target = new float[source.length];
+                SlabStreamer.toFloat(bytes, type, target);
+
+                for (int i = 0; i < source.length; i++) {
+                    float expected = source[i];
+                    if (type == NativeTypeEnum.UnsignedByte) {
+                        expected = Math.max(0, Math.min(255, expected));
+                    } else if (type == NativeTypeEnum.Short) {
+                        expected = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, expected));
+                    } else if (type == NativeTypeEnum.UnsignedInt) {
+                        expected = Math.max(0, expected);
+                    }
+                    assertEquals(expected, target[i], 0);
+                }
+            }
+        } finally {
+            SlabStreamer.conversionChunkSize = chunkSize;
+        }
+    }
+
+    @Test
+    public void stagingMemoryIsReusedUpToTheSlabSize() {
+        ByteBuffer first = SlabStreamer.staging(100);
+        assertEquals(100, first.remaining());
+        ByteBuffer second = SlabStreamer.staging(50);
+        assertSame(first, second);
+        assertEquals(50, second.remaining());
+
+        long maximum = SlabStreamer.maximumSlabSizeInBytes;
+        SlabStreamer.maximumSlabSizeInBytes = 10;
+        try {
+            assertNotSame(SlabStreamer.staging(20), SlabStreamer.staging(20));
+        } finally {
+            SlabStreamer.maximumSlabSizeInBytes = maximum;
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void stagingMemoryLargerThan2GBIsRejected() {
+        SlabStreamer.staging(Integer.MAX_VALUE + 1L);
+    }
+}
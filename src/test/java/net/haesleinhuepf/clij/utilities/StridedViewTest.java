@@ -0,0 +1,98 @@
+package net.haesleinhuepf.clij.utilities;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StridedViewTest {
+    private static final long[] dimensions = {4, 3, 2};
+
+    private float[] createStack() {
+        float[] stack = new float[(int) (dimensions[0] * dimensions[1] * dimensions[2])];
+        for (int i = 0; i < stack.length; i++) {
+            stack[i] = i + 1;
+        }
+        return stack;
+    }
+
+    private static float get(float[] image, long[] dimensions, int x, int y, int z) {
+        return image[(int) ((z * dimensions[1] + y) * dimensions[0] + x)];
+    }
+
+    /**
+     * Copies the pixels of the view into contiguous memory, as the strided_view kernels do in GPU memory.
+     */
+    private static float[] gather(StridedView view, float[] source, long[] sourceDimensions, long[] viewDimensions) {
+        int[] origin = view.getOrigin();
+        int[][] matrix = view.getMatrix();
+        long offset = view.getOffset(sourceDimensions);
+        long[] strides = view.getStrides(sourceDimensions);
+        float[] result = new float[(int) (viewDimensions[0] * viewDimensions[1] * viewDimensions[2])];
+        int target = 0;
+        for (int z = 0; z < viewDimensions[2]; z++) {
+            for (int y = 0; y < viewDimensions[1]; y++) {
+                for (int x = 0; x < viewDimensions[0]; x++) {
+                    boolean inside = true;
+                    for (int d = 0; d < 3; d++) {
+                        int position = origin[d] + matrix[d][0] * x + matrix[d][1] * y + matrix[d][2] * z;
+                        inside = inside && position >= 0 && position < sourceDimensions[d];
+                    }
+                    if (inside) {
+                        result[target] = source[(int) (offset + strides[0] * x + strides[1] * y + strides[2] * z)];
+                    }
+                    target++;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void flipAndRotate() {
+        float[] stack = createStack();
+
+        float[] flipped = gather(StridedView.flip(dimensions, true, false, true), stack, dimensions, dimensions);
+        assertEquals(get(stack, dimensions, 3, 1, 1), get(flipped, dimensions, 0, 1, 0), 0);
+
+        long[] rotatedDimensions = {3, 4, 2};
+        float[] left = gather(StridedView.rotateLeft(dimensions), stack, dimensions, rotatedDimensions);
+        float[] right = gather(StridedView.rotateRight(dimensions), stack, dimensions, rotatedDimensions);
+        // the top right corner ends up top left when rotating counter-clockwise
+        assertEquals(get(stack, dimensions, 3, 0, 1), get(left, rotatedDimensions, 0, 0, 1), 0);
+        // the top left corner ends up top right when rotating clockwise
+        assertEquals(get(stack, dimensions, 0, 0, 1), get(right, rotatedDimensions, 2, 0, 1), 0);
+
+        float[] back = gather(StridedView.rotateRight(rotatedDimensions), left, rotatedDimensions, dimensions);
+        assertArrayEquals(stack, back, 0);
+    }
+
+    @Test
+    public void composedViewEqualsSequentialCopies() {
+        float[] stack = createStack();
+        long[] rotatedDimensions = {3, 4, 2};
+        long[] reslicedDimensions = {3, 2, 4};
+
+        StridedView first = StridedView.flip(dimensions, false, true, false);
+        StridedView second = StridedView.rotateLeft(dimensions);
+        StridedView third = StridedView.resliceTop();
+
+        float[] sequential = gather(first, stack, dimensions, dimensions);
+        sequential = gather(second, sequential, dimensions, rotatedDimensions);
+        sequential = gather(third, sequential, rotatedDimensions, reslicedDimensions);
+
+        float[] composed = gather(third.after(second.after(first)), stack, dimensions, reslicedDimensions);
+        assertArrayEquals(sequential, composed, 0);
+    }
+
+    @Test
+    public void offsetAndStrides() {
+        StridedView view = StridedView.flip(dimensions, true, false, false);
+        assertEquals(3, view.getOffset(dimensions));
+        assertArrayEquals(new long[]{-1, 4, 12}, view.getStrides(dimensions));
+
+        StridedView resliced = StridedView.resliceLeft();
+        assertEquals(0, resliced.getOffset(dimensions));
+        assertArrayEquals(new long[]{4, 12, 1}, resliced.getStrides(dimensions));
+    }
+
+}
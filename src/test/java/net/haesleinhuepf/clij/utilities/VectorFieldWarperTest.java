@@ -0,0 +1,147 @@
+package net.haesleinhuepf.clij.utilities;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class VectorFieldWarperTest {
+
+    @Test
+    public void fullResolutionFieldMatchesDirectWarp() {
+        int width = 13;
+        int height = 11;
+        int depth = 9;
+        float[] source = randomImage(width * height * depth, 1);
+        float[] vectorX = randomField(width * height * depth, 2, 3);
+        float[] vectorY = randomField(width * height * depth, 3, 3);
+        float[] vectorZ = randomField(width * height * depth, 4, 2);
+
+        VectorFieldWarper warper = new VectorFieldWarper(width, height, depth, vectorX, vectorY, vectorZ, width, height, depth);
+        float[] result = warp(warper, source, width * height, depth, 2);
+
+        for (int z = 0; z < depth; z++) {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int i = (z * height + y) * width + x;
+                    float expected = linear(source, width, height, depth, x + vectorX[i], y + vectorY[i], z + vectorZ[i]);
+                    assertEquals(expected, result[i], 0.0001);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void lowResolutionFieldIsInterpolated() {
+        int width = 16;
+        int height = 12;
+        int depth = 8;
+        float[] source = randomImage(width * height * depth, 5);
+
+        // a field downsampled by 4 which is linear in x is reproduced exactly between its outermost sample centers
+        int fieldWidth = width / 4;
+        int fieldHeight = height / 4;
+        int fieldDepth = depth / 4;
+        float[] vectorX = new float[fieldWidth * fieldHeight * fieldDepth];
+        float[] vectorY = new float[vectorX.length];
+        float[] vectorZ = new float[vectorX.length];
+        for (int i = 0; i < vectorX.length; i++) {
+            int x = i % fieldWidth;
+            vectorX[i] = 0.5f * (4 * x + 1.5f);
+            vectorY[i] = -1;
+            vectorZ[i] = 1;
+        }
+
+        VectorFieldWarper warper = new VectorFieldWarper(width, height, depth, vectorX, vectorY, vectorZ, fieldWidth, fieldHeight, fieldDepth);
+        float[] result = warp(warper, source, width * height, depth, 3);
+
+        for (int z = 0; z < depth; z++) {
+            for (int y = 0; y < height; y++) {
+                for (int x = 2; x < width - 2; x++) {
+                    int i = (z * height + y) * width + x;
+                    float expected = linear(source, width, height, depth, x + 0.5f * x, y - 1, z + 1);
+                    assertEquals(expected, result[i], 0.0001);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void onlyReachableSourceSlicesAreFetched() {
+        int width = 4;
+        int height = 4;
+        int depth = 20;
+        float[] source = randomImage(width * height * depth, 6);
+        float[] zero = new float[1];
+        float[] vectorZ = {1.5f};
+
+        VectorFieldWarper warper = new VectorFieldWarper(width, height, depth, zero, zero, vectorZ, 1, 1, 1);
+        int planeSize = width * height;
+        int[] fetchedSlices = new int[1];
+        float[] result = new float[source.length];
+        warper.warp((zFrom, slabDepth) -> {
+            fetchedSlices[0] += slabDepth;
+            float[] slab = new float[slabDepth * planeSize];
+            System.arraycopy(source, zFrom * planeSize, slab, 0, slab.length);
+            return slab;
+        }, (slab, zFrom, slabDepth) -> System.arraycopy(slab, 0, result, zFrom * planeSize, slab.length), 5);
+
+        // every slab of 5 slices needs 6 source slices, the last one is clipped at the border
+        assertTrue(fetchedSlices[0] <= 4 * 6);
+        for (int i = 0; i < source.length; i++) {
+            float expected = linear(source, width, height, depth, i % width, (i / width) % height, i / planeSize + 1.5f);
+            assertEquals(expected, result[i], 0.0001);
+        }
+    }
+
+    private static float[] warp(VectorFieldWarper warper, float[] source, int planeSize, int depth, int slabDepth) {
+        float[] result = new float[planeSize * depth];
+        warper.warp((zFrom, currentSlabDepth) -> {
+            float[] slab = new float[currentSlabDepth * planeSize];
+            System.arraycopy(source, zFrom * planeSize, slab, 0, slab.length);
+            return slab;
+        }, (slab, zFrom, currentSlabDepth) -> System.arraycopy(slab, 0, result, zFrom * planeSize, slab.length), slabDepth);
+        return result;
+    }
+
+    private static float linear(float[] source, int width, int height, int depth, float x, float y, float z) {
+        int x0 = (int) Math.floor(x);
+        int y0 = (int) Math.floor(y);
+        int z0 = (int) Math.floor(z);
+        float result = 0;
+        for (int dz = 0; dz < 2; dz++) {
+            for (int dy = 0; dy < 2; dy++) {
+                for (int dx = 0; dx < 2; dx++) {
+                    int sx = x0 + dx;
+                    int sy = y0 + dy;
+                    int sz = z0 + dz;
+                    if (sx < 0 || sy < 0 || sz < 0 || sx >= width || sy >= height || sz >= depth) {
+                        continue;
+                    }
+                    float weight = (dx == 0 ? 1 - (x - x0) : x - x0) * (dy == 0 ? 1 - (y - y0) : y - y0) * (dz == 0 ? 1 - (z - z0) : z - z0);
+                    result += source[(sz * height + sy) * width + sx] * weight;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static float[] randomImage(int size, long seed) {
+        Random random = new Random(seed);
+        float[] image = new float[size];
+        for (int i = 0; i < size; i++) {
+            image[i] = random.nextFloat() * 100;
+        }
+        return image;
+    }
+
+    private static float[] randomField(int size, long seed, float amplitude) {
+        Random random = new Random(seed);
+        float[] field = new float[size];
+        for (int i = 0; i < size; i++) {
+            field[i] = (random.nextFloat() * 2 - 1) * amplitude;
+        }
+        return field;
+    }
+}